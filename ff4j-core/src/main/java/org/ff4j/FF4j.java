@@ -20,23 +20,39 @@ package org.ff4j;
  * #L%
  */
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.ff4j.audit.Event;
 import org.ff4j.audit.EventPublisher;
 import org.ff4j.audit.EventRepository;
 import org.ff4j.audit.EventType;
 import org.ff4j.audit.InMemoryEventRepository;
+import org.ff4j.core.BulkFeatureStore;
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
 import org.ff4j.core.FeatureXmlParser;
+import org.ff4j.core.FeatureXmlWriter;
 import org.ff4j.core.FlippingExecutionContext;
 import org.ff4j.core.FlippingStrategy;
+import org.ff4j.core.VisitableFeatureStore;
 import org.ff4j.exception.FeatureNotFoundException;
 import org.ff4j.security.AuthorizationsManager;
 import org.ff4j.store.InMemoryFeatureStore;
+import org.ff4j.utils.FeatureJsonWriter;
 
 /**
  * Main class, it allows to work with features.
@@ -64,6 +80,9 @@ import org.ff4j.store.InMemoryFeatureStore;
  */
 public class FF4j {
 
+    /** Encoding of exports written to output streams. */
+    private static final Charset EXPORT_ENCODING = Charset.forName("UTF-8");
+
     /** Storage to persist feature within {@link FeatureStore}. */
     private FeatureStore store = new InMemoryFeatureStore();
 
@@ -79,6 +98,12 @@ public class FF4j {
     /** Do not through {@link FeatureNotFoundException} exception and but feature is required. */
     private boolean autocreate = false;
 
+    /** Evaluate features against an immutable snapshot of the store instead of reading the store at each check. */
+    private boolean snapshotEnabled = false;
+
+    /** Snapshot engine, created from store when snapshot is enabled. */
+    private FeatureSnapshotEngine snapshotEngine = null;
+
     /** Intialisation. */
     private final long startTime = System.currentTimeMillis();
 
@@ -129,23 +154,138 @@ public class FF4j {
      * @return current feature status
      */
     public boolean check(String featureID, FlippingExecutionContext executionContext) {
-        Feature fp = getFeature(featureID);
+        return evaluate(readFeature(featureID), executionContext);
+    }
+
+    /**
+     * Ask if flipped using a pre-resolved handle.
+     * 
+     * @param handle
+     *            feature handle, see {@link #handle(String)}
+     * @param executionContext
+     *            current execution context
+     * @return current feature status
+     */
+    public boolean check(FeatureHandle handle, FlippingExecutionContext executionContext) {
+        if (handle == null) {
+            throw new IllegalArgumentException("Feature handle (param#0) cannot be null");
+        }
+        FeatureSnapshotEngine engine = handle.getEngine();
+        if (engine != null && engine == snapshotEngine) {
+            Feature fp = engine.getSnapshot().get(handle.getSlot());
+            if (fp != null) {
+                return evaluate(fp, executionContext);
+            }
+        }
+        return check(handle.getFeatureID(), executionContext);
+    }
+
+    /**
+     * Resolve a feature once to get an handle on it. When snapshot is enabled, checks done through the handle read the snapshot by
+     * index without looking up the feature identifier.
+     * 
+     * @param featureID
+     *            feature unique identifier.
+     * @return handle on the feature
+     */
+    public FeatureHandle handle(String featureID) {
+        if (featureID == null || featureID.isEmpty()) {
+            throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
+        }
+        FeatureSnapshotEngine engine = getSnapshotEngine();
+        if (engine == null) {
+            return new FeatureHandle(this, featureID, null, FeatureSnapshotEngine.NO_SLOT);
+        }
+        return new FeatureHandle(this, featureID, engine, engine.slotOf(featureID));
+    }
+
+    /**
+     * Evaluate a feature against security and flipping strategy.
+     * 
+     * @param fp
+     *            feature to evaluate
+     * @param executionContext
+     *            current execution context
+     * @return current feature status
+     */
+    private boolean evaluate(Feature fp, FlippingExecutionContext executionContext) {
+        boolean flipped = evaluate(fp, null, executionContext);
+
+        // Any access is logged into audit system
+        getEventPublisher().publish(fp.getUid(), flipped);
+
+        return flipped;
+    }
+
+    /**
+     * Evaluate a feature against security and flipping strategy without publishing audit event.
+     * 
+     * @param fp
+     *            feature to evaluate
+     * @param userRoles
+     *            permissions of current user, retrieved from {@link AuthorizationsManager} if null
+     * @param executionContext
+     *            current execution context
+     * @return current feature status
+     */
+    private boolean evaluate(Feature fp, Set<String> userRoles, FlippingExecutionContext executionContext) {
         boolean flipped = fp.isEnable();
 
         // If authorization manager provided, apply security filter
         if (flipped && getAuthorizationsManager() != null) {
-            flipped = flipped && isAllowed(fp);
+            if (userRoles == null) {
+                userRoles = getAuthorizationsManager().getCurrentUserPermissions();
+            }
+            flipped = flipped && isAllowed(fp, userRoles);
         }
 
         // If custom strategy has been defined, delegate flipping to
         if (flipped && fp.getFlippingStrategy() != null) {
-            flipped = flipped && fp.getFlippingStrategy().evaluate(featureID, getStore(), executionContext);
+            flipped = flipped && fp.getFlippingStrategy().evaluate(fp.getUid(), getStore(), executionContext);
         }
+        return flipped;
+    }
 
-        // Any access is logged into audit system
-        getEventPublisher().publish(featureID, flipped);
+    /**
+     * Ask if flipped for a set of features at once. Features are read with a single access to the store when it supports it
+     * ({@link BulkFeatureStore}) or from the snapshot, user permissions are resolved only once and audit events are handed to the
+     * publisher in a single call.
+     * 
+     * @param featureIDs
+     *            features unique identifiers.
+     * @param executionContext
+     *            current execution context
+     * @return status of each feature, in the order of the identifiers
+     */
+    public Map<String, Boolean> checkAll(Collection<String> featureIDs, FlippingExecutionContext executionContext) {
+        if (featureIDs == null) {
+            throw new IllegalArgumentException("Feature identifiers (param#0) cannot be null");
+        }
+        Map<String, Boolean> results = new LinkedHashMap<String, Boolean>();
+        if (featureIDs.isEmpty()) {
+            return results;
+        }
+        Map<String, Feature> features = readFeatures(featureIDs);
+        Set<String> userRoles = null;
+        if (getAuthorizationsManager() != null) {
+            userRoles = getAuthorizationsManager().getCurrentUserPermissions();
+        }
+        List<Event> events = new ArrayList<Event>(featureIDs.size());
+        for (String featureID : featureIDs) {
+            Feature fp = features.get(featureID);
+            if (fp == null) {
+                // Not found : autocreate or FeatureNotFoundException
+                fp = readFeature(featureID);
+            }
+            boolean flipped = evaluate(fp, userRoles, executionContext);
+            results.put(featureID, flipped);
+            events.add(new Event(featureID, flipped ? EventType.HIT_FLIPPED : EventType.HIT_NOT_FLIPPED));
+        }
 
-        return flipped;
+        // Accesses are logged into audit system in a single batch
+        getEventPublisher().publish(events);
+
+        return results;
     }
 
     /**
@@ -171,7 +311,7 @@ public class FF4j {
      * @return
      */
     public boolean checkOveridingStrategy(String featureID, FlippingStrategy strats, FlippingExecutionContext executionContext) {
-        Feature fp = getFeature(featureID);
+        Feature fp = readFeature(featureID);
         boolean flipped = fp.isEnable() && isAllowed(fp);
         if (strats != null) {
             flipped = flipped && strats.evaluate(featureID, getStore(), executionContext);
@@ -195,7 +335,19 @@ public class FF4j {
         if (getAuthorizationsManager() == null) {
             return true;
         }
-        Set<String> userRoles = getAuthorizationsManager().getCurrentUserPermissions();
+        return isAllowed(featureName, getAuthorizationsManager().getCurrentUserPermissions());
+    }
+
+    /**
+     * Check feature permissions against roles of current user.
+     * 
+     * @param featureName
+     *            target name of the feature
+     * @param userRoles
+     *            permissions of current user
+     * @return if the feature is allowed
+     */
+    private boolean isAllowed(Feature featureName, Set<String> userRoles) {
         for (String expectedRole : featureName.getPermissions()) {
             if (userRoles.contains(expectedRole)) {
                 return true;
@@ -228,6 +380,7 @@ public class FF4j {
             }
             throw fnfe;
         }
+        refreshSnapshot(featureID);
         getEventPublisher().publish(featureID, EventType.ENABLE);
         return this;
     }
@@ -241,6 +394,7 @@ public class FF4j {
      */
     public FF4j enableGroup(String groupName) {
         getStore().enableGroup(groupName);
+        refreshSnapshotGroup(groupName);
         getEventPublisher().publish(groupName, EventType.ENABLE_GROUP);
         return this;
     }
@@ -253,7 +407,8 @@ public class FF4j {
      * @return current instance
      */
     public FF4j disableGroup(String groupName) {
-        getStore().enableGroup(groupName);
+        getStore().disableGroup(groupName);
+        refreshSnapshotGroup(groupName);
         getEventPublisher().publish(groupName, EventType.DISABLE_GROUP);
         return this;
     }
@@ -266,10 +421,53 @@ public class FF4j {
      */
     public FF4j create(Feature fp) {
         getStore().create(fp);
+        refreshSnapshot(fp.getUid());
         getEventPublisher().publish(fp.getUid(), EventType.CREATE);
         return this;
     }
 
+    /**
+     * Update existing Feature.
+     * 
+     * @param fp
+     *            feature with new values
+     */
+    public FF4j update(Feature fp) {
+        getStore().update(fp);
+        refreshSnapshot(fp.getUid());
+        getEventPublisher().publish(fp.getUid(), EventType.UPDATE);
+        return this;
+    }
+
+    /**
+     * Import features : features which do not exist are created, others are updated. Writes are batched when the store supports
+     * it ({@link BulkFeatureStore}).
+     * 
+     * @param features
+     *            features to import
+     */
+    public FF4j importFeatures(Collection<Feature> features) {
+        if (features == null) {
+            throw new IllegalArgumentException("Features (param#0) cannot be null");
+        }
+        if (getStore() instanceof BulkFeatureStore) {
+            ((BulkFeatureStore) getStore()).upsertAll(features);
+        } else {
+            for (Feature feature : features) {
+                if (getStore().exist(feature.getUid())) {
+                    getStore().update(feature);
+                } else {
+                    getStore().create(feature);
+                }
+            }
+        }
+        // Single reload instead of copying the snapshot for each feature
+        if (snapshotEngine != null) {
+            snapshotEngine.reload();
+        }
+        return this;
+    }
+
     /**
      * Create new Feature.
      * 
@@ -315,6 +513,7 @@ public class FF4j {
             }
             throw fnfe;
         }
+        refreshSnapshot(featureID);
         getEventPublisher().publish(featureID, EventType.DISABLE);
         return this;
     }
@@ -345,6 +544,7 @@ public class FF4j {
             if (this.autocreate) {
                 fp = new Feature(featureID, false);
                 getStore().create(fp);
+                refreshSnapshot(featureID);
             } else {
                 throw fnfe;
             }
@@ -352,6 +552,82 @@ public class FF4j {
         return fp;
     }
 
+    /**
+     * Read feature to be evaluated, from snapshot if enabled and from store otherwise.
+     * 
+     * @param featureID
+     *            target feature ID
+     * @return target feature
+     */
+    private Feature readFeature(String featureID) {
+        FeatureSnapshotEngine engine = getSnapshotEngine();
+        if (engine != null) {
+            Feature fp = engine.read(featureID);
+            if (fp != null) {
+                return fp;
+            }
+            // Not in snapshot : read through, snapshot is refreshed only if feature has been created in store from now
+            try {
+                fp = getStore().read(featureID);
+            } catch (FeatureNotFoundException fnfe) {
+                // Autocreate (refreshes snapshot) or error
+                return getFeature(featureID);
+            }
+            engine.refresh(featureID);
+            return fp;
+        }
+        return getFeature(featureID);
+    }
+
+    /**
+     * Read features to be evaluated, from snapshot if enabled and from store otherwise (only requested features are read, at once
+     * if store supports it). Features not found are not in the map.
+     * 
+     * @param featureIDs
+     *            requested features
+     * @return features indexed by identifier
+     */
+    private Map<String, Feature> readFeatures(Collection<String> featureIDs) {
+        FeatureSnapshotEngine engine = getSnapshotEngine();
+        if (engine != null) {
+            return engine.getSnapshot().getFeatures();
+        }
+        if (getStore() instanceof BulkFeatureStore) {
+            return ((BulkFeatureStore) getStore()).readAll(featureIDs);
+        }
+        Map<String, Feature> features = new LinkedHashMap<String, Feature>();
+        for (String featureID : featureIDs) {
+            if (!features.containsKey(featureID)) {
+                features.put(featureID, getFeature(featureID));
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Publish a new snapshot after modification of a feature (if enabled).
+     * 
+     * @param featureID
+     *            target feature ID
+     */
+    private void refreshSnapshot(String featureID) {
+        if (snapshotEngine != null) {
+            snapshotEngine.refresh(featureID);
+        }
+    }
+
+    /**
+     * Publish a new snapshot after modification of a group (if enabled).
+     * 
+     * @param groupName
+     *            target group name
+     */
+    private void refreshSnapshotGroup(String groupName) {
+        if (snapshotEngine != null) {
+            snapshotEngine.refreshGroup(groupName);
+        }
+    }
+
     /**
      * Export Feature through FF4J.
      * 
@@ -362,6 +638,86 @@ public class FF4j {
         return new FeatureXmlParser().exportFeatures(getStore().readAll());
     }
 
+    /**
+     * Export features as XML directly to an output stream (UTF-8), the export is never fully loaded in memory when the store
+     * supports iteration ({@link VisitableFeatureStore}).
+     * 
+     * @param out
+     *            target output stream (not closed)
+     * @throws IOException
+     *             error when writing features
+     */
+    public void exportFeatures(OutputStream out) throws IOException {
+        exportFeatures(new BufferedWriter(new OutputStreamWriter(out, EXPORT_ENCODING)));
+    }
+
+    /**
+     * Export features as XML directly to a writer.
+     * 
+     * @param out
+     *            target writer (flushed, not closed)
+     * @throws IOException
+     *             error when writing features
+     */
+    public void exportFeatures(Writer out) throws IOException {
+        FeatureXmlWriter xmlWriter = new FeatureXmlWriter(out);
+        xmlWriter.writeStartDocument();
+        if (getStore() instanceof VisitableFeatureStore) {
+            ((VisitableFeatureStore) getStore()).visitAll(xmlWriter);
+        } else {
+            // Sort by group to produce a single tag per group
+            Map<String, Feature> features = getStore().readAll();
+            List<Feature> sorted = new ArrayList<Feature>(features.values());
+            Collections.sort(sorted, new Comparator<Feature>() {
+                /** {@inheritDoc} */
+                @Override
+                public int compare(Feature f1, Feature f2) {
+                    String g1 = f1.getGroup() == null ? "" : f1.getGroup();
+                    String g2 = f2.getGroup() == null ? "" : f2.getGroup();
+                    return g1.compareTo(g2);
+                }
+            });
+            for (Feature feature : sorted) {
+                xmlWriter.writeFeature(feature);
+            }
+        }
+        xmlWriter.writeEndDocument();
+    }
+
+    /**
+     * Export features as a JSON array directly to an output stream (UTF-8).
+     * 
+     * @param out
+     *            target output stream (not closed)
+     * @throws IOException
+     *             error when writing features
+     */
+    public void exportFeaturesAsJson(OutputStream out) throws IOException {
+        exportFeaturesAsJson(new BufferedWriter(new OutputStreamWriter(out, EXPORT_ENCODING)));
+    }
+
+    /**
+     * Export features as a JSON array directly to a writer.
+     * 
+     * @param out
+     *            target writer (flushed, not closed)
+     * @throws IOException
+     *             error when writing features
+     */
+    public void exportFeaturesAsJson(Writer out) throws IOException {
+        FeatureJsonWriter jsonWriter = new FeatureJsonWriter(out);
+        jsonWriter.writeStartArray();
+        if (getStore() instanceof VisitableFeatureStore) {
+            ((VisitableFeatureStore) getStore()).visitAll(jsonWriter);
+        } else {
+            for (Feature feature : getStore().readAll().values()) {
+                jsonWriter.writeFeature(feature);
+            }
+        }
+        jsonWriter.writeEndArray();
+        jsonWriter.flush();
+    }
+
     /**
      * Enable autocreation of features when not found.
      * 
@@ -374,6 +730,18 @@ public class FF4j {
         return this;
     }
 
+    /**
+     * Evaluate features against an immutable snapshot of the store.
+     * 
+     * @param flag
+     *            target value for snapshot flag
+     * @return current instance
+     */
+    public FF4j snapshot(boolean flag) {
+        setSnapshotEnabled(flag);
+        return this;
+    }
+
     /**
      * Delete feature name.
      * 
@@ -382,6 +750,9 @@ public class FF4j {
      */
     public FF4j delete(String fpId) {
         getStore().delete(fpId);
+        if (snapshotEngine != null) {
+            snapshotEngine.remove(fpId);
+        }
         getEventPublisher().publish(fpId, EventType.DELETE);
         return this;
     }
@@ -438,6 +809,11 @@ public class FF4j {
      */
     public void setStore(FeatureStore fbs) {
         this.store = fbs;
+        // Snapshot is rebuilt from new store
+        this.snapshotEngine = null;
+        if (snapshotEnabled && fbs != null) {
+            this.snapshotEngine = new FeatureSnapshotEngine(fbs);
+        }
     }
 
     /**
@@ -519,4 +895,36 @@ public class FF4j {
         return autocreate;
     }
 
+    /**
+     * Getter accessor for attribute 'snapshotEnabled'.
+     *
+     * @return current value of 'snapshotEnabled'
+     */
+    public boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'snapshotEnabled'.
+     * 
+     * @param snapshotEnabled
+     *            new value for 'snapshotEnabled '
+     */
+    public void setSnapshotEnabled(boolean snapshotEnabled) {
+        this.snapshotEnabled = snapshotEnabled;
+        this.snapshotEngine = null;
+        if (snapshotEnabled && getStore() != null) {
+            this.snapshotEngine = new FeatureSnapshotEngine(getStore());
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'snapshotEngine'.
+     *
+     * @return current value of 'snapshotEngine' or null if snapshot is not enabled
+     */
+    public FeatureSnapshotEngine getSnapshotEngine() {
+        return snapshotEngine;
+    }
+
 }
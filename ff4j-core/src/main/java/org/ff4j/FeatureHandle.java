@@ -0,0 +1,122 @@
+package org.ff4j;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.ff4j.core.FlippingExecutionContext;
+
+/**
+ * Feature identifier resolved once to a slot of the {@link FeatureSnapshot}, obtained through {@link FF4j#handle(String)}.
+ *
+ * <p>
+ * Handles are meant to be kept in fields and reused on hot paths. If snapshot is not enabled, if the feature did not exist when
+ * the handle was resolved, or if the snapshot engine has been rebuilt since (store changed), checks fall back to
+ * {@link FF4j#check(String, FlippingExecutionContext)}.
+ * </p>
+ *
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public final class FeatureHandle {
+
+    /** Owner of the handle. */
+    private final FF4j ff4j;
+
+    /** Unique feature identifier. */
+    private final String featureID;
+
+    /** Engine the slot has been resolved against, null if snapshot was not enabled. */
+    private final FeatureSnapshotEngine engine;
+
+    /** Slot of the feature in snapshots of {@link #engine}. */
+    private final int slot;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param ff4j
+     *            owner of the handle
+     * @param featureID
+     *            unique feature identifier
+     * @param engine
+     *            engine used to resolve slot
+     * @param slot
+     *            resolved slot
+     */
+    FeatureHandle(FF4j ff4j, String featureID, FeatureSnapshotEngine engine, int slot) {
+        this.ff4j = ff4j;
+        this.featureID = featureID;
+        this.engine = engine;
+        this.slot = slot;
+    }
+
+    /**
+     * Ask if flipped.
+     *
+     * @return current feature status
+     */
+    public boolean check() {
+        return ff4j.check(this, null);
+    }
+
+    /**
+     * Ask if flipped.
+     *
+     * @param executionContext
+     *            current execution context
+     * @return current feature status
+     */
+    public boolean check(FlippingExecutionContext executionContext) {
+        return ff4j.check(this, executionContext);
+    }
+
+    /**
+     * Getter accessor for attribute 'featureID'.
+     *
+     * @return current value of 'featureID'
+     */
+    public String getFeatureID() {
+        return featureID;
+    }
+
+    /**
+     * Getter accessor for attribute 'engine'.
+     *
+     * @return current value of 'engine'
+     */
+    FeatureSnapshotEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Getter accessor for attribute 'slot'.
+     *
+     * @return current value of 'slot'
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "FeatureHandle [featureID=" + featureID + ", slot=" + slot + "]";
+    }
+
+}
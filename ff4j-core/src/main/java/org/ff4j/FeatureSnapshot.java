@@ -0,0 +1,147 @@
+package org.ff4j;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.ff4j.core.Feature;
+
+/**
+ * Immutable and versioned view of all features of a store at a given time.
+ *
+ * <p>
+ * A snapshot is never modified once published by {@link FeatureSnapshotEngine}, features it holds are private copies and must be
+ * considered as read-only.
+ * </p>
+ *
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public final class FeatureSnapshot {
+
+    /** Version of the snapshot, incremented at each publication. */
+    private final long version;
+
+    /** Creation date of the snapshot. */
+    private final long creationDate;
+
+    /** Features of the snapshot. */
+    private final Map<String, Feature> features;
+
+    /** Features indexed by slot, slots are assigned by {@link FeatureSnapshotEngine} and stable accross versions. */
+    private final Feature[] slots;
+
+    /**
+     * Parameterized constructor.
+     *
+     * @param version
+     *            version of the snapshot
+     * @param features
+     *            features of the snapshot (map must not be shared)
+     * @param slots
+     *            features indexed by slot (array must not be shared)
+     */
+    FeatureSnapshot(long version, Map<String, Feature> features, Feature[] slots) {
+        this.version = version;
+        this.creationDate = System.currentTimeMillis();
+        this.features = Collections.unmodifiableMap(features);
+        this.slots = slots;
+    }
+
+    /**
+     * Read feature from snapshot.
+     *
+     * @param featureID
+     *            target feature identifier
+     * @return feature if present in snapshot or null
+     */
+    public Feature get(String featureID) {
+        return features.get(featureID);
+    }
+
+    /**
+     * Read feature from snapshot through its slot.
+     *
+     * @param slot
+     *            slot of the feature, see {@link FeatureSnapshotEngine#slotOf(String)}
+     * @return feature if present in snapshot or null
+     */
+    public Feature get(int slot) {
+        if (slot < 0 || slot >= slots.length) {
+            return null;
+        }
+        return slots[slot];
+    }
+
+    /**
+     * Check if feature is present in snapshot.
+     *
+     * @param featureID
+     *            target feature identifier
+     * @return if feature is present in snapshot
+     */
+    public boolean contains(String featureID) {
+        return features.containsKey(featureID);
+    }
+
+    /**
+     * Number of features in the snapshot.
+     *
+     * @return number of features
+     */
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * Getter accessor for attribute 'version'.
+     *
+     * @return current value of 'version'
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Getter accessor for attribute 'creationDate'.
+     *
+     * @return current value of 'creationDate'
+     */
+    public long getCreationDate() {
+        return creationDate;
+    }
+
+    /**
+     * Getter accessor for attribute 'features'.
+     *
+     * @return current value of 'features'
+     */
+    public Map<String, Feature> getFeatures() {
+        return features;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "FeatureSnapshot [version=" + version + ", creationDate=" + creationDate + ", features=" + features.keySet() + "]";
+    }
+
+}
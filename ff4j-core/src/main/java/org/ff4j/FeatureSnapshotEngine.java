@@ -0,0 +1,241 @@
+package org.ff4j;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ff4j.core.Feature;
+import org.ff4j.core.FeatureStore;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.exception.GroupNotFoundException;
+
+/**
+ * Evaluation engine keeping an immutable {@link FeatureSnapshot} of the {@link FeatureStore}.
+ *
+ * <p>
+ * Readers access the current snapshot through a single volatile reference without any lock nor access to the store. Writers are
+ * serialized : each modification copies the current snapshot, applies the change and publishes the new version (copy-on-write).
+ * </p>
+ *
+ * <p>
+ * Each feature identifier is bound to an integer slot, never reused, which allows {@link FeatureHandle} to read the snapshot
+ * without hashing the identifier.
+ * </p>
+ *
+ * <p>
+ * Modifications done directly on the store (without {@link FF4j}) are not seen until {@link #reload()} or
+ * {@link #refresh(String)} is invoked.
+ * </p>
+ *
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FeatureSnapshotEngine {
+
+    /** Source of features. */
+    private final FeatureStore store;
+
+    /** Current published snapshot. */
+    private volatile FeatureSnapshot snapshot;
+
+    /** Serialize writers. */
+    private final Object writeLock = new Object();
+
+    /** Slot of identifiers unknown to the store, see {@link #slotOf(String)}. */
+    public static final int NO_SLOT = -1;
+
+    /** Slots assigned to feature identifiers, only grows. */
+    private final Map<String, Integer> slotIndex = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * Initialize the engine and load the first snapshot from store.
+     *
+     * @param store
+     *            target store
+     */
+    public FeatureSnapshotEngine(FeatureStore store) {
+        if (store == null) {
+            throw new IllegalArgumentException("ff4j-core: Target store for snapshot engine cannot be null");
+        }
+        this.store = store;
+        reload();
+    }
+
+    /**
+     * Read feature from current snapshot.
+     *
+     * @param featureID
+     *            target feature identifier
+     * @return feature or null if not in snapshot
+     */
+    public Feature read(String featureID) {
+        return snapshot.get(featureID);
+    }
+
+    /**
+     * Resolve the slot of a feature. Slots are assigned only to features published in a snapshot, so that arbitrary identifiers
+     * do not grow the index.
+     *
+     * @param featureID
+     *            target feature identifier
+     * @return slot of the feature, stable for the lifetime of the engine, or {@link #NO_SLOT} if the feature has never been
+     *         published
+     */
+    public int slotOf(String featureID) {
+        if (featureID == null || featureID.isEmpty()) {
+            throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
+        }
+        Integer slot = slotIndex.get(featureID);
+        return (slot == null) ? NO_SLOT : slot;
+    }
+
+    /**
+     * Reload all features from store and publish a new snapshot.
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            Map<String, Feature> features = new LinkedHashMap<String, Feature>();
+            for (Feature feature : store.readAll().values()) {
+                features.put(feature.getUid(), new Feature(feature));
+            }
+            publish(features);
+        }
+    }
+
+    /**
+     * Read a single feature from store and publish a new snapshot. If the feature does not exist anymore it's removed from the
+     * snapshot.
+     *
+     * @param featureID
+     *            target feature identifier
+     */
+    public void refresh(String featureID) {
+        synchronized (writeLock) {
+            Map<String, Feature> features = copyCurrent();
+            try {
+                features.put(featureID, new Feature(store.read(featureID)));
+            } catch (FeatureNotFoundException fnfe) {
+                features.remove(featureID);
+            }
+            publish(features);
+        }
+    }
+
+    /**
+     * Read all features of a group from store and publish a new snapshot.
+     *
+     * @param groupName
+     *            target group name
+     */
+    public void refreshGroup(String groupName) {
+        synchronized (writeLock) {
+            Map<String, Feature> features = copyCurrent();
+            try {
+                for (Feature feature : store.readGroup(groupName).values()) {
+                    features.put(feature.getUid(), new Feature(feature));
+                }
+            } catch (GroupNotFoundException gnfe) {
+                // Nothing to refresh
+                return;
+            }
+            publish(features);
+        }
+    }
+
+    /**
+     * Remove feature from snapshot and publish a new snapshot.
+     *
+     * @param featureID
+     *            target feature identifier
+     */
+    public void remove(String featureID) {
+        synchronized (writeLock) {
+            Map<String, Feature> features = copyCurrent();
+            if (features.remove(featureID) != null) {
+                publish(features);
+            }
+        }
+    }
+
+    /**
+     * Duplicate map of current snapshot, must be invoked under lock.
+     *
+     * @return copy of the feature map
+     */
+    private Map<String, Feature> copyCurrent() {
+        return new LinkedHashMap<String, Feature>(snapshot.getFeatures());
+    }
+
+    /**
+     * Get or create slot of a feature, must be invoked under lock.
+     *
+     * @param featureID
+     *            target feature identifier
+     * @return slot of the feature
+     */
+    private Integer assignSlot(String featureID) {
+        Integer slot = slotIndex.get(featureID);
+        if (slot == null) {
+            slot = slotIndex.size();
+            slotIndex.put(featureID, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Publish a new snapshot, must be invoked under lock.
+     *
+     * @param features
+     *            features of new snapshot
+     */
+    private void publish(Map<String, Feature> features) {
+        for (String featureID : features.keySet()) {
+            assignSlot(featureID);
+        }
+        Feature[] slots = new Feature[slotIndex.size()];
+        for (Entry<String, Integer> slot : slotIndex.entrySet()) {
+            slots[slot.getValue()] = features.get(slot.getKey());
+        }
+        long nextVersion = (snapshot == null) ? 1 : snapshot.getVersion() + 1;
+        snapshot = new FeatureSnapshot(nextVersion, features, slots);
+    }
+
+    /**
+     * Getter accessor for attribute 'snapshot'.
+     *
+     * @return current value of 'snapshot'
+     */
+    public FeatureSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Getter accessor for attribute 'store'.
+     *
+     * @return current value of 'store'
+     */
+    public FeatureStore getStore() {
+        return store;
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.ff4j.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Superclass for {@link EventRepository} implementations, batch saving and JSON description.
+ *
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public abstract class AbstractEventRepository implements EventRepository {
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean saveEvents(List<Event> events) {
+        boolean allOk = true;
+        for (Event e : events) {
+            allOk = saveEvent(e) && allOk;
+        }
+        return allOk;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        // No access to events here : repository may be logged or printed at any time
+        return "{\"type\":\"" + this.getClass().getCanonicalName() + "\"}";
+    }
+
+    /**
+     * Describe repository as JSON with hits of the day, counts are read from repository.
+     * 
+     * @return JSON description
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"type\":\"" + this.getClass().getCanonicalName() + "\"");
+        // Today
+        Calendar c = Calendar.getInstance();
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        sb.append(",\"todayHits\":{");
+        Map<String, Integer> hitToday = getHitsCount(c.getTimeInMillis() - 1, System.currentTimeMillis() + 1);
+        boolean first = true;
+        long totalHit = 0;
+        for (Entry<String, Integer> hit : hitToday.entrySet()) {
+            if (!first) {
+                sb.append(",");
+            }
+            sb.append("\"" + hit.getKey() + "\":" + hit.getValue());
+            totalHit += hit.getValue();
+            first = false;
+        }
+        sb.append("}");
+        sb.append(",\"todayTotalHit\":" + totalHit);
+        sb.append("}");
+        return sb.toString();
+    }
+
+}
@@ -41,6 +41,9 @@ public class Event implements Serializable {
     /** Time of event creation. */
     private final long timestamp;
 
+    /** Number of occurrences represented by this event, greater than 1 when hits are aggregated. */
+    private int count = 1;
+
     /** Default constructor. */
     public Event() {
         timestamp = System.currentTimeMillis();
@@ -60,6 +63,25 @@ public class Event implements Serializable {
         this.type = type;
     }
 
+    /**
+     * Constructor for aggregated events.
+     * 
+     * @param featureName
+     *            target feature name
+     * @param type
+     *            target event type
+     * @param timestamp
+     *            time of the event
+     * @param count
+     *            number of occurrences
+     */
+    public Event(String featureName, EventType type, long timestamp, int count) {
+        this.featureName = featureName;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.count = count;
+    }
+
     /**
      * Getter accessor for attribute 'type'.
      * 
@@ -107,10 +129,29 @@ public class Event implements Serializable {
         return timestamp;
     }
 
+    /**
+     * Getter accessor for attribute 'count'.
+     * 
+     * @return current value of 'count'
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Setter accessor for attribute 'count'.
+     * 
+     * @param count
+     *            new value for 'count '
+     */
+    public void setCount(int count) {
+        this.count = count;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
-        return "Event [type=" + type + ", featureName=" + featureName + ", timestamp=" + timestamp + "]";
+        return "Event [type=" + type + ", featureName=" + featureName + ", timestamp=" + timestamp + ", count=" + count + "]";
     }
 
 }
@@ -20,38 +20,83 @@ package org.ff4j.audit;
  * #L%
  */
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Default implementation of repository.
+ * Publish events into {@link EventRepository} asynchronously.
+ *
+ * <p>
+ * Events are added without lock into a bounded {@link EventRingBuffer}, a single daemon thread drains the buffer and saves events
+ * by batch with {@link EventRepository#saveEvents(List)}. When the buffer is full the {@link OverflowPolicy} applies.
+ * </p>
  * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
 public class EventPublisher {
 
-    /** default pool size. */
-    private static final int DEFAULT_POOL_SIZE = 3;
+    /** default buffer capacity. */
+    public static final int DEFAULT_CAPACITY = 8192;
 
-    /** Executor for item writer. */
-    private ExecutorService executor = Executors.newFixedThreadPool(DEFAULT_POOL_SIZE);
+    /** default number of events saved at once. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /** retry count if repository not available. */
+    private static final int MAX_RETRY = 3;
+
+    /** retry delay in milliseconds, multiplied by attempt. */
+    private static final long RETRY_DELAY = 10L;
+
+    /** max wait of consumer when buffer is empty. */
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** wait of producer when buffer is full and policy is BLOCK. */
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /** Buffer of events to save. */
+    private final EventRingBuffer buffer;
+
+    /** Behaviour when buffer is full. */
+    private final OverflowPolicy overflowPolicy;
+
+    /** Number of events saved at once. */
+    private final int batchSize;
+
+    /** Events dropped (buffer full or repository failure). */
+    private final AtomicLong droppedCount = new AtomicLong();
 
     /** Repository to save events. */
-    private EventRepository repository = new InMemoryEventRepository();
+    private volatile EventRepository repository = new InMemoryEventRepository();
+
+    /** Consumer thread, started at first publication. */
+    private volatile Thread consumer = null;
+
+    /** Consumer is parked waiting for events. */
+    private volatile boolean consumerWaiting = false;
+
+    /** Publisher has been stopped. */
+    private volatile boolean stopped = false;
 
     /**
      * Default constructor.
      */
     public EventPublisher() {
+        this(new InMemoryEventRepository());
     }
 
     /**
      * Size of thread pool.
      * 
      * @param threadCount
+     *            ignored
+     * @deprecated events are now saved by a single consumer thread, use {@link #EventPublisher()}
      */
+    @Deprecated
     public EventPublisher(int threadCount) {
-        executor = Executors.newFixedThreadPool(threadCount);
+        this();
     }
 
     /**
@@ -61,20 +106,60 @@ public class EventPublisher {
      *            target repository
      */
     public EventPublisher(EventRepository er) {
-        repository = er;
+        this(er, DEFAULT_CAPACITY, OverflowPolicy.DROP_NEWEST);
     }
 
     /**
      * Size of thread pool.
      * 
      * @param threadCount
-     *            thread pool size
+     *            ignored
      * @param er
      *            target repository
+     * @deprecated events are now saved by a single consumer thread, use {@link #EventPublisher(EventRepository)}
      */
+    @Deprecated
     public EventPublisher(int threadCount, EventRepository er) {
-        executor = Executors.newFixedThreadPool(threadCount);
-        repository = er;
+        this(er);
+    }
+
+    /**
+     * Constructor with buffer settings.
+     * 
+     * @param er
+     *            target repository
+     * @param capacity
+     *            buffer capacity, rounded to next power of 2
+     * @param policy
+     *            behaviour when buffer is full
+     */
+    public EventPublisher(EventRepository er, int capacity, OverflowPolicy policy) {
+        this(er, capacity, policy, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor with buffer settings.
+     * 
+     * @param er
+     *            target repository
+     * @param capacity
+     *            buffer capacity, rounded to next power of 2
+     * @param policy
+     *            behaviour when buffer is full
+     * @param batchSize
+     *            number of events saved at once
+     */
+    public EventPublisher(EventRepository er, int capacity, OverflowPolicy policy, int batchSize) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Overflow policy (param#2) cannot be null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size (param#3) must be greater than 0");
+        }
+        this.repository = er;
+        this.buffer = new EventRingBuffer(capacity);
+        this.overflowPolicy = policy;
+        this.batchSize = batchSize;
     }
 
     /**
@@ -84,7 +169,31 @@ public class EventPublisher {
      *            event.
      */
     public void publish(Event e) {
-        executor.submit(new EventWorker(e, repository));
+        if (stopped) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        startConsumer();
+        if (!buffer.offer(e)) {
+            onBufferFull(e);
+        }
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Publish a batch of events to repository.
+     * 
+     * @param events
+     *            events to publish
+     */
+    public void publish(List<Event> events) {
+        if (events != null) {
+            for (Event event : events) {
+                publish(event);
+            }
+        }
     }
 
     /**
@@ -115,6 +224,153 @@ public class EventPublisher {
         publish(evt);
     }
 
+    /**
+     * Stop consumer thread once pending events are saved. Events published afterwards are dropped.
+     */
+    public void stop() {
+        stopped = true;
+        Thread current = consumer;
+        if (current != null) {
+            LockSupport.unpark(current);
+            try {
+                current.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Apply overflow policy.
+     * 
+     * @param e
+     *            event which could not be added
+     */
+    private void onBufferFull(Event e) {
+        switch (overflowPolicy) {
+        case DROP_OLDEST:
+            while (!buffer.offer(e)) {
+                if (buffer.poll() != null) {
+                    droppedCount.incrementAndGet();
+                }
+            }
+            break;
+        case BLOCK:
+            while (!buffer.offer(e)) {
+                if (stopped) {
+                    droppedCount.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(consumer);
+                LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+            }
+            break;
+        default:
+            droppedCount.incrementAndGet();
+            break;
+        }
+    }
+
+    /**
+     * Start consumer thread if needed.
+     */
+    private void startConsumer() {
+        if (consumer == null) {
+            synchronized (this) {
+                if (consumer == null) {
+                    Thread t = new Thread(new Runnable() {
+                        public void run() {
+                            consume();
+                        }
+                    }, "ff4j-event-publisher");
+                    t.setDaemon(true);
+                    consumer = t;
+                    t.start();
+                }
+            }
+        }
+    }
+
+    /**
+     * Consumer loop : drain buffer and save events by batch.
+     */
+    private void consume() {
+        List<Event> batch = new ArrayList<Event>(batchSize);
+        while (true) {
+            if (buffer.drainTo(batch, batchSize) > 0) {
+                save(batch);
+                batch.clear();
+            } else if (stopped) {
+                return;
+            } else {
+                consumerWaiting = true;
+                if (buffer.isEmpty() && !stopped) {
+                    LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                }
+                consumerWaiting = false;
+            }
+        }
+    }
+
+    /**
+     * Save batch of events with retries, events are dropped if repository is not available.
+     * 
+     * @param batch
+     *            events to save
+     */
+    private void save(List<Event> batch) {
+        for (int attempt = 1; attempt <= MAX_RETRY; attempt++) {
+            try {
+                if (!repository.saveEvents(batch)) {
+                    // Batch rejected by repository
+                    droppedCount.addAndGet(batch.size());
+                }
+                return;
+            } catch (RuntimeException re) {
+                if (attempt < MAX_RETRY) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY * attempt));
+                }
+            }
+        }
+        droppedCount.addAndGet(batch.size());
+    }
+
+    /**
+     * Number of events accepted into the buffer since creation.
+     * 
+     * @return number of events
+     */
+    public long getPublishedCount() {
+        return buffer.getOfferedCount();
+    }
+
+    /**
+     * Number of events dropped since creation (buffer full or repository failure).
+     * 
+     * @return number of events
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Number of events waiting to be saved.
+     * 
+     * @return number of events
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Getter accessor for attribute 'overflowPolicy'.
+     * 
+     * @return current value of 'overflowPolicy'
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
     /**
      * Setter accessor for attribute 'repository'.
      * 
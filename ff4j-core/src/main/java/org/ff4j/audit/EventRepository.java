@@ -20,6 +20,7 @@ package org.ff4j.audit;
  * #L%
  */
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -41,6 +42,15 @@ public interface EventRepository {
      */
     boolean saveEvent(Event e);
 
+    /**
+     * Save a batch of events into store synchronously.
+     * 
+     * @param events
+     *            target events to store
+     * @return if saving is OK for all events
+     */
+    boolean saveEvents(List<Event> events);
+
     /**
      * Get total hit of feature on a period of time.
      * 
@@ -0,0 +1,182 @@
+package org.ff4j.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded and preallocated lock-free queue of {@link Event}, multiple producers and consumers.
+ *
+ * <p>
+ * Each cell holds a sequence number telling if it can be written (sequence equals position) or read (sequence equals position +
+ * 1). Producers and consumers only contend on a CAS of their own cursor.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public final class EventRingBuffer {
+
+    /** Mask to compute index from position. */
+    private final int mask;
+
+    /** Cells. */
+    private final Event[] buffer;
+
+    /** Sequence of each cell. */
+    private final AtomicLongArray sequences;
+
+    /** Next position to write. */
+    private final AtomicLong enqueuePosition = new AtomicLong();
+
+    /** Next position to read. */
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    /**
+     * Constructor with capacity.
+     * 
+     * @param capacity
+     *            expected capacity, rounded to the next power of 2
+     */
+    public EventRingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity (param#0) must be between 2 and 2^30");
+        }
+        int size = Integer.highestOneBit((capacity << 1) - 1);
+        this.mask = size - 1;
+        this.buffer = new Event[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add event if room is available.
+     * 
+     * @param e
+     *            event
+     * @return false if the buffer is full
+     */
+    public boolean offer(Event e) {
+        long pos = enqueuePosition.get();
+        for (;;) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - pos;
+            if (dif == 0) {
+                if (enqueuePosition.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = e;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = enqueuePosition.get();
+            } else if (dif < 0) {
+                return false;
+            } else {
+                pos = enqueuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Remove oldest event.
+     * 
+     * @return oldest event or null if buffer is empty
+     */
+    public Event poll() {
+        long pos = dequeuePosition.get();
+        for (;;) {
+            int index = (int) pos & mask;
+            long dif = sequences.get(index) - (pos + 1);
+            if (dif == 0) {
+                if (dequeuePosition.compareAndSet(pos, pos + 1)) {
+                    Event e = buffer[index];
+                    buffer[index] = null;
+                    sequences.set(index, pos + mask + 1);
+                    return e;
+                }
+                pos = dequeuePosition.get();
+            } else if (dif < 0) {
+                return null;
+            } else {
+                pos = dequeuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Move oldest events to target list.
+     * 
+     * @param target
+     *            target list
+     * @param maxEvents
+     *            maximum number of events to move
+     * @return number of events moved
+     */
+    public int drainTo(List<Event> target, int maxEvents) {
+        int count = 0;
+        Event e;
+        while (count < maxEvents && (e = poll()) != null) {
+            target.add(e);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Check if buffer is empty.
+     * 
+     * @return if buffer is empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Approximative number of events in buffer.
+     * 
+     * @return number of events
+     */
+    public int size() {
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    /**
+     * Total number of events added since creation.
+     * 
+     * @return number of events
+     */
+    public long getOfferedCount() {
+        return enqueuePosition.get();
+    }
+
+    /**
+     * Capacity of buffer.
+     * 
+     * @return capacity
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+}
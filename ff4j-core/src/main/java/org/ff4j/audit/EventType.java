@@ -39,6 +39,9 @@ public enum EventType {
     /** disable feature. */
     DISABLE,
 
+    /** update feature. */
+    UPDATE,
+
     /** enable group. */
     ENABLE_GROUP,
 
@@ -20,17 +20,21 @@ package org.ff4j.audit;
  * #L%
  */
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
  * Worker to save {@link Event} into {@link EventRepository} asynchronously.
  * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ * @deprecated {@link EventPublisher} now saves events by batch from its own consumer thread
  */
+@Deprecated
 public class EventWorker implements Callable<Boolean> {
 
-    /** Target event to insert. */
-    private Event event = null;
+    /** Target events to insert. */
+    private List<Event> events = null;
 
     /** Repository to store event. */
     private EventRepository eventRepository = null;
@@ -50,13 +54,42 @@ public class EventWorker implements Callable<Boolean> {
      *            event repository to store events
      */
     public EventWorker(Event e, EventRepository repo) {
-        this.event = e;
+        this(Collections.singletonList(e), repo);
+    }
+
+    /**
+     * Worker constructor for a batch of events.
+     * 
+     * @param events
+     *            events
+     * @param repo
+     *            event repository to store events
+     */
+    public EventWorker(List<Event> events, EventRepository repo) {
+        this.events = events;
         this.eventRepository = repo;
     }
 
     /** {@inheritDoc} */
     @Override
     public Boolean call() throws Exception {
+        boolean allOk = true;
+        for (Event event : events) {
+            allOk = save(event) && allOk;
+        }
+        return allOk;
+    }
+
+    /**
+     * Save a single event with retries.
+     * 
+     * @param event
+     *            event to save
+     * @return if event has been saved
+     * @throws InterruptedException
+     *             interrupted while waiting for retry
+     */
+    private boolean save(Event event) throws InterruptedException {
         boolean ok = false;
         int retryCount = 0;
         while (!ok && retryCount < MAX_RETRY) {
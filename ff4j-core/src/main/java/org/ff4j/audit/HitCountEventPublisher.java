@@ -0,0 +1,259 @@
+package org.ff4j.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Publisher counting hits instead of publishing an {@link Event} for each check.
+ *
+ * <p>
+ * Hits are accumulated into striped counters per feature (one stripe per thread modulo the number of stripes, to limit
+ * contention), nothing is allocated when the feature has already been seen. A background thread drains counters periodically and
+ * saves a single aggregated {@link Event} per feature and per type into the {@link EventRepository}, timestamped with the start of
+ * the time bucket and carrying the number of hits in {@link Event#getCount()}.
+ * </p>
+ *
+ * <p>
+ * Other events (enable, disable...) are published as usual.
+ * </p>
+ *
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class HitCountEventPublisher extends EventPublisher {
+
+    /** Default delay between two flushes in milliseconds. */
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+
+    /** Default number of stripes per counter. */
+    public static final int DEFAULT_STRIPES = 16;
+
+    /** Number of longs per stripe to keep stripes on distinct cache lines. */
+    private static final int PADDING = 8;
+
+    /** Offset of 'flipped' hit in a stripe. */
+    private static final int FLIPPED = 0;
+
+    /** Offset of 'not flipped' hit in a stripe. */
+    private static final int NOT_FLIPPED = 1;
+
+    /** Counters per feature. */
+    private final ConcurrentMap<String, AtomicLongArray> counters = new ConcurrentHashMap<String, AtomicLongArray>();
+
+    /** Mask to compute stripe from thread identifier. */
+    private final int stripeMask;
+
+    /** Delay between two flushes in milliseconds. */
+    private final long flushInterval;
+
+    /** Start of current time bucket. */
+    private long bucketStart = System.currentTimeMillis();
+
+    /** Background flusher. */
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Constructor with repository.
+     * 
+     * @param er
+     *            target repository
+     */
+    public HitCountEventPublisher(EventRepository er) {
+        this(er, DEFAULT_FLUSH_INTERVAL, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructor with repository and flush settings.
+     * 
+     * @param er
+     *            target repository
+     * @param flushInterval
+     *            delay between two flushes in milliseconds
+     * @param stripes
+     *            number of stripes per counter, rounded to the next power of 2
+     */
+    public HitCountEventPublisher(EventRepository er, long flushInterval, int stripes) {
+        super(er);
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("Flush interval (param#1) must be greater than 0");
+        }
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes (param#2) must be greater than 0");
+        }
+        this.stripeMask = Integer.highestOneBit((stripes << 1) - 1) - 1;
+        this.flushInterval = flushInterval;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ff4j-hitcount-flusher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        flusher.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    flush();
+                } catch (RuntimeException re) {
+                    // An exception would cancel the scheduled task : hits are kept, retry at next flush
+                }
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void publish(String featureName, boolean flipped) {
+        add(featureName, flipped ? FLIPPED : NOT_FLIPPED, 1);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void publish(Event e) {
+        if (EventType.HIT_FLIPPED == e.getType()) {
+            add(e.getFeatureName(), FLIPPED, e.getCount());
+        } else if (EventType.HIT_NOT_FLIPPED == e.getType()) {
+            add(e.getFeatureName(), NOT_FLIPPED, e.getCount());
+        } else {
+            super.publish(e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void publish(List<Event> events) {
+        if (events != null) {
+            for (Event event : events) {
+                publish(event);
+            }
+        }
+    }
+
+    /**
+     * Drain all counters and save aggregated events into repository. Counts which cannot be saved are kept for next flush.
+     */
+    public synchronized void flush() {
+        long bucket = bucketStart;
+        bucketStart = System.currentTimeMillis();
+        for (Entry<String, AtomicLongArray> counter : counters.entrySet()) {
+            save(counter.getKey(), EventType.HIT_FLIPPED, bucket, drain(counter.getValue(), FLIPPED));
+            save(counter.getKey(), EventType.HIT_NOT_FLIPPED, bucket, drain(counter.getValue(), NOT_FLIPPED));
+        }
+    }
+
+    /**
+     * Stop the background flusher, flush remaining hits and stop publisher.
+     */
+    @Override
+    public void stop() {
+        flusher.shutdown();
+        flush();
+        super.stop();
+    }
+
+    /**
+     * Increment counter of current thread stripe.
+     * 
+     * @param featureName
+     *            target feature name
+     * @param offset
+     *            type of hit
+     * @param delta
+     *            number of hits
+     */
+    private void add(String featureName, int offset, long delta) {
+        AtomicLongArray counter = counters.get(featureName);
+        if (counter == null) {
+            AtomicLongArray newCounter = new AtomicLongArray((stripeMask + 1) * PADDING);
+            counter = counters.putIfAbsent(featureName, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counter.addAndGet(stripe * PADDING + offset, delta);
+    }
+
+    /**
+     * Reset all stripes of a counter for a type of hit.
+     * 
+     * @param counter
+     *            target counter
+     * @param offset
+     *            type of hit
+     * @return number of hits since last drain
+     */
+    private long drain(AtomicLongArray counter, int offset) {
+        long total = 0;
+        for (int i = offset; i < counter.length(); i += PADDING) {
+            total += counter.getAndSet(i, 0);
+        }
+        return total;
+    }
+
+    /**
+     * Save aggregated events, hits are added back to counter if repository is not available (returns false or throws). Counts
+     * greater than {@link Integer#MAX_VALUE} are split into several events.
+     * 
+     * @param featureName
+     *            target feature name
+     * @param type
+     *            type of hit
+     * @param timestamp
+     *            start of time bucket
+     * @param hits
+     *            number of hits
+     */
+    private void save(String featureName, EventType type, long timestamp, long hits) {
+        long remaining = hits;
+        while (remaining > 0) {
+            int count = (int) Math.min(remaining, Integer.MAX_VALUE);
+            boolean saved = false;
+            try {
+                saved = getRepository().saveEvent(new Event(featureName, type, timestamp, count));
+            } catch (RuntimeException re) {
+                // Repository not available, hits are kept
+            }
+            if (!saved) {
+                add(featureName, (type == EventType.HIT_FLIPPED) ? FLIPPED : NOT_FLIPPED, remaining);
+                return;
+            }
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'flushInterval'.
+     * 
+     * @return current value of 'flushInterval'
+     */
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+}
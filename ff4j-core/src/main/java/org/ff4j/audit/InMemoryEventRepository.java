@@ -21,15 +21,16 @@ package org.ff4j.audit;
  */
 
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.ff4j.audit.graph.Curve;
 
@@ -38,7 +39,7 @@ import org.ff4j.audit.graph.Curve;
  * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
-public class InMemoryEventRepository implements EventRepository {
+public class InMemoryEventRepository extends AbstractEventRepository {
 
     /** default retention. */
     private static final int DEFAULT_QUEUE_CAPACITY = 10000;
@@ -49,6 +50,12 @@ public class InMemoryEventRepository implements EventRepository {
     /** Store for events. */
     private final Map<String, Queue<Event>> mapOfEvents = new ConcurrentHashMap<String, Queue<Event>>();
 
+    /** Hit counts per feature, maintained at each save to answer {@link #getHitsCount(long, long)}. */
+    private final ConcurrentMap<String, TimeBucketSeries> hitSeries = new ConcurrentHashMap<String, TimeBucketSeries>();
+
+    /** Hit counts for all features, maintained at each save to answer {@link #getTotalHitCurve(long, long, long)}. */
+    private final TimeBucketSeries totalHits;
+
     /**
      * Default constructor with default capacity to 100.000
      */
@@ -64,16 +71,21 @@ public class InMemoryEventRepository implements EventRepository {
      */
     public InMemoryEventRepository(int queueCapacity) {
         this.queueCapacity = queueCapacity;
+        this.totalHits = createHitSeries();
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean saveEvent(Event e) {
+        if (EventType.HIT_FLIPPED == e.getType() || EventType.HIT_NOT_FLIPPED == e.getType()) {
+            getHitSeries(e.getFeatureName()).add(e.getTimestamp(), e.getCount());
+            totalHits.add(e.getTimestamp(), e.getCount());
+        }
         if (!mapOfEvents.containsKey(e.getFeatureName())) {
             mapOfEvents.put(e.getFeatureName(), new ArrayBlockingQueue<Event>(queueCapacity));
         }
         Queue<Event> myQueue = mapOfEvents.get(e.getFeatureName());
-        if (myQueue.size() >= DEFAULT_QUEUE_CAPACITY) {
+        if (myQueue.size() >= queueCapacity) {
             myQueue.poll();
         }
         return myQueue.offer(e);
@@ -93,11 +105,12 @@ public class InMemoryEventRepository implements EventRepository {
                 // Current curve
                 Curve curve = new Curve(name, startTime, endTime, interval);
                 for (Iterator<Event> itEvt = myQueue.iterator(); itEvt.hasNext();) {
-                    long t = itEvt.next().getTimestamp();
+                    Event evt = itEvt.next();
+                    long t = evt.getTimestamp();
                     // Is in target window
                     if (startTime < t && t < endTime) {
                         long slot = ((t - startTime) / interval) + 1;
-                        curve.incrCount((int) slot);
+                        curve.incrCount((int) slot, evt.getCount());
                     }
                 }
                 maps.put(name, curve);
@@ -119,36 +132,6 @@ public class InMemoryEventRepository implements EventRepository {
         return mapOfEvents.keySet();
     }
 
-    /** {@inheritDoc} */
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder("{");
-        sb.append("\"type\":\"" + this.getClass().getCanonicalName() + "\"");
-        // Today
-        Calendar c = Calendar.getInstance();
-        c.set(Calendar.HOUR_OF_DAY, 0);
-        c.set(Calendar.MINUTE, 0);
-        c.set(Calendar.SECOND, 0);
-        sb.append(",\"todayHits\": ");
-        /*Map<String, Integer> hitToday = getHitsCount(c.getTimeInMillis(), System.currentTimeMillis());
-        boolean first = true;
-        int totalHit = 0;
-        for (String featureName : hitToday.keySet()) {
-            if (!first) {
-                sb.append(", ");
-            }
-            int tmpHit = hitToday.get(featureName);
-            sb.append("\"" + featureName + "\":" + tmpHit);
-            totalHit += tmpHit;
-            first = false;
-        }*/
-        sb.append("0");
-        sb.append("}");
-        sb.append(",\"todayTotalHit\":" + 0);
-        sb.append("");
-        return sb.toString();
-    }
-
     /** {@inheritDoc} */
     @Override
     public int getTotalEventCount() {
@@ -163,13 +146,48 @@ public class InMemoryEventRepository implements EventRepository {
     /** {@inheritDoc} */
     @Override
     public Map<String, Integer> getHitsCount(long startTime, long endTime) {
-        return null;
+        Map<String, Integer> hitsCount = new HashMap<String, Integer>();
+        for (Entry<String, TimeBucketSeries> series : hitSeries.entrySet()) {
+            hitsCount.put(series.getKey(), (int) series.getValue().count(startTime, endTime));
+        }
+        return hitsCount;
     }
 
     /** {@inheritDoc} */
     @Override
     public Curve getTotalHitCurve(long interval, long startTime, long endTime) {
-        return null;
+        Curve curve = new Curve("total", startTime, endTime, interval);
+        curve.setTitle("total");
+        totalHits.fillCurve(curve, startTime, endTime, interval);
+        return curve;
+    }
+
+    /**
+     * Create series of hit counts, for a feature or for all features.
+     * 
+     * @return new series with default tiers
+     */
+    protected TimeBucketSeries createHitSeries() {
+        return new TimeBucketSeries();
+    }
+
+    /**
+     * Get or create hit series of a feature.
+     * 
+     * @param featureName
+     *            target feature name
+     * @return hit series
+     */
+    private TimeBucketSeries getHitSeries(String featureName) {
+        TimeBucketSeries series = hitSeries.get(featureName);
+        if (series == null) {
+            TimeBucketSeries newSeries = createHitSeries();
+            series = hitSeries.putIfAbsent(featureName, newSeries);
+            if (series == null) {
+                series = newSeries;
+            }
+        }
+        return series;
     }
 
 
@@ -0,0 +1,455 @@
+package org.ff4j.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.ff4j.audit.graph.Curve;
+import org.ff4j.exception.FeatureAccessException;
+
+/**
+ * Implementation of {@link EventRepository} to work with RDBMS through JDBC.
+ *
+ * <p>
+ * Events are inserted with JDBC batches into <code>FF4J_AUDIT</code>. In the same transaction, hits are added to rollup rows of
+ * <code>FF4J_AUDIT_HITS</code> (one row per feature and per minute) : curves and hit counts are computed from rollup rows only,
+ * with a precision of one minute.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class JdbcEventRepository extends AbstractEventRepository implements JdbcEventRepositoryConstants {
+
+    /** Access to storage. */
+    private DataSource dataSource;
+
+    /** Default Constructor. */
+    public JdbcEventRepository() {}
+
+    /**
+     * Constructor from DataSource.
+     * 
+     * @param jdbcDS
+     *            native jdbc datasource
+     */
+    public JdbcEventRepository(DataSource jdbcDS) {
+        this.dataSource = jdbcDS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean saveEvent(Event e) {
+        if (e == null) {
+            throw new IllegalArgumentException("Event (param#0) cannot be null");
+        }
+        return saveEvents(Collections.singletonList(e));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean saveEvents(List<Event> events) {
+        if (events == null) {
+            throw new IllegalArgumentException("Events (param#0) cannot be null");
+        }
+        if (events.isEmpty()) {
+            return true;
+        }
+        Connection sqlConn = null;
+        try {
+            sqlConn = getDataSource().getConnection();
+            boolean autoCommit = sqlConn.getAutoCommit();
+            sqlConn.setAutoCommit(false);
+            try {
+                insertEvents(sqlConn, events);
+                rollupHits(sqlConn, events);
+                sqlConn.commit();
+            } catch (SQLException sqlEX) {
+                sqlConn.rollback();
+                throw sqlEX;
+            } finally {
+                sqlConn.setAutoCommit(autoCommit);
+            }
+            return true;
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot save events into database, SQL ERROR", sqlEX);
+        } finally {
+            closeConnection(sqlConn);
+        }
+    }
+
+    /**
+     * Insert events with a single batch.
+     * 
+     * @param sqlConn
+     *            current connection
+     * @param events
+     *            events to insert
+     * @throws SQLException
+     *             sql error when inserting
+     */
+    private void insertEvents(Connection sqlConn, List<Event> events) throws SQLException {
+        PreparedStatement ps = null;
+        try {
+            ps = sqlConn.prepareStatement(SQL_AUDIT_INSERT);
+            for (Event evt : events) {
+                ps.setLong(1, evt.getTimestamp());
+                ps.setString(2, evt.getType().name());
+                ps.setString(3, evt.getFeatureName());
+                ps.setInt(4, evt.getCount());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * Aggregate hits of the events per feature and minute and add them to rollup rows.
+     * 
+     * @param sqlConn
+     *            current connection
+     * @param events
+     *            saved events
+     * @throws SQLException
+     *             sql error when updating
+     */
+    private void rollupHits(Connection sqlConn, List<Event> events) throws SQLException {
+        Map<String, Map<Long, Long>> hits = new LinkedHashMap<String, Map<Long, Long>>();
+        for (Event evt : events) {
+            if (EventType.HIT_FLIPPED == evt.getType() || EventType.HIT_NOT_FLIPPED == evt.getType()) {
+                Map<Long, Long> featureHits = hits.get(evt.getFeatureName());
+                if (featureHits == null) {
+                    featureHits = new LinkedHashMap<Long, Long>();
+                    hits.put(evt.getFeatureName(), featureHits);
+                }
+                Long minute = (evt.getTimestamp() / ROLLUP_DURATION) * ROLLUP_DURATION;
+                Long current = featureHits.get(minute);
+                featureHits.put(minute, (current == null ? 0 : current) + evt.getCount());
+            }
+        }
+        if (hits.isEmpty()) {
+            return;
+        }
+        PreparedStatement psUpdate = null;
+        PreparedStatement psInsert = null;
+        try {
+            psUpdate = sqlConn.prepareStatement(SQL_HITS_UPDATE);
+            psInsert = sqlConn.prepareStatement(SQL_HITS_INSERT);
+            for (Entry<String, Map<Long, Long>> featureHits : hits.entrySet()) {
+                for (Entry<Long, Long> minuteHits : featureHits.getValue().entrySet()) {
+                    psUpdate.setLong(1, minuteHits.getValue());
+                    psUpdate.setString(2, featureHits.getKey());
+                    psUpdate.setLong(3, minuteHits.getKey());
+                    if (psUpdate.executeUpdate() == 0) {
+                        psInsert.setString(1, featureHits.getKey());
+                        psInsert.setLong(2, minuteHits.getKey());
+                        psInsert.setLong(3, minuteHits.getValue());
+                        insertOrUpdate(sqlConn, psInsert, psUpdate);
+                    }
+                }
+            }
+        } finally {
+            closeStatement(psUpdate);
+            closeStatement(psInsert);
+        }
+    }
+
+    /**
+     * Insert rollup row, if another node inserted it since the update (duplicate key) the update is executed again. A savepoint
+     * keeps the transaction usable after the failed insert.
+     * 
+     * @param sqlConn
+     *            current connection
+     * @param psInsert
+     *            insert with parameters set
+     * @param psUpdate
+     *            update with parameters set
+     * @throws SQLException
+     *             sql error other than duplicate key
+     */
+    private void insertOrUpdate(Connection sqlConn, PreparedStatement psInsert, PreparedStatement psUpdate) throws SQLException {
+        Savepoint savepoint = sqlConn.setSavepoint();
+        try {
+            psInsert.executeUpdate();
+        } catch (SQLException sqlEX) {
+            if (!isDuplicateKey(sqlEX)) {
+                throw sqlEX;
+            }
+            sqlConn.rollback(savepoint);
+            psUpdate.executeUpdate();
+        }
+    }
+
+    /**
+     * Check if error is a violation of primary key (SQLState class 23 : integrity constraint violation).
+     * 
+     * @param sqlEX
+     *            error raised by insert
+     * @return if the row already exists
+     */
+    private boolean isDuplicateKey(SQLException sqlEX) {
+        return sqlEX instanceof SQLIntegrityConstraintViolationException
+                || (sqlEX.getSQLState() != null && sqlEX.getSQLState().startsWith("23"));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Integer> getHitsCount(long startTime, long endTime) {
+        Map<String, Integer> hitsCount = new HashMap<String, Integer>();
+        Connection sqlConn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            sqlConn = getDataSource().getConnection();
+            ps = sqlConn.prepareStatement(SQL_HITS_COUNT);
+            ps.setLong(1, startTime - ROLLUP_DURATION);
+            ps.setLong(2, endTime);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                hitsCount.put(rs.getString(1), (int) rs.getLong(2));
+            }
+            return hitsCount;
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot read hits from database, SQL ERROR", sqlEX);
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+            closeConnection(sqlConn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Curve getHitCurve(String featureName, long interval, long startTime, long endTime) {
+        if (featureName == null || featureName.isEmpty()) {
+            throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
+        }
+        return readCurves(featureName, null, interval, startTime, endTime).get(featureName);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Curve> getHitCurves(Set<String> featNameSet, long interval, long startTime, long endTime) {
+        return readCurves(null, featNameSet, interval, startTime, endTime);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Curve getTotalHitCurve(long interval, long startTime, long endTime) {
+        Curve total = new Curve("total", startTime, endTime, interval);
+        total.setTitle("total");
+        for (Curve curve : readCurves(null, null, interval, startTime, endTime).values()) {
+            for (int i = 0; i < curve.getListOfPoint().size(); i++) {
+                total.incrCount(i, (long) curve.getListOfPoint().get(i).getY());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Build curves from rollup rows of the window.
+     * 
+     * @param featureName
+     *            single feature to read, all features if null
+     * @param featNameSet
+     *            features to keep, all features if null
+     * @param interval
+     *            interval between 2 measures
+     * @param startTime
+     *            start of window (exclusive)
+     * @param endTime
+     *            end of window (exclusive)
+     * @return curves per feature
+     */
+    private Map<String, Curve> readCurves(String featureName, Set<String> featNameSet, long interval, long startTime, long endTime) {
+        Map<String, Curve> curves = new HashMap<String, Curve>();
+        Connection sqlConn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            sqlConn = getDataSource().getConnection();
+            int idx = 1;
+            if (featureName != null) {
+                ps = sqlConn.prepareStatement(SQL_HITS_RANGE_FEATURE);
+                ps.setString(idx++, featureName);
+            } else {
+                ps = sqlConn.prepareStatement(SQL_HITS_RANGE);
+            }
+            ps.setLong(idx++, startTime - ROLLUP_DURATION);
+            ps.setLong(idx, endTime);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                String uid = rs.getString(COL_HITS_FEATID);
+                if (featNameSet != null && !featNameSet.contains(uid)) {
+                    continue;
+                }
+                Curve curve = curves.get(uid);
+                if (curve == null) {
+                    curve = new Curve(uid, startTime, endTime, interval);
+                    curve.setTitle(uid);
+                    curves.put(uid, curve);
+                }
+                int nbPoints = curve.getListOfPoint().size();
+                if (nbPoints > 0) {
+                    long t = Math.max(rs.getLong(COL_HITS_MINUTE), startTime + 1);
+                    int slot = (int) Math.min(((t - startTime) / interval) + 1, nbPoints - 1);
+                    curve.incrCount(slot, rs.getLong(COL_HITS_HITS));
+                }
+            }
+            return curves;
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot read hits from database, SQL ERROR", sqlEX);
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+            closeConnection(sqlConn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> getCurveList() {
+        Set<String> features = new LinkedHashSet<String>();
+        Connection sqlConn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            sqlConn = getDataSource().getConnection();
+            ps = sqlConn.prepareStatement(SQL_HITS_FEATURES);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                features.add(rs.getString(1));
+            }
+            return features;
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot read hits from database, SQL ERROR", sqlEX);
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+            closeConnection(sqlConn);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getTotalEventCount() {
+        Connection sqlConn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            sqlConn = getDataSource().getConnection();
+            ps = sqlConn.prepareStatement(SQL_AUDIT_COUNT);
+            rs = ps.executeQuery();
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot count events in database, SQL ERROR", sqlEX);
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+            closeConnection(sqlConn);
+        }
+    }
+
+    /**
+     * Close resultset.
+     * 
+     * @param rs
+     *            target resultset
+     */
+    private void closeResultSet(ResultSet rs) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+        } catch (SQLException e) {
+            throw new FeatureAccessException("An error occur when closing resultset", e);
+        }
+    }
+
+    /**
+     * Close statement.
+     * 
+     * @param ps
+     *            target statement
+     */
+    private void closeStatement(PreparedStatement ps) {
+        try {
+            if (ps != null) {
+                ps.close();
+            }
+        } catch (SQLException e) {
+            throw new FeatureAccessException("An error occur when closing statement", e);
+        }
+    }
+
+    /**
+     * Close connection.
+     * 
+     * @param sqlConn
+     *            target connection
+     */
+    private void closeConnection(Connection sqlConn) {
+        try {
+            if (sqlConn != null) {
+                sqlConn.close();
+            }
+        } catch (SQLException e) {
+            throw new FeatureAccessException("An error occur when closing connection", e);
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'dataSource'.
+     * 
+     * @return current value of 'dataSource'
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Setter accessor for attribute 'dataSource'.
+     * 
+     * @param dataSource
+     *            new value for 'dataSource '
+     */
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+}
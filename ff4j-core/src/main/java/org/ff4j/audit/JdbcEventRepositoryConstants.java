@@ -0,0 +1,66 @@
+package org.ff4j.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * SQL queries of {@link JdbcEventRepository}, tables are defined in <code>schema-ddl.sql</code>.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public interface JdbcEventRepositoryConstants {
+
+    /** Duration of rollup rows in milliseconds. */
+    long ROLLUP_DURATION = 60 * 1000L;
+
+    /** sql query expression */
+    String SQL_AUDIT_INSERT = "INSERT INTO FF4J_AUDIT(EVT_TIME, EVT_TYPE, FEAT_UID, EVT_COUNT) VALUES(?, ?, ?, ?)";
+
+    /** sql query expression */
+    String SQL_AUDIT_COUNT = "SELECT COUNT(*) FROM FF4J_AUDIT";
+
+    /** sql query expression */
+    String SQL_HITS_UPDATE = "UPDATE FF4J_AUDIT_HITS SET HITS = HITS + ? WHERE FEAT_UID = ? AND EVT_MINUTE = ?";
+
+    /** sql query expression */
+    String SQL_HITS_INSERT = "INSERT INTO FF4J_AUDIT_HITS(FEAT_UID, EVT_MINUTE, HITS) VALUES(?, ?, ?)";
+
+    /** sql query expression */
+    String SQL_HITS_RANGE = "SELECT FEAT_UID,EVT_MINUTE,HITS FROM FF4J_AUDIT_HITS WHERE EVT_MINUTE > ? AND EVT_MINUTE < ?";
+
+    /** sql query expression */
+    String SQL_HITS_RANGE_FEATURE = "SELECT FEAT_UID,EVT_MINUTE,HITS FROM FF4J_AUDIT_HITS WHERE FEAT_UID = ? AND EVT_MINUTE > ? AND EVT_MINUTE < ?";
+
+    /** sql query expression */
+    String SQL_HITS_COUNT = "SELECT FEAT_UID,SUM(HITS) FROM FF4J_AUDIT_HITS WHERE EVT_MINUTE > ? AND EVT_MINUTE < ? GROUP BY FEAT_UID";
+
+    /** sql query expression */
+    String SQL_HITS_FEATURES = "SELECT DISTINCT(FEAT_UID) FROM FF4J_AUDIT_HITS";
+
+    /** sql column name from table FF4J_AUDIT_HITS. */
+    String COL_HITS_FEATID = "FEAT_UID";
+
+    /** sql column name from table FF4J_AUDIT_HITS. */
+    String COL_HITS_MINUTE = "EVT_MINUTE";
+
+    /** sql column name from table FF4J_AUDIT_HITS. */
+    String COL_HITS_HITS = "HITS";
+
+}
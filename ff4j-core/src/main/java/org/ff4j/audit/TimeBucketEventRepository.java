@@ -0,0 +1,172 @@
+package org.ff4j.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ff4j.audit.graph.Curve;
+
+/**
+ * Implementation of in memory {@link EventRepository} keeping only hit counts per time bucket.
+ *
+ * <p>
+ * Events are not retained : hits ({@link EventType#HIT_FLIPPED} and {@link EventType#HIT_NOT_FLIPPED}) are added to a
+ * {@link TimeBucketSeries} per feature and to a global one. Memory is a few KB per feature whatever the traffic and queries cost is
+ * proportional to the number of buckets.
+ * </p>
+ *
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class TimeBucketEventRepository extends AbstractEventRepository {
+
+    /** Hit counts per feature. */
+    private final ConcurrentMap<String, TimeBucketSeries> featureHits = new ConcurrentHashMap<String, TimeBucketSeries>();
+
+    /** Hit counts for all features. */
+    private final TimeBucketSeries totalHits;
+
+    /** Duration of buckets for each tier. */
+    private final long[] durations;
+
+    /** Number of buckets for each tier. */
+    private final int[] sizes;
+
+    /** Number of events saved. */
+    private final AtomicLong eventCount = new AtomicLong();
+
+    /**
+     * Default constructor with default tiers (see {@link TimeBucketSeries}).
+     */
+    public TimeBucketEventRepository() {
+        this(TimeBucketSeries.DEFAULT_DURATIONS, TimeBucketSeries.DEFAULT_SIZES);
+    }
+
+    /**
+     * Constructor to tune tiers.
+     *
+     * @param durations
+     *            duration of buckets for each tier, from finest to coarsest
+     * @param sizes
+     *            number of buckets for each tier
+     */
+    public TimeBucketEventRepository(long[] durations, int[] sizes) {
+        this.totalHits = new TimeBucketSeries(durations, sizes);
+        this.durations = durations.clone();
+        this.sizes = sizes.clone();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean saveEvent(Event e) {
+        if (e == null) {
+            return false;
+        }
+        eventCount.addAndGet(e.getCount());
+        if (EventType.HIT_FLIPPED == e.getType() || EventType.HIT_NOT_FLIPPED == e.getType()) {
+            getSeries(e.getFeatureName()).add(e.getTimestamp(), e.getCount());
+            totalHits.add(e.getTimestamp(), e.getCount());
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Integer> getHitsCount(long startTime, long endTime) {
+        Map<String, Integer> hitsCount = new HashMap<String, Integer>();
+        for (Entry<String, TimeBucketSeries> series : featureHits.entrySet()) {
+            hitsCount.put(series.getKey(), (int) series.getValue().count(startTime, endTime));
+        }
+        return hitsCount;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Curve getHitCurve(String featureName, long interval, long startTime, long endTime) {
+        TimeBucketSeries series = featureHits.get(featureName);
+        if (series == null) {
+            return null;
+        }
+        return buildCurve(featureName, series, interval, startTime, endTime);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Curve> getHitCurves(Set<String> featNameSet, long interval, long startTime, long endTime) {
+        Map<String, Curve> maps = new HashMap<String, Curve>();
+        for (String name : featNameSet) {
+            TimeBucketSeries series = featureHits.get(name);
+            if (series != null) {
+                maps.put(name, buildCurve(name, series, interval, startTime, endTime));
+            }
+        }
+        return maps;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Curve getTotalHitCurve(long interval, long startTime, long endTime) {
+        return buildCurve("total", totalHits, interval, startTime, endTime);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> getCurveList() {
+        return featureHits.keySet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getTotalEventCount() {
+        return (int) eventCount.get();
+    }
+
+    /**
+     * Create curve and fill it from series.
+     */
+    private Curve buildCurve(String name, TimeBucketSeries series, long interval, long startTime, long endTime) {
+        Curve curve = new Curve(name, startTime, endTime, interval);
+        curve.setTitle(name);
+        series.fillCurve(curve, startTime, endTime, interval);
+        return curve;
+    }
+
+    /**
+     * Get or create series of a feature.
+     */
+    private TimeBucketSeries getSeries(String featureName) {
+        TimeBucketSeries series = featureHits.get(featureName);
+        if (series == null) {
+            TimeBucketSeries newSeries = new TimeBucketSeries(durations, sizes);
+            series = featureHits.putIfAbsent(featureName, newSeries);
+            if (series == null) {
+                series = newSeries;
+            }
+        }
+        return series;
+    }
+
+}
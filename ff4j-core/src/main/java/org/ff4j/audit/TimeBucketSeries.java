@@ -0,0 +1,223 @@
+package org.ff4j.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.ff4j.audit.graph.Curve;
+
+/**
+ * Counts of events aggregated into fixed time buckets, kept in circular arrays of primitive longs.
+ *
+ * <p>
+ * Several tiers are maintained at once (by default 60 buckets of a second, 120 buckets of a minute and 168 buckets of an hour,
+ * about 3KB). Each count is added to every tier and queries use the finest tier still retaining the requested start time, their
+ * cost depends on the number of buckets and not on the number of events.
+ * </p>
+ *
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class TimeBucketSeries {
+
+    /** Default duration of buckets for each tier in milliseconds. */
+    public static final long[] DEFAULT_DURATIONS = {1000L, 60 * 1000L, 3600 * 1000L};
+
+    /** Default number of buckets for each tier. */
+    public static final int[] DEFAULT_SIZES = {60, 120, 168};
+
+    /** Duration of a bucket for each tier, from finest to coarsest. */
+    private final long[] durations;
+
+    /** Counts of each tier, indexed by bucket identifier modulo size. */
+    private final long[][] counts;
+
+    /** Identifier of most recent bucket for each tier (timestamp / duration). */
+    private final long[] heads;
+
+    /** Total count since creation. */
+    private long total = 0;
+
+    /** Number of buckets read by queries since creation. */
+    private long bucketReads = 0;
+
+    /**
+     * Default constructor with default tiers.
+     */
+    public TimeBucketSeries() {
+        this(DEFAULT_DURATIONS, DEFAULT_SIZES);
+    }
+
+    /**
+     * Constructor with tiers.
+     *
+     * @param durations
+     *            duration of buckets for each tier, from finest to coarsest
+     * @param sizes
+     *            number of buckets for each tier
+     */
+    public TimeBucketSeries(long[] durations, int[] sizes) {
+        if (durations == null || sizes == null || durations.length == 0 || durations.length != sizes.length) {
+            throw new IllegalArgumentException("Durations (param#0) and sizes (param#1) must be non empty and of same length");
+        }
+        this.durations = durations.clone();
+        this.counts = new long[sizes.length][];
+        this.heads = new long[sizes.length];
+        for (int tier = 0; tier < sizes.length; tier++) {
+            if (durations[tier] <= 0 || sizes[tier] <= 0) {
+                throw new IllegalArgumentException("Durations and sizes must be greater than 0");
+            }
+            counts[tier] = new long[sizes[tier]];
+            heads[tier] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Add count to the buckets of the given time.
+     *
+     * @param timestamp
+     *            time of events
+     * @param count
+     *            number of events
+     */
+    public synchronized void add(long timestamp, long count) {
+        for (int tier = 0; tier < durations.length; tier++) {
+            long[] buckets = counts[tier];
+            long id = timestamp / durations[tier];
+            if (heads[tier] == Long.MIN_VALUE) {
+                heads[tier] = id;
+            } else if (id > heads[tier]) {
+                // Reset buckets being reused
+                long reset = Math.min(id - heads[tier], buckets.length);
+                for (long i = 1; i <= reset; i++) {
+                    buckets[(int) ((heads[tier] + i) % buckets.length)] = 0;
+                }
+                heads[tier] = id;
+            } else if (id <= heads[tier] - buckets.length) {
+                // Too old for this tier
+                continue;
+            }
+            buckets[(int) (id % buckets.length)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Count events between two dates.
+     *
+     * @param startTime
+     *            start of window (exclusive)
+     * @param endTime
+     *            end of window (exclusive)
+     * @return number of events, at the precision of the selected tier
+     */
+    public synchronized long count(long startTime, long endTime) {
+        if (endTime <= startTime || heads[0] == Long.MIN_VALUE) {
+            return 0;
+        }
+        int tier = selectTier(startTime);
+        long result = 0;
+        long last = lastBucket(tier, endTime);
+        for (long id = firstBucket(tier, startTime); id <= last; id++) {
+            result += counts[tier][(int) (id % counts[tier].length)];
+            bucketReads++;
+        }
+        return result;
+    }
+
+    /**
+     * Add counts between two dates to the points of the curve.
+     *
+     * @param curve
+     *            target curve built with same start time, end time and interval
+     * @param startTime
+     *            start of window (exclusive)
+     * @param endTime
+     *            end of window (exclusive)
+     * @param interval
+     *            interval between two points
+     */
+    public synchronized void fillCurve(Curve curve, long startTime, long endTime, long interval) {
+        int nbPoints = curve.getListOfPoint().size();
+        if (endTime <= startTime || nbPoints == 0 || heads[0] == Long.MIN_VALUE) {
+            return;
+        }
+        int tier = selectTier(startTime);
+        long last = lastBucket(tier, endTime);
+        for (long id = firstBucket(tier, startTime); id <= last; id++) {
+            long value = counts[tier][(int) (id % counts[tier].length)];
+            bucketReads++;
+            if (value > 0) {
+                long t = Math.max(id * durations[tier], startTime + 1);
+                int slot = (int) Math.min(((t - startTime) / interval) + 1, nbPoints - 1);
+                curve.incrCount(slot, value);
+            }
+        }
+    }
+
+    /**
+     * Finest tier retaining the start time, coarsest otherwise.
+     *
+     * @param startTime
+     *            start of window
+     * @return tier index
+     */
+    private int selectTier(long startTime) {
+        for (int tier = 0; tier < durations.length; tier++) {
+            long oldest = heads[tier] - counts[tier].length + 1;
+            if (startTime / durations[tier] >= oldest) {
+                return tier;
+            }
+        }
+        return durations.length - 1;
+    }
+
+    /**
+     * First bucket of a tier to read, within retention.
+     */
+    private long firstBucket(int tier, long startTime) {
+        return Math.max((startTime + 1) / durations[tier], heads[tier] - counts[tier].length + 1);
+    }
+
+    /**
+     * Last bucket of a tier to read, within retention.
+     */
+    private long lastBucket(int tier, long endTime) {
+        return Math.min((endTime - 1) / durations[tier], heads[tier]);
+    }
+
+    /**
+     * Getter accessor for attribute 'total'.
+     *
+     * @return current value of 'total'
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Number of buckets read by {@link #count(long, long)} and {@link #fillCurve(Curve, long, long, long)} since creation, a query
+     * never reads more buckets than the size of the selected tier.
+     *
+     * @return number of buckets read
+     */
+    public synchronized long getBucketReads() {
+        return bucketReads;
+    }
+
+}
@@ -70,8 +70,20 @@ public class Curve {
      *            offset of point
      */
     public void incrCount(int offset) {
+        incrCount(offset, 1);
+    }
+
+    /**
+     * Increment hit ratio for this slot.
+     * 
+     * @param offset
+     *            offset of point
+     * @param delta
+     *            value to add
+     */
+    public void incrCount(int offset, long delta) {
         Point p = getListOfPoint().get(offset);
-        p.setY(p.getY() + 1);
+        p.setY(p.getY() + delta);
     }
 
     /**
@@ -0,0 +1,116 @@
+package org.ff4j.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coarse clock for cache expiry, the current time is read from a volatile field updated by a daemon thread instead of calling
+ * {@link System#currentTimeMillis()} at each access.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class CacheClock {
+
+    /** Default delay between two ticks in milliseconds. */
+    public static final long DEFAULT_TICK = 10L;
+
+    /** Shared clock. */
+    private static volatile CacheClock sharedClock = null;
+
+    /** Current time in milliseconds, updated at each tick. */
+    private volatile long now = System.currentTimeMillis();
+
+    /** Thread updating current time, null if time is provided by subclass. */
+    private final ScheduledExecutorService ticker;
+
+    /**
+     * Constructor for subclasses providing their own time (tests), no ticker is started.
+     */
+    protected CacheClock() {
+        this.ticker = null;
+    }
+
+    /**
+     * Constructor starting a ticker thread, to be stopped with {@link #stop()} once the clock is not used anymore.
+     * 
+     * @param tickMillis
+     *            delay between two ticks in milliseconds
+     */
+    public CacheClock(long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick (param#0) must be greater than 0");
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ff4j-cache-clock");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        ticker.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                now = System.currentTimeMillis();
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Clock shared by caches, ticking every {@link #DEFAULT_TICK} milliseconds.
+     * 
+     * @return shared clock
+     */
+    public static CacheClock getSharedClock() {
+        if (sharedClock == null) {
+            synchronized (CacheClock.class) {
+                if (sharedClock == null) {
+                    sharedClock = new CacheClock(DEFAULT_TICK);
+                }
+            }
+        }
+        return sharedClock;
+    }
+
+    /**
+     * Stop the ticker thread, current time is not updated anymore. The shared clock cannot be stopped as other caches use it.
+     */
+    public void stop() {
+        if (this == sharedClock) {
+            throw new IllegalStateException("Shared clock cannot be stopped");
+        }
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Current time in milliseconds, precision is the tick delay.
+     * 
+     * @return current time
+     */
+    public long now() {
+        return now;
+    }
+
+}
@@ -20,11 +20,36 @@ package org.ff4j.cache;
  * #L%
  */
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.ff4j.core.BulkFeatureStore;
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
+import org.ff4j.core.FeatureVisitor;
+import org.ff4j.core.VisitableFeatureStore;
+import org.ff4j.exception.FeatureAccessException;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.exception.GroupNotFoundException;
 
 /**
  * Access to {@link FeatureStore} could generate some overhead and decrease performances. This is the reason why cache is provided
@@ -33,9 +58,26 @@ import org.ff4j.core.FeatureStore;
  * As applications are distributed, the cache itself could be distributed. The default implement is
  * {@link InMemoryFeatureStoreCacheProxy} but other are provided to use distributed cache system as redis or memcached.
  * 
+ * With refresh-ahead enabled ({@link #setRefreshAfter(long)}), features read more than 'refreshAfter' milliseconds ago are reloaded
+ * in background while callers keep getting the cached value, even once expired in cache manager, as long as it is not older than
+ * 'maxStaleness'.
+ * 
+ * Loads from target are coalesced : concurrent reads of the same feature, of all features or of the same group wait for a single
+ * access to the store.
+ * 
+ * With store snapshot enabled ({@link #setStoreSnapshotEnabled(boolean)}), the whole store is loaded at first bulk read and
+ * 'readAll', 'readGroup', 'readAllGroups' and 'existGroup' are served from memory until next modification through the proxy or
+ * until the snapshot is older than 'storeSnapshotMaxAge' ({@link #setStoreSnapshotMaxAge(long)}).
+ * 
+ * When 'absentTtl' is set, identifiers of features not found in target are remembered for 'absentTtl' milliseconds (negative
+ * caching) so that probing missing features does not reach the store each time, they are forgotten as soon as the feature is
+ * created through the proxy. Features created directly in target are seen only once the entry expires.
+ * 
+ * Cached features are indexed by group : enabling or disabling a group only updates features of this group in cache.
+ * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
-public class FeatureStoreCacheProxy implements FeatureStore {
+public class FeatureStoreCacheProxy implements VisitableFeatureStore, BulkFeatureStore {
 
     /** Target feature store to be proxified to cache features. */
     private FeatureStore target;
@@ -43,6 +85,78 @@ public class FeatureStoreCacheProxy implements FeatureStore {
     /** cache manager. */
     private FeatureCacheManager cacheManager;
 
+    /** Default maximum age of a stale feature served while refreshing : 5 minutes. */
+    public static final long DEFAULT_MAX_STALENESS = 300 * 1000L;
+
+    /** Reload features in background after this delay in milliseconds, 0 disables refresh-ahead. */
+    private long refreshAfter = 0;
+
+    /** Maximum age in milliseconds of a feature served while refreshing, when store is not available. */
+    private long maxStaleness = DEFAULT_MAX_STALENESS;
+
+    /** Executor for background reloads, created at first refresh if not provided. */
+    private ExecutorService refreshExecutor = null;
+
+    /** Last features loaded from target with their load date (refresh-ahead only). */
+    private final ConcurrentMap<String, InMemoryCacheEntry<Feature>> loadedFeatures = new ConcurrentHashMap<String, InMemoryCacheEntry<Feature>>();
+
+    /** Last purge of features older than 'maxStaleness' from loaded features. */
+    private volatile long loadedPurgeDate = 0;
+
+    /** Features being reloaded in background. */
+    private final ConcurrentMap<String, Boolean> refreshing = new ConcurrentHashMap<String, Boolean>();
+
+    /** Incremented at each invalidation so that background reloads started before are discarded. */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** Prefix of in-flight keys for features. */
+    private static final String FLIGHT_FEATURE = "feature:";
+
+    /** Prefix of in-flight keys for groups. */
+    private static final String FLIGHT_GROUP = "group:";
+
+    /** In-flight key for readAll. */
+    private static final String FLIGHT_ALL = "all:";
+
+    /** In-flight key for store snapshot. */
+    private static final String FLIGHT_SNAPSHOT = "snapshot:";
+
+    /** Loads from target in progress, concurrent callers wait for the same result. */
+    private final ConcurrentMap<String, FutureTask<?>> inFlight = new ConcurrentHashMap<String, FutureTask<?>>();
+
+    /** Serve bulk and group reads from a snapshot of the whole store. */
+    private boolean storeSnapshotEnabled = false;
+
+    /** Snapshot of the whole store, null if not loaded or invalidated. */
+    private volatile StoreSnapshot storeSnapshot = null;
+
+    /** Default maximum age of store snapshot : 1 minute. */
+    public static final long DEFAULT_STORE_SNAPSHOT_MAX_AGE = 60 * 1000L;
+
+    /** Maximum age in milliseconds of store snapshot before reloading it, 0 keeps it until next modification. */
+    private long storeSnapshotMaxAge = DEFAULT_STORE_SNAPSHOT_MAX_AGE;
+
+    /** Default time to live of absent features : negative caching is disabled. */
+    public static final long DEFAULT_ABSENT_TTL = 0L;
+
+    /** Default maximum number of absent features remembered. */
+    public static final int DEFAULT_ABSENT_MAX_SIZE = 10000;
+
+    /** Time to live in milliseconds of absent features, 0 disables negative caching. */
+    private long absentTtl = DEFAULT_ABSENT_TTL;
+
+    /** Maximum number of absent features remembered. */
+    private int absentMaxSize = DEFAULT_ABSENT_MAX_SIZE;
+
+    /** Identifiers of cached features per group. */
+    private final ConcurrentMap<String, Set<String>> groupIndex = new ConcurrentHashMap<String, Set<String>>();
+
+    /** Identifiers of features not found in target with their expiry date. */
+    private final ConcurrentMap<String, Long> absentFeatures = new ConcurrentHashMap<String, Long>();
+
+    /** Clock used to date loaded features. */
+    private CacheClock clock = CacheClock.getSharedClock();
+
     /**
      * Allow Ioc and defeine default constructor.
      */
@@ -67,7 +181,7 @@ public class FeatureStoreCacheProxy implements FeatureStore {
         // Reach target
         getTarget().enable(featureId);
         // Modification => flush cache
-        getCacheManager().evict(featureId);
+        evictLocal(featureId);
     }
 
     /** {@inheritDoc} */
@@ -76,7 +190,7 @@ public class FeatureStoreCacheProxy implements FeatureStore {
         // Reach target
         getTarget().disable(featureId);
         // Cache Operations : As modification, flush cache for this
-        getCacheManager().evict(featureId);
+        evictLocal(featureId);
     }
 
     /** {@inheritDoc} */
@@ -84,7 +198,15 @@ public class FeatureStoreCacheProxy implements FeatureStore {
     public boolean exist(String featureId) {
         // not in cache but maybe created from last access
         if (getCacheManager().get(featureId) == null) {
-            return getTarget().exist(featureId);
+            if (isKnownAbsent(featureId)) {
+                return false;
+            }
+            long startGeneration = generation.get();
+            boolean exist = getTarget().exist(featureId);
+            if (!exist) {
+                markAbsent(featureId, startGeneration);
+            }
+            return exist;
         }
         return true;
     }
@@ -94,31 +216,478 @@ public class FeatureStoreCacheProxy implements FeatureStore {
     public void create(Feature fp) {
         getTarget().create(fp);
         getCacheManager().put(fp);
-        getCacheManager().evict(fp.getUid());
+        evictLocal(fp.getUid());
     }
 
     /** {@inheritDoc} */
     @Override
     public Feature read(String featureUid) {
         Feature fp = getCacheManager().get(featureUid);
+        if (refreshAfter > 0 && !(fp == null && isKnownAbsent(featureUid))) {
+            return readRefreshAhead(featureUid, fp);
+        }
         // not in cache but may has been created from now
         if (null == fp) {
-            fp = getTarget().read(featureUid);
-            getCacheManager().put(fp);
+            if (isKnownAbsent(featureUid)) {
+                throw new FeatureNotFoundException(featureUid);
+            }
+            fp = loadFeature(featureUid);
         }
         return fp;
     }
 
+    /**
+     * Load feature from target and put it in cache, concurrent loads of the same feature are coalesced.
+     * 
+     * @param featureUid
+     *            feature identifier
+     * @return feature
+     */
+    private Feature loadFeature(final String featureUid) {
+        final long startGeneration = generation.get();
+        return loadOnce(FLIGHT_FEATURE + featureUid, new Callable<Feature>() {
+            public Feature call() {
+                Feature fp = null;
+                try {
+                    fp = getTarget().read(featureUid);
+                } catch (FeatureNotFoundException fnfe) {
+                    markAbsent(featureUid, startGeneration);
+                    throw fnfe;
+                }
+                // Do not cache a value read before an invalidation
+                if (generation.get() == startGeneration) {
+                    putLoaded(fp);
+                }
+                return fp;
+            }
+        });
+    }
+
+    /**
+     * Execute loader unless a load with the same key is in progress, in which case wait for its result.
+     * 
+     * @param key
+     *            in-flight key
+     * @param loader
+     *            access to target
+     * @return loaded value
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadOnce(String key, Callable<T> loader) {
+        FutureTask<T> task = new FutureTask<T>(loader);
+        FutureTask<T> current = (FutureTask<T>) inFlight.putIfAbsent(key, task);
+        if (current == null) {
+            current = task;
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+        try {
+            return current.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new FeatureAccessException("Interrupted while waiting for '" + key + "' to be loaded", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FeatureAccessException("Cannot load '" + key + "' from target store", cause);
+        }
+    }
+
+    /**
+     * Read with refresh-ahead : serve cached or stale value and reload in background.
+     * 
+     * @param featureUid
+     *            feature identifier
+     * @param cached
+     *            value from cache manager (null if absent or expired)
+     * @return feature
+     */
+    private Feature readRefreshAhead(String featureUid, Feature cached) {
+        InMemoryCacheEntry<Feature> loaded = loadedFeatures.get(featureUid);
+        long age = (loaded == null) ? Long.MAX_VALUE : clock.now() - loaded.getInsertedDate();
+        if (cached != null) {
+            if (loaded != null && age >= refreshAfter) {
+                refreshAsync(featureUid);
+            }
+            return cached;
+        }
+        if (loaded != null) {
+            if (age < maxStaleness) {
+                // Expired in cache manager, serve stale value while reloading
+                refreshAsync(featureUid);
+                return loaded.getEntry();
+            }
+            loadedFeatures.remove(featureUid, loaded);
+        }
+        return loadFeature(featureUid);
+    }
+
+    /**
+     * Reload a feature in background if not already in progress.
+     * 
+     * @param featureUid
+     *            feature identifier
+     */
+    private void refreshAsync(final String featureUid) {
+        if (refreshing.putIfAbsent(featureUid, Boolean.TRUE) != null) {
+            return;
+        }
+        final long startGeneration = generation.get();
+        try {
+            getRefreshExecutor().execute(new Runnable() {
+                public void run() {
+                    try {
+                        Feature fp = getTarget().read(featureUid);
+                        if (generation.get() == startGeneration) {
+                            putLoaded(fp);
+                        }
+                    } catch (FeatureNotFoundException fnfe) {
+                        evictLocal(featureUid);
+                    } catch (RuntimeException re) {
+                        // Store not available : stale value is served until max staleness
+                    } finally {
+                        refreshing.remove(featureUid);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            refreshing.remove(featureUid);
+        }
+    }
+
+    /**
+     * Check if feature is known as absent from target.
+     * 
+     * @param featureId
+     *            feature identifier
+     * @return true if feature has been recently found absent
+     */
+    private boolean isKnownAbsent(String featureId) {
+        if (absentTtl <= 0 || featureId == null) {
+            return false;
+        }
+        Long expiry = absentFeatures.get(featureId);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry <= clock.now()) {
+            absentFeatures.remove(featureId, expiry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Remember feature as absent from target unless an invalidation occured since the access to target.
+     * 
+     * @param featureId
+     *            feature identifier
+     * @param startGeneration
+     *            generation when target has been accessed
+     */
+    private void markAbsent(String featureId, long startGeneration) {
+        if (absentTtl <= 0 || featureId == null) {
+            return;
+        }
+        long now = clock.now();
+        if (absentFeatures.size() >= absentMaxSize) {
+            // Purge expired entries, do not remember more if still full
+            for (Map.Entry<String, Long> entry : absentFeatures.entrySet()) {
+                if (entry.getValue() <= now) {
+                    absentFeatures.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            if (absentFeatures.size() >= absentMaxSize) {
+                return;
+            }
+        }
+        absentFeatures.put(featureId, now + absentTtl);
+        if (generation.get() != startGeneration) {
+            absentFeatures.remove(featureId);
+        }
+    }
+
+    /**
+     * Remove loaded features older than 'maxStaleness' (they cannot be served anymore), at most once per 'maxStaleness' so that
+     * features never read again do not stay in memory.
+     * 
+     * @param now
+     *            current time in milliseconds
+     */
+    private void purgeLoaded(long now) {
+        long lastPurge = loadedPurgeDate;
+        if (now - lastPurge < maxStaleness) {
+            return;
+        }
+        loadedPurgeDate = now;
+        for (Map.Entry<String, InMemoryCacheEntry<Feature>> entry : loadedFeatures.entrySet()) {
+            if (now - entry.getValue().getInsertedDate() >= maxStaleness) {
+                loadedFeatures.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Put feature loaded from target into cache.
+     * 
+     * @param fp
+     *            loaded feature
+     */
+    private void putLoaded(Feature fp) {
+        getCacheManager().put(fp);
+        if (refreshAfter > 0) {
+            long now = clock.now();
+            loadedFeatures.put(fp.getUid(), new InMemoryCacheEntry<Feature>(fp, now));
+            purgeLoaded(now);
+        }
+        String groupName = fp.getGroup();
+        if (groupName != null && !groupName.isEmpty()) {
+            Set<String> members = groupIndex.get(groupName);
+            if (members == null) {
+                Set<String> newMembers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                members = groupIndex.putIfAbsent(groupName, newMembers);
+                if (members == null) {
+                    members = newMembers;
+                }
+            }
+            members.add(fp.getUid());
+        }
+    }
+
+    /**
+     * Evict feature from cache manager and from loaded features.
+     * 
+     * @param featureId
+     *            feature identifier
+     */
+    private void evictLocal(String featureId) {
+        invalidateBulk();
+        evictEntry(featureId);
+        for (Set<String> members : groupIndex.values()) {
+            members.remove(featureId);
+        }
+    }
+
+    /**
+     * Evict a single feature, group index is not updated.
+     * 
+     * @param featureId
+     *            feature identifier
+     */
+    private void evictEntry(String featureId) {
+        getCacheManager().evict(featureId);
+        loadedFeatures.remove(featureId);
+        absentFeatures.remove(featureId);
+        // Later callers must not join a load started before the modification
+        inFlight.remove(FLIGHT_FEATURE + featureId);
+    }
+
+    /**
+     * Discard loads in progress and views built from several features.
+     */
+    private void invalidateBulk() {
+        generation.incrementAndGet();
+        storeSnapshot = null;
+        inFlight.remove(FLIGHT_ALL);
+        inFlight.remove(FLIGHT_SNAPSHOT);
+        clearGroupFlights();
+    }
+
+    /**
+     * Update in cache the features of a group after a modification of the whole group : fresh values are read from target and
+     * features cached but not in group anymore are evicted. If the group cannot be read, the whole cache is flushed.
+     * 
+     * @param groupName
+     *            group name
+     */
+    private void refreshGroupEntries(String groupName) {
+        invalidateBulk();
+        Set<String> members = groupIndex.remove(groupName);
+        Set<String> cached = (members == null) ? new HashSet<String>() : new HashSet<String>(members);
+        Map<String, Feature> fresh;
+        try {
+            fresh = getTarget().readGroup(groupName);
+        } catch (RuntimeException re) {
+            clearLocal();
+            return;
+        }
+        for (Feature feature : fresh.values()) {
+            evictEntry(feature.getUid());
+            putLoaded(feature);
+            cached.remove(feature.getUid());
+        }
+        for (String featureId : cached) {
+            evictEntry(featureId);
+        }
+    }
+
+    /**
+     * Flush cache manager and loaded features.
+     */
+    private void clearLocal() {
+        generation.incrementAndGet();
+        getCacheManager().clear();
+        loadedFeatures.clear();
+        absentFeatures.clear();
+        groupIndex.clear();
+        storeSnapshot = null;
+        inFlight.clear();
+    }
+
+    /**
+     * Forget in-flight loads of groups.
+     */
+    private void clearGroupFlights() {
+        for (String key : inFlight.keySet()) {
+            if (key.startsWith(FLIGHT_GROUP)) {
+                inFlight.remove(key);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public Map<String, Feature> readAll() {
+        if (storeSnapshotEnabled) {
+            return new LinkedHashMap<String, Feature>(getStoreSnapshot().features);
+        }
         // Cannot be sure of whole cache - do not test any feature one-by-one : accessing FeatureStore
-        return getTarget().readAll();
+        return loadOnce(FLIGHT_ALL, new Callable<Map<String, Feature>>() {
+            public Map<String, Feature> call() {
+                return getTarget().readAll();
+            }
+        });
+    }
+
+    /**
+     * Read several features : cached features are served from cache, others are read from target at once (multi-read of
+     * {@link BulkFeatureStore} if available) and put in cache.
+     * 
+     * @param featureIds
+     *            identifiers of features to read
+     * @return features found indexed by identifier
+     */
+    @Override
+    public Map<String, Feature> readAll(Collection<String> featureIds) {
+        if (featureIds == null) {
+            throw new IllegalArgumentException("Features (param#0) cannot be null");
+        }
+        Map<String, Feature> features = new LinkedHashMap<String, Feature>();
+        List<String> misses = new ArrayList<String>();
+        for (String uid : featureIds) {
+            if (uid == null || uid.isEmpty()) {
+                throw new IllegalArgumentException("Feature identifier cannot be null nor empty");
+            }
+            if (features.containsKey(uid) || misses.contains(uid)) {
+                continue;
+            }
+            Feature fp = getCacheManager().get(uid);
+            if (fp != null) {
+                features.put(uid, fp);
+            } else if (!isKnownAbsent(uid)) {
+                features.put(uid, null);
+                misses.add(uid);
+            }
+        }
+        if (!misses.isEmpty()) {
+            long startGeneration = generation.get();
+            Map<String, Feature> loaded = readFromTarget(misses);
+            for (String uid : misses) {
+                Feature fp = loaded.get(uid);
+                if (fp == null) {
+                    features.remove(uid);
+                    markAbsent(uid, startGeneration);
+                } else {
+                    features.put(uid, fp);
+                    // Do not cache a value read before an invalidation
+                    if (generation.get() == startGeneration) {
+                        putLoaded(fp);
+                    }
+                }
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Read features from target, with a single access if target supports it.
+     * 
+     * @param featureIds
+     *            identifiers of features to read
+     * @return features found indexed by identifier
+     */
+    private Map<String, Feature> readFromTarget(List<String> featureIds) {
+        if (getTarget() instanceof BulkFeatureStore) {
+            return ((BulkFeatureStore) getTarget()).readAll(featureIds);
+        }
+        Map<String, Feature> features = new HashMap<String, Feature>();
+        for (String uid : featureIds) {
+            try {
+                features.put(uid, getTarget().read(uid));
+            } catch (FeatureNotFoundException fnfe) {
+                // Absent features are not in the map
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Iterate over features with the cursor of target store if available (cache is bypassed), or from {@link #readAll()}.
+     * 
+     * @param visitor
+     *            callback for each feature
+     * @throws IOException
+     *             error raised by visitor
+     */
+    @Override
+    public void visitAll(FeatureVisitor visitor) throws IOException {
+        if (getTarget() instanceof VisitableFeatureStore) {
+            ((VisitableFeatureStore) getTarget()).visitAll(visitor);
+        } else {
+            for (Feature feature : readAll().values()) {
+                visitor.visit(feature);
+            }
+        }
+    }
+
+    /**
+     * Get snapshot of the whole store, loading it from target if needed.
+     * 
+     * @return current snapshot
+     */
+    private StoreSnapshot getStoreSnapshot() {
+        StoreSnapshot current = storeSnapshot;
+        // Modifications made by other nodes or directly in target are seen once snapshot expires
+        if (current != null && (storeSnapshotMaxAge <= 0 || clock.now() - current.loadedDate < storeSnapshotMaxAge)) {
+            return current;
+        }
+        final long startGeneration = generation.get();
+        return loadOnce(FLIGHT_SNAPSHOT, new Callable<StoreSnapshot>() {
+            public StoreSnapshot call() {
+                StoreSnapshot loaded = new StoreSnapshot(getTarget().readAll(), clock.now());
+                // Do not keep a snapshot read before an invalidation
+                if (generation.get() == startGeneration) {
+                    storeSnapshot = loaded;
+                }
+                return loaded;
+            }
+        });
     }
 
     /** {@inheritDoc} */
     @Override
     public Set<String> readAllGroups() {
+        if (storeSnapshotEnabled) {
+            return new LinkedHashSet<String>(getStoreSnapshot().groups.keySet());
+        }
         // Cannot be sure of whole cache - do not test any feature one-by-one : accessing FeatureStore
         return getTarget().readAllGroups();
     }
@@ -129,72 +698,152 @@ public class FeatureStoreCacheProxy implements FeatureStore {
         // Access target store
         getTarget().delete(featureId);
         // even is not present, evict won't failed
-        getCacheManager().evict(featureId);
+        evictLocal(featureId);
     }
 
     /** {@inheritDoc} */
     @Override
     public void update(Feature fp) {
         getTarget().update(fp);
-        getCacheManager().evict(fp.getUid());
+        evictLocal(fp.getUid());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void createAll(Collection<Feature> features) {
+        if (getTarget() instanceof BulkFeatureStore) {
+            ((BulkFeatureStore) getTarget()).createAll(features);
+        } else {
+            for (Feature feature : features) {
+                getTarget().create(feature);
+            }
+        }
+        for (Feature feature : features) {
+            evictLocal(feature.getUid());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateAll(Collection<Feature> features) {
+        if (getTarget() instanceof BulkFeatureStore) {
+            ((BulkFeatureStore) getTarget()).updateAll(features);
+        } else {
+            for (Feature feature : features) {
+                getTarget().update(feature);
+            }
+        }
+        for (Feature feature : features) {
+            evictLocal(feature.getUid());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAll(Collection<String> featureIds) {
+        if (getTarget() instanceof BulkFeatureStore) {
+            ((BulkFeatureStore) getTarget()).deleteAll(featureIds);
+        } else {
+            for (String featureId : featureIds) {
+                getTarget().delete(featureId);
+            }
+        }
+        for (String featureId : featureIds) {
+            evictLocal(featureId);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void upsertAll(Collection<Feature> features) {
+        if (getTarget() instanceof BulkFeatureStore) {
+            ((BulkFeatureStore) getTarget()).upsertAll(features);
+        } else {
+            for (Feature feature : features) {
+                if (getTarget().exist(feature.getUid())) {
+                    getTarget().update(feature);
+                } else {
+                    getTarget().create(feature);
+                }
+            }
+        }
+        for (Feature feature : features) {
+            evictLocal(feature.getUid());
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public void grantRoleOnFeature(String featureId, String roleName) {
         getTarget().grantRoleOnFeature(featureId, roleName);
-        getCacheManager().evict(featureId);
+        evictLocal(featureId);
     }
 
     /** {@inheritDoc} */
     @Override
     public void removeRoleFromFeature(String featureId, String roleName) {
         getTarget().removeRoleFromFeature(featureId, roleName);
-        getCacheManager().evict(featureId);
+        evictLocal(featureId);
     }
 
     /** {@inheritDoc} */
     @Override
     public void enableGroup(String groupName) {
         getTarget().enableGroup(groupName);
-        // Cannot know wich feature to work with (exceptional event) : flush cache
-        getCacheManager().clear();
+        // Update features of the group only
+        refreshGroupEntries(groupName);
     }
 
     /** {@inheritDoc} */
     @Override
     public void disableGroup(String groupName) {
         getTarget().disableGroup(groupName);
-        // Cannot know wich feature to work with (exceptional event) : flush cache
-        getCacheManager().clear();
+        // Update features of the group only
+        refreshGroupEntries(groupName);
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean existGroup(String groupName) {
+        if (storeSnapshotEnabled) {
+            checkGroupName(groupName);
+            return getStoreSnapshot().groups.containsKey(groupName);
+        }
         // Cache cannot help you
         return getTarget().existGroup(groupName);
     }
 
     /** {@inheritDoc} */
     @Override
-    public Map<String, Feature> readGroup(String groupName) {
+    public Map<String, Feature> readGroup(final String groupName) {
+        if (storeSnapshotEnabled) {
+            checkGroupName(groupName);
+            Map<String, Feature> group = getStoreSnapshot().groups.get(groupName);
+            if (group == null) {
+                throw new GroupNotFoundException(groupName);
+            }
+            return new HashMap<String, Feature>(group);
+        }
         // Cache cannot help you
-        return getTarget().readGroup(groupName);
+        return loadOnce(FLIGHT_GROUP + groupName, new Callable<Map<String, Feature>>() {
+            public Map<String, Feature> call() {
+                return getTarget().readGroup(groupName);
+            }
+        });
     }
 
     /** {@inheritDoc} */
     @Override
     public void addToGroup(String featureId, String groupName) {
         getTarget().addToGroup(featureId, groupName);
-        getCacheManager().evict(featureId);
+        evictLocal(featureId);
     }
 
     /** {@inheritDoc} */
     @Override
     public void removeFromGroup(String featureId, String groupName) {
         getTarget().removeFromGroup(featureId, groupName);
-        getCacheManager().evict(featureId);
+        evictLocal(featureId);
     }
 
     /**
@@ -241,6 +890,181 @@ public class FeatureStoreCacheProxy implements FeatureStore {
         this.cacheManager = cacheManager;
     }
 
+    /**
+     * Check group name parameter as target stores do.
+     * 
+     * @param groupName
+     *            group name
+     */
+    private void checkGroupName(String groupName) {
+        if (groupName == null || groupName.isEmpty()) {
+            throw new IllegalArgumentException("Groupname cannot be null nor empty");
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'absentTtl'.
+     * 
+     * @return current value of 'absentTtl'
+     */
+    public long getAbsentTtl() {
+        return absentTtl;
+    }
+
+    /**
+     * Setter accessor for attribute 'absentTtl'.
+     * 
+     * @param absentTtl
+     *            new value for 'absentTtl ' in milliseconds, 0 disables negative caching
+     */
+    public void setAbsentTtl(long absentTtl) {
+        this.absentTtl = absentTtl;
+        absentFeatures.clear();
+    }
+
+    /**
+     * Getter accessor for attribute 'absentMaxSize'.
+     * 
+     * @return current value of 'absentMaxSize'
+     */
+    public int getAbsentMaxSize() {
+        return absentMaxSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'absentMaxSize'.
+     * 
+     * @param absentMaxSize
+     *            new value for 'absentMaxSize '
+     */
+    public void setAbsentMaxSize(int absentMaxSize) {
+        this.absentMaxSize = absentMaxSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'storeSnapshotEnabled'.
+     * 
+     * @return current value of 'storeSnapshotEnabled'
+     */
+    public boolean isStoreSnapshotEnabled() {
+        return storeSnapshotEnabled;
+    }
+
+    /**
+     * Setter accessor for attribute 'storeSnapshotEnabled'.
+     * 
+     * @param storeSnapshotEnabled
+     *            new value for 'storeSnapshotEnabled '
+     */
+    public void setStoreSnapshotEnabled(boolean storeSnapshotEnabled) {
+        this.storeSnapshotEnabled = storeSnapshotEnabled;
+        this.storeSnapshot = null;
+    }
+
+    /**
+     * Getter accessor for attribute 'storeSnapshotMaxAge'.
+     * 
+     * @return current value of 'storeSnapshotMaxAge'
+     */
+    public long getStoreSnapshotMaxAge() {
+        return storeSnapshotMaxAge;
+    }
+
+    /**
+     * Setter accessor for attribute 'storeSnapshotMaxAge'.
+     * 
+     * @param storeSnapshotMaxAge
+     *            new value for 'storeSnapshotMaxAge ' in milliseconds, 0 keeps snapshot until next modification
+     */
+    public void setStoreSnapshotMaxAge(long storeSnapshotMaxAge) {
+        this.storeSnapshotMaxAge = storeSnapshotMaxAge;
+    }
+
+    /**
+     * Getter accessor for attribute 'refreshAfter'.
+     * 
+     * @return current value of 'refreshAfter'
+     */
+    public long getRefreshAfter() {
+        return refreshAfter;
+    }
+
+    /**
+     * Setter accessor for attribute 'refreshAfter'.
+     * 
+     * @param refreshAfter
+     *            new value for 'refreshAfter ' in milliseconds, 0 disables refresh-ahead
+     */
+    public void setRefreshAfter(long refreshAfter) {
+        this.refreshAfter = refreshAfter;
+    }
+
+    /**
+     * Getter accessor for attribute 'maxStaleness'.
+     * 
+     * @return current value of 'maxStaleness'
+     */
+    public long getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    /**
+     * Setter accessor for attribute 'maxStaleness'.
+     * 
+     * @param maxStaleness
+     *            new value for 'maxStaleness ' in milliseconds
+     */
+    public void setMaxStaleness(long maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * Number of features kept with their load date for refresh-ahead.
+     * 
+     * @return number of loaded features
+     */
+    public int getLoadedFeaturesCount() {
+        return loadedFeatures.size();
+    }
+
+    /**
+     * Getter accessor for attribute 'refreshExecutor', a single daemon thread is created if not provided.
+     * 
+     * @return current value of 'refreshExecutor'
+     */
+    public synchronized ExecutorService getRefreshExecutor() {
+        if (refreshExecutor == null) {
+            refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "ff4j-cache-refresh");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return refreshExecutor;
+    }
+
+    /**
+     * Setter accessor for attribute 'refreshExecutor'.
+     * 
+     * @param refreshExecutor
+     *            new value for 'refreshExecutor '
+     */
+    public synchronized void setRefreshExecutor(ExecutorService refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Setter accessor for attribute 'clock'.
+     * 
+     * @param clock
+     *            new value for 'clock '
+     */
+    public void setClock(CacheClock clock) {
+        this.clock = clock;
+    }
+
     // ------------ Cache related method --------------------
 
     /** {@inheritDoc} */
@@ -261,4 +1085,46 @@ public class FeatureStoreCacheProxy implements FeatureStore {
         return target.getClass().getCanonicalName();
     }
 
+    /**
+     * Immutable view of the whole store with features indexed by group.
+     */
+    private static final class StoreSnapshot {
+
+        /** All features. */
+        private final Map<String, Feature> features;
+
+        /** Features per group. */
+        private final Map<String, Map<String, Feature>> groups;
+
+        /** Load date in milliseconds. */
+        private final long loadedDate;
+
+        /**
+         * Build snapshot and group index from features.
+         * 
+         * @param source
+         *            features read from target
+         * @param loadedDate
+         *            load date in milliseconds
+         */
+        private StoreSnapshot(Map<String, Feature> source, long loadedDate) {
+            this.loadedDate = loadedDate;
+            Map<String, Feature> all = new LinkedHashMap<String, Feature>(source);
+            Map<String, Map<String, Feature>> index = new LinkedHashMap<String, Map<String, Feature>>();
+            for (Feature feature : all.values()) {
+                String group = feature.getGroup();
+                if (group != null && !group.isEmpty()) {
+                    Map<String, Feature> members = index.get(group);
+                    if (members == null) {
+                        members = new HashMap<String, Feature>();
+                        index.put(group, members);
+                    }
+                    members.put(feature.getUid(), feature);
+                }
+            }
+            this.features = Collections.unmodifiableMap(all);
+            this.groups = Collections.unmodifiableMap(index);
+        }
+    }
+
 }
@@ -0,0 +1,133 @@
+package org.ff4j.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Count-min sketch estimating access frequency of keys in a fixed memory, used as admission filter by {@link TinyLfuCacheManager}.
+ *
+ * <p>
+ * Counters are halved when the number of increments reaches the sample size, so that old popularity fades away. Updates are not
+ * synchronized : a lost increment under contention only lowers an estimate slightly.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+final class FrequencySketch {
+
+    /** Number of rows (hash functions). */
+    private static final int DEPTH = 4;
+
+    /** Seeds of hash functions. */
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /** Max value of a counter. */
+    private static final int MAX_COUNT = 15;
+
+    /** Counters, DEPTH rows of width counters. */
+    private final byte[] table;
+
+    /** Mask to compute column. */
+    private final int mask;
+
+    /** Increments before aging. */
+    private final int sampleSize;
+
+    /** Increments since last aging. */
+    private int size = 0;
+
+    /**
+     * Constructor for expected number of keys.
+     * 
+     * @param maximumSize
+     *            maximum number of keys in cache
+     */
+    FrequencySketch(int maximumSize) {
+        int width = Integer.highestOneBit(Math.max(16, maximumSize) * 8 - 1);
+        this.table = new byte[DEPTH * width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    /**
+     * Record an access.
+     * 
+     * @param key
+     *            accessed key
+     */
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Estimated frequency of a key.
+     * 
+     * @param key
+     *            target key
+     * @return estimated number of accesses
+     */
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, table[indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Halve all counters.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (byte) (table[i] >>> 1);
+        }
+        size = size >>> 1;
+    }
+
+    /**
+     * Index of a key in a row.
+     */
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x45D9F3B;
+        h ^= h >>> 16;
+        return row * (mask + 1) + (h & mask);
+    }
+
+    /**
+     * Spread bits of hash code.
+     */
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -49,6 +49,19 @@ public final class InMemoryCacheEntry<T> implements Serializable {
         this.insertedDate = System.currentTimeMillis();
     }
 
+    /**
+     * Parameterized contructor with target cached object and insertion date.
+     * 
+     * @param entry
+     *            cached object
+     * @param insertedDate
+     *            insertion date in milliseconds
+     */
+    public InMemoryCacheEntry(T entry, long insertedDate) {
+        this.entry = entry;
+        this.insertedDate = insertedDate;
+    }
+
     /**
      * Getter accessor for attribute 'insertedDate'.
      * 
@@ -21,7 +21,7 @@ package org.ff4j.cache;
  */
 
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.ff4j.core.Feature;
 
@@ -45,7 +45,7 @@ public class InMemoryCacheManager implements FeatureCacheManager {
     public static final String DEFAULT_CACHENAME = "ff4j-cache";
 
     /** Cached Feature Map */
-    private final Map<String, InMemoryCacheEntry<Feature>> cache = new WeakHashMap<String, InMemoryCacheEntry<Feature>>();
+    private final Map<String, InMemoryCacheEntry<Feature>> cache = new ConcurrentHashMap<String, InMemoryCacheEntry<Feature>>();
 
     /**
      * Time to live : The maximum number of seconds an element can exist in the cache regardless of use. The element expires at
@@ -63,9 +63,10 @@ public class InMemoryCacheManager implements FeatureCacheManager {
     /** {@inheritDoc} */
     @Override
     public void evict(String featureId) {
-        if (cache.containsKey(featureId)) {
-            cache.remove(featureId);
+        if (featureId == null) {
+            return;
         }
+        cache.remove(featureId);
     }
 
     /** {@inheritDoc} */
@@ -83,6 +84,9 @@ public class InMemoryCacheManager implements FeatureCacheManager {
     /** {@inheritDoc} */
     @Override
     public Feature get(String featureId) {
+        if (featureId == null) {
+            return null;
+        }
         InMemoryCacheEntry<Feature> ice = cache.get(featureId);
         if (ice != null) {
             // a feature is stored in cache with this identifier
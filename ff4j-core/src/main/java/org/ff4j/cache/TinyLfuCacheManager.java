@@ -0,0 +1,445 @@
+package org.ff4j.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.ff4j.core.Feature;
+
+/**
+ * Concurrent and bounded in-memory cache with frequency-aware admission (W-TinyLFU).
+ *
+ * <p>
+ * New entries enter a small FIFO window (1% of capacity). Entries leaving the window compete with the victim of the main FIFO
+ * (second chance given to recently read entries) : the one with the highest estimated frequency stays, so that a burst of
+ * one-time keys cannot flush popular features.
+ * </p>
+ *
+ * <p>
+ * Reads are lock-free, writes are serialized. Entries expire after time-to-live (since insertion) or time-to-idle (since last
+ * read), checked against a {@link CacheClock} instead of the system clock.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class TinyLfuCacheManager implements FeatureCacheManager {
+
+    /** Default maximum number of features. */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    /** Default TTL is one hour. */
+    public static final long DEFAULT_TTL = InMemoryCacheManager.DEFAULT_TTL;
+
+    /** externalized as constant. */
+    public static final long TO_MILLIS = InMemoryCacheManager.TO_MILLIS;
+
+    /** Cached features. */
+    private final ConcurrentMap<String, Node> cache = new ConcurrentHashMap<String, Node>();
+
+    /** Admission window, FIFO. */
+    private final ArrayDeque<Node> window = new ArrayDeque<Node>();
+
+    /** Main space, FIFO with second chance. */
+    private final ArrayDeque<Node> main = new ArrayDeque<Node>();
+
+    /** Frequency of accesses. */
+    private final FrequencySketch sketch;
+
+    /** Maximum number of features. */
+    private final int maximumSize;
+
+    /** Maximum number of features in window. */
+    private final int windowMaximumSize;
+
+    /** Live entries in window. */
+    private int windowSize = 0;
+
+    /** Live entries in main space. */
+    private int mainSize = 0;
+
+    /** Serialize writers. */
+    private final Object writeLock = new Object();
+
+    /** Time source for expiry. */
+    private final CacheClock clock;
+
+    /** Time to live in seconds, 0 means no expiry. */
+    private volatile long ttl = DEFAULT_TTL;
+
+    /** Time to idle in seconds, 0 means no expiry. */
+    private volatile long timeToIdle = 0;
+
+    /**
+     * Default constructor.
+     */
+    public TinyLfuCacheManager() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Constructor with size.
+     * 
+     * @param maximumSize
+     *            maximum number of features
+     */
+    public TinyLfuCacheManager(int maximumSize) {
+        this(maximumSize, CacheClock.getSharedClock());
+    }
+
+    /**
+     * Constructor with size and clock.
+     * 
+     * @param maximumSize
+     *            maximum number of features
+     * @param clock
+     *            time source for expiry
+     */
+    public TinyLfuCacheManager(int maximumSize, CacheClock clock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("ff4j-core: Maximum size of cache must be greater than 0");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("ff4j-core: Clock of cache cannot be null");
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximumSize = Math.max(1, maximumSize / 100);
+        this.sketch = new FrequencySketch(maximumSize);
+        this.clock = clock;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Feature get(String featureId) {
+        if (featureId == null) {
+            return null;
+        }
+        Node node = cache.get(featureId);
+        if (node == null) {
+            return null;
+        }
+        long now = clock.now();
+        if (isExpired(node, now)) {
+            // Only this expired entry : a fresh value put concurrently is kept
+            synchronized (writeLock) {
+                if (cache.remove(featureId, node)) {
+                    unlink(node);
+                }
+            }
+            return null;
+        }
+        // Avoid writing shared fields when unchanged
+        if (node.accessTime != now) {
+            node.accessTime = now;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        sketch.increment(featureId);
+        return node.value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void put(Feature feat) {
+        if (feat == null) {
+            throw new IllegalArgumentException("ff4j-core: Cannot insert null feature into cache");
+        }
+        if (feat.getUid() == null || feat.getUid().isEmpty()) {
+            throw new IllegalArgumentException("ff4j-core: Cannot insert feature with null identifier into cache");
+        }
+        String key = feat.getUid();
+        long now = clock.now();
+        synchronized (writeLock) {
+            sketch.increment(key);
+            Node node = cache.get(key);
+            if (node != null) {
+                node.value = feat;
+                node.writeTime = now;
+                node.accessTime = now;
+                return;
+            }
+            node = new Node(key, feat, now);
+            cache.put(key, node);
+            window.addLast(node);
+            windowSize++;
+            if (windowSize > windowMaximumSize) {
+                Node candidate = pollLive(window);
+                windowSize--;
+                admit(candidate);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void evict(String featureId) {
+        if (featureId == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            Node node = cache.remove(featureId);
+            if (node != null) {
+                unlink(node);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            cache.clear();
+            window.clear();
+            main.clear();
+            windowSize = 0;
+            mainSize = 0;
+        }
+    }
+
+    /**
+     * Move candidate from window to main space if it is more popular than main victim, must be invoked under lock.
+     * 
+     * @param candidate
+     *            entry leaving window
+     */
+    private void admit(Node candidate) {
+        if (mainSize < maximumSize - windowMaximumSize) {
+            addToMain(candidate);
+            return;
+        }
+        Node victim = selectVictim();
+        if (victim == null || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            if (victim != null) {
+                // Victim stays in queue until purged
+                cache.remove(victim.key, victim);
+                victim.removed = true;
+                mainSize--;
+            }
+            addToMain(candidate);
+        } else {
+            cache.remove(candidate.key, candidate);
+            candidate.removed = true;
+        }
+    }
+
+    /**
+     * Add entry at the tail of main space, must be invoked under lock.
+     * 
+     * @param node
+     *            entry to add
+     */
+    private void addToMain(Node node) {
+        node.inMain = true;
+        main.addLast(node);
+        mainSize++;
+    }
+
+    /**
+     * Oldest entry of main space not read recently (second chance), must be invoked under lock.
+     * 
+     * @return victim or null if main space is empty
+     */
+    private Node selectVictim() {
+        for (int i = 0; i <= mainSize; i++) {
+            Node node = pollLive(main);
+            if (node == null) {
+                return null;
+            }
+            main.addLast(node);
+            if (node.referenced) {
+                node.referenced = false;
+            } else {
+                return node;
+            }
+        }
+        return main.peekLast();
+    }
+
+    /**
+     * Remove head of queue, skipping removed entries.
+     * 
+     * @param queue
+     *            target queue
+     * @return live head or null if queue is empty
+     */
+    private Node pollLive(ArrayDeque<Node> queue) {
+        Node node = queue.pollFirst();
+        while (node != null && node.removed) {
+            node = queue.pollFirst();
+        }
+        return node;
+    }
+
+    /**
+     * Mark entry as removed and update sizes, must be invoked under lock.
+     * 
+     * @param node
+     *            removed node
+     */
+    private void unlink(Node node) {
+        node.removed = true;
+        if (node.inMain) {
+            mainSize--;
+        } else {
+            windowSize--;
+        }
+        // Purge removed entries when queues are mostly dead
+        purge(window, windowSize);
+        purge(main, mainSize);
+    }
+
+    /**
+     * Drop removed entries from queue if they are the majority.
+     */
+    private void purge(ArrayDeque<Node> queue, int liveSize) {
+        if (queue.size() > 2 * liveSize + 16) {
+            for (Iterator<Node> it = queue.iterator(); it.hasNext();) {
+                if (it.next().removed) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check expiry of an entry.
+     * 
+     * @param node
+     *            target entry
+     * @param now
+     *            current time
+     * @return if entry has expired
+     */
+    private boolean isExpired(Node node, long now) {
+        long ttlMillis = ttl * TO_MILLIS;
+        long ttiMillis = timeToIdle * TO_MILLIS;
+        return (ttlMillis > 0 && now - node.writeTime >= ttlMillis) || (ttiMillis > 0 && now - node.accessTime >= ttiMillis);
+    }
+
+    /**
+     * Number of features in cache.
+     * 
+     * @return number of features
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object getNativeCache() {
+        return cache;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getCacheProviderName() {
+        return "In-Memory (W-TinyLFU)";
+    }
+
+    /**
+     * Getter accessor for attribute 'maximumSize'.
+     * 
+     * @return current value of 'maximumSize'
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'ttl'.
+     * 
+     * @return current value of 'ttl'
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Setter accessor for attribute 'ttl'.
+     * 
+     * @param ttl
+     *            new value for 'ttl ' in seconds, 0 for no expiry
+     */
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Getter accessor for attribute 'timeToIdle'.
+     * 
+     * @return current value of 'timeToIdle'
+     */
+    public long getTimeToIdle() {
+        return timeToIdle;
+    }
+
+    /**
+     * Setter accessor for attribute 'timeToIdle'.
+     * 
+     * @param timeToIdle
+     *            new value for 'timeToIdle ' in seconds, 0 for no expiry
+     */
+    public void setTimeToIdle(long timeToIdle) {
+        this.timeToIdle = timeToIdle;
+    }
+
+    /**
+     * Cache entry.
+     */
+    private static final class Node {
+
+        /** Feature identifier. */
+        private final String key;
+
+        /** Cached feature. */
+        private volatile Feature value;
+
+        /** Insertion time. */
+        private volatile long writeTime;
+
+        /** Last read time. */
+        private volatile long accessTime;
+
+        /** Read since last victim selection. */
+        private volatile boolean referenced = false;
+
+        /** Entry in main space, window otherwise (guarded by lock). */
+        private boolean inMain = false;
+
+        /** Entry removed from cache (guarded by lock). */
+        private boolean removed = false;
+
+        /**
+         * Constructor.
+         */
+        private Node(String key, Feature value, long now) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+package org.ff4j.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ff4j.core.Feature;
+
+/**
+ * Composite cache with a small in-process cache (L1) in front of a shared cache (L2) such as Redis or EhCache.
+ *
+ * <p>
+ * Reads are served by L1 when possible, misses are read from L2 and kept in L1. Writes and evictions are propagated to both tiers.
+ * Evictions done by other nodes only reach L2 : L1 time-to-live bounds how long a node can serve a stale value, it should be kept
+ * short.
+ * </p>
+ *
+ * <p>
+ * L1 hit ratio and L2 read latency are exposed to monitor the cache.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class TwoTierCacheManager implements FeatureCacheManager {
+
+    /** Default maximum number of features in L1. */
+    public static final int DEFAULT_L1_MAXIMUM_SIZE = 1000;
+
+    /** Default time to live of L1 in seconds. */
+    public static final long DEFAULT_L1_TTL = 5;
+
+    /** In-process cache. */
+    private final FeatureCacheManager l1;
+
+    /** Shared cache. */
+    private final FeatureCacheManager l2;
+
+    /** Reads served by L1. */
+    private final AtomicLong l1HitCount = new AtomicLong();
+
+    /** Reads not served by L1. */
+    private final AtomicLong l1MissCount = new AtomicLong();
+
+    /** Reads from L2. */
+    private final AtomicLong l2ReadCount = new AtomicLong();
+
+    /** Total time spent reading L2 in nanoseconds. */
+    private final AtomicLong l2ReadNanos = new AtomicLong();
+
+    /**
+     * Constructor with shared cache, a bounded in-memory L1 with short time-to-live is created.
+     * 
+     * @param l2
+     *            shared cache
+     */
+    public TwoTierCacheManager(FeatureCacheManager l2) {
+        this(createDefaultL1(), l2);
+    }
+
+    /**
+     * Constructor with both tiers.
+     * 
+     * @param l1
+     *            in-process cache
+     * @param l2
+     *            shared cache
+     */
+    public TwoTierCacheManager(FeatureCacheManager l1, FeatureCacheManager l2) {
+        if (l1 == null) {
+            throw new IllegalArgumentException("ff4j-core: L1 cache manager cannot be null");
+        }
+        if (l2 == null) {
+            throw new IllegalArgumentException("ff4j-core: L2 cache manager cannot be null");
+        }
+        this.l1 = l1;
+        this.l2 = l2;
+    }
+
+    /**
+     * Create default L1 cache.
+     * 
+     * @return in-process cache
+     */
+    private static FeatureCacheManager createDefaultL1() {
+        TinyLfuCacheManager l1 = new TinyLfuCacheManager(DEFAULT_L1_MAXIMUM_SIZE);
+        l1.setTtl(DEFAULT_L1_TTL);
+        return l1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Feature get(String featureId) {
+        Feature fp = l1.get(featureId);
+        if (fp != null) {
+            l1HitCount.incrementAndGet();
+            return fp;
+        }
+        l1MissCount.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            fp = l2.get(featureId);
+        } finally {
+            l2ReadNanos.addAndGet(System.nanoTime() - start);
+            l2ReadCount.incrementAndGet();
+        }
+        if (fp != null) {
+            l1.put(fp);
+        }
+        return fp;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void put(Feature feat) {
+        l2.put(feat);
+        l1.put(feat);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void evict(String featureId) {
+        l2.evict(featureId);
+        l1.evict(featureId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.clear();
+    }
+
+    /**
+     * Ratio of reads served by L1.
+     * 
+     * @return hit ratio between 0 and 1, 0 if nothing has been read
+     */
+    public double getL1HitRatio() {
+        long hits = l1HitCount.get();
+        long total = hits + l1MissCount.get();
+        return (total == 0) ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Average duration of reads from L2.
+     * 
+     * @return average latency in nanoseconds, 0 if L2 has not been read
+     */
+    public long getL2AverageLatency() {
+        long reads = l2ReadCount.get();
+        return (reads == 0) ? 0 : l2ReadNanos.get() / reads;
+    }
+
+    /**
+     * Reset hit and latency counters.
+     */
+    public void resetStatistics() {
+        l1HitCount.set(0);
+        l1MissCount.set(0);
+        l2ReadCount.set(0);
+        l2ReadNanos.set(0);
+    }
+
+    /**
+     * Getter accessor for attribute 'l1HitCount'.
+     * 
+     * @return current value of 'l1HitCount'
+     */
+    public long getL1HitCount() {
+        return l1HitCount.get();
+    }
+
+    /**
+     * Getter accessor for attribute 'l1MissCount'.
+     * 
+     * @return current value of 'l1MissCount'
+     */
+    public long getL1MissCount() {
+        return l1MissCount.get();
+    }
+
+    /**
+     * Getter accessor for attribute 'l2ReadCount'.
+     * 
+     * @return current value of 'l2ReadCount'
+     */
+    public long getL2ReadCount() {
+        return l2ReadCount.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getCacheProviderName() {
+        return "Two-tier (" + l1.getCacheProviderName() + " / " + l2.getCacheProviderName() + ")";
+    }
+
+    /**
+     * Getter accessor for attribute 'l1'.
+     * 
+     * @return current value of 'l1'
+     */
+    public FeatureCacheManager getL1() {
+        return l1;
+    }
+
+    /**
+     * Getter accessor for attribute 'l2'.
+     * 
+     * @return current value of 'l2'
+     */
+    public FeatureCacheManager getL2() {
+        return l2;
+    }
+
+}
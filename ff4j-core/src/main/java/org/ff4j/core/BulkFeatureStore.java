@@ -0,0 +1,78 @@
+package org.ff4j.core;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * {@link FeatureStore} able to read and write several features at once (batch, single transaction when supported).
+ * 
+ * <p>
+ * Features are checked before any write : if one of them is invalid, nothing is written.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public interface BulkFeatureStore extends FeatureStore {
+
+    /**
+     * Read several features at once (with roles).
+     * 
+     * @param featureIds
+     *            identifiers of features to read
+     * @return features found indexed by identifier, features which do not exist are not in the map
+     */
+    Map<String, Feature> readAll(Collection<String> featureIds);
+
+    /**
+     * Create features in storage (with roles).
+     * 
+     * @param features
+     *            features to create, none of them should exist
+     */
+    void createAll(Collection<Feature> features);
+
+    /**
+     * Update features within store.
+     * 
+     * @param features
+     *            new values of existing features
+     */
+    void updateAll(Collection<Feature> features);
+
+    /**
+     * Remove features from store.
+     * 
+     * @param featureIds
+     *            identifiers of existing features
+     */
+    void deleteAll(Collection<String> featureIds);
+
+    /**
+     * Create features which do not exist and update the others.
+     * 
+     * @param features
+     *            features to save
+     */
+    void upsertAll(Collection<Feature> features);
+
+}
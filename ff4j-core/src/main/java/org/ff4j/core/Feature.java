@@ -163,6 +163,21 @@ public class Feature implements Serializable {
         }
     }
 
+    /**
+     * Copy constructor, permissions are duplicated but the flipping strategy instance is shared.
+     *
+     * @param source
+     *            feature to copy
+     */
+    public Feature(final Feature source) {
+        this(source.getUid(), source.isEnable(), source.getDescription());
+        this.group = source.getGroup();
+        if (source.getPermissions() != null) {
+            this.permissions = new TreeSet<String>(source.getPermissions());
+        }
+        this.flippingStrategy = source.getFlippingStrategy();
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
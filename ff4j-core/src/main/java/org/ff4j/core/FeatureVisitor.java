@@ -0,0 +1,42 @@
+package org.ff4j.core;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+
+/**
+ * Callback invoked for each {@link Feature} while a store is iterated, see {@link VisitableFeatureStore}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public interface FeatureVisitor {
+
+    /**
+     * Process current feature.
+     * 
+     * @param feature
+     *            current feature
+     * @throws IOException
+     *             error when writing feature
+     */
+    void visit(Feature feature) throws IOException;
+
+}
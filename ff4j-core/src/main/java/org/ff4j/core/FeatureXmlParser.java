@@ -20,26 +20,31 @@ package org.ff4j.core;
  * #L%
  */
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.MessageFormat;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.NodeList;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
@@ -105,27 +110,21 @@ public final class FeatureXmlParser {
     /** XML Generation constants. */
     private static final String ENCODING = "UTF-8";
 
-    /** XML Generation constants. */
-    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<features>\n\n";
+    /** Factory for StAX readers, thread-safe once configured. */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
 
-    /** XML Generation constants. */
-    private static final String XML_FEATURE = " <feature uid=\"{0}\" description=\"{1}\" enable=\"{2}\">\n";
+    /** Resolved strategy classes, shared by all parsers. */
+    private static final ConcurrentMap<String, Class<? extends FlippingStrategy>> STRATEGY_CLASSES = //
+            new ConcurrentHashMap<String, Class<? extends FlippingStrategy>>();
 
-    /** XML Generation constants. */
-    private static final String XML_AUTH = "     <role name=\"{0}\" />\n";
-
-    /** XML Generation constants. */
-    private static final String END_FEATURE = " </feature>\n\n";
-
-    /** XML Generation constants. */
-    private static final String END_FEATURES = "</features>\n\n";
-
-    /** Document Builder use to parse XML. */
-    private static DocumentBuilder builder = null;
-   
     /**
      * Load map of {@link Feature} from an inpustream (containing xml text).
      * 
+     * <p>
+     * XML is read as a stream (StAX) and features are built while reading, the document is never loaded in memory. This method can
+     * be invoked concurrently.
+     * </p>
+     * 
      * @param in
      *            inpustream with XML text
      * @return the sorted map of features
@@ -133,221 +132,285 @@ public final class FeatureXmlParser {
      *             exception raised when reading inputstream
      */
     public Map<String, Feature> parseConfigurationFile(InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException("Cannot parse XML data, inputstream cannot be null");
+        }
         LinkedHashMap<String, Feature> xmlFeatures = new LinkedHashMap<String, Feature>();
+        XMLStreamReader reader = null;
         try {
-            // Load XML as a Document
-            Document ff4jDocument = getDocumentBuilder().parse(in);
-
-            // Features Tag
-            NodeList rootList = ff4jDocument.getElementsByTagName(FEATURES_TAG);
-            if (rootList.getLength() != 1) {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            // Features Tag, skipping prolog (comments, DTD)
+            while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if (!reader.isStartElement() || !FEATURES_TAG.equals(reader.getLocalName())) {
                 throw new IllegalArgumentException("Root Tag is 'features' and must be unique, please check");
             }
-            Element featuresTag = (Element) rootList.item(0);
-
-            NodeList firstLevelNodes = featuresTag.getChildNodes();
-            for (int i = 0; i < firstLevelNodes.getLength(); i++) {
-                if (firstLevelNodes.item(i) instanceof Element) {
-                    Element currentCore = (Element) firstLevelNodes.item(i);
-                    if (FEATURE_TAG.equals(currentCore.getNodeName())) {
-                        Feature singleFeature = parseFeatureTag(currentCore);
-                        xmlFeatures.put(singleFeature.getUid(), singleFeature);
-                    } else if (FEATUREGROUP_TAG.equals(currentCore.getNodeName())) {
-                        xmlFeatures.putAll(parseFeatureGroupTag(currentCore));
-                    } else {
-                        throw new IllegalArgumentException("Invalid XML Format, Features sub nodes are [feature,feature-group]");
-                    }
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String tagName = reader.getLocalName();
+                if (FEATURE_TAG.equals(tagName)) {
+                    Feature singleFeature = parseFeatureTag(reader);
+                    xmlFeatures.put(singleFeature.getUid(), singleFeature);
+                } else if (FEATUREGROUP_TAG.equals(tagName)) {
+                    parseFeatureGroupTag(reader, xmlFeatures);
+                } else {
+                    throw new IllegalArgumentException("Invalid XML Format, Features sub nodes are [feature,feature-group]");
                 }
             }
             return xmlFeatures;
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Cannot parse XML data, please check file access ", e);
-        } catch (ParserConfigurationException e1) {
-            throw new IllegalArgumentException("Error during initialization of parser ", e1);
-        } catch (SAXException e2) {
-            throw new IllegalArgumentException("Cannot parse XML, invalid format ", e2);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Cannot parse XML, invalid format ", e);
+        } finally {
+            closeQuietly(reader);
         }
     }
 
     /**
-     * Parse TAG &lt;feature-group&gt;.
+     * Parse TAG &lt;feature-group&gt;, reader is positioned on start tag and left on end tag.
      * 
-     * @param featGroupTag
-     *            feature group tag
-     * @return map of features
+     * @param reader
+     *            current xml reader
+     * @param features
+     *            map of features to populate
+     * @throws XMLStreamException
+     *             error when reading xml
      */
-    private Map<String, Feature> parseFeatureGroupTag(Element featGroupTag) {
-        NamedNodeMap nnm = featGroupTag.getAttributes();
-        String groupName = null;
-        if (nnm.getNamedItem(FEATUREGROUP_ATTNAME) == null) {
+    private void parseFeatureGroupTag(XMLStreamReader reader, Map<String, Feature> features) throws XMLStreamException {
+        String groupName = reader.getAttributeValue(null, FEATUREGROUP_ATTNAME);
+        if (groupName == null) {
             throw new IllegalArgumentException("Error syntax in configuration featuregroup : must have 'name' attribute");
         }
-        groupName = nnm.getNamedItem(FEATUREGROUP_ATTNAME).getNodeValue();
-
-        Map<String, Feature> groupFeatures = new HashMap<String, Feature>();
-        NodeList listOfFeat = featGroupTag.getElementsByTagName(FEATURE_TAG);
-        for (int k = 0; k < listOfFeat.getLength(); k++) {
-            Feature f = parseFeatureTag((Element) listOfFeat.item(k));
-            // Insert feature into group
-            f.setGroup(groupName);
-            groupFeatures.put(f.getUid(), f);
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (FEATURE_TAG.equals(reader.getLocalName())) {
+                Feature f = parseFeatureTag(reader);
+                // Insert feature into group
+                f.setGroup(groupName);
+                features.put(f.getUid(), f);
+            } else {
+                skipElement(reader);
+            }
         }
-        return groupFeatures;
     }
 
     /**
-     * Build a Feature from XML TAG.
+     * Build a Feature from XML TAG, reader is positioned on start tag and left on end tag.
      * 
-     * @param featXmlTag
-     *            xml tag to nuild feature
+     * @param reader
+     *            current xml reader
      * @return current feature
+     * @throws XMLStreamException
+     *             error when reading xml
      */
-    private Feature parseFeatureTag(Element featXmlTag) {
-        NamedNodeMap nnm = featXmlTag.getAttributes();
+    private Feature parseFeatureTag(XMLStreamReader reader) throws XMLStreamException {
         // Identifier
-        String uid = null;
-        if (nnm.getNamedItem(FEATURE_ATT_UID) == null) {
+        String uid = reader.getAttributeValue(null, FEATURE_ATT_UID);
+        if (uid == null) {
             throw new IllegalArgumentException("Error syntax in configuration file : " + "'uid' is required for each feature");
         }
-        uid = nnm.getNamedItem(FEATURE_ATT_UID).getNodeValue();
         // Enable
-        if (nnm.getNamedItem(FEATURE_ATT_ENABLE) == null) {
+        String enable = reader.getAttributeValue(null, FEATURE_ATT_ENABLE);
+        if (enable == null) {
             throw new IllegalArgumentException("Error syntax in configuration file : "
                     + "'enable' is required for each feature (check " + uid + ")");
         }
-        boolean enable = Boolean.valueOf(nnm.getNamedItem(FEATURE_ATT_ENABLE).getNodeValue());
-
         // Create Feature with description
-        Feature f = new Feature(uid, enable, parseDescription(nnm));
-        
-        // Strategy
-        NodeList flipStrategies = featXmlTag.getElementsByTagName(FLIPSTRATEGY_TAG);
-        if (flipStrategies.getLength() > 0) {
-            f.setFlippingStrategy(parseFlipStrategy((Element) flipStrategies.item(0), f.getUid()));
-        }
-        
-        // Security
-        NodeList securities = featXmlTag.getElementsByTagName(SECURITY_TAG);
-        if (securities.getLength() > 0) {
-            f.setPermissions(parseListAuthorizations((Element) securities.item(0)));
+        Feature f = new Feature(uid, Boolean.valueOf(enable), reader.getAttributeValue(null, FEATURE_ATT_DESC));
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String tagName = reader.getLocalName();
+            if (FLIPSTRATEGY_TAG.equals(tagName) && f.getFlippingStrategy() == null) {
+                // Strategy
+                f.setFlippingStrategy(parseFlipStrategy(reader, uid));
+            } else if (SECURITY_TAG.equals(tagName) && f.getPermissions().isEmpty()) {
+                // Security
+                f.setPermissions(parseListAuthorizations(reader));
+            } else {
+                skipElement(reader);
+            }
         }
-
         return f;
     }
 
     /**
-     * Parsing strategy TAG.
+     * Parsing strategy TAG, reader is positioned on start tag and left on end tag.
      * 
-     * @param nnm
-     *            current parend node
+     * @param reader
+     *            current xml reader
      * @param uid
      *            current feature uid
      * @return flipstrategy related to current feature.
+     * @throws XMLStreamException
+     *             error when reading xml
      */
-    private FlippingStrategy parseFlipStrategy(Element flipStrategyTag, String uid) {
-        NamedNodeMap nnm = flipStrategyTag.getAttributes();
-        FlippingStrategy flipStrategy = null;
-        if (nnm.getNamedItem(FLIPSTRATEGY_ATTCLASS) == null) {
+    private FlippingStrategy parseFlipStrategy(XMLStreamReader reader, String uid) throws XMLStreamException {
+        // Attribute CLASS
+        String clazzName = reader.getAttributeValue(null, FLIPSTRATEGY_ATTCLASS);
+        if (clazzName == null) {
             throw new IllegalArgumentException("Error syntax in configuration file : '" + FLIPSTRATEGY_ATTCLASS
                     + "' is required for each flipstrategy (feature=" + uid + ")");
         }
 
-        try {
-            // Attribute CLASS
-            String clazzName = nnm.getNamedItem(FLIPSTRATEGY_ATTCLASS).getNodeValue();
-            flipStrategy = (FlippingStrategy) Class.forName(clazzName).newInstance();
-
-            // LIST OF PARAMS
-            Map<String, String> parameters = new LinkedHashMap<String, String>();
-            NodeList initparamsNodes = flipStrategyTag.getElementsByTagName(FLIPSTRATEGY_PARAMTAG);
-            for (int k = 0; k < initparamsNodes.getLength(); k++) {
-                Element param = (Element) initparamsNodes.item(k);
-                NamedNodeMap nnmap = param.getAttributes();
-                // Check for required attribute name
-                String currentParamName = null;
-                if (nnmap.getNamedItem(FLIPSTRATEGY_PARAMNAME) == null) {
-                    throw new IllegalArgumentException("Error syntax in configuration file : "
-                            + "'name' is required for each param in flipstrategy(check " + uid + ")");
-                }
-                currentParamName = nnmap.getNamedItem(FLIPSTRATEGY_PARAMNAME).getNodeValue();
-                // Check for value attribute
-                if (nnmap.getNamedItem(FLIPSTRATEGY_PARAMVALUE) != null) {
-                    parameters.put(currentParamName, nnmap.getNamedItem(FLIPSTRATEGY_PARAMVALUE).getNodeValue());
-                } else if (param.getFirstChild() != null) {
-                    parameters.put(currentParamName, param.getFirstChild().getNodeValue());
-                } else {
+        // LIST OF PARAMS
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!FLIPSTRATEGY_PARAMTAG.equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+            // Check for required attribute name
+            String currentParamName = reader.getAttributeValue(null, FLIPSTRATEGY_PARAMNAME);
+            if (currentParamName == null) {
+                throw new IllegalArgumentException("Error syntax in configuration file : "
+                        + "'name' is required for each param in flipstrategy(check " + uid + ")");
+            }
+            // Check for value attribute, then body
+            String currentParamValue = reader.getAttributeValue(null, FLIPSTRATEGY_PARAMVALUE);
+            if (currentParamValue != null) {
+                skipElement(reader);
+            } else {
+                currentParamValue = reader.getElementText();
+                if (currentParamValue.isEmpty()) {
                     throw new IllegalArgumentException("Parameter '" + currentParamName + "' in feature '" + uid
                             + "' has no value, please check XML");
                 }
             }
+            parameters.put(currentParamName, currentParamValue);
+        }
 
+        try {
+            FlippingStrategy flipStrategy = getStrategyClass(clazzName).newInstance();
             flipStrategy.init(uid, parameters);
+            return flipStrategy;
         } catch (Exception e) {
             throw new IllegalArgumentException("An error occurs during flipstrategy parsing TAG" + uid, e);
         }
-        return flipStrategy;
     }
 
     /**
-     * Parser target description.
+     * Resolve strategy class once per class name.
      * 
-     * @param nnm
-     *            current working tag
-     * @return description of the feature
+     * @param clazzName
+     *            strategy class name
+     * @return strategy class
+     * @throws ClassNotFoundException
+     *             class cannot be found
      */
-    private String parseDescription(NamedNodeMap nnm) {
-        String desc = null;
-        if (nnm.getNamedItem(FEATURE_ATT_DESC) != null) {
-            desc = nnm.getNamedItem(FEATURE_ATT_DESC).getNodeValue();
+    private Class<? extends FlippingStrategy> getStrategyClass(String clazzName) throws ClassNotFoundException {
+        Class<? extends FlippingStrategy> clazz = STRATEGY_CLASSES.get(clazzName);
+        if (clazz == null) {
+            Class<?> loaded = Class.forName(clazzName);
+            if (!FlippingStrategy.class.isAssignableFrom(loaded)) {
+                throw new IllegalArgumentException(clazzName + " does not implement " + FlippingStrategy.class.getName());
+            }
+            clazz = loaded.asSubclass(FlippingStrategy.class);
+            STRATEGY_CLASSES.putIfAbsent(clazzName, clazz);
         }
-        return desc;
+        return clazz;
     }
 
     /**
-     * Parsing autorization tag.
+     * Parsing autorization tag, reader is positioned on start tag and left on end tag.
      * 
-     * @param featXmlTag
-     *            current TAG
+     * @param reader
+     *            current xml reader
      * @return list of authorizations.
+     * @throws XMLStreamException
+     *             error when reading xml
      */
-    private Set<String> parseListAuthorizations(Element securityTag) {
+    private Set<String> parseListAuthorizations(XMLStreamReader reader) throws XMLStreamException {
         Set<String> authorizations = new TreeSet<String>();
-        NodeList lisOfAuth = securityTag.getElementsByTagName(SECURITY_ROLE_TAG);
-        for (int k = 0; k < lisOfAuth.getLength(); k++) {
-            Element role = (Element) lisOfAuth.item(k);
-          authorizations.add(role.getAttributes().getNamedItem(SECURITY_ROLE_ATTNAME).getNodeValue());
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (SECURITY_ROLE_TAG.equals(reader.getLocalName())) {
+                String roleName = reader.getAttributeValue(null, SECURITY_ROLE_ATTNAME);
+                if (roleName == null) {
+                    throw new IllegalArgumentException("Error syntax in configuration file : "
+                            + "'name' is required for each role");
+                }
+                authorizations.add(roleName);
+            }
+            skipElement(reader);
         }
         return authorizations;
     }
 
+    /**
+     * Skip current element and its children, reader is left on end tag.
+     * 
+     * @param reader
+     *            current xml reader
+     * @throws XMLStreamException
+     *             error when reading xml
+     */
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Close reader, errors are ignored.
+     * 
+     * @param reader
+     *            current xml reader
+     */
+    private void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // Parsing is over, nothing to do
+            }
+        }
+    }
+
+    /**
+     * Build and secure StAX factory.
+     * 
+     * @return factory for xml readers
+     */
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
     /**
      * Build {@link DocumentBuilder} to parse XML.
      * 
+     * <p>
+     * A new builder is created for each call as {@link DocumentBuilder} is not thread-safe.
+     * </p>
+     * 
      * @return current document builder.
      * @throws ParserConfigurationException
      *             error during initialization
      */
     public DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
-        if (builder == null) {
-            builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            builder.setErrorHandler(new ErrorHandler() {
-                /** {@inheritDoc} */
-                @Override
-                public void warning(SAXParseException e) throws SAXException {}
-
-                /** {@inheritDoc} */
-                @Override
-                public void fatalError(SAXParseException e) throws SAXException {
-                    throw e;
-                }
+        DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        builder.setErrorHandler(new ErrorHandler() {
+            /** {@inheritDoc} */
+            @Override
+            public void warning(SAXParseException e) throws SAXException {}
+
+            /** {@inheritDoc} */
+            @Override
+            public void fatalError(SAXParseException e) throws SAXException {
+                throw e;
+            }
 
-                /** {@inheritDoc} */
-                @Override
-                public void error(SAXParseException e) throws SAXException {
-                    throw e;
-                }
-            });
-        }
+            /** {@inheritDoc} */
+            @Override
+            public void error(SAXParseException e) throws SAXException {
+                throw e;
+            }
+        });
         return builder;
     }
 
@@ -362,8 +425,27 @@ public final class FeatureXmlParser {
      */
     public InputStream exportFeatures(Map<String, Feature> mapOfFeatures) throws IOException {
         if (mapOfFeatures != null && !mapOfFeatures.isEmpty()) {
-            // Recreate Groups
-            Map<String, List<Feature>> featuresPerGroup = new HashMap<String, List<Feature>>();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            exportFeatures(mapOfFeatures, bos);
+            return new ByteArrayInputStream(bos.toByteArray());
+        }
+        return null;
+    }
+
+    /**
+     * Write map of {@link Feature} as XML to an output stream, features are grouped by group name.
+     * 
+     * @param mapOfFeatures
+     *            map of features
+     * @param out
+     *            target output stream (not closed)
+     * @throws IOException
+     *             error occurs when generating output
+     */
+    public void exportFeatures(Map<String, Feature> mapOfFeatures, OutputStream out) throws IOException {
+        // Recreate Groups
+        Map<String, List<Feature>> featuresPerGroup = new LinkedHashMap<String, List<Feature>>();
+        if (mapOfFeatures != null) {
             for (Feature feat : mapOfFeatures.values()) {
                 String groupName = feat.getGroup();
                 if (!featuresPerGroup.containsKey(groupName)) {
@@ -371,51 +453,17 @@ public final class FeatureXmlParser {
                 }
                 featuresPerGroup.get(groupName).add(feat);
             }
-            
-            // Create output
-            StringBuilder sb = new StringBuilder(XML_HEADER);
-            for (String groupName : featuresPerGroup.keySet()) {
-                
-                /// Building featureGroup
-                if (null != groupName && !groupName.isEmpty()) {
-                    sb.append(" <" + FEATUREGROUP_TAG + " " + FEATUREGROUP_ATTNAME + "=\"" + groupName + "\" >\n\n");
-                }
-                // Loop on feature
-                for (Feature feat : featuresPerGroup.get(groupName)) {
-                    sb.append(MessageFormat.format(XML_FEATURE, feat.getUid(), feat.getDescription(), feat.isEnable()));
-                    // <security>
-                    if (null != feat.getPermissions() && !feat.getPermissions().isEmpty()) {
-                        sb.append("   <" + SECURITY_TAG + ">\n");
-                        for (String auth : feat.getPermissions()) {
-                            sb.append(MessageFormat.format(XML_AUTH, auth));
-                        }
-                        sb.append("   </" + SECURITY_TAG + ">\n");
-                    }
-                    // <flipstrategy>
-                    FlippingStrategy fs = feat.getFlippingStrategy();
-                    if (null != fs) {
-                        sb.append("   <" + FLIPSTRATEGY_TAG + " class=\"" + fs.getClass().getCanonicalName() + "\" >\n");
-                        for (String p : fs.getInitParams().keySet()) {
-                            sb.append("     <" + FLIPSTRATEGY_PARAMTAG + " " + FLIPSTRATEGY_PARAMNAME + "=\"");
-                            sb.append(p);
-                            sb.append("\" " + FLIPSTRATEGY_PARAMVALUE + "=\"");
-                            sb.append(fs.getInitParams().get(p));
-                            sb.append("\" />\n");
-                        }
-                        sb.append("   </" + FLIPSTRATEGY_TAG + ">\n");
-                    }
-                    sb.append(END_FEATURE);
-                }
-                
-                if (null != groupName && !groupName.isEmpty()) {
-                    sb.append(" </" + FEATUREGROUP_TAG + ">\n\n");
-                }
+        }
+        // Create output
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, ENCODING));
+        FeatureXmlWriter xmlWriter = new FeatureXmlWriter(writer);
+        xmlWriter.writeStartDocument();
+        for (List<Feature> groupFeatures : featuresPerGroup.values()) {
+            for (Feature feat : groupFeatures) {
+                xmlWriter.writeFeature(feat);
             }
-            sb.append(END_FEATURES);
-            return new ByteArrayInputStream(sb.toString().getBytes(ENCODING));
         }
-        return null;
+        xmlWriter.writeEndDocument();
     }
 
-
 }
@@ -0,0 +1,246 @@
+package org.ff4j.core;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.ff4j.core.FeatureXmlParser.FEATUREGROUP_ATTNAME;
+import static org.ff4j.core.FeatureXmlParser.FEATUREGROUP_TAG;
+import static org.ff4j.core.FeatureXmlParser.FEATURES_TAG;
+import static org.ff4j.core.FeatureXmlParser.FEATURE_ATT_DESC;
+import static org.ff4j.core.FeatureXmlParser.FEATURE_ATT_ENABLE;
+import static org.ff4j.core.FeatureXmlParser.FEATURE_ATT_UID;
+import static org.ff4j.core.FeatureXmlParser.FEATURE_TAG;
+import static org.ff4j.core.FeatureXmlParser.FLIPSTRATEGY_ATTCLASS;
+import static org.ff4j.core.FeatureXmlParser.FLIPSTRATEGY_PARAMNAME;
+import static org.ff4j.core.FeatureXmlParser.FLIPSTRATEGY_PARAMTAG;
+import static org.ff4j.core.FeatureXmlParser.FLIPSTRATEGY_PARAMVALUE;
+import static org.ff4j.core.FeatureXmlParser.FLIPSTRATEGY_TAG;
+import static org.ff4j.core.FeatureXmlParser.SECURITY_ROLE_ATTNAME;
+import static org.ff4j.core.FeatureXmlParser.SECURITY_ROLE_TAG;
+import static org.ff4j.core.FeatureXmlParser.SECURITY_TAG;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Write features as XML (format of {@link FeatureXmlParser}) directly to a {@link Writer}.
+ * 
+ * <p>
+ * Features are written one by one with {@link #writeFeature(Feature)} between {@link #writeStartDocument()} and
+ * {@link #writeEndDocument()}. A &lt;feature-group&gt; tag is opened each time the group changes, features should be sorted by
+ * group to get a single tag per group. Attribute values are escaped.
+ * </p>
+ * 
+ * <p>
+ * The writer is not thread-safe and does not close the underlying {@link Writer}.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FeatureXmlWriter implements FeatureVisitor {
+
+    /** XML Generation constants. */
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n";
+
+    /** Target writer. */
+    private final Writer out;
+
+    /** Group of the current open &lt;feature-group&gt; tag, null if none. */
+    private String currentGroup = null;
+
+    /** Number of features written. */
+    private int count = 0;
+
+    /**
+     * Constructor with target writer.
+     * 
+     * @param out
+     *            target writer
+     */
+    public FeatureXmlWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Target writer cannot be null");
+        }
+        this.out = out;
+    }
+
+    /**
+     * Write XML header and open root tag.
+     * 
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeStartDocument() throws IOException {
+        out.write(XML_HEADER);
+        out.write("<" + FEATURES_TAG + ">\n\n");
+    }
+
+    /**
+     * Close current group if any and root tag.
+     * 
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeEndDocument() throws IOException {
+        closeGroup();
+        out.write("</" + FEATURES_TAG + ">\n\n");
+        out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(Feature feature) throws IOException {
+        writeFeature(feature);
+    }
+
+    /**
+     * Write feature, opening and closing &lt;feature-group&gt; tags when needed.
+     * 
+     * @param feat
+     *            target feature
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeFeature(Feature feat) throws IOException {
+        String groupName = feat.getGroup();
+        if (groupName != null && groupName.isEmpty()) {
+            groupName = null;
+        }
+        if (currentGroup != null && !currentGroup.equals(groupName)) {
+            closeGroup();
+        }
+        if (groupName != null && currentGroup == null) {
+            out.write(" <" + FEATUREGROUP_TAG + " " + FEATUREGROUP_ATTNAME + "=\"");
+            writeEscaped(groupName);
+            out.write("\" >\n\n");
+            currentGroup = groupName;
+        }
+        out.write(" <" + FEATURE_TAG + " " + FEATURE_ATT_UID + "=\"");
+        writeEscaped(feat.getUid());
+        if (feat.getDescription() != null) {
+            out.write("\" " + FEATURE_ATT_DESC + "=\"");
+            writeEscaped(feat.getDescription());
+        }
+        out.write("\" " + FEATURE_ATT_ENABLE + "=\"" + feat.isEnable() + "\">\n");
+        // <security>
+        if (null != feat.getPermissions() && !feat.getPermissions().isEmpty()) {
+            out.write("   <" + SECURITY_TAG + ">\n");
+            for (String auth : feat.getPermissions()) {
+                out.write("     <" + SECURITY_ROLE_TAG + " " + SECURITY_ROLE_ATTNAME + "=\"");
+                writeEscaped(auth);
+                out.write("\" />\n");
+            }
+            out.write("   </" + SECURITY_TAG + ">\n");
+        }
+        // <flipstrategy>
+        FlippingStrategy fs = feat.getFlippingStrategy();
+        if (null != fs) {
+            out.write("   <" + FLIPSTRATEGY_TAG + " " + FLIPSTRATEGY_ATTCLASS + "=\"" + fs.getClass().getCanonicalName() + "\" >\n");
+            Map<String, String> initParams = fs.getInitParams();
+            if (initParams != null) {
+                for (Entry<String, String> param : initParams.entrySet()) {
+                    out.write("     <" + FLIPSTRATEGY_PARAMTAG + " " + FLIPSTRATEGY_PARAMNAME + "=\"");
+                    writeEscaped(param.getKey());
+                    out.write("\" " + FLIPSTRATEGY_PARAMVALUE + "=\"");
+                    writeEscaped(param.getValue());
+                    out.write("\" />\n");
+                }
+            }
+            out.write("   </" + FLIPSTRATEGY_TAG + ">\n");
+        }
+        out.write(" </" + FEATURE_TAG + ">\n\n");
+        count++;
+    }
+
+    /**
+     * Close current &lt;feature-group&gt; tag if any.
+     * 
+     * @throws IOException
+     *             error when writing
+     */
+    private void closeGroup() throws IOException {
+        if (currentGroup != null) {
+            out.write(" </" + FEATUREGROUP_TAG + ">\n\n");
+            currentGroup = null;
+        }
+    }
+
+    /**
+     * Write attribute value with XML entities.
+     * 
+     * @param value
+     *            attribute value
+     * @throws IOException
+     *             error when writing
+     */
+    private void writeEscaped(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            String entity = null;
+            switch (value.charAt(i)) {
+            case '<':
+                entity = "&lt;";
+                break;
+            case '>':
+                entity = "&gt;";
+                break;
+            case '&':
+                entity = "&amp;";
+                break;
+            case '"':
+                entity = "&quot;";
+                break;
+            case '\n':
+                entity = "&#10;";
+                break;
+            case '\r':
+                entity = "&#13;";
+                break;
+            case '\t':
+                entity = "&#9;";
+                break;
+            default:
+                break;
+            }
+            if (entity != null) {
+                out.write(value, start, i - start);
+                out.write(entity);
+                start = i + 1;
+            }
+        }
+        out.write(value, start, length - start);
+    }
+
+    /**
+     * Getter accessor for attribute 'count'.
+     * 
+     * @return current value of 'count'
+     */
+    public int getCount() {
+        return count;
+    }
+
+}
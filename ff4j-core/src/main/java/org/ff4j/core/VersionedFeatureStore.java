@@ -0,0 +1,74 @@
+package org.ff4j.core;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link FeatureStore} keeping a monotonically increasing version of its mutations, to let cached or replicated nodes poll
+ * changes instead of reading the whole store.
+ * 
+ * <p>
+ * Poll with : <code>v = getVersion(); changed = readChangedSince(last); deleted = readDeletedSince(last); last = v;</code>.
+ * Changes committed while polling are read again at next poll.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public interface VersionedFeatureStore extends FeatureStore {
+
+    /**
+     * Current version of the store, to be given to {@link #readChangedSince(long)} at next poll.
+     * 
+     * @return version of last mutation
+     */
+    long getVersion();
+
+    /**
+     * Read features created or updated after a version.
+     * 
+     * @param version
+     *            version of previous poll
+     * @return changed features by uid
+     */
+    Map<String, Feature> readChangedSince(long version);
+
+    /**
+     * Read identifiers of features deleted after a version (and not created again).
+     * 
+     * @param version
+     *            version of previous poll
+     * @return deleted feature identifiers
+     */
+    Set<String> readDeletedSince(long version);
+
+    /**
+     * Remove deletion markers of features deleted before a version. Markers are kept until this method is called : nodes which
+     * did not poll since this version must then read the whole store.
+     * 
+     * @param version
+     *            markers with a lower version are removed
+     * @return number of removed markers
+     */
+    int purgeDeletedBefore(long version);
+
+}
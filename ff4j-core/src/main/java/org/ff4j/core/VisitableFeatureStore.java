@@ -0,0 +1,42 @@
+package org.ff4j.core;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+
+/**
+ * {@link FeatureStore} able to iterate over its features without loading them all in memory (cursor).
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public interface VisitableFeatureStore extends FeatureStore {
+
+    /**
+     * Invoke visitor for each feature of the store. Features are sorted by group when possible.
+     * 
+     * @param visitor
+     *            callback for each feature
+     * @throws IOException
+     *             error raised by visitor
+     */
+    void visitAll(FeatureVisitor visitor) throws IOException;
+
+}
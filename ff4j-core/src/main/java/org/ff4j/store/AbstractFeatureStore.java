@@ -0,0 +1,157 @@
+package org.ff4j.store;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.ff4j.core.BulkFeatureStore;
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureAlreadyExistException;
+import org.ff4j.exception.FeatureNotFoundException;
+
+/**
+ * Superclass for stores providing bulk operations of {@link BulkFeatureStore} as loops over single-feature operations. Stores
+ * able to batch writes should override them.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public abstract class AbstractFeatureStore implements BulkFeatureStore {
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Feature> readAll(Collection<String> featureIds) {
+        assertNotNull(featureIds);
+        Map<String, Feature> features = new LinkedHashMap<String, Feature>();
+        for (String uid : featureIds) {
+            assertUid(uid);
+            if (!features.containsKey(uid)) {
+                try {
+                    features.put(uid, read(uid));
+                } catch (FeatureNotFoundException fnfe) {
+                    // Absent features are not in the map
+                }
+            }
+        }
+        return features;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void createAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+            if (exist(feature.getUid())) {
+                throw new FeatureAlreadyExistException(feature.getUid());
+            }
+        }
+        for (Feature feature : features) {
+            create(feature);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+            if (!exist(feature.getUid())) {
+                throw new FeatureNotFoundException(feature.getUid());
+            }
+        }
+        for (Feature feature : features) {
+            update(feature);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAll(Collection<String> featureIds) {
+        assertNotNull(featureIds);
+        for (String uid : featureIds) {
+            if (uid == null || uid.isEmpty()) {
+                throw new IllegalArgumentException("Feature identifier cannot be null nor empty");
+            }
+            if (!exist(uid)) {
+                throw new FeatureNotFoundException(uid);
+            }
+        }
+        for (String uid : featureIds) {
+            delete(uid);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void upsertAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+        }
+        for (Feature feature : features) {
+            if (exist(feature.getUid())) {
+                update(feature);
+            } else {
+                create(feature);
+            }
+        }
+    }
+
+    /**
+     * Check parameter of bulk operation.
+     * 
+     * @param items
+     *            features or identifiers
+     */
+    protected void assertNotNull(Collection<?> items) {
+        if (items == null) {
+            throw new IllegalArgumentException("Features (param#0) cannot be null");
+        }
+    }
+
+    /**
+     * Check an identifier of bulk operation.
+     * 
+     * @param uid
+     *            current identifier
+     */
+    protected void assertUid(String uid) {
+        if (uid == null || uid.isEmpty()) {
+            throw new IllegalArgumentException("Feature identifier cannot be null nor empty");
+        }
+    }
+
+    /**
+     * Check a feature of bulk operation.
+     * 
+     * @param feature
+     *            current feature
+     */
+    protected void assertFeature(Feature feature) {
+        if (feature == null || feature.getUid() == null || feature.getUid().isEmpty()) {
+            throw new IllegalArgumentException("Feature cannot be null nor empty");
+        }
+    }
+
+}
@@ -20,7 +20,6 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.ff4j.core.Feature;
-import org.ff4j.core.FeatureStore;
 import org.ff4j.core.FeatureXmlParser;
 import org.ff4j.exception.FeatureAlreadyExistException;
 import org.ff4j.exception.FeatureNotFoundException;
@@ -31,7 +30,7 @@ import org.ff4j.exception.GroupNotFoundException;
  * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
-public class InMemoryFeatureStore implements FeatureStore {
+public class InMemoryFeatureStore extends AbstractFeatureStore {
 
     /** XML File where features are load. */
     private String fileName = null;
@@ -11,12 +11,17 @@ package org.ff4j.store;
  * governing permissions and limitations under the License. #L%
  */
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,7 +29,10 @@ import javax.sql.DataSource;
 
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
+import org.ff4j.core.FeatureVisitor;
 import org.ff4j.core.FlippingStrategy;
+import org.ff4j.core.VersionedFeatureStore;
+import org.ff4j.core.VisitableFeatureStore;
 import org.ff4j.exception.FeatureAccessException;
 import org.ff4j.exception.FeatureAlreadyExistException;
 import org.ff4j.exception.FeatureNotFoundException;
@@ -34,13 +42,28 @@ import org.ff4j.utils.ParameterUtils;
 /**
  * Implementation of {@link FeatureStore} to work with RDBMS through JDBC.
  * 
+ * <p>
+ * Each operation borrows a single connection from the {@link DataSource} through a {@link JdbcSession}, statements are reused
+ * within the operation and every resource is released before returning.
+ * </p>
+ * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
-public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore {
+public class JdbcFeatureStore extends AbstractFeatureStore implements JdbcFeatureStoreConstants, VisitableFeatureStore,
+        VersionedFeatureStore {
+
+    /** Default number of rows fetched per round-trip. */
+    public static final int DEFAULT_FETCH_SIZE = 100;
 
     /** Access to storage. */
     private DataSource dataSource;
 
+    /** Number of rows fetched per round-trip for queries, 0 for driver default. */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /** Maintain versions of features and tombstones of deleted ones, see {@link #readChangedSince(long)}. */
+    private boolean versioned = false;
+
     /** Default Constructor. */
     public JdbcFeatureStore() {}
 
@@ -54,16 +77,24 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         this.dataSource = jdbcDS;
     }
 
+    /**
+     * Borrow a connection for a logical operation, the session must be closed in a finally block.
+     * 
+     * @return new session
+     * @throws SQLException
+     *             connection cannot be acquired
+     */
+    protected JdbcSession openSession() throws SQLException {
+        return new JdbcSession(getDataSource(), fetchSize);
+    }
+
     /** {@inheritDoc} */
     @Override
     public void enable(String uid) {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        update(SQL_ENABLE, uid);
+        updateFeature(uid, SQL_ENABLE, uid);
     }
 
     /** {@inheritDoc} */
@@ -72,10 +103,7 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        update(SQL_DISABLE, uid);
+        updateFeature(uid, SQL_DISABLE, uid);
     }
 
     /** {@inheritDoc} */
@@ -84,55 +112,125 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
         }
-        PreparedStatement ps = null;
-        ResultSet rs = null;
+        JdbcSession session = null;
         try {
-            ps = buildStatement(SQL_EXIST, uid);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                return 1 == rs.getInt(1);
-            }
-            return false;
+            session = openSession();
+            return exist(session, uid);
         } catch (SQLException sqlEX) {
             throw new FeatureAccessException("Cannot check feature existence, error related to database", sqlEX);
         } finally {
-            closeResultSet(rs);
-            closeStatement(ps);
+            closeSession(session);
         }
     }
 
+    /**
+     * Check feature existence within current session.
+     * 
+     * @param session
+     *            current session
+     * @param uid
+     *            feature identifier
+     * @return if feature exists
+     * @throws SQLException
+     *             error when querying
+     */
+    private boolean exist(JdbcSession session, String uid) throws SQLException {
+        ResultSet rs = session.query(SQL_EXIST, uid);
+        return rs.next() && 1 == rs.getInt(1);
+    }
+
+    /**
+     * Check group existence within current session.
+     * 
+     * @param session
+     *            current session
+     * @param groupName
+     *            group name
+     * @return if group exists
+     * @throws SQLException
+     *             error when querying
+     */
+    private boolean existGroup(JdbcSession session, String groupName) throws SQLException {
+        ResultSet rs = session.query(SQL_EXIST_GROUP, groupName);
+        return rs.next() && rs.getInt(1) > 0;
+    }
+
     /** {@inheritDoc} */
     @Override
     public Feature read(String uid) {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
         }
-        PreparedStatement ps = null;
-        ResultSet rs = null;
+        Map<String, Feature> features = readFeaturesWithRoles(SQLQUERY_GET_FEATURE_BY_ID_WITH_ROLES, uid);
+        if (features.isEmpty()) {
+            throw new FeatureNotFoundException(uid);
+        }
+        return features.get(uid);
+    }
+
+    /**
+     * Read features and their roles in a single query (LEFT JOIN, one row per role).
+     * 
+     * @param query
+     *            query selecting features joined with roles
+     * @param params
+     *            query parameters
+     * @return features by uid, in query order
+     */
+    private Map<String, Feature> readFeaturesWithRoles(String query, Object... params) {
+        JdbcSession session = null;
         try {
-            // Returns features
-            ps = buildStatement(SQLQUERY_GET_FEATURE_BY_ID, uid);
-            rs = ps.executeQuery();
-            Feature f = null;
-            if (rs.next()) {
+            session = openSession();
+            return readFeaturesWithRoles(session, query, params);
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot read features, error related to database", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /**
+     * Read features and their roles within current session.
+     * 
+     * @param session
+     *            current session
+     * @param query
+     *            query selecting features joined with roles
+     * @param params
+     *            query parameters
+     * @return features by uid, in query order
+     * @throws SQLException
+     *             error when querying
+     */
+    private Map<String, Feature> readFeaturesWithRoles(JdbcSession session, String query, Object... params) throws SQLException {
+        LinkedHashMap<String, Feature> mapFP = new LinkedHashMap<String, Feature>();
+        ResultSet rs = session.query(query, params);
+        while (rs.next()) {
+            String uid = rs.getString(COL_FEAT_UID);
+            Feature f = mapFP.get(uid);
+            if (f == null) {
                 f = mapRow2Feature(rs);
-            } else {
-                throw new FeatureNotFoundException(uid);
+                mapFP.put(uid, f);
             }
+            mapRow2Role(rs, f);
+        }
+        return mapFP;
+    }
 
-            // 2nd request
-            ps = ps.getConnection().prepareStatement(SQL_GET_ROLES);
-            ps.setString(1, uid);
-            rs = ps.executeQuery();
-            while (rs.next()) {
-                f.getPermissions().add(rs.getString("ROLE_NAME"));
-            }
-            return f;
-        } catch (SQLException sqlEX) {
-            throw new FeatureAccessException("Cannot check feature existence, error related to database", sqlEX);
-        } finally {
-            closeResultSet(rs);
-            closeStatement(ps);
+    /**
+     * Add role of current joined row to feature if any.
+     * 
+     * @param rs
+     *            current resultSet
+     * @param f
+     *            feature of current row
+     * @throws SQLException
+     *             error accured when parsing resultSet
+     */
+    private void mapRow2Role(ResultSet rs, Feature f) throws SQLException {
+        String role = rs.getString(COL_ROLE_ROLENAME);
+        if (role != null) {
+            f.getPermissions().add(role);
         }
     }
 
@@ -175,53 +273,43 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (fp == null) {
             throw new IllegalArgumentException("Feature cannot be null nor empty");
         }
-        if (exist(fp.getUid())) {
-            throw new FeatureAlreadyExistException(fp.getUid());
-        }
-        Connection sqlConn = null;
-        PreparedStatement ps = null;
+        JdbcSession session = null;
         try {
-
-            // Create connection
-            sqlConn = getDataSource().getConnection();
-            sqlConn.setAutoCommit(false);
-
-            // Create feature
-            ps = sqlConn.prepareStatement(SQL_CREATE);
-            int idx = 1;
-            ps.setString(idx++, fp.getUid());
-            ps.setInt(idx++, fp.isEnable() ? 1 : 0);
-            ps.setString(idx++, fp.getDescription());
-
+            session = openSession();
+            if (exist(session, fp.getUid())) {
+                throw new FeatureAlreadyExistException(fp.getUid());
+            }
+            long version = beginMutation(session);
             String strategyColumn = null;
             String expressionColumn = null;
             if (fp.getFlippingStrategy() != null) {
                 strategyColumn = fp.getFlippingStrategy().getClass().getCanonicalName();
                 expressionColumn = ParameterUtils.fromMap(fp.getFlippingStrategy().getInitParams());
             }
+            PreparedStatement ps = session.prepare(SQL_CREATE);
+            int idx = 1;
+            ps.setString(idx++, fp.getUid());
+            ps.setInt(idx++, fp.isEnable() ? 1 : 0);
+            ps.setString(idx++, fp.getDescription());
             ps.setString(idx++, strategyColumn);
             ps.setString(idx++, expressionColumn);
             ps.setString(idx++, fp.getGroup());
             ps.executeUpdate();
 
             // Create roles
-            if (fp.getPermissions() != null) {
+            if (fp.getPermissions() != null && !fp.getPermissions().isEmpty()) {
                 for (String role : fp.getPermissions()) {
-                    ps = sqlConn.prepareStatement(SQL_ADD_ROLE);
-                    ps.setString(1, fp.getUid());
-                    ps.setString(2, role);
-                    ps.executeUpdate();
+                    session.addBatch(SQL_ADD_ROLE, fp.getUid(), role);
                 }
+                session.executeBatch(SQL_ADD_ROLE);
             }
-
-            // Commit
-            sqlConn.commit();
-
+            touchFeature(session, version, fp.getUid());
+            session.commit();
         } catch (SQLException sqlEX) {
-            rollback(sqlConn);
+            rollback(session);
             throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
         } finally {
-            closeStatement(ps);
+            closeSession(session);
         }
     }
 
@@ -231,57 +319,22 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        Connection sqlConn = null;
-        PreparedStatement ps = null;
+        JdbcSession session = null;
         try {
-            Feature fp = read(uid);
-
-            // Create connection
-            sqlConn = getDataSource().getConnection();
-            sqlConn.setAutoCommit(false);
-
-            // Delete Roles
-            if (fp.getPermissions() != null) {
-                for (String role : fp.getPermissions()) {
-                    ps = sqlConn.prepareStatement(SQL_DELETE_ROLE);
-                    ps.setString(1, fp.getUid());
-                    ps.setString(2, role);
-                    ps.executeUpdate();
-                }
+            session = openSession();
+            if (!exist(session, uid)) {
+                throw new FeatureNotFoundException(uid);
             }
-
-            // Delete Feature
-            ps = sqlConn.prepareStatement(SQL_DELETE);
-            ps.setString(1, fp.getUid());
-            ps.executeUpdate();
-
-            // Commit
-            sqlConn.commit();
-
+            long version = beginMutation(session);
+            session.update(SQL_DELETE_ROLES, uid);
+            session.update(SQL_DELETE, uid);
+            addTombstone(session, version, uid);
+            session.commit();
         } catch (SQLException sqlEX) {
-            rollback(sqlConn);
+            rollback(session);
             throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
         } finally {
-            closeStatement(ps);
-        }
-    }
-
-    /**
-     * Utility method to perform rollback in correct way.
-     * 
-     * @param sqlConn
-     *            current sql connection
-     */
-    private void rollback(Connection sqlConn) {
-        try {
-            if (!sqlConn.isClosed()) {
-                sqlConn.rollback();
-            }
-        } catch (SQLException e) {
-            throw new FeatureAccessException("Cannot rollback database, SQL ERROR", e);
+            closeSession(session);
         }
     }
 
@@ -294,10 +347,7 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (roleName == null || roleName.isEmpty()) {
             throw new IllegalArgumentException("roleName cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        update(SQL_ADD_ROLE, uid, roleName);
+        updateFeature(uid, SQL_ADD_ROLE, uid, roleName);
     }
 
     /** {@inheritDoc} */
@@ -309,14 +359,11 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (roleName == null || roleName.isEmpty()) {
             throw new IllegalArgumentException("roleName cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        update(SQL_DELETE_ROLE, uid, roleName);
+        updateFeature(uid, SQL_DELETE_ROLE, uid, roleName);
     }
 
     /**
-     * Build {@link PreparedStatement} from parameters
+     * Build {@link PreparedStatement} from parameters.
      * 
      * @param query
      *            query template
@@ -325,7 +372,9 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
      * @return working {@link PreparedStatement}
      * @throws SQLException
      *             sql error when working with statement
+     * @deprecated a new connection is borrowed for each statement and must be closed by caller, use {@link #openSession()}
      */
+    @Deprecated
     public PreparedStatement buildStatement(String query, String... params) throws SQLException {
         Connection sqlConn = getDataSource().getConnection();
         PreparedStatement ps = sqlConn.prepareStatement(query);
@@ -340,31 +389,90 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
     /** {@inheritDoc} */
     @Override
     public Map<String, Feature> readAll() {
-        LinkedHashMap<String, Feature> mapFP = new LinkedHashMap<String, Feature>();
-        PreparedStatement ps = null;
-        ResultSet rs = null;
+        return readFeaturesWithRoles(SQLQUERY_ALLFEATURES_WITH_ROLES);
+    }
+
+    /**
+     * Read features with their roles, a single query per {@link #SQL_IN_MAX_SIZE} identifiers.
+     * 
+     * @param featureIds
+     *            identifiers of features to read
+     * @return features found indexed by identifier
+     */
+    @Override
+    public Map<String, Feature> readAll(Collection<String> featureIds) {
+        assertNotNull(featureIds);
+        for (String uid : featureIds) {
+            assertUid(uid);
+        }
+        List<String> uids = new ArrayList<String>(new LinkedHashSet<String>(featureIds));
+        Map<String, Feature> features = new LinkedHashMap<String, Feature>();
+        if (uids.isEmpty()) {
+            return features;
+        }
+        JdbcSession session = null;
         try {
-            // Returns features
-            ps = buildStatement(SQLQUERY_ALLFEATURES);
-            rs = ps.executeQuery();
-            while (rs.next()) {
-                Feature f = mapRow2Feature(rs);
-                mapFP.put(f.getUid(), f);
+            session = openSession();
+            for (int from = 0; from < uids.size(); from += SQL_IN_MAX_SIZE) {
+                List<String> chunk = uids.subList(from, Math.min(from + SQL_IN_MAX_SIZE, uids.size()));
+                features.putAll(readFeaturesWithRoles(session, SQLQUERY_GET_FEATURES_BY_IDS_WITH_ROLES + inClause(chunk.size()),
+                        chunk.toArray()));
             }
+            return features;
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot read features, error related to database", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /**
+     * Placeholders of a IN clause.
+     * 
+     * @param size
+     *            number of parameters
+     * @return list of placeholders within parenthesis, e.g. (?,?,?)
+     */
+    private String inClause(int size) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            sb.append((i == 0) ? "?" : ",?");
+        }
+        return sb.append(")").toString();
+    }
 
-            // Returns Roles
-            rs = ps.getConnection().prepareStatement(SQL_GET_ALLROLES).executeQuery();
+    /**
+     * Iterate over features with a single cursor, sorted by group. A feature is sent to visitor as soon as all its roles are read.
+     * 
+     * @param visitor
+     *            callback for each feature
+     * @throws IOException
+     *             error raised by visitor
+     */
+    @Override
+    public void visitAll(FeatureVisitor visitor) throws IOException {
+        JdbcSession session = null;
+        try {
+            session = openSession();
+            ResultSet rs = session.query(SQLQUERY_ALLFEATURES_WITH_ROLES);
+            Feature current = null;
             while (rs.next()) {
-                String uid = rs.getString(COL_ROLE_FEATID);
-                mapFP.get(uid).getPermissions().add(rs.getString(COL_ROLE_ROLENAME));
+                String uid = rs.getString(COL_FEAT_UID);
+                if (current == null || !current.getUid().equals(uid)) {
+                    if (current != null) {
+                        visitor.visit(current);
+                    }
+                    current = mapRow2Feature(rs);
+                }
+                mapRow2Role(rs, current);
+            }
+            if (current != null) {
+                visitor.visit(current);
             }
-            return mapFP;
-
         } catch (SQLException sqlEX) {
-            throw new FeatureAccessException("Cannot check feature existence, error related to database", sqlEX);
+            throw new FeatureAccessException("Cannot iterate over features, error related to database", sqlEX);
         } finally {
-            closeResultSet(rs);
-            closeStatement(ps);
+            closeSession(session);
         }
     }
 
@@ -372,12 +480,10 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
     @Override
     public Set<String> readAllGroups() {
         Set<String> setOFGroup = new HashSet<String>();
-        PreparedStatement ps = null;
-        ResultSet rs = null;
+        JdbcSession session = null;
         try {
-            // Returns features
-            ps = buildStatement(SQLQUERY_ALLGROUPS);
-            rs = ps.executeQuery();
+            session = openSession();
+            ResultSet rs = session.query(SQLQUERY_ALLGROUPS);
             while (rs.next()) {
                 String groupName = rs.getString(COL_FEAT_GROUPNAME);
                 if (groupName != null && !"".equals(groupName)) {
@@ -388,8 +494,7 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         } catch (SQLException sqlEX) {
             throw new FeatureAccessException("Cannot list groups, error related to database", sqlEX);
         } finally {
-            closeResultSet(rs);
-            closeStatement(ps);
+            closeSession(session);
         }
     }
 
@@ -399,33 +504,50 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (fp == null) {
             throw new IllegalArgumentException("Feature cannot be null nor empty");
         }
-        Feature fpExist = read(fp.getUid());
-        String enable = "0";
-        if (fp.isEnable()) {
-            enable = "1";
-        }
-        String fStrategy = null;
-        String fExpression = null;
-        if (fp.getFlippingStrategy() != null) {
-            fStrategy = fp.getFlippingStrategy().getClass().getCanonicalName();
-            fExpression = ParameterUtils.fromMap(fp.getFlippingStrategy().getInitParams());
-        }
-        update(SQL_UPDATE, enable, fp.getDescription(), fStrategy, fExpression, fp.getGroup(), fp.getUid());
+        JdbcSession session = null;
+        try {
+            session = openSession();
+            Feature fpExist = readFeaturesWithRoles(session, SQLQUERY_GET_FEATURE_BY_ID_WITH_ROLES, fp.getUid()).get(fp.getUid());
+            if (fpExist == null) {
+                throw new FeatureNotFoundException(fp.getUid());
+            }
+            String enable = "0";
+            if (fp.isEnable()) {
+                enable = "1";
+            }
+            String fStrategy = null;
+            String fExpression = null;
+            if (fp.getFlippingStrategy() != null) {
+                fStrategy = fp.getFlippingStrategy().getClass().getCanonicalName();
+                fExpression = ParameterUtils.fromMap(fp.getFlippingStrategy().getInitParams());
+            }
+            long version = beginMutation(session);
+            session.update(SQL_UPDATE, enable, fp.getDescription(), fStrategy, fExpression, fp.getGroup(), fp.getUid());
 
-        // To be deleted : not in second but in first
-        Set<String> toBeDeleted = new HashSet<String>();
-        toBeDeleted.addAll(fpExist.getPermissions());
-        toBeDeleted.removeAll(fp.getPermissions());
-        for (String roleToBeDelete : toBeDeleted) {
-            removeRoleFromFeature(fpExist.getUid(), roleToBeDelete);
-        }
+            // To be deleted : not in second but in first
+            Set<String> toBeDeleted = new HashSet<String>();
+            toBeDeleted.addAll(fpExist.getPermissions());
+            toBeDeleted.removeAll(fp.getPermissions());
+            for (String roleToBeDelete : toBeDeleted) {
+                session.addBatch(SQL_DELETE_ROLE, fpExist.getUid(), roleToBeDelete);
+            }
+            session.executeBatch(SQL_DELETE_ROLE);
 
-        // To be created : in second but not in first
-        Set<String> toBeAdded = new HashSet<String>();
-        toBeAdded.addAll(fp.getPermissions());
-        toBeAdded.removeAll(fpExist.getPermissions());
-        for (String addee : toBeAdded) {
-            grantRoleOnFeature(fpExist.getUid(), addee);
+            // To be created : in second but not in first
+            Set<String> toBeAdded = new HashSet<String>();
+            toBeAdded.addAll(fp.getPermissions());
+            toBeAdded.removeAll(fpExist.getPermissions());
+            for (String addee : toBeAdded) {
+                session.addBatch(SQL_ADD_ROLE, fpExist.getUid(), addee);
+            }
+            session.executeBatch(SQL_ADD_ROLE);
+            touchFeature(session, version, fp.getUid());
+            session.commit();
+        } catch (SQLException sqlEX) {
+            rollback(session);
+            throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
+        } finally {
+            closeSession(session);
         }
     }
 
@@ -434,20 +556,14 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        PreparedStatement ps = null;
-        ResultSet rs = null;
+        JdbcSession session = null;
         try {
-            ps = buildStatement(SQL_EXIST_GROUP, groupName);
-            rs = ps.executeQuery();
-            if (rs.next()) {
-                return (rs.getInt(1) > 0);
-            }
-            return false;
+            session = openSession();
+            return existGroup(session, groupName);
         } catch (SQLException sqlEX) {
             throw new FeatureAccessException("Cannot check feature existence, error related to database", sqlEX);
         } finally {
-            closeResultSet(rs);
-            closeStatement(ps);
+            closeSession(session);
         }
     }
 
@@ -457,10 +573,7 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!existGroup(groupName)) {
-            throw new GroupNotFoundException(groupName);
-        }
-        update(SQL_ENABLE_GROUP, groupName);
+        updateGroup(groupName, SQL_ENABLE_GROUP, groupName);
     }
 
     /** {@inheritDoc} */
@@ -469,10 +582,7 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!existGroup(groupName)) {
-            throw new GroupNotFoundException(groupName);
-        }
-        update(SQL_DISABLE_GROUP, groupName);
+        updateGroup(groupName, SQL_DISABLE_GROUP, groupName);
     }
 
     /** {@inheritDoc} */
@@ -481,38 +591,12 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!existGroup(groupName)) {
+        // Only the roles of the group are joined, a group without features does not exist
+        Map<String, Feature> mapFP = readFeaturesWithRoles(SQLQUERY_GET_FEATURE_GROUP_WITH_ROLES, groupName);
+        if (mapFP.isEmpty()) {
             throw new GroupNotFoundException(groupName);
         }
-        LinkedHashMap<String, Feature> mapFP = new LinkedHashMap<String, Feature>();
-        PreparedStatement ps = null;
-        ResultSet rs = null;
-        try {
-            // Returns features
-            ps = buildStatement(SQLQUERY_GET_FEATURE_GROUP, groupName);
-            rs = ps.executeQuery();
-            while (rs.next()) {
-                Feature f = mapRow2Feature(rs);
-                mapFP.put(f.getUid(), f);
-            }
-
-            // Returns Roles
-            rs = ps.getConnection().prepareStatement(SQL_GET_ALLROLES).executeQuery();
-            while (rs.next()) {
-                String uid = rs.getString(COL_ROLE_FEATID);
-                // only feature in the group must be processed
-                if (mapFP.containsKey(uid)) {
-                    mapFP.get(uid).getPermissions().add(rs.getString(COL_ROLE_ROLENAME));
-                }
-            }
-            return mapFP;
-
-        } catch (SQLException sqlEX) {
-            throw new FeatureAccessException("Cannot check feature existence, error related to database", sqlEX);
-        } finally {
-            closeResultSet(rs);
-            closeStatement(ps);
-        }
+        return mapFP;
     }
 
     /** {@inheritDoc} */
@@ -524,10 +608,7 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        update(SQL_ADD_TO_GROUP, groupName, uid);
+        updateFeature(uid, SQL_ADD_TO_GROUP, groupName, uid);
     }
 
     /** {@inheritDoc} */
@@ -539,17 +620,313 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
+        JdbcSession session = null;
+        try {
+            session = openSession();
+            Feature feat = readFeaturesWithRoles(session, SQLQUERY_GET_FEATURE_BY_ID_WITH_ROLES, uid).get(uid);
+            if (feat == null) {
+                throw new FeatureNotFoundException(uid);
+            }
+            if (!existGroup(session, groupName)) {
+                throw new GroupNotFoundException(groupName);
+            }
+            if (feat.getGroup() != null && !feat.getGroup().equals(groupName)) {
+                throw new IllegalArgumentException("'" + uid + "' is not in group '" + groupName + "'");
+            }
+            long version = beginMutation(session);
+            session.update(SQL_ADD_TO_GROUP, "", uid);
+            touchFeature(session, version, uid);
+            session.commit();
+        } catch (SQLException sqlEX) {
+            rollback(session);
+            throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
+        } finally {
+            closeSession(session);
         }
-        if (!existGroup(groupName)) {
-            throw new GroupNotFoundException(groupName);
+    }
+
+    /**
+     * Create all features with batched statements in a single transaction.
+     * 
+     * @param features
+     *            features to create, none of them should exist
+     */
+    @Override
+    public void createAll(Collection<Feature> features) {
+        assertNotNull(features);
+        JdbcSession session = null;
+        try {
+            for (Feature feature : features) {
+                assertFeature(feature);
+            }
+            session = openSession();
+            Set<String> uids = readExistingUids(session, uidsOf(features));
+            for (Feature feature : features) {
+                if (!uids.add(feature.getUid())) {
+                    throw new FeatureAlreadyExistException(feature.getUid());
+                }
+            }
+            long version = beginMutation(session);
+            for (Feature feature : features) {
+                addCreateBatch(session, feature);
+                addTouchBatch(session, version, feature.getUid());
+            }
+            executeWriteBatches(session);
+            session.commit();
+        } catch (SQLException sqlEX) {
+            rollback(session);
+            throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
+        } finally {
+            closeSession(session);
         }
-        Feature feat = read(uid);
-        if (feat.getGroup() != null && !feat.getGroup().equals(groupName)) {
-            throw new IllegalArgumentException("'" + uid + "' is not in group '" + groupName + "'");
+    }
+
+    /**
+     * Update all features with batched statements in a single transaction, roles are replaced.
+     * 
+     * @param features
+     *            new values of existing features
+     */
+    @Override
+    public void updateAll(Collection<Feature> features) {
+        assertNotNull(features);
+        JdbcSession session = null;
+        try {
+            for (Feature feature : features) {
+                assertFeature(feature);
+            }
+            session = openSession();
+            Set<String> uids = readExistingUids(session, uidsOf(features));
+            for (Feature feature : features) {
+                if (!uids.contains(feature.getUid())) {
+                    throw new FeatureNotFoundException(feature.getUid());
+                }
+            }
+            long version = beginMutation(session);
+            for (Feature feature : uniqueByUid(features)) {
+                addUpdateBatch(session, feature);
+                addTouchBatch(session, version, feature.getUid());
+            }
+            executeWriteBatches(session);
+            session.commit();
+        } catch (SQLException sqlEX) {
+            rollback(session);
+            throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /**
+     * Delete all features and their roles with batched statements in a single transaction.
+     * 
+     * @param featureIds
+     *            identifiers of existing features
+     */
+    @Override
+    public void deleteAll(Collection<String> featureIds) {
+        assertNotNull(featureIds);
+        JdbcSession session = null;
+        try {
+            for (String uid : featureIds) {
+                assertUid(uid);
+            }
+            session = openSession();
+            Set<String> uids = readExistingUids(session, featureIds);
+            for (String uid : featureIds) {
+                if (!uids.contains(uid)) {
+                    throw new FeatureNotFoundException(uid);
+                }
+            }
+            long version = beginMutation(session);
+            for (String uid : new HashSet<String>(featureIds)) {
+                session.addBatch(SQL_DELETE_ROLES, uid);
+                session.addBatch(SQL_DELETE, uid);
+                if (versioned) {
+                    session.addBatch(SQL_DELETE_TOMBSTONE, uid);
+                    session.addBatch(SQL_ADD_TOMBSTONE, uid, Long.valueOf(version));
+                }
+            }
+            session.executeBatch(SQL_DELETE_ROLES);
+            session.executeBatch(SQL_DELETE);
+            session.executeBatch(SQL_DELETE_TOMBSTONE);
+            session.executeBatch(SQL_ADD_TOMBSTONE);
+            session.commit();
+        } catch (SQLException sqlEX) {
+            rollback(session);
+            throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /**
+     * Create or update all features with batched statements in a single transaction, existence is checked with one query.
+     * 
+     * @param features
+     *            features to save
+     */
+    @Override
+    public void upsertAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+        }
+        JdbcSession session = null;
+        try {
+            session = openSession();
+            Set<String> uids = readExistingUids(session, uidsOf(features));
+            long version = beginMutation(session);
+            for (Feature feature : uniqueByUid(features)) {
+                if (uids.contains(feature.getUid())) {
+                    addUpdateBatch(session, feature);
+                } else {
+                    addCreateBatch(session, feature);
+                }
+                addTouchBatch(session, version, feature.getUid());
+            }
+            executeWriteBatches(session);
+            session.commit();
+        } catch (SQLException sqlEX) {
+            rollback(session);
+            throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
+        } finally {
+            closeSession(session);
         }
-        update(SQL_ADD_TO_GROUP, "", uid);
+    }
+
+    /**
+     * Read which of the given identifiers exist, a single query per {@link #SQL_IN_MAX_SIZE} identifiers.
+     * 
+     * @param session
+     *            current session
+     * @param featureIds
+     *            identifiers to check
+     * @return set of existing identifiers
+     * @throws SQLException
+     *             error when querying
+     */
+    private Set<String> readExistingUids(JdbcSession session, Collection<String> featureIds) throws SQLException {
+        Set<String> uids = new HashSet<String>();
+        List<String> candidates = new ArrayList<String>(new LinkedHashSet<String>(featureIds));
+        for (int from = 0; from < candidates.size(); from += SQL_IN_MAX_SIZE) {
+            List<String> chunk = candidates.subList(from, Math.min(from + SQL_IN_MAX_SIZE, candidates.size()));
+            ResultSet rs = session.query(SQLQUERY_UIDS_IN + inClause(chunk.size()), chunk.toArray());
+            while (rs.next()) {
+                uids.add(rs.getString(COL_FEAT_UID));
+            }
+        }
+        return uids;
+    }
+
+    /**
+     * Identifiers of features.
+     * 
+     * @param features
+     *            features
+     * @return identifiers in the same order
+     */
+    private List<String> uidsOf(Collection<Feature> features) {
+        List<String> uids = new ArrayList<String>(features.size());
+        for (Feature feature : features) {
+            uids.add(feature.getUid());
+        }
+        return uids;
+    }
+
+    /**
+     * Keep last value for each identifier, a feature cannot be written twice in the same batch.
+     * 
+     * @param features
+     *            features to write
+     * @return features with distinct identifiers
+     */
+    private Collection<Feature> uniqueByUid(Collection<Feature> features) {
+        Map<String, Feature> unique = new LinkedHashMap<String, Feature>();
+        for (Feature feature : features) {
+            unique.put(feature.getUid(), feature);
+        }
+        return unique.values();
+    }
+
+    /**
+     * Add creation of feature and its roles to batches.
+     * 
+     * @param session
+     *            current session
+     * @param fp
+     *            feature to create
+     * @throws SQLException
+     *             error when binding
+     */
+    private void addCreateBatch(JdbcSession session, Feature fp) throws SQLException {
+        String strategyColumn = null;
+        String expressionColumn = null;
+        if (fp.getFlippingStrategy() != null) {
+            strategyColumn = fp.getFlippingStrategy().getClass().getCanonicalName();
+            expressionColumn = ParameterUtils.fromMap(fp.getFlippingStrategy().getInitParams());
+        }
+        session.addBatch(SQL_CREATE, fp.getUid(), Integer.valueOf(fp.isEnable() ? 1 : 0), fp.getDescription(), strategyColumn,
+                expressionColumn, fp.getGroup());
+        addRolesBatch(session, fp);
+    }
+
+    /**
+     * Add update of feature to batches, roles are deleted then created again.
+     * 
+     * @param session
+     *            current session
+     * @param fp
+     *            new value of feature
+     * @throws SQLException
+     *             error when binding
+     */
+    private void addUpdateBatch(JdbcSession session, Feature fp) throws SQLException {
+        String fStrategy = null;
+        String fExpression = null;
+        if (fp.getFlippingStrategy() != null) {
+            fStrategy = fp.getFlippingStrategy().getClass().getCanonicalName();
+            fExpression = ParameterUtils.fromMap(fp.getFlippingStrategy().getInitParams());
+        }
+        session.addBatch(SQL_UPDATE, Integer.valueOf(fp.isEnable() ? 1 : 0), fp.getDescription(), fStrategy, fExpression,
+                fp.getGroup(), fp.getUid());
+        session.addBatch(SQL_DELETE_ROLES, fp.getUid());
+        addRolesBatch(session, fp);
+    }
+
+    /**
+     * Add roles of feature to batches.
+     * 
+     * @param session
+     *            current session
+     * @param fp
+     *            current feature
+     * @throws SQLException
+     *             error when binding
+     */
+    private void addRolesBatch(JdbcSession session, Feature fp) throws SQLException {
+        if (fp.getPermissions() != null) {
+            for (String role : fp.getPermissions()) {
+                session.addBatch(SQL_ADD_ROLE, fp.getUid(), role);
+            }
+        }
+    }
+
+    /**
+     * Execute batches of creation and update, features are written before their roles and versions.
+     * 
+     * @param session
+     *            current session
+     * @throws SQLException
+     *             error when executing
+     */
+    private void executeWriteBatches(JdbcSession session) throws SQLException {
+        session.executeBatch(SQL_CREATE);
+        session.executeBatch(SQL_UPDATE);
+        session.executeBatch(SQL_DELETE_ROLES);
+        session.executeBatch(SQL_ADD_ROLE);
+        session.executeBatch(SQL_TOUCH_FEATURE);
+        session.executeBatch(SQL_DELETE_TOMBSTONE);
     }
 
     /** {@inheritDoc} */
@@ -611,57 +988,233 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
     }
 
     /**
-     * Utility method to perform UPDATE and DELETE operations.
+     * Check feature existence then execute UPDATE or DELETE with the same connection.
      * 
+     * @param uid
+     *            feature identifier
      * @param query
      *            target query
      * @param params
      *            sql query params
      */
-    private void update(String query, String... params) {
-        PreparedStatement ps = null;
+    private void updateFeature(String uid, String query, Object... params) {
+        JdbcSession session = null;
         try {
-            ps = buildStatement(query, params);
-            ps.executeUpdate();
+            session = openSession();
+            if (!exist(session, uid)) {
+                throw new FeatureNotFoundException(uid);
+            }
+            long version = beginMutation(session);
+            session.update(query, params);
+            touchFeature(session, version, uid);
+            session.commit();
         } catch (SQLException sqlEX) {
+            rollback(session);
             throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
         } finally {
-            closeStatement(ps);
+            closeSession(session);
         }
     }
 
     /**
-     * Close resultset.
+     * Check group existence then execute UPDATE with the same connection.
      * 
-     * @param rs
-     *            target resultset
+     * @param groupName
+     *            group name
+     * @param query
+     *            target query
+     * @param params
+     *            sql query params
      */
-    private void closeResultSet(ResultSet rs) {
+    private void updateGroup(String groupName, String query, Object... params) {
+        JdbcSession session = null;
         try {
-            if (rs != null) {
-                rs.close();
+            session = openSession();
+            if (!existGroup(session, groupName)) {
+                throw new GroupNotFoundException(groupName);
             }
-        } catch (SQLException e) {
-            throw new FeatureAccessException("An error occur when closing resultset", e);
+            long version = beginMutation(session);
+            session.update(query, params);
+            if (versioned) {
+                session.update(SQL_TOUCH_GROUP, Long.valueOf(version), groupName);
+            }
+            session.commit();
+        } catch (SQLException sqlEX) {
+            rollback(session);
+            throw new FeatureAccessException("Cannot update features database, SQL ERROR", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getVersion() {
+        assertVersioned();
+        JdbcSession session = null;
+        try {
+            session = openSession();
+            ResultSet rs = session.query(SQLQUERY_VERSION);
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot read version, error related to database", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Feature> readChangedSince(long version) {
+        assertVersioned();
+        return readFeaturesWithRoles(SQLQUERY_CHANGED_SINCE_WITH_ROLES, Long.valueOf(version));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> readDeletedSince(long version) {
+        assertVersioned();
+        Set<String> deleted = new HashSet<String>();
+        JdbcSession session = null;
+        try {
+            session = openSession();
+            ResultSet rs = session.query(SQLQUERY_DELETED_SINCE, Long.valueOf(version));
+            while (rs.next()) {
+                deleted.add(rs.getString(COL_FEAT_UID));
+            }
+            return deleted;
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot read deleted features, error related to database", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int purgeDeletedBefore(long version) {
+        assertVersioned();
+        JdbcSession session = null;
+        try {
+            session = openSession();
+            return session.update(SQL_PURGE_TOMBSTONES, Long.valueOf(version));
+        } catch (SQLException sqlEX) {
+            throw new FeatureAccessException("Cannot purge deleted features, error related to database", sqlEX);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    /**
+     * Check that versions are maintained.
+     */
+    private void assertVersioned() {
+        if (!versioned) {
+            throw new IllegalStateException("Versioning is not enabled on this store, see setVersioned(true)");
+        }
+    }
+
+    /**
+     * Start transaction of a mutation. When versioned, the counter is incremented first : writers are serialized on it and
+     * versions are committed in order.
+     * 
+     * @param session
+     *            current session
+     * @return version of the mutation, 0 if not versioned
+     * @throws SQLException
+     *             error when incrementing counter
+     */
+    private long beginMutation(JdbcSession session) throws SQLException {
+        session.begin();
+        if (!versioned) {
+            return 0;
+        }
+        session.update(SQL_INCREMENT_VERSION);
+        ResultSet rs = session.query(SQLQUERY_VERSION);
+        if (!rs.next()) {
+            throw new SQLException("Version counter is missing, table FF4J_FEATURES_VERSION must contain a single row");
         }
+        return rs.getLong(1);
     }
 
     /**
-     * Utility method to close statement properly.
+     * Set version of feature (if versioned), a tombstone of previous deletion is removed.
      * 
-     * @param ps
+     * @param session
+     *            current session
+     * @param version
+     *            version of mutation
+     * @param uid
+     *            feature identifier
+     * @throws SQLException
+     *             error when updating
+     */
+    private void touchFeature(JdbcSession session, long version, String uid) throws SQLException {
+        if (versioned) {
+            session.update(SQL_TOUCH_FEATURE, Long.valueOf(version), uid);
+            session.update(SQL_DELETE_TOMBSTONE, uid);
+        }
+    }
+
+    /**
+     * Add version of feature to batches (if versioned), see {@link #touchFeature(JdbcSession, long, String)}.
      * 
+     * @param session
+     *            current session
+     * @param version
+     *            version of mutation
+     * @param uid
+     *            feature identifier
+     * @throws SQLException
+     *             error when binding
      */
-    private void closeStatement(PreparedStatement ps) {
-        try {
-            if (ps != null) {
-                if (ps.getConnection() != null) {
-                    ps.getConnection().close();
-                }
-                ps.close();
-            }
-        } catch (SQLException e) {
-            throw new FeatureAccessException("An error occur when closing statement", e);
+    private void addTouchBatch(JdbcSession session, long version, String uid) throws SQLException {
+        if (versioned) {
+            session.addBatch(SQL_TOUCH_FEATURE, Long.valueOf(version), uid);
+            session.addBatch(SQL_DELETE_TOMBSTONE, uid);
+        }
+    }
+
+    /**
+     * Keep track of deleted feature (if versioned).
+     * 
+     * @param session
+     *            current session
+     * @param version
+     *            version of mutation
+     * @param uid
+     *            feature identifier
+     * @throws SQLException
+     *             error when updating
+     */
+    private void addTombstone(JdbcSession session, long version, String uid) throws SQLException {
+        if (versioned) {
+            session.update(SQL_DELETE_TOMBSTONE, uid);
+            session.update(SQL_ADD_TOMBSTONE, uid, Long.valueOf(version));
+        }
+    }
+
+    /**
+     * Rollback current transaction if any.
+     * 
+     * @param session
+     *            current session
+     */
+    private void rollback(JdbcSession session) {
+        if (session != null) {
+            session.rollback();
+        }
+    }
+
+    /**
+     * Release session resources.
+     * 
+     * @param session
+     *            current session
+     */
+    private void closeSession(JdbcSession session) {
+        if (session != null) {
+            session.close();
         }
     }
 
@@ -684,4 +1237,42 @@ public class JdbcFeatureStore implements JdbcFeatureStoreConstants, FeatureStore
         this.dataSource = dataSource;
     }
 
+    /**
+     * Getter accessor for attribute 'fetchSize'.
+     * 
+     * @return current value of 'fetchSize'
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Setter accessor for attribute 'fetchSize'.
+     * 
+     * @param fetchSize
+     *            new value for 'fetchSize '
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Getter accessor for attribute 'versioned'.
+     * 
+     * @return current value of 'versioned'
+     */
+    public boolean isVersioned() {
+        return versioned;
+    }
+
+    /**
+     * Setter accessor for attribute 'versioned'.
+     * 
+     * @param versioned
+     *            new value for 'versioned '
+     */
+    public void setVersioned(boolean versioned) {
+        this.versioned = versioned;
+    }
+
 }
@@ -21,6 +21,25 @@ public interface JdbcFeatureStoreConstants {
     /** sql query expression */
     String SQLQUERY_ALLFEATURES = "SELECT FEAT_UID,ENABLE,DESCRIPTION,STRATEGY,EXPRESSION,GROUPNAME FROM FF4J_FEATURES";
 
+    /** sql query expression, features joined with their roles (one row per role). */
+    String SQLQUERY_FEATURES_WITH_ROLES = "SELECT F.FEAT_UID,F.ENABLE,F.DESCRIPTION,F.STRATEGY,F.EXPRESSION,F.GROUPNAME,R.ROLE_NAME "
+            + "FROM FF4J_FEATURES F LEFT JOIN FF4J_ROLES R ON F.FEAT_UID = R.FEAT_UID";
+
+    /** sql query expression, features with their roles sorted by group. */
+    String SQLQUERY_ALLFEATURES_WITH_ROLES = SQLQUERY_FEATURES_WITH_ROLES + " ORDER BY F.GROUPNAME, F.FEAT_UID";
+
+    /** sql query expression, one feature with its roles. */
+    String SQLQUERY_GET_FEATURE_BY_ID_WITH_ROLES = SQLQUERY_FEATURES_WITH_ROLES + " WHERE F.FEAT_UID = ?";
+
+    /** sql query expression, features with their roles whose identifier is in a list, to be completed with placeholders. */
+    String SQLQUERY_GET_FEATURES_BY_IDS_WITH_ROLES = SQLQUERY_FEATURES_WITH_ROLES + " WHERE F.FEAT_UID IN ";
+
+    /** Maximum number of parameters in a IN clause, longer lists are split (some databases are limited to 1000). */
+    int SQL_IN_MAX_SIZE = 500;
+
+    /** sql query expression, features of a group with their roles. */
+    String SQLQUERY_GET_FEATURE_GROUP_WITH_ROLES = SQLQUERY_FEATURES_WITH_ROLES + " WHERE F.GROUPNAME = ? ORDER BY F.FEAT_UID";
+
     /** sql query expression */
     String SQLQUERY_ALLGROUPS = "SELECT DISTINCT(GROUPNAME) FROM FF4J_FEATURES";
 
@@ -30,6 +49,9 @@ public interface JdbcFeatureStoreConstants {
     /** sql query expression */
     String SQLQUERY_GET_FEATURE_BY_ID = "SELECT FEAT_UID,ENABLE,DESCRIPTION,STRATEGY,EXPRESSION,GROUPNAME FROM FF4J_FEATURES WHERE FEAT_UID = ?";
 
+    /** sql query expression, identifiers found in a list, to be completed with placeholders. */
+    String SQLQUERY_UIDS_IN = "SELECT FEAT_UID FROM FF4J_FEATURES WHERE FEAT_UID IN ";
+
     /** sql query expression */
     String SQL_EXIST = "SELECT COUNT(FEAT_UID) FROM FF4J_FEATURES WHERE FEAT_UID = ?";
 
@@ -69,6 +91,36 @@ public interface JdbcFeatureStoreConstants {
     /** sql query expression */
     String SQL_DELETE_ROLE = "DELETE FROM FF4J_ROLES WHERE FEAT_UID = ? AND ROLE_NAME = ?";
 
+    /** sql query expression */
+    String SQL_DELETE_ROLES = "DELETE FROM FF4J_ROLES WHERE FEAT_UID = ?";
+
+    /** sql query expression */
+    String SQL_INCREMENT_VERSION = "UPDATE FF4J_FEATURES_VERSION SET VERSION = VERSION + 1";
+
+    /** sql query expression */
+    String SQLQUERY_VERSION = "SELECT VERSION FROM FF4J_FEATURES_VERSION";
+
+    /** sql query expression */
+    String SQL_TOUCH_FEATURE = "UPDATE FF4J_FEATURES SET VERSION = ? WHERE FEAT_UID = ?";
+
+    /** sql query expression */
+    String SQL_TOUCH_GROUP = "UPDATE FF4J_FEATURES SET VERSION = ? WHERE GROUPNAME = ?";
+
+    /** sql query expression */
+    String SQL_ADD_TOMBSTONE = "INSERT INTO FF4J_FEATURES_DELETED(FEAT_UID, VERSION) VALUES (?, ?)";
+
+    /** sql query expression */
+    String SQL_DELETE_TOMBSTONE = "DELETE FROM FF4J_FEATURES_DELETED WHERE FEAT_UID = ?";
+
+    /** sql query expression */
+    String SQLQUERY_CHANGED_SINCE_WITH_ROLES = SQLQUERY_FEATURES_WITH_ROLES + " WHERE F.VERSION > ? ORDER BY F.FEAT_UID";
+
+    /** sql query expression */
+    String SQLQUERY_DELETED_SINCE = "SELECT FEAT_UID FROM FF4J_FEATURES_DELETED WHERE VERSION > ?";
+
+    /** sql query expression */
+    String SQL_PURGE_TOMBSTONES = "DELETE FROM FF4J_FEATURES_DELETED WHERE VERSION < ?";
+
     /** sql query expression */
     String SQL_GET_ROLES = "SELECT ROLE_NAME FROM FF4J_ROLES WHERE FEAT_UID = ?";
 
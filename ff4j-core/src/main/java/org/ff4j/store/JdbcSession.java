@@ -0,0 +1,266 @@
+package org.ff4j.store;
+
+/*
+ * #%L ff4j-core %% Copyright (C) 2013 Ff4J %% Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License. #L%
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.ff4j.exception.FeatureAccessException;
+
+/**
+ * Execution unit of a single logical operation against a {@link DataSource}: one connection is borrowed, prepared statements
+ * are reused for the same SQL and everything is closed by {@link #close()}.
+ * 
+ * <p>
+ * Usage : open the session, work in a try block and invoke {@link #close()} in the finally block. A session is not thread-safe.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class JdbcSession {
+
+    /** Connection borrowed for the operation. */
+    private final Connection sqlConn;
+
+    /** Fetch size for queries, 0 means driver default. */
+    private final int fetchSize;
+
+    /** Prepared statements by SQL, reused during the operation. */
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>();
+
+    /** Auto commit mode to restore when the session is closed, null if no transaction has been started. */
+    private Boolean initialAutoCommit = null;
+
+    /** A transaction has been started and not yet committed nor rolled back. */
+    private boolean inTransaction = false;
+
+    /**
+     * Borrow a connection from datasource.
+     * 
+     * @param dataSource
+     *            target datasource
+     * @param fetchSize
+     *            fetch size for queries, 0 for driver default
+     * @throws SQLException
+     *             connection cannot be acquired
+     */
+    public JdbcSession(DataSource dataSource, int fetchSize) throws SQLException {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("DataSource cannot be null");
+        }
+        this.sqlConn = dataSource.getConnection();
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Prepare statement, or reuse the one already prepared for this SQL (parameters are cleared).
+     * 
+     * @param sql
+     *            query
+     * @return statement
+     * @throws SQLException
+     *             error when preparing
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null) {
+            ps = sqlConn.prepareStatement(sql);
+            if (fetchSize > 0) {
+                ps.setFetchSize(fetchSize);
+            }
+            statements.put(sql, ps);
+        } else {
+            ps.clearParameters();
+        }
+        return ps;
+    }
+
+    /**
+     * Execute query with parameters, see {@link #bind(PreparedStatement, Object...)} for types. The result set is closed with the session or when the same query is executed again.
+     * 
+     * @param sql
+     *            query
+     * @param params
+     *            parameters
+     * @return result set
+     * @throws SQLException
+     *             error when executing
+     */
+    public ResultSet query(String sql, Object... params) throws SQLException {
+        return bind(prepare(sql), params).executeQuery();
+    }
+
+    /**
+     * Execute update with parameters.
+     * 
+     * @param sql
+     *            update query
+     * @param params
+     *            parameters
+     * @return number of rows updated
+     * @throws SQLException
+     *             error when executing
+     */
+    public int update(String sql, Object... params) throws SQLException {
+        return bind(prepare(sql), params).executeUpdate();
+    }
+
+    /**
+     * Add a set of parameters to the batch of this SQL, see {@link #executeBatch(String)}.
+     * 
+     * @param sql
+     *            update query
+     * @param params
+     *            parameters
+     * @throws SQLException
+     *             error when binding
+     */
+    public void addBatch(String sql, Object... params) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null) {
+            ps = prepare(sql);
+        }
+        bind(ps, params).addBatch();
+    }
+
+    /**
+     * Execute batch of this SQL if any.
+     * 
+     * @param sql
+     *            update query
+     * @throws SQLException
+     *             error when executing
+     */
+    public void executeBatch(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null) {
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Set parameters with their type : strings and longs are bound with dedicated setters (e.g. VERSION columns are BIGINT, strict
+     * databases reject them as strings), other values with setObject.
+     * 
+     * @param ps
+     *            statement
+     * @param params
+     *            parameters
+     * @return statement
+     * @throws SQLException
+     *             error when binding
+     */
+    private PreparedStatement bind(PreparedStatement ps, Object... params) throws SQLException {
+        if (params != null) {
+            for (int i = 0; i < params.length; i++) {
+                Object param = params[i];
+                if (param == null || param instanceof String) {
+                    ps.setString(i + 1, (String) param);
+                } else if (param instanceof Long) {
+                    ps.setLong(i + 1, (Long) param);
+                } else {
+                    ps.setObject(i + 1, param);
+                }
+            }
+        }
+        return ps;
+    }
+
+    /**
+     * Start a transaction, auto commit mode is restored on {@link #close()}.
+     * 
+     * @throws SQLException
+     *             error when disabling auto commit
+     */
+    public void begin() throws SQLException {
+        if (initialAutoCommit == null) {
+            initialAutoCommit = sqlConn.getAutoCommit();
+        }
+        sqlConn.setAutoCommit(false);
+        inTransaction = true;
+    }
+
+    /**
+     * Commit current transaction.
+     * 
+     * @throws SQLException
+     *             error when committing
+     */
+    public void commit() throws SQLException {
+        sqlConn.commit();
+        inTransaction = false;
+    }
+
+    /**
+     * Rollback current transaction, errors are ignored as an error is already being raised.
+     */
+    public void rollback() {
+        inTransaction = false;
+        try {
+            if (!sqlConn.isClosed() && !sqlConn.getAutoCommit()) {
+                sqlConn.rollback();
+            }
+        } catch (SQLException e) {
+            // Original error is more relevant than this one
+        }
+    }
+
+    /**
+     * Close statements (and their result sets) then release connection. A transaction still pending is rolled back. All
+     * resources are closed even if one fails, the first error is then raised.
+     */
+    public void close() {
+        if (inTransaction) {
+            rollback();
+        }
+        SQLException firstError = null;
+        for (PreparedStatement ps : statements.values()) {
+            try {
+                ps.close();
+            } catch (SQLException e) {
+                firstError = (firstError == null) ? e : firstError;
+            }
+        }
+        statements.clear();
+        try {
+            if (initialAutoCommit != null) {
+                sqlConn.setAutoCommit(initialAutoCommit);
+            }
+        } catch (SQLException e) {
+            firstError = (firstError == null) ? e : firstError;
+        }
+        try {
+            sqlConn.close();
+        } catch (SQLException e) {
+            firstError = (firstError == null) ? e : firstError;
+        }
+        if (firstError != null) {
+            throw new FeatureAccessException("An error occur when closing jdbc resources", firstError);
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'sqlConn'.
+     * 
+     * @return current value of 'sqlConn'
+     */
+    public Connection getConnection() {
+        return sqlConn;
+    }
+
+}
@@ -56,7 +56,7 @@ public class ReleaseDateFlipStrategy extends AbstractFlipStrategy {
      */
     public ReleaseDateFlipStrategy(String strDate) {
         try {
-            this.releaseDate = SDF.parse(strDate);
+            this.releaseDate = parseDate(strDate);
         } catch (ParseException e) {
             throw new IllegalArgumentException("Cannot parse release date, invalid format correct is 'YYYY-MM-DD-HH:mm'", e);
         }
@@ -70,7 +70,9 @@ public class ReleaseDateFlipStrategy extends AbstractFlipStrategy {
      */
     public ReleaseDateFlipStrategy(Date releaseDate) {
         this.releaseDate = releaseDate;
-        getInitParams().put(PARAMNAME_RELEASEDATE, SDF.format(releaseDate));
+        synchronized (SDF) {
+            getInitParams().put(PARAMNAME_RELEASEDATE, SDF.format(releaseDate));
+        }
     }
 
     /** {@inheritDoc} */
@@ -79,12 +81,27 @@ public class ReleaseDateFlipStrategy extends AbstractFlipStrategy {
         super.init(featureName, initParam);
         assertRequiredParameter(PARAMNAME_RELEASEDATE);
         try {
-            this.releaseDate = SDF.parse(initParam.get(PARAMNAME_RELEASEDATE));
+            this.releaseDate = parseDate(initParam.get(PARAMNAME_RELEASEDATE));
         } catch (ParseException e) {
             throw new IllegalArgumentException("Cannot parse release date, invalid format correct is 'YYYY-MM-DD-HH:mm'", e);
         }
     }
 
+    /**
+     * Parse date with shared format, {@link SimpleDateFormat} is not thread-safe.
+     * 
+     * @param strDate
+     *            date expression
+     * @return date
+     * @throws ParseException
+     *             invalid format
+     */
+    private static Date parseDate(String strDate) throws ParseException {
+        synchronized (SDF) {
+            return SDF.parse(strDate);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean evaluate(String featureName, FeatureStore store, FlippingExecutionContext executionContext) {
@@ -0,0 +1,383 @@
+package org.ff4j.utils;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.ff4j.core.Feature;
+import org.ff4j.core.FlippingStrategy;
+
+/**
+ * Compact and versioned binary format for {@link Feature}, to be used by caches and remote stores instead of JSON.
+ * 
+ * <p>
+ * Layout (version 1) : version byte, flags byte (enable, description, group, strategy), uid, description, group, permissions,
+ * strategy class name and init parameters. Strings are written as UTF-8 prefixed by their length, lengths and counts are unsigned
+ * varints.
+ * </p>
+ * 
+ * <p>
+ * Decoding reads strings directly from the backing array of heap buffers without intermediate copy.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public final class FeatureBinaryCodec {
+
+    /** Current version of the format. */
+    public static final byte VERSION_1 = 1;
+
+    /** Encoding of strings. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Feature is enabled. */
+    private static final int FLAG_ENABLE = 1;
+
+    /** Description is present. */
+    private static final int FLAG_DESCRIPTION = 1 << 1;
+
+    /** Group is present. */
+    private static final int FLAG_GROUP = 1 << 2;
+
+    /** Flipping strategy is present. */
+    private static final int FLAG_STRATEGY = 1 << 3;
+
+    /**
+     * Hide default constructor from utility class.
+     */
+    private FeatureBinaryCodec() {}
+
+    /**
+     * Encode feature into a new buffer, ready to be read.
+     * 
+     * @param feature
+     *            target feature
+     * @return buffer with position 0 and limit at end of encoded feature
+     */
+    public static ByteBuffer encode(Feature feature) {
+        EncodedFeature encoded = new EncodedFeature(feature);
+        ByteBuffer buffer = ByteBuffer.allocate(encoded.size);
+        encoded.writeTo(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encode feature into an existing buffer from its current position.
+     * 
+     * @param feature
+     *            target feature
+     * @param buffer
+     *            target buffer, position is moved after encoded feature
+     * @throws java.nio.BufferOverflowException
+     *             if remaining space is not sufficient, see {@link #encodedSize(Feature)}
+     */
+    public static void encode(Feature feature, ByteBuffer buffer) {
+        new EncodedFeature(feature).writeTo(buffer);
+    }
+
+    /**
+     * Encode feature as byte array.
+     * 
+     * @param feature
+     *            target feature
+     * @return encoded feature
+     */
+    public static byte[] toBytes(Feature feature) {
+        return encode(feature).array();
+    }
+
+    /**
+     * Size of encoded feature in bytes.
+     * 
+     * @param feature
+     *            target feature
+     * @return number of bytes required to encode feature
+     */
+    public static int encodedSize(Feature feature) {
+        return new EncodedFeature(feature).size;
+    }
+
+    /**
+     * Decode feature from byte array.
+     * 
+     * @param bytes
+     *            encoded feature
+     * @return feature
+     */
+    public static Feature fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Encoded feature cannot be null");
+        }
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode feature from buffer current position, position is moved after the feature.
+     * 
+     * @param buffer
+     *            encoded feature
+     * @return feature
+     */
+    public static Feature decode(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Encoded feature cannot be null");
+        }
+        try {
+            byte version = buffer.get();
+            if (version != VERSION_1) {
+                throw new IllegalArgumentException("Unsupported binary feature version " + version);
+            }
+            int flags = buffer.get();
+            Feature feature = new Feature(readString(buffer), (flags & FLAG_ENABLE) != 0);
+            if ((flags & FLAG_DESCRIPTION) != 0) {
+                feature.setDescription(readString(buffer));
+            }
+            if ((flags & FLAG_GROUP) != 0) {
+                feature.setGroup(readString(buffer));
+            }
+            int permissionCount = readVarInt(buffer);
+            Set<String> permissions = new TreeSet<String>();
+            for (int i = 0; i < permissionCount; i++) {
+                permissions.add(readString(buffer));
+            }
+            feature.setPermissions(permissions);
+            if ((flags & FLAG_STRATEGY) != 0) {
+                String className = readString(buffer);
+                int paramCount = readVarInt(buffer);
+                Map<String, String> initParams = new LinkedHashMap<String, String>();
+                for (int i = 0; i < paramCount; i++) {
+                    initParams.put(readString(buffer), readString(buffer));
+                }
+                FlippingStrategy strategy = FeatureJsonMarshaller.instanceFlippingStrategy(feature.getUid(), className, initParams);
+                feature.setFlippingStrategy(strategy);
+            }
+            return feature;
+        } catch (BufferUnderflowException bue) {
+            throw new IllegalArgumentException("Encoded feature is truncated", bue);
+        }
+    }
+
+    /**
+     * Read string prefixed by its length.
+     * 
+     * @param buffer
+     *            source buffer
+     * @return string
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, UTF8);
+        }
+        return value;
+    }
+
+    /**
+     * Read unsigned varint.
+     * 
+     * @param buffer
+     *            source buffer
+     * @return value
+     */
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed length in encoded feature");
+    }
+
+    /**
+     * Write unsigned varint.
+     * 
+     * @param buffer
+     *            target buffer
+     * @param value
+     *            positive value
+     */
+    private static void writeVarInt(ByteBuffer buffer, int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    /**
+     * Size of unsigned varint.
+     * 
+     * @param value
+     *            positive value
+     * @return number of bytes
+     */
+    private static int varIntSize(int value) {
+        int size = 1;
+        int remaining = value >>> 7;
+        while (remaining != 0) {
+            size++;
+            remaining >>>= 7;
+        }
+        return size;
+    }
+
+    /**
+     * Feature with strings converted to UTF-8 once, to compute size before writing.
+     */
+    private static final class EncodedFeature {
+
+        /** flags. */
+        private final int flags;
+
+        /** uid, description, group, permissions, strategy class name and params, in write order. */
+        private final byte[][] strings;
+
+        /** number of permissions. */
+        private final int permissionCount;
+
+        /** number of strategy parameters. */
+        private final int paramCount;
+
+        /** total size in bytes. */
+        private final int size;
+
+        /**
+         * Convert feature.
+         * 
+         * @param feature
+         *            target feature
+         */
+        private EncodedFeature(Feature feature) {
+            if (feature == null) {
+                throw new IllegalArgumentException("Feature cannot be null nor empty");
+            }
+            Set<String> permissions = feature.getPermissions();
+            FlippingStrategy strategy = feature.getFlippingStrategy();
+            Map<String, String> initParams = null;
+            if (strategy != null) {
+                initParams = strategy.getInitParams();
+            }
+            this.permissionCount = (permissions == null) ? 0 : permissions.size();
+            this.paramCount = (initParams == null) ? 0 : initParams.size();
+
+            int f = feature.isEnable() ? FLAG_ENABLE : 0;
+            byte[][] values = new byte[3 + permissionCount + 1 + (paramCount * 2)][];
+            int idx = 0;
+            values[idx++] = feature.getUid().getBytes(UTF8);
+            if (feature.getDescription() != null) {
+                f |= FLAG_DESCRIPTION;
+                values[idx++] = feature.getDescription().getBytes(UTF8);
+            }
+            if (feature.getGroup() != null) {
+                f |= FLAG_GROUP;
+                values[idx++] = feature.getGroup().getBytes(UTF8);
+            }
+            if (permissions != null) {
+                for (String permission : permissions) {
+                    values[idx++] = permission.getBytes(UTF8);
+                }
+            }
+            if (strategy != null) {
+                f |= FLAG_STRATEGY;
+                values[idx++] = strategy.getClass().getName().getBytes(UTF8);
+                if (initParams != null) {
+                    for (Entry<String, String> param : initParams.entrySet()) {
+                        values[idx++] = param.getKey().getBytes(UTF8);
+                        values[idx++] = (param.getValue() == null ? "" : param.getValue()).getBytes(UTF8);
+                    }
+                }
+            }
+            this.flags = f;
+            this.strings = values;
+
+            int total = 2 + varIntSize(permissionCount);
+            if (strategy != null) {
+                total += varIntSize(paramCount);
+            }
+            for (int i = 0; i < idx; i++) {
+                total += varIntSize(values[i].length) + values[i].length;
+            }
+            this.size = total;
+        }
+
+        /**
+         * Write feature into buffer.
+         * 
+         * @param buffer
+         *            target buffer
+         */
+        private void writeTo(ByteBuffer buffer) {
+            buffer.put(VERSION_1);
+            buffer.put((byte) flags);
+            int idx = 0;
+            int stringCount = 1 + ((flags & FLAG_DESCRIPTION) != 0 ? 1 : 0) + ((flags & FLAG_GROUP) != 0 ? 1 : 0);
+            for (; idx < stringCount; idx++) {
+                writeBytes(buffer, strings[idx]);
+            }
+            writeVarInt(buffer, permissionCount);
+            for (int i = 0; i < permissionCount; i++) {
+                writeBytes(buffer, strings[idx++]);
+            }
+            if ((flags & FLAG_STRATEGY) != 0) {
+                writeBytes(buffer, strings[idx++]);
+                writeVarInt(buffer, paramCount);
+                for (int i = 0; i < paramCount * 2; i++) {
+                    writeBytes(buffer, strings[idx++]);
+                }
+            }
+        }
+
+        /**
+         * Write bytes prefixed by their length.
+         * 
+         * @param buffer
+         *            target buffer
+         * @param bytes
+         *            value
+         */
+        private static void writeBytes(ByteBuffer buffer, byte[] bytes) {
+            writeVarInt(buffer, bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+}
@@ -12,12 +12,12 @@ package org.ff4j.utils;
  * governing permissions and limitations under the License. #L%
  */
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.ff4j.core.Feature;
 import org.ff4j.core.FlippingStrategy;
@@ -25,13 +25,15 @@ import org.ff4j.core.FlippingStrategy;
 /**
  * Utility class to produce JSON.
  * 
+ * <p>
+ * Strings are rendered and parsed in a single pass through {@link FeatureJsonWriter} and {@link FeatureJsonReader}, use them
+ * directly to work on streams.
+ * </p>
+ * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
 public final class FeatureJsonMarshaller {
 
-    /** Null expression for JSON. */
-    private static final String NULL_JSON = "null";
-
     /**
      * Hide default constructor from utility class.
      */
@@ -45,23 +47,13 @@ public final class FeatureJsonMarshaller {
      * @return jsn output
      */
     public static String marshallFeature(Feature feature) {
-        if (feature == null) {
-            return NULL_JSON;
+        StringWriter out = new StringWriter();
+        try {
+            new FeatureJsonWriter(out).writeFeature(feature);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write feature into memory", e);
         }
-        StringBuilder jsonOutput = new StringBuilder("{");
-        jsonOutput.append(renderAttributeString("uid", feature.getUid()));
-        jsonOutput.append(",");
-        jsonOutput.append(renderAttributeBoolean("enable", feature.isEnable()));
-        jsonOutput.append(",");
-        jsonOutput.append(renderAttributeString("description", feature.getDescription()));
-        jsonOutput.append(",");
-        jsonOutput.append(renderAttributeString("group", feature.getGroup()));
-        // Authorizations
-        jsonOutput.append(renderAuthorizations(feature.getPermissions()));
-        // Flipping strategy
-        jsonOutput.append(renderFlippingStrategy(feature.getFlippingStrategy()));
-        jsonOutput.append("}");
-        return jsonOutput.toString();
+        return out.toString();
     }
 
     /**
@@ -72,28 +64,14 @@ public final class FeatureJsonMarshaller {
      * @return feature object
      */
     public static Feature unMarshallFeature(String str) {
-        // 1 - remove bracket
-        String expected = str.substring(1, str.length() - 1);
-        // 2 - isolated flipstrategy
-        String[] fs = expected.split(",\"flippingStrategy\":");
-        // 3 - isolated authorization
-        String[] auths = fs[0].split(",\"permissions\":");
-        // 4 - Parse
-        expected = auths[0];
-        Map<String, String> mapOfAttributes = parseJsonAttributes(expected.split(","));
-        assertField(mapOfAttributes, expected, "uid");
-        Feature targetFeature = new Feature(mapOfAttributes.get("uid"));
-        assertField(mapOfAttributes, expected, "enable");
-        targetFeature.setEnable(Boolean.valueOf(mapOfAttributes.get("enable")));
-        assertField(mapOfAttributes, expected, "description");
-        targetFeature.setDescription(mapOfAttributes.get("description"));
-        assertField(mapOfAttributes, expected, "group");
-        targetFeature.setGroup(mapOfAttributes.get("group"));
-        // Strategy
-        targetFeature.setFlippingStrategy(parseFlipStrategy(targetFeature.getUid(), fs[1]));
-        // Authorizations
-        targetFeature.setPermissions(parseAuthorizations(auths[1]));
-        return targetFeature;
+        if (str == null) {
+            throw new IllegalArgumentException("Cannot parse null expression as a feature");
+        }
+        try {
+            return new FeatureJsonReader(new StringReader(str)).readFeature();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read feature from memory", e);
+        }
     }
 
     /**
@@ -104,19 +82,17 @@ public final class FeatureJsonMarshaller {
      * @return jsn output
      */
     public static String marshallFeatureArray(Feature[] featureArrays) {
-        StringBuilder sb = new StringBuilder("[");
-        boolean first = true;
-        if (featureArrays != null && featureArrays.length > 0) {
-            for (Feature feature : featureArrays) {
-                if (!first) {
-                    sb.append(",");
-                }
-                sb.append(marshallFeature(feature));
-                first = false;
+        StringWriter out = new StringWriter();
+        try {
+            List<Feature> features = null;
+            if (featureArrays != null) {
+                features = Arrays.asList(featureArrays);
             }
+            new FeatureJsonWriter(out).writeFeatureArray(features);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write features into memory", e);
         }
-        sb.append("]");
-        return sb.toString();
+        return out.toString();
     }
 
     /**
@@ -127,53 +103,15 @@ public final class FeatureJsonMarshaller {
      * @return json output
      */
     public static Feature[] unMarshallFeatureArray(String fsa) {
-        if (!fsa.startsWith("[") || !fsa.endsWith("]")) {
-            throw new IllegalArgumentException("Invalid input '" + fsa + "' should be [...]");
-        }
-        String[] features = fsa.substring(1, fsa.length() - 1).split("\\{\"uid\":");
-
-        Feature[] result = new Feature[features.length - 1];
-        for(int idx = 1 ;idx < features.length;idx++) {
-            String featX = features[idx];
-            // if not last of list, remove comma separator
-            if (featX.endsWith(",")) {
-                featX = featX.substring(0, featX.length() - 1);
-            }
-            result[idx - 1] = unMarshallFeature("{\"uid\":" + featX);
-        }
-        return result;
-    }
-
-    /**
-     * @param params
-     * @param initString
-     * @param paramName
-     */
-    private static void assertField(Map<String, String> params, String initString, String paramName) {
-        if (!params.containsKey(paramName)) {
-            throw new IllegalArgumentException(String.format("Cannot parse %s '%s' is expected but not found", initString,
-                    paramName));
+        if (fsa == null) {
+            throw new IllegalArgumentException("Cannot parse null expression as a feature array");
         }
-    }
-
-    /**
-     * Extract value from "name":"value" expressions (JSON).
-     * 
-     * @return value
-     */
-    private static Map<String, String> parseJsonAttributes(String[] exprs) {
-        Map<String, String> map = new LinkedHashMap<String, String>();
-        if (exprs != null) {
-            for (String exp : exprs) {
-                String name = exp.substring(0, exp.indexOf(":")).replaceAll("\"", "");
-                String val = exp.substring(exp.indexOf(":") + 1).replaceAll("\"", "");
-                if ("null".equals(val)) {
-                    val = null;
-                }
-                map.put(name, val);
-            }
+        try {
+            List<Feature> features = new FeatureJsonReader(new StringReader(fsa)).readFeatureArray();
+            return features.toArray(new Feature[features.size()]);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read features from memory", e);
         }
-        return map;
     }
 
     /**
@@ -186,14 +124,29 @@ public final class FeatureJsonMarshaller {
      * @return flip strategy as an object
      */
     public static FlippingStrategy parseFlipStrategy(String featureName, String str) {
-        if ("null".equals(str)) {
+        if (str == null) {
             return null;
         }
+        try {
+            return new FeatureJsonReader(new StringReader(str)).readFlippingStrategy(featureName);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read flipping strategy from memory", e);
+        }
+    }
 
+    /**
+     * Instanciate and initialize flipping strategy from its class name.
+     * 
+     * @param featureName
+     *            current feature name
+     * @param classType
+     *            class name of the strategy
+     * @param initParams
+     *            initial parameters of the strategy
+     * @return flip strategy as an object
+     */
+    public static FlippingStrategy instanceFlippingStrategy(String featureName, String classType, Map<String, String> initParams) {
         FlippingStrategy strategy = null;
-        String expected = str.substring(1, str.length() - 1);
-        String classType = expected.substring(expected.lastIndexOf(":") + 1).replaceAll("\"", "");
-
         try {
             strategy = (FlippingStrategy) Class.forName(classType).newInstance();
         } catch (InstantiationException e) {
@@ -203,28 +156,10 @@ public final class FeatureJsonMarshaller {
         } catch (ClassNotFoundException e) {
             throw new IllegalArgumentException(classType + " has not been found within classpath, check syntax", e);
         }
-
-        String initParams = expected.substring(14, expected.lastIndexOf(",") - 1);
-        strategy.init(featureName, parseJsonAttributes(initParams.split(",")));
+        strategy.init(featureName, initParams);
         return strategy;
     }
 
-    /**
-     * Parse Authorization if exist
-     * 
-     * @param expr
-     *            authorization expression
-     * @return set of authorizations
-     */
-    private static Set<String> parseAuthorizations(String expr) {
-        Set<String> auths = new TreeSet<String>();
-        String exprTmp = expr.substring(1, expr.length() - 1).replaceAll("\"", "");
-        if (!"".equals(exprTmp)) {
-            auths.addAll(Arrays.asList(exprTmp.split(",")));
-        }
-        return auths;
-    }
-
     /**
      * Render {@link FlippingStrategy} as a Json string.
      * 
@@ -233,99 +168,14 @@ public final class FeatureJsonMarshaller {
      * @return json string
      */
     public static String renderFlippingStrategy(FlippingStrategy strat) {
-        StringBuilder jsonOutput = new StringBuilder(",\"flippingStrategy\":");
-        if (strat == null) {
-            jsonOutput.append(NULL_JSON);
-        } else {
-            jsonOutput.append("{\"initParams\":{");
-            Map < String , String> iparams = strat.getInitParams();
-            if (iparams != null && !iparams.isEmpty()) {
-                boolean first = true;
-                for (Entry<String, String> param : iparams.entrySet()) {
-                    if (!first) {
-                        jsonOutput.append(",");
-                    }
-                    jsonOutput.append("\"" + param.getKey() + "\":\"" + param.getValue() + "\"");
-                    first = false;
-                }
-            }
-            jsonOutput.append("},\"classType\":\"");
-            jsonOutput.append(strat.getClass().getCanonicalName());
-            jsonOutput.append("\"}");
-        }
-        return jsonOutput.toString();
-    }
-
-    /**
-     * Render authorizations Set as a Json string.
-     * 
-     * @param auths
-     *            authorizations set
-     * @return json string
-     */
-    private static String renderAuthorizations(Set<String> auths) {
-        StringBuilder jsonOutput = new StringBuilder(",\"permissions\":");
-        if (auths == null) {
-            jsonOutput.append(NULL_JSON);
-        } else {
-            // Even if empty list returning squared brackets
-            jsonOutput.append("[");
-            if (!auths.isEmpty()) {
-                boolean first = true;
-                for (String auth : auths) {
-                    if (first) {
-                        first = false;
-                    } else {
-                        jsonOutput.append(",");
-                    }
-                    jsonOutput.append("\"");
-                    jsonOutput.append(auth);
-                    jsonOutput.append("\"");
-                }
-            }
-            jsonOutput.append("]");
-        }
-        return jsonOutput.toString();
-    }
-
-    /**
-     * Render Sample String attribute.
-     * 
-     * @param name
-     *            attribute name
-     * @param value
-     *            attribute value
-     * @return json expression for this attribute
-     */
-    private static String renderAttributeString(String name, String value) {
-        StringBuilder jsonOutput = new StringBuilder("\"");
-        jsonOutput.append(name);
-        jsonOutput.append("\":");
-        if (value == null) {
-            jsonOutput.append(NULL_JSON);
-        } else {
-            jsonOutput.append("\"");
-            jsonOutput.append(value);
-            jsonOutput.append("\"");
+        StringWriter out = new StringWriter();
+        out.write(",\"flippingStrategy\":");
+        try {
+            new FeatureJsonWriter(out).writeFlippingStrategy(strat);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write flipping strategy into memory", e);
         }
-        return jsonOutput.toString();
-    }
-
-    /**
-     * Render Sample String attribute.
-     * 
-     * @param name
-     *            attribute name
-     * @param value
-     *            attribute value
-     * @return json expression for this attribute
-     */
-    private static String renderAttributeBoolean(String name, boolean value) {
-        StringBuilder jsonOutput = new StringBuilder("\"");
-        jsonOutput.append(name);
-        jsonOutput.append("\":");
-        jsonOutput.append(value);
-        return jsonOutput.toString();
+        return out.toString();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,580 @@
+package org.ff4j.utils;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.ff4j.core.Feature;
+import org.ff4j.core.FlippingStrategy;
+
+/**
+ * Read features as JSON directly from a {@link Reader} in a single pass.
+ * 
+ * <p>
+ * Format is the one of {@link FeatureJsonMarshaller}, attributes can be in any order and unknown attributes are skipped. Arrays
+ * can be consumed feature per feature with {@link #beginArray()}, {@link #hasNext()}, {@link #nextFeature()} and
+ * {@link #endArray()} to avoid loading the whole store in memory. Malformed input raises {@link IllegalArgumentException}.
+ * </p>
+ * 
+ * <p>
+ * The reader is not thread-safe and does not close the underlying {@link Reader}.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FeatureJsonReader {
+
+    /** Size of read buffer. */
+    private static final int BUFFER_SIZE = 4096;
+
+    /** Source. */
+    private final Reader in;
+
+    /** Read buffer. */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /** Position in buffer. */
+    private int pos = 0;
+
+    /** Number of chars in buffer. */
+    private int limit = 0;
+
+    /** Number of chars consumed before buffer, for error messages. */
+    private long offset = 0;
+
+    /** Reused to build strings. */
+    private final StringBuilder sb = new StringBuilder();
+
+    /** Next element of array is the first one. */
+    private boolean firstInArray = true;
+
+    /**
+     * Constructor with source reader.
+     * 
+     * @param in
+     *            source reader
+     */
+    public FeatureJsonReader(Reader in) {
+        if (in == null) {
+            throw new IllegalArgumentException("Source reader cannot be null");
+        }
+        this.in = in;
+    }
+
+    /**
+     * Read a whole array of features.
+     * 
+     * @return features
+     * @throws IOException
+     *             error when reading
+     */
+    public List<Feature> readFeatureArray() throws IOException {
+        List<Feature> features = new ArrayList<Feature>();
+        beginArray();
+        while (hasNext()) {
+            features.add(nextFeature());
+        }
+        endArray();
+        return features;
+    }
+
+    /**
+     * Consume start of array.
+     * 
+     * @throws IOException
+     *             error when reading
+     */
+    public void beginArray() throws IOException {
+        expect('[');
+        firstInArray = true;
+    }
+
+    /**
+     * Check if array has another element.
+     * 
+     * @return if another feature can be read
+     * @throws IOException
+     *             error when reading
+     */
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == ']') {
+            return false;
+        }
+        if (!firstInArray) {
+            expect(',');
+        }
+        return true;
+    }
+
+    /**
+     * Read next feature of array.
+     * 
+     * @return feature
+     * @throws IOException
+     *             error when reading
+     */
+    public Feature nextFeature() throws IOException {
+        firstInArray = false;
+        return readFeature();
+    }
+
+    /**
+     * Consume end of array.
+     * 
+     * @throws IOException
+     *             error when reading
+     */
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    /**
+     * Read a single feature.
+     * 
+     * @return feature, null if value is 'null'
+     * @throws IOException
+     *             error when reading
+     */
+    public Feature readFeature() throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        expect('{');
+        String uid = null;
+        boolean enable = false;
+        String description = null;
+        String group = null;
+        Set<String> permissions = new TreeSet<String>();
+        String strategyClass = null;
+        Map<String, String> initParams = null;
+        if (peek() != '}') {
+            do {
+                String name = readString();
+                expect(':');
+                if ("uid".equals(name)) {
+                    uid = readNullableString();
+                } else if ("enable".equals(name)) {
+                    enable = readBoolean();
+                } else if ("description".equals(name)) {
+                    description = readNullableString();
+                } else if ("group".equals(name)) {
+                    group = readNullableString();
+                } else if ("permissions".equals(name)) {
+                    permissions = readPermissions();
+                } else if ("flippingStrategy".equals(name)) {
+                    if (!consumeNull()) {
+                        initParams = new LinkedHashMap<String, String>();
+                        strategyClass = readStrategy(initParams);
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (consumeIf(','));
+        }
+        expect('}');
+        if (uid == null) {
+            throw new IllegalArgumentException("Cannot parse feature 'uid' is expected but not found");
+        }
+        Feature feature = new Feature(uid, enable, description);
+        feature.setGroup(group);
+        feature.setPermissions(permissions);
+        if (strategyClass != null) {
+            feature.setFlippingStrategy(FeatureJsonMarshaller.instanceFlippingStrategy(uid, strategyClass, initParams));
+        }
+        return feature;
+    }
+
+    /**
+     * Read a flipping strategy.
+     * 
+     * @param featureName
+     *            current feature name
+     * @return strategy or null if value is 'null'
+     * @throws IOException
+     *             error when reading
+     */
+    public FlippingStrategy readFlippingStrategy(String featureName) throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        Map<String, String> initParams = new LinkedHashMap<String, String>();
+        String strategyClass = readStrategy(initParams);
+        return FeatureJsonMarshaller.instanceFlippingStrategy(featureName, strategyClass, initParams);
+    }
+
+    /**
+     * Read strategy object.
+     * 
+     * @param initParams
+     *            filled with init parameters
+     * @return class name of strategy
+     * @throws IOException
+     *             error when reading
+     */
+    private String readStrategy(Map<String, String> initParams) throws IOException {
+        String strategyClass = null;
+        expect('{');
+        if (peek() != '}') {
+            do {
+                String name = readString();
+                expect(':');
+                if ("classType".equals(name)) {
+                    strategyClass = readNullableString();
+                } else if ("initParams".equals(name)) {
+                    if (!consumeNull()) {
+                        readStringMap(initParams);
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (consumeIf(','));
+        }
+        expect('}');
+        if (strategyClass == null) {
+            throw new IllegalArgumentException("Cannot parse flipping strategy 'classType' is expected but not found");
+        }
+        return strategyClass;
+    }
+
+    /**
+     * Read object of string values.
+     * 
+     * @param target
+     *            map to fill
+     * @throws IOException
+     *             error when reading
+     */
+    private void readStringMap(Map<String, String> target) throws IOException {
+        expect('{');
+        if (peek() != '}') {
+            do {
+                String name = readString();
+                expect(':');
+                target.put(name, readNullableString());
+            } while (consumeIf(','));
+        }
+        expect('}');
+    }
+
+    /**
+     * Read permissions.
+     * 
+     * @return set of permissions
+     * @throws IOException
+     *             error when reading
+     */
+    private Set<String> readPermissions() throws IOException {
+        Set<String> permissions = new TreeSet<String>();
+        if (consumeNull()) {
+            return permissions;
+        }
+        expect('[');
+        if (peek() != ']') {
+            do {
+                permissions.add(readString());
+            } while (consumeIf(','));
+        }
+        expect(']');
+        return permissions;
+    }
+
+    /**
+     * Skip any JSON value.
+     * 
+     * @throws IOException
+     *             error when reading
+     */
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{') {
+            expect('{');
+            if (peek() != '}') {
+                do {
+                    readString();
+                    expect(':');
+                    skipValue();
+                } while (consumeIf(','));
+            }
+            expect('}');
+        } else if (c == '[') {
+            expect('[');
+            if (peek() != ']') {
+                do {
+                    skipValue();
+                } while (consumeIf(','));
+            }
+            expect(']');
+        } else {
+            // literal : number, true, false, null
+            while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                pos++;
+                c = fill() ? buffer[pos] : -1;
+            }
+        }
+    }
+
+    /**
+     * Read boolean, also accepted as string.
+     * 
+     * @return boolean value
+     * @throws IOException
+     *             error when reading
+     */
+    private boolean readBoolean() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            return Boolean.valueOf(readString());
+        }
+        if (consumeLiteral("true")) {
+            return true;
+        }
+        if (consumeLiteral("false")) {
+            return false;
+        }
+        throw error("boolean expected");
+    }
+
+    /**
+     * Read string or null.
+     * 
+     * @return string value or null
+     * @throws IOException
+     *             error when reading
+     */
+    private String readNullableString() throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        return readString();
+    }
+
+    /**
+     * Read and unescape string.
+     * 
+     * @return string value
+     * @throws IOException
+     *             error when reading
+     */
+    private String readString() throws IOException {
+        expect('"');
+        sb.setLength(0);
+        while (true) {
+            if (!fill()) {
+                throw error("unterminated string");
+            }
+            // Copy chunk without escape in one call
+            int start = pos;
+            while (pos < limit && buffer[pos] != '"' && buffer[pos] != '\\') {
+                pos++;
+            }
+            sb.append(buffer, start, pos - start);
+            if (pos == limit) {
+                continue;
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return sb.toString();
+            }
+            sb.append(readEscape());
+        }
+    }
+
+    /**
+     * Read escaped char after backslash.
+     * 
+     * @return unescaped char
+     * @throws IOException
+     *             error when reading
+     */
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+            return (char) c;
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'u':
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit < 0) {
+                    throw error("invalid unicode escape");
+                }
+                value = (value << 4) | digit;
+            }
+            return (char) value;
+        default:
+            throw error("invalid escape");
+        }
+    }
+
+    /**
+     * Consume 'null' if present.
+     * 
+     * @return if null has been read
+     * @throws IOException
+     *             error when reading
+     */
+    private boolean consumeNull() throws IOException {
+        return peek() == 'n' && consumeLiteral("null");
+    }
+
+    /**
+     * Consume literal.
+     * 
+     * @param literal
+     *            expected literal
+     * @return true if read, false if first char does not match
+     * @throws IOException
+     *             error when reading
+     */
+    private boolean consumeLiteral(String literal) throws IOException {
+        if (peek() != literal.charAt(0)) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("'" + literal + "' expected");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consume char if next non blank char.
+     * 
+     * @param expected
+     *            expected char
+     * @return if consumed
+     * @throws IOException
+     *             error when reading
+     */
+    private boolean consumeIf(char expected) throws IOException {
+        if (peek() == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume expected char, blanks are skipped.
+     * 
+     * @param expected
+     *            expected char
+     * @throws IOException
+     *             error when reading
+     */
+    private void expect(char expected) throws IOException {
+        if (!consumeIf(expected)) {
+            throw error("'" + expected + "' expected");
+        }
+    }
+
+    /**
+     * Next non blank char without consuming it.
+     * 
+     * @return next char or -1 at end of input
+     * @throws IOException
+     *             error when reading
+     */
+    private int peek() throws IOException {
+        while (fill()) {
+            char c = buffer[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    /**
+     * Read next char.
+     * 
+     * @return next char
+     * @throws IOException
+     *             error when reading
+     */
+    private int read() throws IOException {
+        if (!fill()) {
+            throw error("unexpected end of input");
+        }
+        return buffer[pos++];
+    }
+
+    /**
+     * Ensure at least a char is available in buffer.
+     * 
+     * @return false at end of input
+     * @throws IOException
+     *             error when reading
+     */
+    private boolean fill() throws IOException {
+        if (pos < limit) {
+            return true;
+        }
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        int n = in.read(buffer, 0, buffer.length);
+        while (n == 0) {
+            n = in.read(buffer, 0, buffer.length);
+        }
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Build parsing error.
+     * 
+     * @param message
+     *            error message
+     * @return exception to raise
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Cannot parse feature JSON at position " + (offset + pos) + " : " + message);
+    }
+
+}
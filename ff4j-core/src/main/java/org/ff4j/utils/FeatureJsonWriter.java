@@ -0,0 +1,281 @@
+package org.ff4j.utils;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.ff4j.core.Feature;
+import org.ff4j.core.FeatureVisitor;
+import org.ff4j.core.FlippingStrategy;
+
+/**
+ * Write features as JSON directly to a {@link Writer}, without intermediate strings.
+ * 
+ * <p>
+ * Format is the one of {@link FeatureJsonMarshaller} : arrays are written with {@link #writeStartArray()}, a call to
+ * {@link #writeFeature(Feature)} per feature and {@link #writeEndArray()}. Strings are escaped.
+ * </p>
+ * 
+ * <p>
+ * The writer is not thread-safe and does not close the underlying {@link Writer}.
+ * </p>
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FeatureJsonWriter implements FeatureVisitor {
+
+    /** Null expression for JSON. */
+    private static final String NULL_JSON = "null";
+
+    /** Hexadecimal digits for unicode escapes. */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Target writer. */
+    private final Writer out;
+
+    /** Inside an array. */
+    private boolean inArray = false;
+
+    /** Next feature of the array is the first one. */
+    private boolean firstInArray = true;
+
+    /**
+     * Constructor with target writer.
+     * 
+     * @param out
+     *            target writer
+     */
+    public FeatureJsonWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Target writer cannot be null");
+        }
+        this.out = out;
+    }
+
+    /**
+     * Start an array of features.
+     * 
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeStartArray() throws IOException {
+        out.write('[');
+        inArray = true;
+        firstInArray = true;
+    }
+
+    /**
+     * End current array of features.
+     * 
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeEndArray() throws IOException {
+        out.write(']');
+        inArray = false;
+    }
+
+    /**
+     * Write all features as an array.
+     * 
+     * @param features
+     *            features to write
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeFeatureArray(Iterable<Feature> features) throws IOException {
+        writeStartArray();
+        if (features != null) {
+            for (Feature feature : features) {
+                writeFeature(feature);
+            }
+        }
+        writeEndArray();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void visit(Feature feature) throws IOException {
+        writeFeature(feature);
+    }
+
+    /**
+     * Write a feature, separator is added if inside an array.
+     * 
+     * @param feature
+     *            target feature
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeFeature(Feature feature) throws IOException {
+        if (inArray) {
+            if (!firstInArray) {
+                out.write(',');
+            }
+            firstInArray = false;
+        }
+        if (feature == null) {
+            out.write(NULL_JSON);
+            return;
+        }
+        out.write("{\"uid\":");
+        writeString(feature.getUid());
+        out.write(",\"enable\":");
+        out.write(String.valueOf(feature.isEnable()));
+        out.write(",\"description\":");
+        writeString(feature.getDescription());
+        out.write(",\"group\":");
+        writeString(feature.getGroup());
+        out.write(",\"permissions\":");
+        writePermissions(feature.getPermissions());
+        out.write(",\"flippingStrategy\":");
+        writeFlippingStrategy(feature.getFlippingStrategy());
+        out.write('}');
+    }
+
+    /**
+     * Write permissions as an array of strings.
+     * 
+     * @param permissions
+     *            permissions of feature
+     * @throws IOException
+     *             error when writing
+     */
+    private void writePermissions(Set<String> permissions) throws IOException {
+        if (permissions == null) {
+            out.write(NULL_JSON);
+            return;
+        }
+        out.write('[');
+        boolean first = true;
+        for (String permission : permissions) {
+            if (!first) {
+                out.write(',');
+            }
+            writeString(permission);
+            first = false;
+        }
+        out.write(']');
+    }
+
+    /**
+     * Write flipping strategy with its init parameters and class.
+     * 
+     * @param strategy
+     *            flipping strategy
+     * @throws IOException
+     *             error when writing
+     */
+    public void writeFlippingStrategy(FlippingStrategy strategy) throws IOException {
+        if (strategy == null) {
+            out.write(NULL_JSON);
+            return;
+        }
+        out.write("{\"initParams\":{");
+        Map<String, String> initParams = strategy.getInitParams();
+        if (initParams != null) {
+            boolean first = true;
+            for (Entry<String, String> param : initParams.entrySet()) {
+                if (!first) {
+                    out.write(',');
+                }
+                writeString(param.getKey());
+                out.write(':');
+                writeString(param.getValue());
+                first = false;
+            }
+        }
+        out.write("},\"classType\":");
+        writeString(strategy.getClass().getCanonicalName());
+        out.write('}');
+    }
+
+    /**
+     * Write escaped string or null.
+     * 
+     * @param value
+     *            string value
+     * @throws IOException
+     *             error when writing
+     */
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.write(NULL_JSON);
+            return;
+        }
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape = null;
+            switch (c) {
+            case '"':
+                escape = "\\\"";
+                break;
+            case '\\':
+                escape = "\\\\";
+                break;
+            case '\n':
+                escape = "\\n";
+                break;
+            case '\r':
+                escape = "\\r";
+                break;
+            case '\t':
+                escape = "\\t";
+                break;
+            case '\b':
+                escape = "\\b";
+                break;
+            case '\f':
+                escape = "\\f";
+                break;
+            default:
+                if (c < 0x20) {
+                    escape = "\\u00" + HEX[c >> 4] + HEX[c & 0xF];
+                }
+            }
+            if (escape != null) {
+                out.write(value, start, i - start);
+                out.write(escape);
+                start = i + 1;
+            }
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+
+    /**
+     * Flush underlying writer.
+     * 
+     * @throws IOException
+     *             error when flushing
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+}
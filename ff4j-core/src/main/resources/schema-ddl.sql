@@ -6,12 +6,47 @@ CREATE TABLE FF4J_FEATURES (
   "STRATEGY"		VARCHAR(255),
   "EXPRESSION"	    VARCHAR(255),
   "GROUPNAME"		VARCHAR(255),
+  "VERSION"		BIGINT DEFAULT 0 NOT NULL,
   PRIMARY KEY("FEAT_UID")
 );
 
+-- Counter of mutations, single row (only used by versioned stores)
+CREATE TABLE FF4J_FEATURES_VERSION (
+  "VERSION"      BIGINT NOT NULL
+);
+INSERT INTO FF4J_FEATURES_VERSION("VERSION") VALUES(0);
+
+-- Changes are polled by version
+CREATE INDEX FF4J_FEATURES_VERSION_IDX ON FF4J_FEATURES("VERSION");
+
+-- Features deleted with version of deletion (only used by versioned stores)
+-- Rows are kept until purged with VersionedFeatureStore.purgeDeletedBefore(version)
+CREATE TABLE FF4J_FEATURES_DELETED (
+  "FEAT_UID"     VARCHAR(100),
+  "VERSION"      BIGINT NOT NULL,
+  PRIMARY KEY("FEAT_UID")
+);
+CREATE INDEX FF4J_FEATURES_DELETED_VERSION_IDX ON FF4J_FEATURES_DELETED("VERSION");
+
 -- Roles to store ACL, FK to main table
 CREATE TABLE FF4J_ROLES (
   "FEAT_UID"     VARCHAR(50) REFERENCES FF4J_FEATURES("FEAT_UID"),
   "ROLE_NAME"    VARCHAR(50),
   PRIMARY KEY("FEAT_UID", "ROLE_NAME")
 );
+
+-- Audit events
+CREATE TABLE FF4J_AUDIT (
+  "EVT_TIME"     BIGINT NOT NULL,
+  "EVT_TYPE"     VARCHAR(30) NOT NULL,
+  "FEAT_UID"     VARCHAR(100) NOT NULL,
+  "EVT_COUNT"    INTEGER NOT NULL
+);
+
+-- Hits per feature and per minute, maintained with events
+CREATE TABLE FF4J_AUDIT_HITS (
+  "FEAT_UID"     VARCHAR(100) NOT NULL,
+  "EVT_MINUTE"   BIGINT NOT NULL,
+  "HITS"         BIGINT NOT NULL,
+  PRIMARY KEY("FEAT_UID", "EVT_MINUTE")
+);
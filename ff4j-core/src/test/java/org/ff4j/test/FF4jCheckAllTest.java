@@ -0,0 +1,124 @@
+package org.ff4j.test;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.ff4j.FF4j;
+import org.ff4j.audit.Event;
+import org.ff4j.audit.EventPublisher;
+import org.ff4j.core.FeatureStore;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.security.AuthorizationsManager;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test batch evaluation through {@link FF4j#checkAll(java.util.Collection, org.ff4j.core.FlippingExecutionContext)}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FF4jCheckAllTest extends AbstractFf4jTest {
+
+    /** {@inheritDoc} */
+    @Override
+    public FF4j initFF4j() {
+        return new FF4j("ff4j.xml");
+    }
+
+    @Test
+    public void testCheckAllSameAsCheck() {
+        List<String> ids = Arrays.asList(F1, F2, F3, F4);
+        Map<String, Boolean> results = ff4j.checkAll(ids, null);
+        Assert.assertEquals(ids, new ArrayList<String>(results.keySet()));
+        for (String id : ids) {
+            Assert.assertEquals(ff4j.check(id), results.get(id));
+        }
+        // Same results through snapshot
+        Assert.assertEquals(results, ff4j.snapshot(true).checkAll(ids, null));
+    }
+
+    @Test
+    public void testCheckAllEmpty() {
+        Assert.assertTrue(ff4j.checkAll(new ArrayList<String>(), null).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPermissionsResolvedOnceAndSingleAuditBatch() {
+        AuthorizationsManager authManager = mock(AuthorizationsManager.class);
+        when(authManager.getCurrentUserPermissions()).thenReturn(new HashSet<String>(Arrays.asList(ROLE_ADMIN)));
+        EventPublisher publisher = mock(EventPublisher.class);
+        ff4j.setAuthorizationsManager(authManager);
+        ff4j.setEventPublisher(publisher);
+
+        Map<String, Boolean> results = ff4j.checkAll(Arrays.asList(F1, F2, F3, F4), null);
+        Assert.assertFalse(results.get(F1));
+        Assert.assertFalse(results.get(F2));
+
+        verify(authManager, times(1)).getCurrentUserPermissions();
+        verify(publisher, times(1)).publish(anyListOf(Event.class));
+        verify(publisher, never()).publish(anyString(), anyBoolean());
+    }
+
+    @Test
+    public void testOnlyRequestedFeaturesRead() {
+        FeatureStore store = spy(new InMemoryFeatureStore("ff4j.xml"));
+        ff4j.setStore(store);
+        ff4j.checkAll(Arrays.asList(F1, F2, F1), null);
+        verify(store, never()).readAll();
+        verify(store, times(1)).read(F1);
+        verify(store, times(1)).read(F2);
+    }
+
+    @Test(expected = FeatureNotFoundException.class)
+    public void testCheckAllInvalidFeature() {
+        ff4j.checkAll(Arrays.asList(F1, F_DOESNOTEXIST), null);
+    }
+
+    @Test
+    public void testCheckAllAutocreate() {
+        ff4j.setAutocreate(true);
+        Assert.assertFalse(ff4j.checkAll(Arrays.asList(F1, F_DOESNOTEXIST), null).get(F_DOESNOTEXIST));
+        Assert.assertTrue(ff4j.exist(F_DOESNOTEXIST));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckAllNull() {
+        ff4j.checkAll(null, null);
+    }
+
+}
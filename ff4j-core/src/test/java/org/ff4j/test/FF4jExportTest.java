@@ -0,0 +1,136 @@
+package org.ff4j.test;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.ff4j.FF4j;
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.InMemoryCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.core.FeatureXmlParser;
+import org.ff4j.store.JdbcFeatureStore;
+import org.ff4j.utils.FeatureJsonReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Streaming export of features to {@link java.io.OutputStream} and {@link java.io.Writer}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FF4jExportTest {
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Jdbc store. */
+    private JdbcFeatureStore jdbcStore;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql")
+                .addScript("classpath:ff-store.sql").build();
+        jdbcStore = new JdbcFeatureStore(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testExportXmlFromMemoryStore() throws Exception {
+        FF4j ff4j = new FF4j("ff4j.xml");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ff4j.exportFeatures(out);
+        Map<String, Feature> features = new FeatureXmlParser().parseConfigurationFile(new ByteArrayInputStream(out.toByteArray()));
+        assertSameFeatures(ff4j.getStore().readAll(), features);
+    }
+
+    @Test
+    public void testExportXmlFromJdbcCursor() throws Exception {
+        FF4j ff4j = new FF4j();
+        ff4j.setStore(jdbcStore);
+        StringWriter out = new StringWriter();
+        ff4j.exportFeatures(out);
+        // Sorted by group : a single tag per group
+        Assert.assertEquals(1, out.toString().split("feature-group name=\"GRP1\"").length - 1);
+        Map<String, Feature> features = new FeatureXmlParser().parseConfigurationFile(new ByteArrayInputStream(out.toString()
+                .getBytes("UTF-8")));
+        assertSameFeatures(jdbcStore.readAll(), features);
+    }
+
+    @Test
+    public void testExportJsonFromJdbcCursorThroughCache() throws Exception {
+        FF4j ff4j = new FF4j();
+        ff4j.setStore(new FeatureStoreCacheProxy(jdbcStore, new InMemoryCacheManager()));
+        StringWriter out = new StringWriter();
+        ff4j.exportFeaturesAsJson(out);
+        List<Feature> features = new FeatureJsonReader(new StringReader(out.toString())).readFeatureArray();
+        Map<String, Feature> expected = jdbcStore.readAll();
+        Assert.assertEquals(expected.size(), features.size());
+        for (Feature feature : features) {
+            Assert.assertEquals(expected.get(feature.getUid()).getPermissions(), feature.getPermissions());
+        }
+    }
+
+    @Test
+    public void testExportEscapedAttributes() throws Exception {
+        FF4j ff4j = new FF4j();
+        ff4j.getStore().create(new Feature("f<1>", true, "a \"quoted\" & <tagged> description", "g&1"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ff4j.exportFeatures(out);
+        Map<String, Feature> features = new FeatureXmlParser().parseConfigurationFile(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals("a \"quoted\" & <tagged> description", features.get("f<1>").getDescription());
+        Assert.assertEquals("g&1", features.get("f<1>").getGroup());
+    }
+
+    /**
+     * Compare exported features with source.
+     */
+    private void assertSameFeatures(Map<String, Feature> expected, Map<String, Feature> actual) {
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        for (Feature feature : expected.values()) {
+            Feature exported = actual.get(feature.getUid());
+            Assert.assertEquals(feature.isEnable(), exported.isEnable());
+            Assert.assertEquals(feature.getDescription(), exported.getDescription());
+            Assert.assertEquals(feature.getPermissions(), exported.getPermissions());
+            Assert.assertEquals(feature.getFlippingStrategy() == null, exported.getFlippingStrategy() == null);
+            String group = feature.getGroup();
+            if (group != null && group.isEmpty()) {
+                group = null;
+            }
+            Assert.assertEquals(group, exported.getGroup());
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.ff4j.test;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.ff4j.FF4j;
+import org.ff4j.FeatureSnapshotEngine;
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test evaluation of features through {@link FeatureSnapshotEngine}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FF4jSnapshotTest extends AbstractFf4jTest {
+
+    /** {@inheritDoc} */
+    @Override
+    public FF4j initFF4j() {
+        return new FF4j("ff4j.xml").snapshot(true);
+    }
+
+    @Test
+    public void testSnapshotLoaded() {
+        FeatureSnapshotEngine engine = ff4j.getSnapshotEngine();
+        Assert.assertNotNull(engine);
+        Assert.assertEquals(EXPECTED_FEATURES_NUMBERS, engine.getSnapshot().size());
+        Assert.assertTrue(ff4j.check(F1));
+        Assert.assertFalse(ff4j.check(F2));
+    }
+
+    @Test
+    public void testSnapshotDisabledByDefault() {
+        Assert.assertNull(new FF4j("ff4j.xml").getSnapshotEngine());
+    }
+
+    @Test
+    public void testEnableDisablePublishNewVersion() {
+        long version = ff4j.getSnapshotEngine().getSnapshot().getVersion();
+        ff4j.enable(F2);
+        Assert.assertTrue(ff4j.check(F2));
+        ff4j.disable(F2);
+        Assert.assertFalse(ff4j.check(F2));
+        Assert.assertEquals(version + 2, ff4j.getSnapshotEngine().getSnapshot().getVersion());
+    }
+
+    @Test
+    public void testSnapshotIsolatedFromStore() {
+        // Direct modification of store is not seen until reload
+        ff4j.getStore().enable(F2);
+        Assert.assertFalse(ff4j.check(F2));
+        ff4j.getSnapshotEngine().reload();
+        Assert.assertTrue(ff4j.check(F2));
+    }
+
+    @Test
+    public void testGroupOperations() {
+        ff4j.enableGroup(G1);
+        Assert.assertTrue(ff4j.getSnapshotEngine().read(F3).isEnable());
+        ff4j.disableGroup(G1);
+        Assert.assertFalse(ff4j.check(F3));
+        Assert.assertFalse(ff4j.check(F4));
+    }
+
+    @Test
+    public void testCreateUpdateDelete() {
+        ff4j.create(new Feature(FEATURE_NEW, true));
+        Assert.assertTrue(ff4j.check(FEATURE_NEW));
+        Feature fNew = new Feature(FEATURE_NEW, false, "updated");
+        ff4j.update(fNew);
+        Assert.assertFalse(ff4j.check(FEATURE_NEW));
+        Assert.assertEquals("updated", ff4j.getSnapshotEngine().read(FEATURE_NEW).getDescription());
+        ff4j.delete(FEATURE_NEW);
+        Assert.assertNull(ff4j.getSnapshotEngine().read(FEATURE_NEW));
+    }
+
+    @Test
+    public void testFeatureCreatedInStoreIsFound() {
+        ff4j.getStore().create(new Feature(FEATURE_NEW, true));
+        Assert.assertTrue(ff4j.check(FEATURE_NEW));
+        Assert.assertNotNull(ff4j.getSnapshotEngine().read(FEATURE_NEW));
+    }
+
+    @Test(expected = FeatureNotFoundException.class)
+    public void testCheckInvalidFeature() {
+        ff4j.check(F_DOESNOTEXIST);
+    }
+
+    @Test
+    public void testMissNotPublished() {
+        long version = ff4j.getSnapshotEngine().getSnapshot().getVersion();
+        try {
+            ff4j.check(F_DOESNOTEXIST);
+            Assert.fail();
+        } catch (FeatureNotFoundException fnfe) {
+            // expected
+        }
+        Assert.assertEquals(version, ff4j.getSnapshotEngine().getSnapshot().getVersion());
+    }
+
+    @Test
+    public void testAutoCreate() {
+        long version = ff4j.getSnapshotEngine().getSnapshot().getVersion();
+        ff4j.autoCreate(true);
+        Assert.assertFalse(ff4j.check(F_DOESNOTEXIST));
+        Assert.assertTrue(ff4j.getSnapshotEngine().getSnapshot().contains(F_DOESNOTEXIST));
+        // Published once on creation
+        Assert.assertEquals(version + 1, ff4j.getSnapshotEngine().getSnapshot().getVersion());
+    }
+
+}
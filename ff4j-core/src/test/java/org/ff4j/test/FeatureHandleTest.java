@@ -0,0 +1,109 @@
+package org.ff4j.test;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.ff4j.FF4j;
+import org.ff4j.FeatureHandle;
+import org.ff4j.FeatureSnapshotEngine;
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test checks done through {@link FeatureHandle}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FeatureHandleTest extends AbstractFf4jTest {
+
+    /** {@inheritDoc} */
+    @Override
+    public FF4j initFF4j() {
+        return new FF4j("ff4j.xml").snapshot(true);
+    }
+
+    @Test
+    public void testHandleResolvedToSlot() {
+        FeatureHandle h1 = ff4j.handle(F1);
+        Assert.assertEquals(F1, h1.getFeatureID());
+        Assert.assertTrue(h1.getSlot() >= 0);
+        Assert.assertEquals(h1.getSlot(), ff4j.handle(F1).getSlot());
+        Assert.assertFalse(h1.getSlot() == ff4j.handle(F2).getSlot());
+        Assert.assertTrue(h1.check());
+        Assert.assertFalse(ff4j.handle(F2).check(null));
+    }
+
+    @Test
+    public void testHandleFollowsModifications() {
+        FeatureHandle h2 = ff4j.handle(F2);
+        Assert.assertFalse(h2.check());
+        ff4j.enable(F2);
+        Assert.assertTrue(h2.check());
+        ff4j.disable(F2);
+        Assert.assertFalse(h2.check());
+    }
+
+    @Test
+    public void testHandleBeforeCreation() {
+        FeatureHandle handle = ff4j.handle(FEATURE_NEW);
+        // Unknown identifiers do not get a slot
+        Assert.assertEquals(FeatureSnapshotEngine.NO_SLOT, handle.getSlot());
+        ff4j.create(new Feature(FEATURE_NEW, true));
+        Assert.assertTrue(handle.check());
+        ff4j.delete(FEATURE_NEW);
+        try {
+            handle.check();
+            Assert.fail();
+        } catch (FeatureNotFoundException fnfe) {
+            Assert.assertTrue(fnfe.getMessage().contains(FEATURE_NEW));
+        }
+    }
+
+    @Test
+    public void testHandleWithoutSnapshot() {
+        FF4j plain = new FF4j("ff4j.xml");
+        FeatureHandle h1 = plain.handle(F1);
+        Assert.assertEquals(-1, h1.getSlot());
+        Assert.assertEquals(plain.check(F1), h1.check());
+    }
+
+    @Test
+    public void testHandleAfterStoreChanged() {
+        FeatureHandle h1 = ff4j.handle(F1);
+        InMemoryFeatureStore store = new InMemoryFeatureStore();
+        store.create(new Feature(F1, false));
+        ff4j.setStore(store);
+        Assert.assertFalse(h1.check());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHandleNullID() {
+        ff4j.handle(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCheckNullHandle() {
+        ff4j.check((FeatureHandle) null, null);
+    }
+
+}
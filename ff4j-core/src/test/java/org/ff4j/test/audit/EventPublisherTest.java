@@ -0,0 +1,199 @@
+package org.ff4j.test.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.ff4j.audit.Event;
+import org.ff4j.audit.EventPublisher;
+import org.ff4j.audit.EventRingBuffer;
+import org.ff4j.audit.EventType;
+import org.ff4j.audit.InMemoryEventRepository;
+import org.ff4j.audit.OverflowPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link EventPublisher} buffer and overflow policies.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class EventPublisherTest {
+
+    /**
+     * Repository blocking on first batch until released.
+     */
+    private static class BlockingEventRepository extends InMemoryEventRepository {
+
+        /** first batch received. */
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        /** release saving. */
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        /** saved events in order. */
+        private final List<String> saved = new ArrayList<String>();
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean saveEvents(List<Event> events) {
+            entered.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (saved) {
+                for (Event event : events) {
+                    saved.add(event.getFeatureName());
+                }
+            }
+            return super.saveEvents(events);
+        }
+    }
+
+    /**
+     * Publish first event and wait for consumer to be blocked saving it.
+     */
+    private void blockConsumer(EventPublisher pub, BlockingEventRepository repo) throws InterruptedException {
+        pub.publish(new Event("e0", EventType.HIT_FLIPPED));
+        Assert.assertTrue(repo.entered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRingBuffer() {
+        EventRingBuffer ring = new EventRingBuffer(3);
+        Assert.assertEquals(4, ring.getCapacity());
+        Assert.assertTrue(ring.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(ring.offer(new Event("e" + i, EventType.HIT_FLIPPED)));
+        }
+        Assert.assertFalse(ring.offer(new Event("e4", EventType.HIT_FLIPPED)));
+        Assert.assertEquals(4, ring.size());
+        Assert.assertEquals("e0", ring.poll().getFeatureName());
+        Assert.assertTrue(ring.offer(new Event("e4", EventType.HIT_FLIPPED)));
+        List<Event> target = new ArrayList<Event>();
+        Assert.assertEquals(4, ring.drainTo(target, 10));
+        Assert.assertEquals("e1", target.get(0).getFeatureName());
+        Assert.assertEquals("e4", target.get(3).getFeatureName());
+        Assert.assertNull(ring.poll());
+        Assert.assertEquals(5, ring.getOfferedCount());
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        BlockingEventRepository repo = new BlockingEventRepository();
+        EventPublisher pub = new EventPublisher(repo, 4, OverflowPolicy.DROP_NEWEST, 1);
+        blockConsumer(pub, repo);
+        for (int i = 1; i <= 10; i++) {
+            pub.publish(new Event("e" + i, EventType.HIT_FLIPPED));
+        }
+        Assert.assertEquals(5, pub.getPublishedCount());
+        Assert.assertEquals(6, pub.getDroppedCount());
+        Assert.assertEquals(4, pub.getPendingCount());
+        repo.released.countDown();
+        pub.stop();
+        Assert.assertEquals(5, repo.getTotalEventCount());
+        Assert.assertEquals("e4", repo.saved.get(4));
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        BlockingEventRepository repo = new BlockingEventRepository();
+        EventPublisher pub = new EventPublisher(repo, 4, OverflowPolicy.DROP_OLDEST, 1);
+        blockConsumer(pub, repo);
+        for (int i = 1; i <= 10; i++) {
+            pub.publish(new Event("e" + i, EventType.HIT_FLIPPED));
+        }
+        Assert.assertEquals(6, pub.getDroppedCount());
+        repo.released.countDown();
+        pub.stop();
+        Assert.assertEquals(5, repo.getTotalEventCount());
+        Assert.assertEquals("e7", repo.saved.get(1));
+        Assert.assertEquals("e10", repo.saved.get(4));
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        final BlockingEventRepository repo = new BlockingEventRepository();
+        final EventPublisher pub = new EventPublisher(repo, 4, OverflowPolicy.BLOCK, 1);
+        blockConsumer(pub, repo);
+        Thread producer = new Thread() {
+            public void run() {
+                for (int i = 1; i <= 10; i++) {
+                    pub.publish(new Event("e" + i, EventType.HIT_FLIPPED));
+                }
+            }
+        };
+        producer.start();
+        producer.join(200);
+        Assert.assertTrue(producer.isAlive());
+        repo.released.countDown();
+        producer.join(5000);
+        Assert.assertFalse(producer.isAlive());
+        pub.stop();
+        Assert.assertEquals(0, pub.getDroppedCount());
+        Assert.assertEquals(11, repo.getTotalEventCount());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final int nbThreads = 4;
+        final int nbEvents = 5000;
+        InMemoryEventRepository repo = new InMemoryEventRepository(nbThreads * nbEvents);
+        final EventPublisher pub = new EventPublisher(repo, 256, OverflowPolicy.BLOCK);
+        Thread[] threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; t++) {
+            final String name = "f" + t;
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < nbEvents; i++) {
+                        pub.publish(name, true);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        pub.stop();
+        Assert.assertEquals(nbThreads * nbEvents, pub.getPublishedCount());
+        Assert.assertEquals(nbThreads * nbEvents, repo.getTotalEventCount());
+    }
+
+    @Test
+    public void testPublishAfterStop() {
+        EventPublisher pub = new EventPublisher();
+        pub.stop();
+        pub.publish("aer", true);
+        Assert.assertEquals(1, pub.getDroppedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new EventPublisher(new InMemoryEventRepository(), 0, OverflowPolicy.BLOCK);
+    }
+
+}
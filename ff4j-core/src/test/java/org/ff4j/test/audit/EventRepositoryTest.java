@@ -20,12 +20,19 @@ package org.ff4j.test.audit;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Assert;
 
 import org.ff4j.audit.Event;
 import org.ff4j.audit.EventPublisher;
 import org.ff4j.audit.EventType;
 import org.ff4j.audit.InMemoryEventRepository;
+import org.ff4j.audit.TimeBucketSeries;
+import org.ff4j.audit.graph.Curve;
+import org.ff4j.audit.graph.Point;
 import org.junit.Test;
 
 /**
@@ -73,4 +80,78 @@ public class EventRepositoryTest {
         long now = System.currentTimeMillis();
         pub.getRepository().getHitCurve("aer", 10, now - 3 * nbEvent, now);
     }
+
+    @Test
+    public void testHitsCountAndTotalCurve() {
+        InMemoryEventRepository repo = new InMemoryEventRepository();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            repo.saveEvent(new Event("f1", EventType.HIT_FLIPPED, now - i * 1000L, 1));
+            repo.saveEvent(new Event("f2", EventType.HIT_NOT_FLIPPED, now - i * 1000L, 2));
+        }
+        // Aggregated hits and other events
+        repo.saveEvent(new Event("f2", EventType.HIT_FLIPPED, now, 10000000));
+        repo.saveEvent(new Event("f1", EventType.ENABLE));
+
+        Map<String, Integer> hits = repo.getHitsCount(now - 60000, now + 1000);
+        Assert.assertEquals(10, hits.get("f1").intValue());
+        Assert.assertEquals(10000020, hits.get("f2").intValue());
+
+        Curve total = repo.getTotalHitCurve(1000, now - 60000, now + 1000);
+        double sum = 0;
+        for (Point p : total.getListOfPoint()) {
+            sum += p.getY();
+        }
+        Assert.assertEquals(10000030, (long) sum);
+        Assert.assertTrue(repo.toJson().contains("\"todayHits\":{"));
+        Assert.assertFalse(repo.toString().contains("todayHits"));
+    }
+
+    @Test
+    public void testQueriesReadBoundedBucketsWhateverTheEvents() {
+        final List<TimeBucketSeries> series = new ArrayList<TimeBucketSeries>();
+        InMemoryEventRepository repo = new InMemoryEventRepository() {
+            @Override
+            protected TimeBucketSeries createHitSeries() {
+                TimeBucketSeries created = super.createHitSeries();
+                series.add(created);
+                return created;
+            }
+        };
+        // 1M distinct events over 2 hours : every tier is filled
+        int nbEvents = 1000000;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < nbEvents; i++) {
+            repo.saveEvent(new Event("f" + (i % 10), EventType.HIT_FLIPPED, now - (i % 7200000), 1));
+        }
+        Assert.assertEquals(11, series.size());
+        long[] before = new long[series.size()];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = series.get(i).getBucketReads();
+        }
+
+        Map<String, Integer> hits = repo.getHitsCount(now - 3 * 3600000L, now + 1000);
+        long sum = 0;
+        for (Integer count : hits.values()) {
+            sum += count;
+        }
+        Assert.assertEquals(nbEvents, sum);
+        Curve total = repo.getTotalHitCurve(60000, now - 3 * 3600000L, now + 1000);
+        double totalSum = 0;
+        for (Point p : total.getListOfPoint()) {
+            totalSum += p.getY();
+        }
+        Assert.assertEquals(nbEvents, (long) totalSum);
+
+        // Each series is read once, never more buckets than the largest tier
+        int maxBuckets = 0;
+        for (int size : TimeBucketSeries.DEFAULT_SIZES) {
+            maxBuckets = Math.max(maxBuckets, size);
+        }
+        for (int i = 0; i < before.length; i++) {
+            long reads = series.get(i).getBucketReads() - before[i];
+            Assert.assertTrue(reads > 0);
+            Assert.assertTrue(reads <= maxBuckets);
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package org.ff4j.test.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.ff4j.FF4j;
+import org.ff4j.audit.Event;
+import org.ff4j.audit.EventType;
+import org.ff4j.audit.HitCountEventPublisher;
+import org.ff4j.audit.InMemoryEventRepository;
+import org.ff4j.audit.graph.Curve;
+import org.ff4j.audit.graph.Point;
+import org.ff4j.exception.FeatureAccessException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link HitCountEventPublisher}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class HitCountEventPublisherTest {
+
+    /**
+     * Repository failing with an exception, as JDBC repository on SQL errors.
+     */
+    private static class FailingRepository extends InMemoryEventRepository {
+
+        /** Saves fail while true. */
+        private volatile boolean failing = true;
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean saveEvent(Event e) {
+            if (failing) {
+                throw new FeatureAccessException("Repository not available");
+            }
+            return super.saveEvent(e);
+        }
+    }
+
+    /**
+     * Sum of hits on a curve.
+     */
+    private long sum(Curve curve) {
+        long total = 0;
+        for (Point p : curve.getListOfPoint()) {
+            total += (long) p.getY();
+        }
+        return total;
+    }
+
+    @Test
+    public void testHitsAggregated() throws InterruptedException {
+        final int nbThreads = 4;
+        final int nbHits = 10000;
+        long start = System.currentTimeMillis() - 1;
+        InMemoryEventRepository repo = new InMemoryEventRepository();
+        final HitCountEventPublisher pub = new HitCountEventPublisher(repo, 3600 * 1000L, 4);
+        Thread[] threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < nbHits; i++) {
+                        pub.publish("aer", i % 2 == 0);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, repo.getTotalEventCount());
+        pub.flush();
+        // One aggregated event per type
+        Assert.assertEquals(2, repo.getTotalEventCount());
+        Curve curve = repo.getHitCurve("aer", 1000, start, System.currentTimeMillis() + 1000);
+        Assert.assertEquals(nbThreads * nbHits, sum(curve));
+
+        // Counters are reset
+        pub.flush();
+        Assert.assertEquals(2, repo.getTotalEventCount());
+        pub.stop();
+    }
+
+    @Test
+    public void testOtherEventsPublished() throws InterruptedException {
+        InMemoryEventRepository repo = new InMemoryEventRepository();
+        HitCountEventPublisher pub = new HitCountEventPublisher(repo);
+        pub.publish(new Event("aer", EventType.HIT_FLIPPED));
+        pub.publish("aer", EventType.ENABLE);
+        Thread.sleep(100);
+        Assert.assertEquals(1, repo.getTotalEventCount());
+        pub.stop();
+        Assert.assertEquals(2, repo.getTotalEventCount());
+    }
+
+    @Test
+    public void testBackgroundFlush() throws InterruptedException {
+        InMemoryEventRepository repo = new InMemoryEventRepository();
+        FF4j ff4j = new FF4j("ff4j.xml");
+        ff4j.setEventPublisher(new HitCountEventPublisher(repo, 50, HitCountEventPublisher.DEFAULT_STRIPES));
+        for (int i = 0; i < 100; i++) {
+            ff4j.check("first");
+        }
+        Thread.sleep(500);
+        Assert.assertEquals(1, repo.getTotalEventCount());
+    }
+
+    @Test
+    public void testHitsKeptWhenRepositoryThrows() {
+        long start = System.currentTimeMillis() - 1;
+        FailingRepository repo = new FailingRepository();
+        HitCountEventPublisher pub = new HitCountEventPublisher(repo, 3600 * 1000L, 4);
+        for (int i = 0; i < 10; i++) {
+            pub.publish("aer", true);
+        }
+        pub.flush();
+        Assert.assertEquals(0, repo.getTotalEventCount());
+        repo.failing = false;
+        pub.flush();
+        Curve curve = repo.getHitCurve("aer", 1000, start, System.currentTimeMillis() + 1000);
+        Assert.assertEquals(10, sum(curve));
+        pub.stop();
+    }
+
+    @Test
+    public void testBackgroundFlushSurvivesFailure() throws InterruptedException {
+        FailingRepository repo = new FailingRepository();
+        HitCountEventPublisher pub = new HitCountEventPublisher(repo, 20, 4);
+        pub.publish("aer", true);
+        Thread.sleep(100);
+        repo.failing = false;
+        for (int i = 0; i < 50 && repo.getTotalEventCount() == 0; i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(1, repo.getTotalEventCount());
+        pub.stop();
+    }
+
+    @Test
+    public void testCountAboveIntegerRangeSplit() {
+        InMemoryEventRepository repo = new InMemoryEventRepository();
+        HitCountEventPublisher pub = new HitCountEventPublisher(repo, 3600 * 1000L, 4);
+        pub.publish(new Event("aer", EventType.HIT_FLIPPED, System.currentTimeMillis(), Integer.MAX_VALUE));
+        pub.publish(new Event("aer", EventType.HIT_FLIPPED, System.currentTimeMillis(), Integer.MAX_VALUE));
+        pub.publish(new Event("aer", EventType.HIT_FLIPPED, System.currentTimeMillis(), 2));
+        pub.flush();
+        // 2 * MAX_VALUE + 2 hits : MAX_VALUE, MAX_VALUE and 2
+        Assert.assertEquals(3, repo.getTotalEventCount());
+        pub.stop();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() {
+        new HitCountEventPublisher(new InMemoryEventRepository(), 0, 1);
+    }
+
+}
@@ -0,0 +1,138 @@
+package org.ff4j.test.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.ff4j.audit.Event;
+import org.ff4j.audit.EventPublisher;
+import org.ff4j.audit.EventType;
+import org.ff4j.audit.JdbcEventRepository;
+import org.ff4j.audit.OverflowPolicy;
+import org.ff4j.audit.graph.Curve;
+import org.ff4j.audit.graph.Point;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Test for {@link JdbcEventRepository} against embedded database.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class JdbcEventRepositoryTest {
+
+    /** Reference time, aligned on hour. */
+    private static final long T0 = 1000L * 3600 * 24 * 365 * 44;
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Tested repository. */
+    private JdbcEventRepository repo;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql").build();
+        repo = new JdbcEventRepository(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    /**
+     * Sum of hits on a curve.
+     */
+    private long sum(Curve curve) {
+        long total = 0;
+        for (Point p : curve.getListOfPoint()) {
+            total += (long) p.getY();
+        }
+        return total;
+    }
+
+    @Test
+    public void testSaveAndRollup() {
+        List<Event> events = new ArrayList<Event>();
+        // 3 minutes of hits
+        for (int i = 0; i < 180; i++) {
+            events.add(new Event("f1", EventType.HIT_FLIPPED, T0 + i * 1000L, 1));
+            events.add(new Event("f2", EventType.HIT_NOT_FLIPPED, T0 + i * 1000L, 2));
+        }
+        events.add(new Event("f1", EventType.ENABLE, T0, 1));
+        Assert.assertTrue(repo.saveEvents(events.subList(0, 100)));
+        Assert.assertTrue(repo.saveEvents(events.subList(100, events.size())));
+        Assert.assertTrue(repo.saveEvent(new Event("f1", EventType.HIT_FLIPPED, T0 + 1000L, 10)));
+
+        Assert.assertEquals(362, repo.getTotalEventCount());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("f1", "f2")), repo.getCurveList());
+
+        Map<String, Integer> hits = repo.getHitsCount(T0 - 1, T0 + 180000);
+        Assert.assertEquals(190, hits.get("f1").intValue());
+        Assert.assertEquals(360, hits.get("f2").intValue());
+        // Only last minute
+        Assert.assertEquals(60, repo.getHitsCount(T0 + 120000, T0 + 180000).get("f1").intValue());
+    }
+
+    @Test
+    public void testCurves() {
+        List<Event> events = new ArrayList<Event>();
+        for (int i = 0; i < 180; i++) {
+            events.add(new Event("f1", EventType.HIT_FLIPPED, T0 + i * 1000L, 1));
+            events.add(new Event("f2", EventType.HIT_FLIPPED, T0 + i * 1000L, 1));
+        }
+        repo.saveEvents(events);
+
+        Curve curve = repo.getHitCurve("f1", 60000, T0 - 1, T0 + 180000);
+        Assert.assertEquals(180, sum(curve));
+        Assert.assertEquals(60, (long) curve.getListOfPoint().get(1).getY());
+        Assert.assertEquals(60, (long) curve.getListOfPoint().get(3).getY());
+        Assert.assertNull(repo.getHitCurve("f3", 60000, T0 - 1, T0 + 180000));
+
+        Map<String, Curve> curves = repo.getHitCurves(new HashSet<String>(Arrays.asList("f2")), 60000, T0 - 1, T0 + 180000);
+        Assert.assertEquals(1, curves.size());
+        Assert.assertEquals(180, sum(curves.get("f2")));
+        Assert.assertEquals(360, sum(repo.getTotalHitCurve(60000, T0 - 1, T0 + 180000)));
+    }
+
+    @Test
+    public void testThroughPublisher() {
+        EventPublisher pub = new EventPublisher(repo, 1024, OverflowPolicy.BLOCK);
+        for (int i = 0; i < 1000; i++) {
+            pub.publish("f1", i % 2 == 0);
+        }
+        pub.stop();
+        Assert.assertEquals(1000, repo.getTotalEventCount());
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(1000, repo.getHitsCount(now - 3600000, now + 1000).get("f1").intValue());
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.ff4j.test.audit;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.ff4j.audit.Event;
+import org.ff4j.audit.EventType;
+import org.ff4j.audit.InMemoryEventRepository;
+import org.ff4j.audit.TimeBucketEventRepository;
+import org.ff4j.audit.TimeBucketSeries;
+import org.ff4j.audit.graph.Curve;
+import org.ff4j.audit.graph.Point;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link TimeBucketEventRepository} and {@link TimeBucketSeries}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class TimeBucketEventRepositoryTest {
+
+    /** Reference time, aligned on hour. */
+    private static final long T0 = 1000L * 3600 * 24 * 365 * 44;
+
+    /**
+     * Sum of hits on a curve.
+     */
+    private long sum(Curve curve) {
+        long total = 0;
+        for (Point p : curve.getListOfPoint()) {
+            total += (long) p.getY();
+        }
+        return total;
+    }
+
+    @Test
+    public void testSeriesCountsAndRollover() {
+        TimeBucketSeries series = new TimeBucketSeries(new long[] {1000L, 10000L}, new int[] {10, 10});
+        for (int i = 0; i < 10; i++) {
+            series.add(T0 + i * 1000L, 1);
+        }
+        Assert.assertEquals(10, series.count(T0 - 1, T0 + 10000));
+        Assert.assertEquals(5, series.count(T0 + 4999, T0 + 10000));
+        // Move finest tier forward, older values only remain in coarse tier
+        series.add(T0 + 15000L, 2);
+        Assert.assertEquals(2, series.count(T0 + 9999, T0 + 20000));
+        Assert.assertEquals(12, series.count(T0 - 1, T0 + 20000));
+        // Too old for all tiers
+        series.add(T0 - 1000000L, 5);
+        Assert.assertEquals(12, series.count(T0 - 2000000L, T0 + 20000));
+        Assert.assertEquals(17, series.getTotal());
+    }
+
+    @Test
+    public void testHitsCountAndCurves() {
+        TimeBucketEventRepository repo = new TimeBucketEventRepository();
+        for (int i = 0; i < 30; i++) {
+            repo.saveEvent(new Event("f1", EventType.HIT_FLIPPED, T0 + i * 1000L, 2));
+            repo.saveEvent(new Event("f2", EventType.HIT_NOT_FLIPPED, T0 + i * 1000L, 1));
+        }
+        repo.saveEvent(new Event("f1", EventType.ENABLE, T0, 1));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("f1", "f2")), repo.getCurveList());
+        Assert.assertEquals(91, repo.getTotalEventCount());
+
+        Map<String, Integer> hits = repo.getHitsCount(T0 - 1, T0 + 30000);
+        Assert.assertEquals(60, hits.get("f1").intValue());
+        Assert.assertEquals(30, hits.get("f2").intValue());
+
+        Curve curve = repo.getHitCurve("f1", 10000, T0 - 1, T0 + 30000);
+        Assert.assertEquals(60, sum(curve));
+        Assert.assertEquals(20, (long) curve.getListOfPoint().get(1).getY());
+        Assert.assertEquals(2, repo.getHitCurves(new HashSet<String>(Arrays.asList("f1", "f2", "f3")), 10000, T0 - 1, T0 + 30000).size());
+        Assert.assertEquals(90, sum(repo.getTotalHitCurve(1000, T0 - 1, T0 + 30000)));
+        Assert.assertNull(repo.getHitCurve("f3", 1000, T0, T0 + 1000));
+    }
+
+    @Test
+    public void testQueueCapacityUsed() {
+        InMemoryEventRepository repo = new InMemoryEventRepository(10);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(repo.saveEvent(new Event("f1", EventType.HIT_FLIPPED)));
+        }
+        Assert.assertEquals(10, repo.getTotalEventCount());
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.ff4j.cache.CacheClock;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing {@link CacheClock}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class CacheClockTest {
+
+    @Test
+    public void testTicksUntilStopped() throws InterruptedException {
+        CacheClock clock = new CacheClock(1);
+        long start = clock.now();
+        for (int i = 0; i < 100 && clock.now() == start; i++) {
+            Thread.sleep(5);
+        }
+        Assert.assertTrue(clock.now() > start);
+        clock.stop();
+        // Let a tick already running complete
+        Thread.sleep(10);
+        long stopped = clock.now();
+        Thread.sleep(20);
+        Assert.assertEquals(stopped, clock.now());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSharedClockCannotBeStopped() {
+        CacheClock.getSharedClock().stop();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTick() {
+        new CacheClock(0);
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.InMemoryCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing group targeted invalidation in {@link FeatureStoreCacheProxy}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class GroupInvalidationCacheTest {
+
+    /**
+     * Store counting single feature reads.
+     */
+    private static class CountingStore extends InMemoryFeatureStore {
+
+        /** number of reads. */
+        private final AtomicInteger reads = new AtomicInteger();
+
+        /** simulate failure of group reads. */
+        private boolean groupReadFails = false;
+
+        /** {@inheritDoc} */
+        @Override
+        public Feature read(String uid) {
+            reads.incrementAndGet();
+            return super.read(uid);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Map<String, Feature> readGroup(String groupName) {
+            if (groupReadFails) {
+                throw new IllegalStateException("Store is down");
+            }
+            return super.readGroup(groupName);
+        }
+    }
+
+    /** backing store. */
+    private CountingStore store;
+
+    /** cache manager. */
+    private InMemoryCacheManager cache;
+
+    /** proxy under test. */
+    private FeatureStoreCacheProxy proxy;
+
+    @Before
+    public void setUp() {
+        store = new CountingStore();
+        store.create(new Feature("a1", false, null, "ga"));
+        store.create(new Feature("a2", false, null, "ga"));
+        store.create(new Feature("b1", false, null, "gb"));
+        cache = new InMemoryCacheManager();
+        proxy = new FeatureStoreCacheProxy(store, cache);
+        proxy.read("a1");
+        proxy.read("a2");
+        proxy.read("b1");
+    }
+
+    @Test
+    public void testOtherGroupsKept() {
+        proxy.enableGroup("ga");
+        store.reads.set(0);
+        Assert.assertFalse(proxy.read("b1").isEnable());
+        Assert.assertEquals(0, store.reads.get());
+    }
+
+    @Test
+    public void testGroupUpdatedInPlace() {
+        proxy.enableGroup("ga");
+        Assert.assertNotNull(cache.get("a1"));
+        Assert.assertTrue(cache.get("a1").isEnable());
+        store.reads.set(0);
+        Assert.assertTrue(proxy.read("a1").isEnable());
+        Assert.assertTrue(proxy.read("a2").isEnable());
+        Assert.assertEquals(0, store.reads.get());
+        proxy.disableGroup("ga");
+        // group refresh reads features through the in-memory store
+        store.reads.set(0);
+        Assert.assertFalse(proxy.read("a1").isEnable());
+        Assert.assertFalse(proxy.read("b1").isEnable());
+        Assert.assertEquals(0, store.reads.get());
+    }
+
+    @Test
+    public void testMovedFeatureNotUpdatedWithGroup() {
+        proxy.removeFromGroup("a1", "ga");
+        proxy.addToGroup("a1", "gb");
+        proxy.read("a1");
+        proxy.enableGroup("ga");
+        Assert.assertFalse(proxy.read("a1").isEnable());
+        Assert.assertTrue(proxy.read("a2").isEnable());
+    }
+
+    @Test
+    public void testFlushWhenGroupCannotBeRead() {
+        store.groupReadFails = true;
+        proxy.enableGroup("ga");
+        Assert.assertNull(cache.get("b1"));
+        store.groupReadFails = false;
+        Assert.assertTrue(proxy.read("a1").isEnable());
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.cache.CacheClock;
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.InMemoryCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing negative caching of missing features in {@link FeatureStoreCacheProxy}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class NegativeCacheTest {
+
+    /**
+     * Clock moved manually.
+     */
+    private static class ManualClock extends CacheClock {
+
+        /** current time. */
+        private long time = 0;
+
+        /** {@inheritDoc} */
+        @Override
+        public long now() {
+            return time;
+        }
+    }
+
+    /**
+     * Store counting accesses.
+     */
+    private static class CountingStore extends InMemoryFeatureStore {
+
+        /** number of accesses. */
+        private final AtomicInteger accesses = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean exist(String uid) {
+            accesses.incrementAndGet();
+            return super.exist(uid);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Feature read(String uid) {
+            accesses.incrementAndGet();
+            return super.read(uid);
+        }
+    }
+
+    /** backing store. */
+    private CountingStore store;
+
+    /** proxy under test. */
+    private FeatureStoreCacheProxy proxy;
+
+    /** clock. */
+    private ManualClock clock;
+
+    @Before
+    public void setUp() {
+        store = new CountingStore();
+        clock = new ManualClock();
+        proxy = new FeatureStoreCacheProxy(store, new InMemoryCacheManager());
+        proxy.setClock(clock);
+        proxy.setAbsentTtl(1000);
+    }
+
+    @Test
+    public void testMissingProbesServedFromCache() {
+        Assert.assertFalse(proxy.exist("missing"));
+        Assert.assertFalse(proxy.exist("missing"));
+        try {
+            proxy.read("missing");
+            Assert.fail();
+        } catch (FeatureNotFoundException fnfe) {
+            // expected
+        }
+        Assert.assertEquals(1, store.accesses.get());
+    }
+
+    @Test
+    public void testAbsentEntryExpires() {
+        Assert.assertFalse(proxy.exist("missing"));
+        store.create(new Feature("missing", true));
+        Assert.assertFalse(proxy.exist("missing"));
+        clock.time = 1000;
+        Assert.assertTrue(proxy.exist("missing"));
+    }
+
+    @Test
+    public void testAbsentEntryInvalidatedOnCreate() {
+        Assert.assertFalse(proxy.exist("missing"));
+        proxy.create(new Feature("missing", true));
+        Assert.assertTrue(proxy.exist("missing"));
+        Assert.assertTrue(proxy.read("missing").isEnable());
+    }
+
+    @Test
+    public void testReadAllByIds() {
+        store.create(new Feature("f1", true));
+        store.create(new Feature("f2", false));
+        proxy.read("f1");
+        store.accesses.set(0);
+        Map<String, Feature> features = proxy.readAll(Arrays.asList("f1", "f2", "missing"));
+        Assert.assertEquals(Arrays.asList("f1", "f2"), new ArrayList<String>(features.keySet()));
+        // Misses reach the store once, then all are served from cache
+        int accesses = store.accesses.get();
+        Assert.assertTrue(accesses > 0);
+        proxy.readAll(Arrays.asList("f1", "f2", "missing"));
+        Assert.assertEquals(accesses, store.accesses.get());
+    }
+
+    @Test
+    public void testBoundedSize() {
+        proxy.setAbsentMaxSize(2);
+        proxy.exist("m1");
+        proxy.exist("m2");
+        proxy.exist("m3");
+        int before = store.accesses.get();
+        proxy.exist("m3");
+        Assert.assertEquals(before + 1, store.accesses.get());
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        proxy = new FeatureStoreCacheProxy(store, new InMemoryCacheManager());
+        proxy.exist("missing");
+        proxy.exist("missing");
+        Assert.assertEquals(2, store.accesses.get());
+    }
+
+}
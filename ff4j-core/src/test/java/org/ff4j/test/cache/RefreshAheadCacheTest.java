@@ -0,0 +1,221 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.cache.CacheClock;
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.InMemoryCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing refresh-ahead mode of {@link FeatureStoreCacheProxy}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class RefreshAheadCacheTest {
+
+    /**
+     * Clock moved manually.
+     */
+    private static class ManualClock extends CacheClock {
+
+        /** current time. */
+        private long time = 0;
+
+        /** {@inheritDoc} */
+        @Override
+        public long now() {
+            return time;
+        }
+    }
+
+    /**
+     * Store counting reads, can be turned down.
+     */
+    private static class CountingStore extends InMemoryFeatureStore {
+
+        /** number of reads. */
+        private final AtomicInteger reads = new AtomicInteger();
+
+        /** simulate unavailability. */
+        private volatile boolean down = false;
+
+        /** {@inheritDoc} */
+        @Override
+        public Feature read(String uid) {
+            reads.incrementAndGet();
+            if (down) {
+                throw new IllegalStateException("Store is down");
+            }
+            return super.read(uid);
+        }
+    }
+
+    /** backing store. */
+    private CountingStore store;
+
+    /** cache manager. */
+    private InMemoryCacheManager cache;
+
+    /** proxy under test. */
+    private FeatureStoreCacheProxy proxy;
+
+    /** clock. */
+    private ManualClock clock;
+
+    /** executor for refreshes. */
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        store = new CountingStore();
+        store.create(new Feature("f1", true));
+        cache = new InMemoryCacheManager();
+        clock = new ManualClock();
+        executor = Executors.newSingleThreadExecutor();
+        proxy = new FeatureStoreCacheProxy(store, cache);
+        proxy.setClock(clock);
+        proxy.setRefreshExecutor(executor);
+        proxy.setRefreshAfter(1000);
+        proxy.setMaxStaleness(5000);
+    }
+
+    /**
+     * Wait for pending refreshes.
+     */
+    private void awaitRefresh() throws InterruptedException {
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        executor = Executors.newSingleThreadExecutor();
+        proxy.setRefreshExecutor(executor);
+    }
+
+    @Test
+    public void testNoRefreshBeforeDelay() throws InterruptedException {
+        Assert.assertTrue(proxy.read("f1").isEnable());
+        Assert.assertEquals(1, store.reads.get());
+        clock.time = 500;
+        proxy.read("f1");
+        awaitRefresh();
+        Assert.assertEquals(1, store.reads.get());
+    }
+
+    @Test
+    public void testCachedValueServedWhileRefreshing() throws InterruptedException {
+        proxy.read("f1");
+        // Change done behind the proxy
+        store.update(new Feature("f1", false));
+        store.reads.set(0);
+        clock.time = 1500;
+        Assert.assertTrue(proxy.read("f1").isEnable());
+        awaitRefresh();
+        Assert.assertEquals(1, store.reads.get());
+        Assert.assertFalse(proxy.read("f1").isEnable());
+    }
+
+    @Test
+    public void testStaleValueServedWhenExpired() throws InterruptedException {
+        proxy.read("f1");
+        store.update(new Feature("f1", false));
+        // Expired in cache manager
+        cache.evict("f1");
+        clock.time = 2000;
+        Assert.assertTrue(proxy.read("f1").isEnable());
+        awaitRefresh();
+        Assert.assertFalse(proxy.read("f1").isEnable());
+    }
+
+    @Test
+    public void testStaleValueServedWhenStoreDown() throws InterruptedException {
+        proxy.read("f1");
+        store.down = true;
+        cache.evict("f1");
+        clock.time = 2000;
+        Assert.assertTrue(proxy.read("f1").isEnable());
+        awaitRefresh();
+        clock.time = 4000;
+        Assert.assertTrue(proxy.read("f1").isEnable());
+        awaitRefresh();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMaxStaleness() {
+        proxy.read("f1");
+        store.down = true;
+        cache.evict("f1");
+        clock.time = 6000;
+        proxy.read("f1");
+    }
+
+    @Test
+    public void testMutationDiscardsStaleValue() {
+        proxy.read("f1");
+        cache.evict("f1");
+        proxy.disable("f1");
+        Assert.assertFalse(proxy.read("f1").isEnable());
+    }
+
+    @Test(expected = FeatureNotFoundException.class)
+    public void testRefreshRemovesDeletedFeature() throws InterruptedException {
+        proxy.read("f1");
+        store.delete("f1");
+        clock.time = 1500;
+        proxy.read("f1");
+        awaitRefresh();
+        proxy.read("f1");
+    }
+
+    @Test
+    public void testLoadedFeaturesPurgedAfterMaxStaleness() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            store.create(new Feature("purge" + i, true));
+            proxy.read("purge" + i);
+        }
+        proxy.read("f1");
+        Assert.assertEquals(101, proxy.getLoadedFeaturesCount());
+        // Features never read again are dropped at next load
+        clock.time = 6000;
+        proxy.read("f1");
+        awaitRefresh();
+        Assert.assertEquals(1, proxy.getLoadedFeaturesCount());
+        // Too old to be served : dropped at read
+        store.down = true;
+        cache.evict("f1");
+        clock.time = 12000;
+        try {
+            proxy.read("f1");
+            Assert.fail();
+        } catch (IllegalStateException ise) {
+            Assert.assertEquals(0, proxy.getLoadedFeaturesCount());
+        }
+    }
+
+}
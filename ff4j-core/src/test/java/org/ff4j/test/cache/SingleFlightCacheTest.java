@@ -0,0 +1,194 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.InMemoryCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing coalescing of concurrent loads in {@link FeatureStoreCacheProxy}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class SingleFlightCacheTest {
+
+    /** Number of concurrent callers. */
+    private static final int CALLERS = 8;
+
+    /**
+     * Store counting accesses and blocking them until released.
+     */
+    private static class SlowStore extends InMemoryFeatureStore {
+
+        /** number of accesses. */
+        private final AtomicInteger reads = new AtomicInteger();
+
+        /** number of group accesses (group read relies on feature reads). */
+        private final AtomicInteger groupReads = new AtomicInteger();
+
+        /** first access reached. */
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        /** released accesses. */
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        /** Block until released. */
+        private void access() {
+            reads.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Feature read(String uid) {
+            access();
+            return super.read(uid);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Map<String, Feature> readAll() {
+            access();
+            return super.readAll();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Map<String, Feature> readGroup(String groupName) {
+            groupReads.incrementAndGet();
+            return super.readGroup(groupName);
+        }
+    }
+
+    /** backing store. */
+    private SlowStore store;
+
+    /** proxy under test. */
+    private FeatureStoreCacheProxy proxy;
+
+    /** callers. */
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        store = new SlowStore();
+        store.create(new Feature("f1", true, "desc", "g1"));
+        proxy = new FeatureStoreCacheProxy(store, new InMemoryCacheManager());
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start concurrent callers, release the store once the first one reached it and collect results.
+     */
+    private <T> List<T> callConcurrently(Callable<T> call) throws Exception {
+        List<Future<T>> futures = new ArrayList<Future<T>>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(call));
+        }
+        Assert.assertTrue(store.entered.await(5, TimeUnit.SECONDS));
+        // Give other callers time to join the load in progress
+        Thread.sleep(200);
+        store.release.countDown();
+        List<T> results = new ArrayList<T>();
+        for (Future<T> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @Test
+    public void testConcurrentReadsCoalesced() throws Exception {
+        List<Feature> results = callConcurrently(new Callable<Feature>() {
+            public Feature call() {
+                return proxy.read("f1");
+            }
+        });
+        Assert.assertEquals(1, store.reads.get());
+        for (Feature feature : results) {
+            Assert.assertTrue(feature.isEnable());
+        }
+    }
+
+    @Test
+    public void testConcurrentReadAllCoalesced() throws Exception {
+        List<Map<String, Feature>> results = callConcurrently(new Callable<Map<String, Feature>>() {
+            public Map<String, Feature> call() {
+                return proxy.readAll();
+            }
+        });
+        Assert.assertEquals(1, store.reads.get());
+        for (Map<String, Feature> features : results) {
+            Assert.assertTrue(features.containsKey("f1"));
+        }
+    }
+
+    @Test
+    public void testConcurrentReadGroupCoalesced() throws Exception {
+        callConcurrently(new Callable<Map<String, Feature>>() {
+            public Map<String, Feature> call() {
+                return proxy.readGroup("g1");
+            }
+        });
+        Assert.assertEquals(1, store.groupReads.get());
+    }
+
+    @Test
+    public void testFailureSharedAndNotCached() throws Exception {
+        store.release.countDown();
+        try {
+            proxy.read("invalid");
+            Assert.fail();
+        } catch (FeatureNotFoundException fnfe) {
+            // expected
+        }
+        store.create(new Feature("invalid", true));
+        Assert.assertTrue(proxy.read("invalid").isEnable());
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.cache.CacheClock;
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.InMemoryCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.core.FeatureStore;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.ff4j.test.store.AbstractStoreTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing store snapshot mode of {@link FeatureStoreCacheProxy} : the whole store contract must be fulfilled.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class StoreSnapshotCacheTest extends AbstractStoreTest {
+
+    /**
+     * Store counting bulk reads.
+     */
+    private static class CountingStore extends InMemoryFeatureStore {
+
+        /** number of readAll. */
+        private final AtomicInteger readAlls = new AtomicInteger();
+
+        /**
+         * Load from file.
+         */
+        private CountingStore(String fileName) {
+            super(fileName);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Map<String, Feature> readAll() {
+            readAlls.incrementAndGet();
+            return super.readAll();
+        }
+    }
+
+    /**
+     * Clock driven by test.
+     */
+    private static class ManualClock extends CacheClock {
+
+        /** current time. */
+        private long time = 0;
+
+        /** {@inheritDoc} */
+        @Override
+        public long now() {
+            return time;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public FeatureStore initStore() {
+        FeatureStoreCacheProxy proxy = new FeatureStoreCacheProxy(new CountingStore("ff4j.xml"), new InMemoryCacheManager());
+        proxy.setStoreSnapshotEnabled(true);
+        return proxy;
+    }
+
+    @Test
+    public void testBulkReadsServedFromSnapshot() {
+        FeatureStoreCacheProxy proxy = (FeatureStoreCacheProxy) testedStore;
+        CountingStore store = (CountingStore) proxy.getTarget();
+        int before = store.readAlls.get();
+        proxy.readAll();
+        proxy.readAll();
+        proxy.readAllGroups();
+        Assert.assertTrue(proxy.existGroup(G1));
+        Assert.assertFalse(proxy.readGroup(G1).isEmpty());
+        Assert.assertEquals(before + 1, store.readAlls.get());
+    }
+
+    @Test
+    public void testSnapshotInvalidatedOnModification() {
+        FeatureStoreCacheProxy proxy = (FeatureStoreCacheProxy) testedStore;
+        CountingStore store = (CountingStore) proxy.getTarget();
+        Assert.assertFalse(proxy.existGroup("newGroup"));
+        int before = store.readAlls.get();
+        proxy.addToGroup(F1, "newGroup");
+        Assert.assertTrue(proxy.existGroup("newGroup"));
+        Assert.assertTrue(proxy.readGroup("newGroup").containsKey(F1));
+        Assert.assertEquals(before + 1, store.readAlls.get());
+    }
+
+    @Test
+    public void testReturnedMapsAreCopies() {
+        FeatureStoreCacheProxy proxy = (FeatureStoreCacheProxy) testedStore;
+        int size = proxy.readAll().size();
+        proxy.readAll().clear();
+        Assert.assertEquals(size, proxy.readAll().size());
+    }
+
+    @Test
+    public void testSnapshotReloadedOnceExpired() {
+        FeatureStoreCacheProxy proxy = (FeatureStoreCacheProxy) testedStore;
+        CountingStore store = (CountingStore) proxy.getTarget();
+        ManualClock clock = new ManualClock();
+        proxy.setClock(clock);
+        proxy.setStoreSnapshotMaxAge(1000);
+        // Drop snapshot loaded with previous clock
+        proxy.setStoreSnapshotEnabled(true);
+        Assert.assertFalse(proxy.existGroup("newGroup"));
+        int before = store.readAlls.get();
+        // Modification not going through the proxy
+        store.addToGroup(F1, "newGroup");
+        clock.time = 999;
+        Assert.assertFalse(proxy.existGroup("newGroup"));
+        Assert.assertEquals(before, store.readAlls.get());
+        clock.time = 1000;
+        Assert.assertTrue(proxy.existGroup("newGroup"));
+        Assert.assertTrue(proxy.readGroup("newGroup").containsKey(F1));
+        Assert.assertEquals(before + 1, store.readAlls.get());
+    }
+
+}
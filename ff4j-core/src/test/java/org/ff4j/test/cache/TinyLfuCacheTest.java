@@ -0,0 +1,185 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.cache.CacheClock;
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.TinyLfuCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.core.FeatureStore;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.ff4j.test.store.AbstractStoreTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing class of {@link TinyLfuCacheManager} class.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class TinyLfuCacheTest extends AbstractStoreTest {
+
+    /**
+     * Clock moved manually.
+     */
+    private static class ManualClock extends CacheClock {
+
+        /** current time. */
+        private long time = 0;
+
+        /** {@inheritDoc} */
+        @Override
+        public long now() {
+            return time;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public FeatureStore initStore() {
+        return new FeatureStoreCacheProxy(new InMemoryFeatureStore("ff4j.xml"), new TinyLfuCacheManager());
+    }
+
+    @Test
+    public void testBoundedSize() {
+        TinyLfuCacheManager fcm = new TinyLfuCacheManager(100);
+        for (int i = 0; i < 1000; i++) {
+            fcm.put(new Feature("f" + i));
+        }
+        Assert.assertTrue(fcm.size() <= 100);
+        Assert.assertEquals(100, fcm.getMaximumSize());
+        Assert.assertNotNull(fcm.getNativeCache());
+    }
+
+    @Test
+    public void testFrequentEntriesKept() {
+        TinyLfuCacheManager fcm = new TinyLfuCacheManager(100);
+        for (int i = 0; i < 100; i++) {
+            fcm.put(new Feature("hot" + i));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                fcm.get("hot" + i);
+            }
+        }
+        // Burst of one-time keys
+        for (int i = 0; i < 1000; i++) {
+            fcm.put(new Feature("cold" + i));
+        }
+        int hotKept = 0;
+        for (int i = 0; i < 100; i++) {
+            if (fcm.get("hot" + i) != null) {
+                hotKept++;
+            }
+        }
+        Assert.assertTrue("Only " + hotKept + " hot entries kept", hotKept >= 90);
+    }
+
+    @Test
+    public void testTimeToLiveAndTimeToIdle() {
+        ManualClock clock = new ManualClock();
+        TinyLfuCacheManager fcm = new TinyLfuCacheManager(10, clock);
+        fcm.setTtl(10);
+        fcm.setTimeToIdle(3);
+        Assert.assertEquals(10, fcm.getTtl());
+        Assert.assertEquals(3, fcm.getTimeToIdle());
+        fcm.put(new Feature("f1"));
+        fcm.put(new Feature("f2"));
+        clock.time = 2000;
+        Assert.assertNotNull(fcm.get("f1"));
+        clock.time = 4000;
+        // f2 not read since 4s
+        Assert.assertNull(fcm.get("f2"));
+        Assert.assertNotNull(fcm.get("f1"));
+        clock.time = 6000;
+        Assert.assertNotNull(fcm.get("f1"));
+        clock.time = 8000;
+        Assert.assertNotNull(fcm.get("f1"));
+        clock.time = 10000;
+        // read recently but older than ttl
+        Assert.assertNull(fcm.get("f1"));
+        Assert.assertEquals(0, fcm.size());
+    }
+
+    @Test
+    public void testEvictAndClear() {
+        TinyLfuCacheManager fcm = new TinyLfuCacheManager(10);
+        for (int i = 0; i < 10; i++) {
+            fcm.put(new Feature("f" + i));
+        }
+        fcm.evict("f1");
+        Assert.assertNull(fcm.get("f1"));
+        fcm.put(new Feature("f1", true));
+        Assert.assertTrue(fcm.get("f1").isEnable());
+        fcm.clear();
+        Assert.assertEquals(0, fcm.size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final TinyLfuCacheManager fcm = new TinyLfuCacheManager(50);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] threads = new Thread[32];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 5000; i++) {
+                            String key = "f" + ((i * 31 + seed) % 200);
+                            if (i % 4 == 0) {
+                                fcm.put(new Feature(key));
+                            } else if (i % 50 == 0) {
+                                fcm.evict(key);
+                            } else {
+                                Feature f = fcm.get(key);
+                                if (f != null && !key.equals(f.getUid())) {
+                                    errors.incrementAndGet();
+                                }
+                            }
+                        }
+                    } catch (RuntimeException re) {
+                        errors.incrementAndGet();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, errors.get());
+        Assert.assertTrue(fcm.size() <= 50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutNullisIlegal() {
+        new TinyLfuCacheManager().put(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new TinyLfuCacheManager(0);
+    }
+
+}
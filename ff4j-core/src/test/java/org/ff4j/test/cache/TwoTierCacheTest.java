@@ -0,0 +1,89 @@
+package org.ff4j.test.cache;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.ff4j.cache.FeatureStoreCacheProxy;
+import org.ff4j.cache.InMemoryCacheManager;
+import org.ff4j.cache.TwoTierCacheManager;
+import org.ff4j.core.Feature;
+import org.ff4j.core.FeatureStore;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.ff4j.test.store.AbstractStoreTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing class of {@link TwoTierCacheManager} class.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class TwoTierCacheTest extends AbstractStoreTest {
+
+    /** {@inheritDoc} */
+    @Override
+    public FeatureStore initStore() {
+        return new FeatureStoreCacheProxy(new InMemoryFeatureStore("ff4j.xml"), new TwoTierCacheManager(new InMemoryCacheManager()));
+    }
+
+    @Test
+    public void testReadThroughL1() {
+        InMemoryCacheManager l2 = new InMemoryCacheManager();
+        TwoTierCacheManager fcm = new TwoTierCacheManager(l2);
+        l2.put(new Feature("f1", true));
+        Assert.assertTrue(fcm.get("f1").isEnable());
+        Assert.assertNotNull(fcm.getL1().get("f1"));
+        Assert.assertTrue(fcm.get("f1").isEnable());
+        Assert.assertNull(fcm.get("f2"));
+        Assert.assertEquals(1, fcm.getL1HitCount());
+        Assert.assertEquals(2, fcm.getL1MissCount());
+        Assert.assertEquals(2, fcm.getL2ReadCount());
+        Assert.assertEquals(1.0 / 3, fcm.getL1HitRatio(), 0.0001);
+        Assert.assertTrue(fcm.getL2AverageLatency() >= 0);
+        fcm.resetStatistics();
+        Assert.assertEquals(0, fcm.getL1HitRatio(), 0);
+        Assert.assertEquals(0, fcm.getL2AverageLatency());
+    }
+
+    @Test
+    public void testEvictPropagated() {
+        InMemoryCacheManager l1 = new InMemoryCacheManager();
+        InMemoryCacheManager l2 = new InMemoryCacheManager();
+        TwoTierCacheManager fcm = new TwoTierCacheManager(l1, l2);
+        fcm.put(new Feature("f1", true));
+        fcm.put(new Feature("f2", true));
+        Assert.assertNotNull(l1.get("f1"));
+        Assert.assertNotNull(l2.get("f1"));
+        fcm.evict("f1");
+        Assert.assertNull(l1.get("f1"));
+        Assert.assertNull(l2.get("f1"));
+        fcm.clear();
+        Assert.assertNull(l1.get("f2"));
+        Assert.assertNull(l2.get("f2"));
+        Assert.assertSame(l2.getNativeCache(), fcm.getNativeCache());
+        Assert.assertNotNull(fcm.getCacheProviderName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullL2() {
+        new TwoTierCacheManager(null);
+    }
+
+}
@@ -25,7 +25,13 @@ package org.ff4j.test.parser;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
 
@@ -106,5 +112,61 @@ public class FeatureXmlParserTest {
         Assert.assertEquals(features.size(), features2.size());
     }
 
+    @Test
+    public void testLoadLargeStream() {
+        int count = 20000;
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<features>\n");
+        sb.append(" <feature-group name=\"big\">\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("  <feature uid=\"f" + i + "\" enable=\"" + (i % 2 == 0) + "\">");
+            sb.append("<flipstrategy class=\"org.ff4j.strategy.PonderationStrategy\">");
+            sb.append("<param name=\"weight\" value=\"0.5\" /></flipstrategy>");
+            sb.append("<security><role name=\"USER\" /></security></feature>\n");
+        }
+        sb.append(" </feature-group>\n</features>");
+        Map<String, Feature> features = new FeatureXmlParser().parseConfigurationFile(new ByteArrayInputStream(sb.toString()
+                .getBytes()));
+        Assert.assertEquals(count, features.size());
+        Feature last = features.get("f" + (count - 1));
+        Assert.assertFalse(last.isEnable());
+        Assert.assertEquals("big", last.getGroup());
+        Assert.assertEquals("0.5", last.getFlippingStrategy().getInitParams().get("weight"));
+        Assert.assertTrue(last.getPermissions().contains("USER"));
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        final FeatureXmlParser parser = new FeatureXmlParser();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Map<String, Feature>>> results = new ArrayList<Future<Map<String, Feature>>>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(new Callable<Map<String, Feature>>() {
+                    public Map<String, Feature> call() throws Exception {
+                        InputStream in = getClass().getClassLoader().getResourceAsStream("test-featureXmlParserTest-ok.xml");
+                        try {
+                            return parser.parseConfigurationFile(in);
+                        } finally {
+                            in.close();
+                        }
+                    }
+                }));
+            }
+            for (Future<Map<String, Feature>> result : results) {
+                Map<String, Feature> features = result.get();
+                Assert.assertEquals(7, features.size());
+                Assert.assertEquals("A | B", features.get("f0").getFlippingStrategy().getInitParams().get("expression"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStrategyClass() {
+        String xml = "<features><feature uid=\"f1\" enable=\"true\"><flipstrategy class=\"java.lang.String\" />"
+                + "</feature></features>";
+        new FeatureXmlParser().parseConfigurationFile(new ByteArrayInputStream(xml.getBytes()));
+    }
 
 }
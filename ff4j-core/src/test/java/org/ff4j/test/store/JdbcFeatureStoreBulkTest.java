@@ -0,0 +1,256 @@
+package org.ff4j.test.store;
+
+/*
+ * #%L ff4j-core %% Copyright (C) 2013 Ff4J %% Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License. #L%
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.FF4j;
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureAlreadyExistException;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.store.InMemoryFeatureStore;
+import org.ff4j.store.JdbcFeatureStore;
+import org.ff4j.strategy.PonderationStrategy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Bulk operations of {@link JdbcFeatureStore} are batched in a single transaction.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class JdbcFeatureStoreBulkTest {
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Number of connections borrowed. */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /** Number of statements prepared. */
+    private final AtomicInteger statements = new AtomicInteger();
+
+    /** Tested store. */
+    private JdbcFeatureStore store;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql")
+                .addScript("classpath:ff-store.sql").build();
+        store = new JdbcFeatureStore(new DelegatingDataSource(db) {
+            public Connection getConnection() throws java.sql.SQLException {
+                connections.incrementAndGet();
+                return countStatements(super.getConnection());
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    /**
+     * Count prepareStatement invocations on connection.
+     */
+    private Connection countStatements(final Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("prepareStatement".equals(method.getName())) {
+                            statements.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException ite) {
+                            throw ite.getTargetException();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Build features with roles and strategy.
+     */
+    private List<Feature> buildFeatures(String prefix, int count) {
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < count; i++) {
+            Feature f = new Feature(prefix + i, i % 2 == 0, "description" + i, "GRP" + (i % 10));
+            f.getPermissions().add("USER");
+            f.getPermissions().add("ROLE" + (i % 3));
+            f.setFlippingStrategy(new PonderationStrategy(0.5));
+            features.add(f);
+        }
+        return features;
+    }
+
+    @Test
+    public void testCreateAllBatched() {
+        store.createAll(buildFeatures("bulk", 10000));
+        // existing uids (20 chunks of 500 identifiers), features, roles
+        Assert.assertEquals(1, connections.get());
+        Assert.assertEquals(3, statements.get());
+        Feature f = store.read("bulk42");
+        Assert.assertEquals("GRP2", f.getGroup());
+        Assert.assertEquals(2, f.getPermissions().size());
+        Assert.assertTrue(f.getFlippingStrategy() instanceof PonderationStrategy);
+        Assert.assertEquals(10005, store.readAll().size());
+    }
+
+    @Test
+    public void testCreateAllExistingWritesNothing() {
+        List<Feature> features = buildFeatures("bulk", 5);
+        features.add(new Feature("first", true));
+        try {
+            store.createAll(features);
+            Assert.fail();
+        } catch (FeatureAlreadyExistException faee) {
+            // expected
+        }
+        Assert.assertFalse(store.exist("bulk0"));
+    }
+
+    @Test
+    public void testExistenceCheckedByChunks() {
+        store.createAll(buildFeatures("bulk", 1200));
+        List<Feature> features = buildFeatures("other", 1000);
+        features.add(new Feature("bulk1100", true));
+        try {
+            store.createAll(features);
+            Assert.fail();
+        } catch (FeatureAlreadyExistException faee) {
+            // expected
+        }
+        Assert.assertFalse(store.exist("other0"));
+        List<Feature> upserts = buildFeatures("bulk", 1100);
+        upserts.add(new Feature("first", false, "upserted"));
+        store.upsertAll(upserts);
+        Assert.assertEquals(1205, store.readAll().size());
+        Assert.assertEquals("upserted", store.read("first").getDescription());
+    }
+
+    @Test
+    public void testUpdateAll() {
+        Feature first = new Feature("first", false, "updated", "GRP9");
+        first.getPermissions().add("NEWROLE");
+        Feature forth = new Feature("forth", true, "updated");
+        store.updateAll(Arrays.asList(first, forth));
+        Assert.assertEquals("GRP9", store.read("first").getGroup());
+        Assert.assertFalse(store.read("first").isEnable());
+        Assert.assertEquals(1, store.read("first").getPermissions().size());
+        Assert.assertTrue(store.read("first").getPermissions().contains("NEWROLE"));
+        Assert.assertTrue(store.read("forth").getPermissions().isEmpty());
+        Assert.assertNull(store.read("forth").getFlippingStrategy());
+    }
+
+    @Test(expected = FeatureNotFoundException.class)
+    public void testUpdateAllNotFound() {
+        store.updateAll(Arrays.asList(new Feature("first", true), new Feature("invalid", true)));
+    }
+
+    @Test
+    public void testDeleteAll() {
+        store.deleteAll(Arrays.asList("third", "forth"));
+        Assert.assertFalse(store.exist("third"));
+        Assert.assertFalse(store.exist("forth"));
+        Assert.assertTrue(store.exist("first"));
+    }
+
+    @Test
+    public void testDeleteAllNotFoundWritesNothing() {
+        try {
+            store.deleteAll(Arrays.asList("third", "invalid"));
+            Assert.fail();
+        } catch (FeatureNotFoundException fnfe) {
+            // expected
+        }
+        Assert.assertTrue(store.exist("third"));
+    }
+
+    @Test
+    public void testUpsertAll() {
+        List<Feature> features = buildFeatures("bulk", 100);
+        features.add(new Feature("first", false, "upserted"));
+        store.upsertAll(features);
+        Assert.assertEquals(1, connections.get());
+        Assert.assertEquals("upserted", store.read("first").getDescription());
+        Assert.assertTrue(store.read("first").getPermissions().isEmpty());
+        Assert.assertTrue(store.exist("bulk99"));
+        Assert.assertEquals(105, store.readAll().size());
+    }
+
+    @Test
+    public void testImportThroughFF4j() {
+        FF4j ff4j = new FF4j();
+        ff4j.setStore(store);
+        ff4j.importFeatures(buildFeatures("bulk", 10));
+        Assert.assertTrue(ff4j.exist("bulk9"));
+    }
+
+    @Test
+    public void testReadAllByIds() {
+        List<String> uids = new ArrayList<String>();
+        for (Feature feature : buildFeatures("bulk", 1200)) {
+            uids.add(feature.getUid());
+        }
+        store.createAll(buildFeatures("bulk", 1200));
+        connections.set(0);
+        statements.set(0);
+        uids.add("first");
+        uids.add("missing");
+        Map<String, Feature> features = store.readAll(uids);
+        Assert.assertEquals(1201, features.size());
+        Assert.assertFalse(features.containsKey("missing"));
+        Assert.assertEquals(2, features.get("bulk42").getPermissions().size());
+        // Chunks of 500, 500 and 202 identifiers
+        Assert.assertEquals(1, connections.get());
+        Assert.assertEquals(2, statements.get());
+    }
+
+    @Test
+    public void testCheckAllSingleRead() {
+        FF4j ff4j = new FF4j();
+        ff4j.setStore(store);
+        connections.set(0);
+        Map<String, Boolean> results = ff4j.checkAll(Arrays.asList("first", "second", "third"), null);
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void testDefaultLoopImplementation() {
+        InMemoryFeatureStore memoryStore = new InMemoryFeatureStore();
+        memoryStore.createAll(buildFeatures("bulk", 10));
+        memoryStore.upsertAll(Arrays.asList(new Feature("bulk1", true, "upserted"), new Feature("new", true)));
+        Assert.assertEquals("upserted", memoryStore.read("bulk1").getDescription());
+        memoryStore.deleteAll(Arrays.asList("bulk2", "new"));
+        Assert.assertEquals(9, memoryStore.readAll().size());
+        Map<String, Feature> features = memoryStore.readAll(Arrays.asList("bulk1", "bulk2", "bulk3"));
+        Assert.assertEquals(Arrays.asList("bulk1", "bulk3"), new ArrayList<String>(features.keySet()));
+    }
+
+}
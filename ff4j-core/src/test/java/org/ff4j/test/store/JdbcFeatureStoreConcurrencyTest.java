@@ -0,0 +1,221 @@
+package org.ff4j.test.store;
+
+/*
+ * #%L ff4j-core %% Copyright (C) 2013 Ff4J %% Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License. #L%
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureAccessException;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.store.JdbcFeatureStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * {@link JdbcFeatureStore} borrows a single connection per operation and always gives it back, even under load with a small pool.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class JdbcFeatureStoreConcurrencyTest {
+
+    /** Size of the pool. */
+    private static final int POOL_SIZE = 2;
+
+    /** Number of threads. */
+    private static final int THREADS = 16;
+
+    /** Operations per thread. */
+    private static final int OPERATIONS = 100;
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Bounded pool of connections. */
+    private BoundedDataSource pool;
+
+    /** Tested store. */
+    private JdbcFeatureStore store;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql")
+                .addScript("classpath:ff-store.sql").build();
+        pool = new BoundedDataSource(db, POOL_SIZE);
+        store = new JdbcFeatureStore(pool);
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testOneConnectionPerOperation() {
+        store.read("third");
+        store.update(new Feature("third", true, "updated"));
+        store.enable("first");
+        store.grantRoleOnFeature("first", "ADMIN");
+        store.removeFromGroup("third", "GRP1");
+        store.delete("forth");
+        Assert.assertEquals(6, pool.borrowed.get());
+        Assert.assertEquals(POOL_SIZE, pool.permits.availablePermits());
+    }
+
+    @Test
+    public void testConnectionReleasedOnError() {
+        try {
+            store.read("invalid");
+            Assert.fail();
+        } catch (FeatureNotFoundException fnfe) {
+            // expected
+        }
+        try {
+            store.create(new Feature("first", true));
+            Assert.fail();
+        } catch (RuntimeException re) {
+            // expected
+        }
+        Assert.assertEquals(POOL_SIZE, pool.permits.availablePermits());
+    }
+
+    @Test
+    public void testConcurrentLoadDoesNotExhaustPool() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            results.add(executor.submit(new Callable<Integer>() {
+                public Integer call() {
+                    int done = 0;
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        switch ((thread + i) % 5) {
+                        case 0:
+                            store.read("first");
+                            break;
+                        case 1:
+                            store.readAll();
+                            break;
+                        case 2:
+                            store.enable("second");
+                            break;
+                        case 3:
+                            store.readGroup("GRP1");
+                            break;
+                        default:
+                            Feature f = store.read("forth");
+                            f.setDescription("thread" + thread);
+                            store.update(f);
+                            done++;
+                        }
+                        done++;
+                    }
+                    return done;
+                }
+            }));
+        }
+        int operations = 0;
+        for (Future<Integer> result : results) {
+            operations += result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        Assert.assertEquals(operations, pool.borrowed.get());
+        Assert.assertEquals(POOL_SIZE, pool.permits.availablePermits());
+        Assert.assertTrue(pool.maxInUse.get() <= POOL_SIZE);
+        Assert.assertEquals(2, store.read("forth").getPermissions().size());
+    }
+
+    /**
+     * DataSource giving at most N connections at a time, fail if no connection is released in time.
+     */
+    private static class BoundedDataSource extends DelegatingDataSource {
+
+        /** Free connections. */
+        private final Semaphore permits;
+
+        /** Size of pool. */
+        private final int size;
+
+        /** Number of connections borrowed. */
+        private final AtomicInteger borrowed = new AtomicInteger();
+
+        /** Max number of connections used at the same time. */
+        private final AtomicInteger maxInUse = new AtomicInteger();
+
+        private BoundedDataSource(EmbeddedDatabase db, int size) {
+            super(db);
+            this.size = size;
+            this.permits = new Semaphore(size);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try {
+                if (!permits.tryAcquire(5, TimeUnit.SECONDS)) {
+                    throw new FeatureAccessException("Pool exhausted, connections are leaking");
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for connection");
+            }
+            borrowed.incrementAndGet();
+            int inUse = size - permits.availablePermits();
+            int max = maxInUse.get();
+            while (inUse > max && !maxInUse.compareAndSet(max, inUse)) {
+                max = maxInUse.get();
+            }
+            return release(super.getConnection());
+        }
+
+        /**
+         * Give permit back when connection is closed.
+         */
+        private Connection release(final Connection target) {
+            final AtomicBoolean closed = new AtomicBoolean(false);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                    new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException ite) {
+                                throw ite.getTargetException();
+                            } finally {
+                                if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                                    permits.release();
+                                }
+                            }
+                        }
+                    });
+        }
+    }
+
+}
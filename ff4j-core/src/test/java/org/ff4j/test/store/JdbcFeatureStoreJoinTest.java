@@ -0,0 +1,124 @@
+package org.ff4j.test.store;
+
+/*
+ * #%L ff4j-core %% Copyright (C) 2013 Ff4J %% Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License. #L%
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.exception.GroupNotFoundException;
+import org.ff4j.store.JdbcFeatureStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Reads of {@link JdbcFeatureStore} fetch features and roles in a single query.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class JdbcFeatureStoreJoinTest {
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Number of statements prepared. */
+    private final AtomicInteger statements = new AtomicInteger();
+
+    /** Tested store. */
+    private JdbcFeatureStore store;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql")
+                .addScript("classpath:ff-store.sql").build();
+        store = new JdbcFeatureStore(new DelegatingDataSource(db) {
+            public Connection getConnection() throws java.sql.SQLException {
+                return countStatements(super.getConnection());
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    /**
+     * Count prepareStatement invocations on connection.
+     */
+    private Connection countStatements(final Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("prepareStatement".equals(method.getName())) {
+                            statements.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException ite) {
+                            throw ite.getTargetException();
+                        }
+                    }
+                });
+    }
+
+    @Test
+    public void testReadSingleQuery() {
+        Feature third = store.read("third");
+        Assert.assertEquals(1, statements.get());
+        Assert.assertEquals(2, third.getPermissions().size());
+        Assert.assertTrue(third.getPermissions().contains("BETA-TESTER"));
+        // Feature without roles
+        Assert.assertTrue(store.read("AwesomeFeature").getPermissions().isEmpty());
+    }
+
+    @Test
+    public void testReadAllSingleQuery() {
+        Map<String, Feature> features = store.readAll();
+        Assert.assertEquals(1, statements.get());
+        Assert.assertEquals(5, features.size());
+        Assert.assertEquals(2, features.get("forth").getPermissions().size());
+        Assert.assertEquals(1, features.get("first").getPermissions().size());
+    }
+
+    @Test
+    public void testReadGroupSingleQuery() {
+        Map<String, Feature> features = store.readGroup("GRP1");
+        Assert.assertEquals(1, statements.get());
+        Assert.assertEquals(2, features.size());
+        Assert.assertEquals(2, features.get("third").getPermissions().size());
+        Assert.assertFalse(features.containsKey("first"));
+    }
+
+    @Test(expected = FeatureNotFoundException.class)
+    public void testReadNotFound() {
+        store.read("invalid");
+    }
+
+    @Test(expected = GroupNotFoundException.class)
+    public void testReadGroupNotFound() {
+        store.readGroup("invalid");
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.ff4j.test.store;
+
+/*
+ * #%L ff4j-core %% Copyright (C) 2013 Ff4J %% Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License. #L%
+ */
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.ff4j.core.Feature;
+import org.ff4j.store.JdbcFeatureStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Versions maintained by {@link JdbcFeatureStore} let pollers read only changes.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class JdbcFeatureStoreVersionTest {
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Tested store. */
+    private JdbcFeatureStore store;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql")
+                .addScript("classpath:ff-store.sql").build();
+        store = new JdbcFeatureStore(db);
+        store.setVersioned(true);
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testInitialFeaturesAreVersionZero() {
+        Assert.assertEquals(0, store.getVersion());
+        Assert.assertEquals(5, store.readChangedSince(-1).size());
+        Assert.assertTrue(store.readChangedSince(0).isEmpty());
+        Assert.assertTrue(store.readDeletedSince(0).isEmpty());
+    }
+
+    @Test
+    public void testMutationsAreVersioned() {
+        long start = store.getVersion();
+        store.enable("second");
+        store.grantRoleOnFeature("first", "ADMIN");
+        long afterTwo = store.getVersion();
+        Assert.assertEquals(start + 2, afterTwo);
+
+        Map<String, Feature> changed = store.readChangedSince(start);
+        Assert.assertEquals(2, changed.size());
+        Assert.assertTrue(changed.get("second").isEnable());
+        Assert.assertTrue(changed.get("first").getPermissions().contains("ADMIN"));
+
+        store.update(new Feature("third", true, "updated"));
+        changed = store.readChangedSince(afterTwo);
+        Assert.assertEquals(1, changed.size());
+        Assert.assertEquals("updated", changed.get("third").getDescription());
+    }
+
+    @Test
+    public void testGroupToggleVersionsAllMembers() {
+        long start = store.getVersion();
+        store.enableGroup("GRP1");
+        Map<String, Feature> changed = store.readChangedSince(start);
+        Assert.assertEquals(2, changed.size());
+        Assert.assertTrue(changed.containsKey("third"));
+        Assert.assertTrue(changed.containsKey("forth"));
+    }
+
+    @Test
+    public void testDeletionsAreTracked() {
+        long start = store.getVersion();
+        store.delete("forth");
+        store.deleteAll(Arrays.asList("first"));
+        Assert.assertEquals(2, store.readDeletedSince(start).size());
+        Assert.assertTrue(store.readChangedSince(start).isEmpty());
+
+        // Created again : not deleted anymore
+        long afterDelete = store.getVersion();
+        store.create(new Feature("forth", true));
+        Assert.assertEquals(1, store.readDeletedSince(start).size());
+        Assert.assertTrue(store.readChangedSince(afterDelete).containsKey("forth"));
+    }
+
+    @Test
+    public void testPurgeDeletedBefore() {
+        store.delete("forth");
+        long afterFirst = store.getVersion() + 1;
+        store.delete("first");
+        Assert.assertEquals(1, store.purgeDeletedBefore(afterFirst));
+        Assert.assertEquals(1, store.readDeletedSince(0).size());
+        Assert.assertTrue(store.readDeletedSince(0).contains("first"));
+        Assert.assertEquals(0, store.purgeDeletedBefore(afterFirst));
+        Assert.assertEquals(1, store.purgeDeletedBefore(store.getVersion() + 1));
+        Assert.assertTrue(store.readDeletedSince(0).isEmpty());
+    }
+
+    @Test
+    public void testBulkUsesSingleVersion() {
+        long start = store.getVersion();
+        store.upsertAll(Arrays.asList(new Feature("first", false), new Feature("new1", true), new Feature("new2", true)));
+        Assert.assertEquals(start + 1, store.getVersion());
+        Assert.assertEquals(3, store.readChangedSince(start).size());
+    }
+
+    @Test
+    public void testConcurrentMutationsGetDistinctVersions() throws Exception {
+        final int count = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < count; i++) {
+            final int idx = i;
+            executor.submit(new Runnable() {
+                public void run() {
+                    store.create(new Feature("concurrent" + idx, true));
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        Assert.assertEquals(count, store.getVersion());
+        Assert.assertEquals(count, store.readChangedSince(0).size());
+        Assert.assertEquals(1, store.readChangedSince(count - 1).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotVersioned() {
+        store.setVersioned(false);
+        store.readChangedSince(0);
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.ff4j.test.utils;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.ff4j.core.Feature;
+import org.ff4j.strategy.PonderationStrategy;
+import org.ff4j.utils.FeatureBinaryCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for binary encoding of features : {@link FeatureBinaryCodec}
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FeatureBinaryCodecTest {
+
+    @Test
+    public void testRoundTripFullFeature() {
+        Feature f = new Feature("f1", true, "desc with \"quotes\", commas : and accents éè", "group1",
+                Arrays.asList("ROLE_A", "ROLE_B"), new PonderationStrategy(0.3));
+        Feature decoded = FeatureBinaryCodec.decode(FeatureBinaryCodec.encode(f));
+        Assert.assertEquals(f.getUid(), decoded.getUid());
+        Assert.assertTrue(decoded.isEnable());
+        Assert.assertEquals(f.getDescription(), decoded.getDescription());
+        Assert.assertEquals(f.getGroup(), decoded.getGroup());
+        Assert.assertEquals(f.getPermissions(), decoded.getPermissions());
+        Assert.assertEquals(PonderationStrategy.class, decoded.getFlippingStrategy().getClass());
+        Assert.assertEquals(f.getFlippingStrategy().getInitParams(), decoded.getFlippingStrategy().getInitParams());
+    }
+
+    @Test
+    public void testRoundTripMinimalFeature() {
+        Feature f = new Feature("f2");
+        byte[] bytes = FeatureBinaryCodec.toBytes(f);
+        Assert.assertEquals(FeatureBinaryCodec.encodedSize(f), bytes.length);
+        Feature decoded = FeatureBinaryCodec.fromBytes(bytes);
+        Assert.assertEquals("f2", decoded.getUid());
+        Assert.assertFalse(decoded.isEnable());
+        Assert.assertNull(decoded.getDescription());
+        Assert.assertNull(decoded.getGroup());
+        Assert.assertTrue(decoded.getPermissions().isEmpty());
+        Assert.assertNull(decoded.getFlippingStrategy());
+    }
+
+    @Test
+    public void testSeveralFeaturesInSameBuffer() {
+        Feature f1 = new Feature("f1", true, "first");
+        Feature f2 = new Feature("f2", false, "second");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(FeatureBinaryCodec.encodedSize(f1) + FeatureBinaryCodec.encodedSize(f2));
+        FeatureBinaryCodec.encode(f1, buffer);
+        FeatureBinaryCodec.encode(f2, buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        Assert.assertEquals("f1", FeatureBinaryCodec.decode(buffer).getUid());
+        Assert.assertEquals("second", FeatureBinaryCodec.decode(buffer).getDescription());
+    }
+
+    @Test
+    public void testLongValues() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("description ");
+        }
+        Feature f = new Feature("f3", true, sb.toString());
+        Assert.assertEquals(sb.toString(), FeatureBinaryCodec.fromBytes(FeatureBinaryCodec.toBytes(f)).getDescription());
+    }
+
+    @Test
+    public void testSmallerThanJson() {
+        Feature f = new Feature("f1", true, "description", "group1", Arrays.asList("ROLE_A"), new PonderationStrategy(0.3));
+        Assert.assertTrue(FeatureBinaryCodec.encodedSize(f) < f.toString().length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownVersion() {
+        byte[] bytes = FeatureBinaryCodec.toBytes(new Feature("f1"));
+        bytes[0] = 99;
+        FeatureBinaryCodec.fromBytes(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        byte[] bytes = FeatureBinaryCodec.toBytes(new Feature("f1", true, "description"));
+        FeatureBinaryCodec.fromBytes(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullFeature() {
+        FeatureBinaryCodec.encode(null);
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.ff4j.test.utils;
+
+/*
+ * #%L
+ * ff4j-core
+ * %%
+ * Copyright (C) 2013 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.ff4j.core.Feature;
+import org.ff4j.strategy.PonderationStrategy;
+import org.ff4j.utils.FeatureJsonMarshaller;
+import org.ff4j.utils.FeatureJsonReader;
+import org.ff4j.utils.FeatureJsonWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for streaming JSON : {@link FeatureJsonReader} and {@link FeatureJsonWriter}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class FeatureJsonStreamTest {
+
+    /** Jackson Mapper. */
+    protected ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Build feature with all attributes.
+     */
+    private Feature buildFeature(String uid) {
+        Feature feature = new Feature(uid, true, "desc \"quoted\" with \\ and\nnew line", "grp,1");
+        feature.setPermissions(new HashSet<String>(Arrays.asList("ROLE_A", "ROLE_\"B\"")));
+        feature.setFlippingStrategy(new PonderationStrategy(0.5));
+        return feature;
+    }
+
+    @Test
+    public void testRoundTripWithSpecialChars() throws Exception {
+        Feature source = buildFeature("f:1,{x}");
+        StringWriter out = new StringWriter();
+        new FeatureJsonWriter(out).writeFeature(source);
+        // Output is valid JSON
+        Assert.assertNotNull(mapper.readTree(out.toString()));
+
+        Feature target = new FeatureJsonReader(new StringReader(out.toString())).readFeature();
+        Assert.assertEquals(source.getUid(), target.getUid());
+        Assert.assertEquals(source.getDescription(), target.getDescription());
+        Assert.assertEquals(source.getGroup(), target.getGroup());
+        Assert.assertEquals(source.getPermissions(), target.getPermissions());
+        Assert.assertTrue(target.isEnable());
+        Assert.assertEquals(PonderationStrategy.class, target.getFlippingStrategy().getClass());
+        Assert.assertEquals(source.getFlippingStrategy().getInitParams(), target.getFlippingStrategy().getInitParams());
+    }
+
+    @Test
+    public void testStreamLargeArray() throws Exception {
+        int count = 5000;
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < count; i++) {
+            features.add(buildFeature("f" + i));
+        }
+        StringWriter out = new StringWriter();
+        new FeatureJsonWriter(out).writeFeatureArray(features);
+        Assert.assertEquals(out.toString(), FeatureJsonMarshaller.marshallFeatureArray(features.toArray(new Feature[0])));
+
+        FeatureJsonReader reader = new FeatureJsonReader(new StringReader(out.toString()));
+        reader.beginArray();
+        int read = 0;
+        while (reader.hasNext()) {
+            Feature feature = reader.nextFeature();
+            Assert.assertEquals("f" + read, feature.getUid());
+            read++;
+        }
+        reader.endArray();
+        Assert.assertEquals(count, read);
+    }
+
+    @Test
+    public void testReadAnyOrderAndWhitespaces() throws Exception {
+        String json = " [ { \"group\" : null, \"extra\" : {\"a\":[1,2,true]}, \"permissions\" : [ ],"
+                + " \"enable\" : true, \"flippingStrategy\" : null, \"uid\" : \"f\\u0031\" } , null ] ";
+        List<Feature> features = new FeatureJsonReader(new StringReader(json)).readFeatureArray();
+        Assert.assertEquals(2, features.size());
+        Assert.assertEquals("f1", features.get(0).getUid());
+        Assert.assertTrue(features.get(0).isEnable());
+        Assert.assertNull(features.get(0).getGroup());
+        Assert.assertTrue(features.get(0).getPermissions().isEmpty());
+        Assert.assertNull(features.get(1));
+    }
+
+    @Test
+    public void testEmptyArray() throws Exception {
+        StringWriter out = new StringWriter();
+        new FeatureJsonWriter(out).writeFeatureArray(new ArrayList<Feature>());
+        Assert.assertEquals("[]", out.toString());
+        Assert.assertEquals(0, FeatureJsonMarshaller.unMarshallFeatureArray("[ ]").length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingUid() throws Exception {
+        new FeatureJsonReader(new StringReader("{\"enable\":true}")).readFeature();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedInput() throws Exception {
+        new FeatureJsonReader(new StringReader("[{\"uid\":\"f1\",\"enable\":tr")).readFeatureArray();
+    }
+
+}
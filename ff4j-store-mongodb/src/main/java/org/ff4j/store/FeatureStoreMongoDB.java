@@ -11,6 +11,9 @@ package org.ff4j.store;
  * governing permissions and limitations under the License. #L%
  */
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -18,6 +21,8 @@ import java.util.Set;
 
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
+import org.ff4j.core.FeatureVisitor;
+import org.ff4j.core.VisitableFeatureStore;
 import org.ff4j.exception.FeatureAlreadyExistException;
 import org.ff4j.exception.FeatureNotFoundException;
 import org.ff4j.exception.GroupNotFoundException;
@@ -28,7 +33,10 @@ import org.ff4j.store.mongodb.FeatureStoreMongoConstants;
 import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
 
 /**
  * Implementation of {@link FeatureStore} to work with MongoDB.
@@ -36,7 +44,7 @@ import com.mongodb.DBObject;
  * @author William Delanoue (@twillouer) </a>
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
-public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConstants {
+public class FeatureStoreMongoDB extends AbstractFeatureStore implements VisitableFeatureStore, FeatureStoreMongoConstants {
 
     /** Map from DBObject to Feature. */
     private static final FeatureDBObjectMapper MAPPER = new FeatureDBObjectMapper();
@@ -44,6 +52,12 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
     /** Build fields. */
     private static final FeatureDBObjectBuilder BUILDER = new FeatureDBObjectBuilder();
 
+    /** Error code of mongo when inserting an existing identifier. */
+    private static final int ERROR_DUPLICATE_KEY = 11000;
+
+    /** Error code of mongo when inserting an existing identifier (older servers). */
+    private static final int ERROR_DUPLICATE_KEY_LEGACY = 11001;
+
     /** MongoDB collection. */
     private final DBCollection collection;
 
@@ -81,12 +95,26 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
         DBObject target = BUILDER.getFeatUid(uid);
         Object enabledd = BUILDER.getEnable(enable);
-        collection.update(target, BasicDBObjectBuilder.start(MONGO_SET, enabledd).get());
+        updateExisting(uid, target, BasicDBObjectBuilder.start(MONGO_SET, enabledd).get());
+    }
+
+    /**
+     * Update a single feature, existence is given by the number of matched documents (no extra count). The write is acknowledged
+     * whatever the default write concern of the collection, otherwise the count is not known.
+     * 
+     * @param uid
+     *            feature identifier
+     * @param target
+     *            query
+     * @param update
+     *            modifications
+     */
+    private void updateExisting(String uid, DBObject target, DBObject update) {
+        if (collection.update(target, update, false, false, WriteConcern.ACKNOWLEDGED).getN() == 0) {
+            throw new FeatureNotFoundException(uid);
+        }
     }
 
     /** {@inheritDoc} */
@@ -114,10 +142,15 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (fp == null) {
             throw new IllegalArgumentException("Feature cannot be null nor empty");
         }
-        if (exist(fp.getUid())) {
-            throw new FeatureAlreadyExistException(fp.getUid());
+        // Identifier is the primary key : existence is checked by the insert itself
+        try {
+            collection.insert(MAPPER.toDBObject(fp), WriteConcern.ACKNOWLEDGED);
+        } catch (MongoException mongoEx) {
+            if (mongoEx.getCode() == ERROR_DUPLICATE_KEY || mongoEx.getCode() == ERROR_DUPLICATE_KEY_LEGACY) {
+                throw new FeatureAlreadyExistException(fp.getUid());
+            }
+            throw mongoEx;
         }
-        collection.save(MAPPER.toDBObject(fp));
     }
 
     /** {@inheritDoc} */
@@ -126,10 +159,9 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier cannot be null nor empty");
         }
-        if (!exist(uid)) {
+        if (collection.remove(BUILDER.getFeatUid(uid), WriteConcern.ACKNOWLEDGED).getN() == 0) {
             throw new FeatureNotFoundException(uid);
         }
-        collection.remove(BUILDER.getFeatUid(uid));
     }
 
     /** {@inheritDoc} */
@@ -141,10 +173,7 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (roleName == null || roleName.isEmpty()) {
             throw new IllegalArgumentException("roleName cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        collection.update(BUILDER.getFeatUid(uid), new BasicDBObject("$addToSet", BUILDER.getRoles(roleName)));
+        updateExisting(uid, BUILDER.getFeatUid(uid), new BasicDBObject(MONGO_ADD_TO_SET, BUILDER.getRoles(roleName)));
     }
 
     /** {@inheritDoc} */
@@ -156,10 +185,7 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (roleName == null || roleName.isEmpty()) {
             throw new IllegalArgumentException("roleName cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
-        collection.update(BUILDER.getFeatUid(uid), new BasicDBObject("$pull", BUILDER.getRoles(roleName)));
+        updateExisting(uid, BUILDER.getFeatUid(uid), new BasicDBObject(MONGO_PULL, BUILDER.getRoles(roleName)));
     }
 
     /** {@inheritDoc} */
@@ -173,22 +199,62 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         return mapFP;
     }
 
+    /**
+     * Read several features with a single query on identifiers.
+     * 
+     * @param featureIds
+     *            identifiers of features to read
+     * @return features found indexed by identifier
+     */
+    @Override
+    public Map<String, Feature> readAll(Collection<String> featureIds) {
+        assertNotNull(featureIds);
+        for (String uid : featureIds) {
+            assertUid(uid);
+        }
+        LinkedHashMap<String, Feature> mapFP = new LinkedHashMap<String, Feature>();
+        if (featureIds.isEmpty()) {
+            return mapFP;
+        }
+        DBObject query = new BasicDBObject(UUID, new BasicDBObject(MONGO_IN, new ArrayList<String>(featureIds)));
+        for (DBObject dbObject : collection.find(query)) {
+            Feature feature = MAPPER.mapFeature(dbObject);
+            mapFP.put(feature.getUid(), feature);
+        }
+        return mapFP;
+    }
+
+    /**
+     * Iterate over features with a cursor, documents are mapped one at a time. Documents are not sorted : there is no index on
+     * group name and sorting would load the whole collection in server memory.
+     * 
+     * @param visitor
+     *            callback for each feature
+     * @throws IOException
+     *             error raised by visitor
+     */
+    @Override
+    public void visitAll(FeatureVisitor visitor) throws IOException {
+        DBCursor cursor = collection.find();
+        try {
+            while (cursor.hasNext()) {
+                visitor.visit(MAPPER.mapFeature(cursor.next()));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void update(Feature fp) {
         if (fp == null) {
             throw new IllegalArgumentException("Feature cannot be null nor empty");
         }
-        Feature fpExist = read(fp.getUid());
-        collection.save(MAPPER.toDBObject(fp));
-        // enable/disable
-        if (fp.isEnable() != fpExist.isEnable()) {
-            if (fp.isEnable()) {
-                enable(fp.getUid());
-            } else {
-                disable(fp.getUid());
-            }
-        }
+        // All fields are set at once, only if document exists
+        DBObject fields = MAPPER.toDBObject(fp);
+        fields.removeField(UUID);
+        updateExisting(fp.getUid(), BUILDER.getFeatUid(fp.getUid()), new BasicDBObject(MONGO_SET, fields));
     }
 
     /** {@inheritDoc} */
@@ -235,13 +301,7 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!existGroup(groupName)) {
-            throw new GroupNotFoundException(groupName);
-        }
-        for (DBObject dbObject : collection.find(BUILDER.getGroupName(groupName))) {
-            Object enabledd = BUILDER.getEnable(true);
-            collection.update(dbObject, BasicDBObjectBuilder.start(MONGO_SET, enabledd).get());
-        }
+        updateGroup(groupName, true);
     }
 
     /** {@inheritDoc} */
@@ -250,13 +310,22 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!existGroup(groupName)) {
+        updateGroup(groupName, false);
+    }
+
+    /**
+     * Enable or disable all features of group with a single multi-document update.
+     * 
+     * @param groupName
+     *            target group name
+     * @param enable
+     *            new status
+     */
+    private void updateGroup(String groupName, boolean enable) {
+        DBObject update = BasicDBObjectBuilder.start(MONGO_SET, BUILDER.getEnable(enable)).get();
+        if (collection.update(BUILDER.getGroupName(groupName), update, false, true, WriteConcern.ACKNOWLEDGED).getN() == 0) {
             throw new GroupNotFoundException(groupName);
         }
-        for (DBObject dbObject : collection.find(BUILDER.getGroupName(groupName))) {
-            Object enabledd = BUILDER.getEnable(false);
-            collection.update(dbObject, BasicDBObjectBuilder.start(MONGO_SET, enabledd).get());
-        }
     }
 
     /** {@inheritDoc} */
@@ -268,12 +337,9 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
         DBObject target = BUILDER.getFeatUid(uid);
         DBObject nGroupName = BUILDER.getGroupName(groupName);
-        collection.update(target, BasicDBObjectBuilder.start(MONGO_SET, nGroupName).get());
+        updateExisting(uid, target, BasicDBObjectBuilder.start(MONGO_SET, nGroupName).get());
     }
 
     /** {@inheritDoc} */
@@ -285,15 +351,29 @@ public class FeatureStoreMongoDB implements FeatureStore, FeatureStoreMongoConst
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        if (!exist(uid)) {
-            throw new FeatureNotFoundException(uid);
-        }
         if (!existGroup(groupName)) {
             throw new GroupNotFoundException(groupName);
         }
         DBObject target = BUILDER.getFeatUid(uid);
         DBObject nGroupName = BUILDER.getGroupName("");
-        collection.update(target, BasicDBObjectBuilder.start(MONGO_SET, nGroupName).get());
+        updateExisting(uid, target, BasicDBObjectBuilder.start(MONGO_SET, nGroupName).get());
+    }
+
+    /**
+     * Each feature is written with a single upsert (replacement of whole document), without existence check.
+     * 
+     * @param features
+     *            features to save
+     */
+    @Override
+    public void upsertAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+        }
+        for (Feature feature : features) {
+            collection.update(BUILDER.getFeatUid(feature.getUid()), MAPPER.toDBObject(feature), true, false);
+        }
     }
 
     /** {@inheritDoc} */
@@ -49,4 +49,13 @@ public interface FeatureStoreMongoConstants {
     String ROLES = "roles";
 
     String MONGO_SET = "$set";
+
+    /** Add to array if not present. */
+    String MONGO_ADD_TO_SET = "$addToSet";
+
+    /** Remove from array. */
+    String MONGO_PULL = "$pull";
+
+    /** Match any value of array. */
+    String MONGO_IN = "$in";
 }
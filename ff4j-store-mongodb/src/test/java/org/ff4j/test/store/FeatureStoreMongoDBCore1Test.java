@@ -11,14 +11,23 @@ package org.ff4j.test.store;
  * governing permissions and limitations under the License. #L%
  */
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
+import org.ff4j.core.FeatureVisitor;
 import org.ff4j.core.FlippingStrategy;
+import org.ff4j.exception.FeatureAlreadyExistException;
+import org.ff4j.exception.FeatureNotFoundException;
 import org.ff4j.store.FeatureStoreMongoDB;
 import org.ff4j.utils.ParameterUtils;
+import org.junit.Assert;
 import org.junit.Rule;
+import org.junit.Test;
 
 import com.github.fakemongo.junit.FongoRule;
 
@@ -48,4 +57,80 @@ public class FeatureStoreMongoDBCore1Test extends AbstractStoreJUnitTest {
 
         return storeMongoDB;
     }
+
+    @Test
+    public void testVisitAll() throws IOException {
+        final List<Feature> visited = new ArrayList<Feature>();
+        ((FeatureStoreMongoDB) testedStore).visitAll(new FeatureVisitor() {
+            public void visit(Feature feature) {
+                visited.add(feature);
+            }
+        });
+        Assert.assertEquals(testedStore.readAll().size(), visited.size());
+        for (Feature feature : visited) {
+            Feature expected = testedStore.read(feature.getUid());
+            Assert.assertEquals(expected.getGroup(), feature.getGroup());
+            Assert.assertEquals(expected.getPermissions(), feature.getPermissions());
+        }
+    }
+
+    @Test
+    public void testReadAllByIds() {
+        Map<String, Feature> features = ((FeatureStoreMongoDB) testedStore).readAll(Arrays.asList("first", "third", "missing"));
+        Assert.assertEquals(2, features.size());
+        Assert.assertEquals("GRP1", features.get("third").getGroup());
+        Assert.assertEquals(2, features.get("third").getPermissions().size());
+    }
+
+    @Test
+    public void testGroupToggleUpdatesAllDocuments() {
+        testedStore.enableGroup("GRP1");
+        Assert.assertTrue(testedStore.read("third").isEnable());
+        Assert.assertTrue(testedStore.read("forth").isEnable());
+        testedStore.disableGroup("GRP1");
+        Assert.assertFalse(testedStore.read("third").isEnable());
+        Assert.assertFalse(testedStore.read("forth").isEnable());
+        // Other groups untouched
+        Assert.assertFalse(testedStore.read("second").isEnable());
+        Assert.assertTrue(testedStore.read("first").isEnable());
+    }
+
+    @Test(expected = FeatureAlreadyExistException.class)
+    public void testCreateExistingDetectedByInsert() {
+        testedStore.create(new Feature("first", false));
+    }
+
+    @Test(expected = FeatureNotFoundException.class)
+    public void testUpdateNotFoundDetectedByUpdate() {
+        testedStore.update(new Feature("invalid", true));
+    }
+
+    @Test
+    public void testUpdateReplacesDocument() {
+        testedStore.update(new Feature("forth", false, "replaced"));
+        Feature forth = testedStore.read("forth");
+        Assert.assertFalse(forth.isEnable());
+        Assert.assertEquals("replaced", forth.getDescription());
+        Assert.assertTrue(forth.getPermissions().isEmpty());
+        Assert.assertNull(forth.getFlippingStrategy());
+    }
+
+    @Test
+    public void testGrantRoleTwiceKeepsSingleValue() {
+        testedStore.grantRoleOnFeature("first", "ADMIN");
+        testedStore.grantRoleOnFeature("first", "ADMIN");
+        Assert.assertEquals(2, testedStore.read("first").getPermissions().size());
+        testedStore.removeRoleFromFeature("first", "ADMIN");
+        Assert.assertEquals(1, testedStore.read("first").getPermissions().size());
+    }
+
+    @Test
+    public void testUpsertAll() {
+        ((FeatureStoreMongoDB) testedStore).upsertAll(Arrays.asList(new Feature("first", false, "upserted"), new Feature(
+                "new", true)));
+        Assert.assertEquals("upserted", testedStore.read("first").getDescription());
+        Assert.assertTrue(testedStore.read("new").isEnable());
+        Assert.assertEquals(6, testedStore.readAll().size());
+    }
+
 }
@@ -20,18 +20,58 @@ package org.ff4j.cache;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.ff4j.core.Feature;
+import org.ff4j.utils.FeatureBinaryCodec;
 import org.ff4j.utils.FeatureJsonMarshaller;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
 
 /**
  * Implementation of ditributed cache to limit overhead, with REDIS (JEDIS).
  * 
+ * <p>
+ * Connections are taken from a {@link JedisPool} for each operation. Keys are prefixed by a namespace so that {@link #clear()} only
+ * removes features and not the whole Redis instance : keys are listed with SCAN (Redis 2.8+, does not block the server on large
+ * instances), or with KEYS when {@link #setScan(boolean)} is disabled for older servers.
+ * </p>
+ * 
+ * <p>
+ * When {@link #setInvalidation(boolean)} is enabled, evictions are published on a channel : nodes listening with
+ * {@link #subscribe(FeatureCacheManager)} evict their local tier (e.g. L1 of {@link TwoTierCacheManager}). A failed publication
+ * is logged and does not cancel the eviction.
+ * </p>
+ * 
+ * <p>
+ * Features are stored as JSON by default, {@link #setBinary(boolean)} switches to the compact {@link FeatureBinaryCodec} format.
+ * All nodes sharing a namespace must use the same format.
+ * </p>
+ * 
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
 public class FeatureCacheProviderRedis implements FeatureCacheManager {
 
+    /** Logger for the class. */
+    private static final Logger LOG = LoggerFactory.getLogger(FeatureCacheProviderRedis.class);
+
     /** default host. */
     public static final String DEFAULT_REDIS_HOST = "localhost";
 
@@ -40,23 +80,62 @@ public class FeatureCacheProviderRedis implements FeatureCacheManager {
 
     public static final int DEFAULT_TTL = 900000000;
 
+    /** default namespace of keys. */
+    public static final String DEFAULT_NAMESPACE = "ff4j:features:";
+
+    /** default channel for invalidations. */
+    public static final String DEFAULT_CHANNEL = "ff4j:invalidation";
+
+    /** Message published when whole cache is cleared. */
+    public static final String MSG_CLEAR = "CLEAR";
+
+    /** Prefix of message published when a feature is evicted. */
+    public static final String MSG_EVICT = "EVICT:";
+
+    /** Number of keys fetched by each SCAN iteration. */
+    private static final int SCAN_COUNT = 1000;
+
+    /** Delay before subscribing again after a connection failure. */
+    private static final long RESUBSCRIBE_DELAY = 1000L;
+
     /** redis host. */
-    private final String redisHost = DEFAULT_REDIS_HOST;
+    private final String redisHost;
 
     /** redis port. */
-    private final int redisport = DEFAULT_REDIS_PORT;
+    private final int redisport;
 
     /** time to live. */
-    private final int timeToLive = DEFAULT_TTL;
+    private int timeToLive = DEFAULT_TTL;
+
+    /** prefix of keys. */
+    private String namespace = DEFAULT_NAMESPACE;
+
+    /** channel for invalidations. */
+    private String channel = DEFAULT_CHANNEL;
+
+    /** Store features with binary codec instead of JSON. */
+    private boolean binary = false;
+
+    /** Publish evictions to other nodes. */
+    private boolean invalidation = false;
 
-    /** Java Redis CLIENT. */
-    private final Jedis jedis;
+    /** List keys with SCAN, KEYS is used when disabled (servers older than 2.8). */
+    private boolean scan = true;
+
+    /** Pool of connections. */
+    private final JedisPool pool;
+
+    /** Current subscription, null if not listening to invalidations. */
+    private volatile JedisPubSub subscription;
+
+    /** Provider is closed. */
+    private volatile boolean closed = false;
 
     /**
      * Default Constructor.
      */
     public FeatureCacheProviderRedis() {
-        jedis = new Jedis(redisHost, redisport);
+        this(DEFAULT_REDIS_HOST, DEFAULT_REDIS_PORT);
     }
 
     /**
@@ -68,51 +147,366 @@ public class FeatureCacheProviderRedis implements FeatureCacheManager {
      *            target redis port
      */
     public FeatureCacheProviderRedis(String host, int port) {
-        jedis = new Jedis(redisHost, redisport);
+        this(new JedisPool(new GenericObjectPoolConfig(), host, port), host, port);
+    }
+
+    /**
+     * Use an existing pool of connections.
+     * 
+     * @param pool
+     *            pool of connections to redis
+     */
+    public FeatureCacheProviderRedis(JedisPool pool) {
+        this(pool, null, 0);
+    }
+
+    /**
+     * Initialization with pool and its target.
+     * 
+     * @param pool
+     *            pool of connections to redis
+     * @param host
+     *            target redis host
+     * @param port
+     *            target redis port
+     */
+    private FeatureCacheProviderRedis(JedisPool pool, String host, int port) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Redis pool cannot be null");
+        }
+        this.pool = pool;
+        this.redisHost = host;
+        this.redisport = port;
+    }
+
+    /**
+     * Callback on a pooled connection.
+     */
+    private interface RedisCallback<T> {
+
+        /**
+         * Work with connection.
+         * 
+         * @param jedis
+         *            connection taken from pool
+         * @return result
+         */
+        T doWithRedis(Jedis jedis);
+    }
+
+    /**
+     * Borrow a connection, execute callback and give connection back to pool.
+     * 
+     * @param callback
+     *            work to do
+     * @return result of callback
+     */
+    private <T> T execute(RedisCallback<T> callback) {
+        Jedis jedis = pool.getResource();
+        boolean broken = false;
+        try {
+            return callback.doWithRedis(jedis);
+        } catch (JedisConnectionException jce) {
+            broken = true;
+            throw jce;
+        } finally {
+            if (broken) {
+                pool.returnBrokenResource(jedis);
+            } else {
+                pool.returnResource(jedis);
+            }
+        }
+    }
+
+    /**
+     * Key of feature in redis.
+     * 
+     * @param uid
+     *            feature identifier
+     * @return namespaced key
+     */
+    private String key(String uid) {
+        return namespace + uid;
     }
 
     /** {@inheritDoc} */
     @Override
     public void clear() {
-        jedis.flushAll();
+        execute(new RedisCallback<Void>() {
+            public Void doWithRedis(Jedis jedis) {
+                if (scan) {
+                    deleteWithScan(jedis);
+                } else {
+                    Set<String> keys = jedis.keys(namespace + "*");
+                    if (!keys.isEmpty()) {
+                        jedis.del(keys.toArray(new String[keys.size()]));
+                    }
+                }
+                return null;
+            }
+        });
+        publish(MSG_CLEAR);
+    }
+
+    /**
+     * Delete keys of namespace page by page.
+     * 
+     * @param jedis
+     *            current connection
+     */
+    private void deleteWithScan(Jedis jedis) {
+        ScanParams params = new ScanParams().match(namespace + "*").count(SCAN_COUNT);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            List<String> keys = page.getResult();
+            if (!keys.isEmpty()) {
+                jedis.del(keys.toArray(new String[keys.size()]));
+            }
+            cursor = page.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
     }
 
     /** {@inheritDoc} */
     @Override
-    public void evict(String uid) {
+    public void evict(final String uid) {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
         }
-        jedis.del(uid);
+        execute(new RedisCallback<Void>() {
+            public Void doWithRedis(Jedis jedis) {
+                jedis.del(key(uid));
+                return null;
+            }
+        });
+        publish(MSG_EVICT + uid);
+    }
+
+    /**
+     * Notify other nodes if invalidation is enabled, local operation is already done and is kept if publication fails.
+     * 
+     * @param message
+     *            invalidation message
+     */
+    private void publish(final String message) {
+        if (!invalidation) {
+            return;
+        }
+        try {
+            execute(new RedisCallback<Void>() {
+                public Void doWithRedis(Jedis jedis) {
+                    jedis.publish(channel, message);
+                    return null;
+                }
+            });
+        } catch (JedisException je) {
+            LOG.warn("Cannot publish invalidation '{}' on channel '{}'", message, channel, je);
+        }
     }
 
     /** {@inheritDoc} */
     @Override
-    public void put(Feature fp) {
+    public void put(final Feature fp) {
         if (fp == null) {
             throw new IllegalArgumentException("Feature cannot be null nor empty");
         }
-        jedis.set(fp.getUid(), fp.toString());
-        jedis.expire(fp.getUid(), timeToLive);
+        execute(new RedisCallback<Void>() {
+            public Void doWithRedis(Jedis jedis) {
+                if (binary) {
+                    jedis.setex(SafeEncoder.encode(key(fp.getUid())), timeToLive, FeatureBinaryCodec.toBytes(fp));
+                } else {
+                    jedis.setex(key(fp.getUid()), timeToLive, fp.toString());
+                }
+                return null;
+            }
+        });
     }
 
     /** {@inheritDoc} */
     @Override
-    public Feature get(String uid) {
+    public Feature get(final String uid) {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
         }
-        String value = jedis.get(uid);
-        if (value != null) {
-            return FeatureJsonMarshaller.unMarshallFeature(value);
+        byte[] value = execute(new RedisCallback<byte[]>() {
+            public byte[] doWithRedis(Jedis jedis) {
+                return jedis.get(SafeEncoder.encode(key(uid)));
+            }
+        });
+        return toFeature(value);
+    }
+
+    /**
+     * Read several features in a single round-trip (pipeline).
+     * 
+     * @param uids
+     *            feature identifiers
+     * @return features found in cache, absent features are not in the map
+     */
+    public Map<String, Feature> getAll(final Collection<String> uids) {
+        if (uids == null) {
+            throw new IllegalArgumentException("Feature identifiers (param#0) cannot be null");
+        }
+        final List<String> ids = new ArrayList<String>(uids);
+        List<Response<byte[]>> responses = execute(new RedisCallback<List<Response<byte[]>>>() {
+            public List<Response<byte[]>> doWithRedis(Jedis jedis) {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<byte[]>> responses = new ArrayList<Response<byte[]>>(ids.size());
+                for (String uid : ids) {
+                    responses.add(pipeline.get(SafeEncoder.encode(key(uid))));
+                }
+                pipeline.sync();
+                return responses;
+            }
+        });
+        Map<String, Feature> features = new LinkedHashMap<String, Feature>();
+        for (int i = 0; i < ids.size(); i++) {
+            Feature feature = toFeature(responses.get(i).get());
+            if (feature != null) {
+                features.put(ids.get(i), feature);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Decode feature read from redis.
+     * 
+     * @param value
+     *            stored value
+     * @return feature or null if not in cache
+     */
+    private Feature toFeature(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        if (binary) {
+            return FeatureBinaryCodec.fromBytes(value);
+        }
+        return FeatureJsonMarshaller.unMarshallFeature(SafeEncoder.encode(value));
+    }
+
+    /**
+     * Listen to invalidations published by all nodes and apply them on local cache. A connection of the pool is held by a daemon
+     * thread until {@link #close()}, local cache is flushed each time the subscription is established as messages could have been
+     * missed.
+     * 
+     * @param localCache
+     *            local tier to invalidate
+     */
+    public synchronized void subscribe(final FeatureCacheManager localCache) {
+        if (localCache == null) {
+            throw new IllegalArgumentException("Local cache (param#0) cannot be null");
+        }
+        if (subscription != null) {
+            throw new IllegalStateException("Already listening to invalidations");
+        }
+        final JedisPubSub pubSub = new InvalidationListener(localCache);
+        subscription = pubSub;
+        Thread listener = new Thread(new Runnable() {
+            public void run() {
+                while (!closed && subscription == pubSub) {
+                    try {
+                        execute(new RedisCallback<Void>() {
+                            public Void doWithRedis(Jedis jedis) {
+                                jedis.subscribe(pubSub, channel);
+                                return null;
+                            }
+                        });
+                    } catch (RuntimeException re) {
+                        // Connection lost, retry later
+                        try {
+                            Thread.sleep(RESUBSCRIBE_DELAY);
+                        } catch (InterruptedException ie) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }, "ff4j-redis-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Stop listening to invalidations.
+     */
+    public synchronized void unsubscribe() {
+        JedisPubSub current = subscription;
+        subscription = null;
+        if (current != null && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+    }
+
+    /**
+     * Stop listening to invalidations and close all connections.
+     */
+    public void close() {
+        closed = true;
+        unsubscribe();
+        pool.destroy();
+    }
+
+    /**
+     * Apply invalidations on local cache.
+     */
+    private static final class InvalidationListener extends JedisPubSub {
+
+        /** local tier. */
+        private final FeatureCacheManager localCache;
+
+        /**
+         * Constructor with local cache.
+         * 
+         * @param localCache
+         *            local tier to invalidate
+         */
+        private InvalidationListener(FeatureCacheManager localCache) {
+            this.localCache = localCache;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void onMessage(String channel, String message) {
+            if (message == null) {
+                return;
+            }
+            if (message.startsWith(MSG_EVICT)) {
+                localCache.evict(message.substring(MSG_EVICT.length()));
+            } else if (MSG_CLEAR.equals(message)) {
+                localCache.clear();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            // Messages may have been missed while not subscribed
+            localCache.clear();
         }
-        return null;
+
+        /** {@inheritDoc} */
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void onUnsubscribe(String channel, int subscribedChannels) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void onPUnsubscribe(String pattern, int subscribedChannels) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {}
     }
 
     /** {@inheritDoc} */
     @Override
     public Object getNativeCache() {
-        return jedis;
+        return pool;
     }
 
     /** {@inheritDoc} */
@@ -148,4 +542,109 @@ public class FeatureCacheProviderRedis implements FeatureCacheManager {
         return timeToLive;
     }
 
+    /**
+     * Setter accessor for attribute 'timeToLive'.
+     * 
+     * @param timeToLive
+     *            new value for 'timeToLive ' in seconds
+     */
+    public void setTimeToLive(int timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Getter accessor for attribute 'binary'.
+     * 
+     * @return current value of 'binary'
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Setter accessor for attribute 'binary'.
+     * 
+     * @param binary
+     *            new value for 'binary '
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
+    /**
+     * Getter accessor for attribute 'namespace'.
+     * 
+     * @return current value of 'namespace'
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Setter accessor for attribute 'namespace'.
+     * 
+     * @param namespace
+     *            new value for 'namespace '
+     */
+    public void setNamespace(String namespace) {
+        this.namespace = namespace;
+    }
+
+    /**
+     * Getter accessor for attribute 'channel'.
+     * 
+     * @return current value of 'channel'
+     */
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Setter accessor for attribute 'channel'.
+     * 
+     * @param channel
+     *            new value for 'channel '
+     */
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Getter accessor for attribute 'invalidation'.
+     * 
+     * @return current value of 'invalidation'
+     */
+    public boolean isInvalidation() {
+        return invalidation;
+    }
+
+    /**
+     * Setter accessor for attribute 'invalidation'.
+     * 
+     * @param invalidation
+     *            new value for 'invalidation '
+     */
+    public void setInvalidation(boolean invalidation) {
+        this.invalidation = invalidation;
+    }
+
+    /**
+     * Getter accessor for attribute 'scan'.
+     * 
+     * @return current value of 'scan'
+     */
+    public boolean isScan() {
+        return scan;
+    }
+
+    /**
+     * Setter accessor for attribute 'scan'.
+     * 
+     * @param scan
+     *            new value for 'scan '
+     */
+    public void setScan(boolean scan) {
+        this.scan = scan;
+    }
+
 }
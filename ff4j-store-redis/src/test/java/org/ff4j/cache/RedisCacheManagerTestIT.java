@@ -1,12 +1,20 @@
 package org.ff4j.cache;
 
+import java.util.Arrays;
+import java.util.Map;
+
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
 import org.ff4j.store.InMemoryFeatureStore;
 import org.ff4j.test.TestsFf4jConstants;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+
 /*
  * #%L
  * ff4j-cache-redis
@@ -48,4 +56,114 @@ public class RedisCacheManagerTestIT implements TestsFf4jConstants {
         Assert.assertEquals(fcached.getPermissions(), fold.getPermissions());
 
     }
+
+    @Test
+    public void testHostAndPortHonored() {
+        FeatureCacheProviderRedis cache = new FeatureCacheProviderRedis("127.0.0.1", 6379);
+        Assert.assertEquals("127.0.0.1", cache.getRedisHost());
+        Assert.assertEquals(6379, cache.getRedisport());
+        cache.put(new Feature("hostport", true));
+        Assert.assertNotNull(cache.get("hostport"));
+        cache.close();
+    }
+
+    @Test
+    public void testPutWithTimeToLive() {
+        FeatureCacheProviderRedis cache = new FeatureCacheProviderRedis();
+        cache.setTimeToLive(60);
+        cache.put(new Feature("ttl", true));
+        Jedis jedis = new Jedis(FeatureCacheProviderRedis.DEFAULT_REDIS_HOST, FeatureCacheProviderRedis.DEFAULT_REDIS_PORT);
+        long ttl = jedis.ttl(cache.getNamespace() + "ttl");
+        jedis.close();
+        Assert.assertTrue(ttl > 0 && ttl <= 60);
+        cache.close();
+    }
+
+    @Test
+    public void testClearOnlyNamespace() {
+        FeatureCacheProviderRedis cache = new FeatureCacheProviderRedis();
+        // Embedded test server does not implement SCAN
+        cache.setScan(false);
+        Jedis jedis = new Jedis(FeatureCacheProviderRedis.DEFAULT_REDIS_HOST, FeatureCacheProviderRedis.DEFAULT_REDIS_PORT);
+        jedis.set("other-application-key", "value");
+        cache.put(new Feature("a", true));
+        cache.put(new Feature("b", true));
+        cache.clear();
+        Assert.assertNull(cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("value", jedis.get("other-application-key"));
+        jedis.del("other-application-key");
+        jedis.close();
+        cache.close();
+    }
+
+    @Test
+    public void testGetAllPipelined() {
+        FeatureCacheProviderRedis cache = new FeatureCacheProviderRedis(new JedisPool("localhost", 6379));
+        cache.put(new Feature("p1", true));
+        cache.put(new Feature("p2", false));
+        Map<String, Feature> features = cache.getAll(Arrays.asList("p1", "p2", "p3"));
+        Assert.assertEquals(2, features.size());
+        Assert.assertTrue(features.get("p1").isEnable());
+        Assert.assertFalse(features.get("p2").isEnable());
+        cache.close();
+    }
+
+    /**
+     * Embedded test server does not implement PUBLISH/SUBSCRIBE.
+     */
+    private boolean supportsPubSub() {
+        Jedis jedis = new Jedis("localhost", 6379);
+        try {
+            jedis.publish(FeatureCacheProviderRedis.DEFAULT_CHANNEL, "PING");
+            return true;
+        } catch (JedisException je) {
+            return false;
+        } finally {
+            jedis.close();
+        }
+    }
+
+    @Test
+    public void testEvictKeptWhenPublishFails() {
+        FeatureCacheProviderRedis cache = new FeatureCacheProviderRedis();
+        cache.setInvalidation(true);
+        cache.put(new Feature("evicted", true));
+        cache.evict("evicted");
+        Assert.assertNull(cache.get("evicted"));
+        cache.close();
+    }
+
+    @Test
+    public void testInvalidationReachesLocalTier() throws InterruptedException {
+        Assume.assumeTrue(supportsPubSub());
+        FeatureCacheProviderRedis node1 = new FeatureCacheProviderRedis();
+        FeatureCacheProviderRedis node2 = new FeatureCacheProviderRedis();
+        node1.setInvalidation(true);
+        TwoTierCacheManager twoTier = new TwoTierCacheManager(node2);
+        node2.subscribe(twoTier.getL1());
+        // Wait for subscription
+        Thread.sleep(500);
+        twoTier.put(new Feature("shared", true));
+        Assert.assertNotNull(twoTier.getL1().get("shared"));
+        node1.evict("shared");
+        for (int i = 0; i < 50 && twoTier.getL1().get("shared") != null; i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertNull(twoTier.getL1().get("shared"));
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    public void testBinaryFormat() {
+        FeatureCacheProviderRedis cache = new FeatureCacheProviderRedis();
+        cache.setBinary(true);
+        cache.put(new Feature("binary", true, "with \"quotes\", and commas", "g1", Arrays.asList("ROLE_A")));
+        Feature cached = cache.get("binary");
+        Assert.assertEquals("with \"quotes\", and commas", cached.getDescription());
+        Assert.assertEquals("g1", cached.getGroup());
+        Assert.assertTrue(cache.getAll(Arrays.asList("binary")).containsKey("binary"));
+        cache.close();
+    }
 }
@@ -11,8 +11,13 @@ package org.ff4j.store;
  * governing permissions and limitations under the License. #L%
  */
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +26,7 @@ import javax.sql.DataSource;
 
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
+import org.ff4j.core.VersionedFeatureStore;
 import org.ff4j.exception.FeatureAlreadyExistException;
 import org.ff4j.exception.FeatureNotFoundException;
 import org.ff4j.exception.GroupNotFoundException;
@@ -30,6 +36,7 @@ import org.ff4j.utils.ParameterUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
@@ -40,7 +47,7 @@ import org.springframework.stereotype.Repository;
  * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
  */
 @Repository
-public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, FeatureStore {
+public class FeatureStoreSpringJDBC extends AbstractFeatureStore implements JdbcFeatureStoreConstants, VersionedFeatureStore {
 
     /** Row Mapper for FlipPoint. */
     private static final FeatureRowMapper MAPPER = new FeatureRowMapper();
@@ -52,8 +59,12 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
     /** Access to storage. */
     private JdbcTemplate jdbcTemplate;
 
+    /** Maintain versions of features and tombstones of deleted ones, see {@link #readChangedSince(long)}. */
+    private boolean versioned = false;
+
     /** {@inheritDoc} */
     @Override
+    @Transactional
     public void enable(String uid) {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
@@ -61,11 +72,14 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!exist(uid)) {
             throw new FeatureNotFoundException(uid);
         }
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_ENABLE, uid);
+        touchFeature(version, uid);
     }
 
     /** {@inheritDoc} */
     @Override
+    @Transactional
     public void disable(String uid) {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier (param#0) cannot be null nor empty");
@@ -73,7 +87,9 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!exist(uid)) {
             throw new FeatureNotFoundException(uid);
         }
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_DISABLE, uid);
+        touchFeature(version, uid);
     }
 
     /** {@inheritDoc} */
@@ -113,6 +129,7 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
             throw new FeatureAlreadyExistException(fp.getUid());
         }
         // Transaction wraps the method, could pipe several sql queries
+        long version = beginMutation();
         String strategyColumn = null;
         String expressionColumn = null;
         if (fp.getFlippingStrategy() != null) {
@@ -126,6 +143,7 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
                 getJdbcTemplate().update(SQL_ADD_ROLE, fp.getUid(), role);
             }
         }
+        touchFeature(version, fp.getUid());
     }
 
     /** {@inheritDoc} */
@@ -138,6 +156,7 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!exist(uid)) {
             throw new FeatureNotFoundException(uid);
         }
+        long version = beginMutation();
         Feature fp = read(uid);
         if (fp.getPermissions() != null) {
             for (String role : fp.getPermissions()) {
@@ -145,6 +164,10 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
             }
         }
         getJdbcTemplate().update(SQL_DELETE, fp.getUid());
+        if (versioned) {
+            getJdbcTemplate().update(SQL_DELETE_TOMBSTONE, uid);
+            getJdbcTemplate().update(SQL_ADD_TOMBSTONE, uid, version);
+        }
     }
 
     /** {@inheritDoc} */
@@ -160,7 +183,9 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!exist(uid)) {
             throw new FeatureNotFoundException(uid);
         }
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_ADD_ROLE, uid, roleName);
+        touchFeature(version, uid);
     }
 
     /** {@inheritDoc} */
@@ -176,7 +201,9 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!exist(uid)) {
             throw new FeatureNotFoundException(uid);
         }
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_DELETE_ROLE, uid, roleName);
+        touchFeature(version, uid);
     }
 
     /** {@inheritDoc} */
@@ -189,7 +216,11 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!existGroup(groupName)) {
             throw new GroupNotFoundException(groupName);
         }
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_ENABLE_GROUP, groupName);
+        if (versioned) {
+            getJdbcTemplate().update(SQL_TOUCH_GROUP, version, groupName);
+        }
     }
 
     /** {@inheritDoc} */
@@ -202,7 +233,11 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!existGroup(groupName)) {
             throw new GroupNotFoundException(groupName);
         }
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_DISABLE_GROUP, groupName);
+        if (versioned) {
+            getJdbcTemplate().update(SQL_TOUCH_GROUP, version, groupName);
+        }
     }
 
     /** {@inheritDoc} */
@@ -245,7 +280,9 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         if (!exist(uid)) {
             throw new FeatureNotFoundException(uid);
         }
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_ADD_TO_GROUP, groupName, uid);
+        touchFeature(version, uid);
     }
 
     /** {@inheritDoc} */
@@ -270,7 +307,9 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         // throw new IllegalArgumentException("'" + featureId + "' is not in group '" + groupName + "'");
         // }
         // <----
+        long version = beginMutation();
         getJdbcTemplate().update(SQL_ADD_TO_GROUP, "", uid);
+        touchFeature(version, uid);
     }
 
     /** {@inheritDoc} */
@@ -311,6 +350,7 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
             throw new IllegalArgumentException("Feature cannot be null nor empty");
         }
         Feature fpExist = read(fp.getUid());
+        long version = beginMutation();
 
         // Update core Flip POINT
         String fStrategy = null;
@@ -324,13 +364,14 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
             enable = "1";
         }
         getJdbcTemplate().update(SQL_UPDATE, enable, fp.getDescription(), fStrategy, fExpression, fp.getGroup(), fp.getUid());
+        touchFeature(version, fp.getUid());
 
         // To be deleted : not in second but in first
         Set<String> toBeDeleted = new HashSet<String>();
         toBeDeleted.addAll(fpExist.getPermissions());
         toBeDeleted.removeAll(fp.getPermissions());
         for (String roleToBeDelete : toBeDeleted) {
-            removeRoleFromFeature(fpExist.getUid(), roleToBeDelete);
+            getJdbcTemplate().update(SQL_DELETE_ROLE, fpExist.getUid(), roleToBeDelete);
         }
 
         // To be created : in second but not in first
@@ -338,19 +379,429 @@ public class FeatureStoreSpringJDBC implements JdbcFeatureStoreConstants, Featur
         toBeAdded.addAll(fp.getPermissions());
         toBeAdded.removeAll(fpExist.getPermissions());
         for (String addee : toBeAdded) {
-            grantRoleOnFeature(fpExist.getUid(), addee);
+            getJdbcTemplate().update(SQL_ADD_ROLE, fpExist.getUid(), addee);
         }
+    }
 
-        // enable/disable
-        if (fp.isEnable() != fpExist.isEnable()) {
-            if (fp.isEnable()) {
-                enable(fp.getUid());
+    /**
+     * Create all features with batched statements in a single transaction.
+     * 
+     * @param features
+     *            features to create, none of them should exist
+     */
+    @Override
+    @Transactional
+    public void createAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+        }
+        Set<String> uids = readExistingUids(uidsOf(features));
+        for (Feature feature : features) {
+            if (!uids.add(feature.getUid())) {
+                throw new FeatureAlreadyExistException(feature.getUid());
+            }
+        }
+        long version = beginMutation();
+        List<Object[]> creates = new ArrayList<Object[]>();
+        List<Object[]> roles = new ArrayList<Object[]>();
+        for (Feature feature : features) {
+            creates.add(toCreateArgs(feature));
+            addRoleArgs(roles, feature);
+        }
+        batchUpdate(SQL_CREATE, creates);
+        batchUpdate(SQL_ADD_ROLE, roles);
+        touchFeatures(version, features);
+    }
+
+    /**
+     * Update all features with batched statements in a single transaction, roles are replaced.
+     * 
+     * @param features
+     *            new values of existing features
+     */
+    @Override
+    @Transactional
+    public void updateAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+        }
+        Set<String> uids = readExistingUids(uidsOf(features));
+        for (Feature feature : features) {
+            if (!uids.contains(feature.getUid())) {
+                throw new FeatureNotFoundException(feature.getUid());
+            }
+        }
+        long version = beginMutation();
+        List<Object[]> updates = new ArrayList<Object[]>();
+        List<Object[]> deleteRoles = new ArrayList<Object[]>();
+        List<Object[]> roles = new ArrayList<Object[]>();
+        for (Feature feature : uniqueByUid(features)) {
+            updates.add(toUpdateArgs(feature));
+            deleteRoles.add(new Object[] {feature.getUid()});
+            addRoleArgs(roles, feature);
+        }
+        batchUpdate(SQL_UPDATE, updates);
+        batchUpdate(SQL_DELETE_ROLES, deleteRoles);
+        batchUpdate(SQL_ADD_ROLE, roles);
+        touchFeatures(version, features);
+    }
+
+    /**
+     * Delete all features and their roles with batched statements in a single transaction.
+     * 
+     * @param featureIds
+     *            identifiers of existing features
+     */
+    @Override
+    @Transactional
+    public void deleteAll(Collection<String> featureIds) {
+        assertNotNull(featureIds);
+        for (String uid : featureIds) {
+            assertUid(uid);
+        }
+        Set<String> uids = readExistingUids(featureIds);
+        List<Object[]> deletes = new ArrayList<Object[]>();
+        for (String uid : new LinkedHashSet<String>(featureIds)) {
+            if (!uids.contains(uid)) {
+                throw new FeatureNotFoundException(uid);
+            }
+            deletes.add(new Object[] {uid});
+        }
+        long version = beginMutation();
+        batchUpdate(SQL_DELETE_ROLES, deletes);
+        batchUpdate(SQL_DELETE, deletes);
+        if (versioned) {
+            List<Object[]> tombstones = new ArrayList<Object[]>();
+            for (Object[] delete : deletes) {
+                tombstones.add(new Object[] {delete[0], version});
+            }
+            batchUpdate(SQL_DELETE_TOMBSTONE, deletes);
+            batchUpdate(SQL_ADD_TOMBSTONE, tombstones);
+        }
+    }
+
+    /**
+     * Create or update all features with batched statements in a single transaction, existence is checked with one query.
+     * 
+     * @param features
+     *            features to save
+     */
+    @Override
+    @Transactional
+    public void upsertAll(Collection<Feature> features) {
+        assertNotNull(features);
+        for (Feature feature : features) {
+            assertFeature(feature);
+        }
+        long version = beginMutation();
+        Set<String> uids = readExistingUids(uidsOf(features));
+        List<Object[]> creates = new ArrayList<Object[]>();
+        List<Object[]> updates = new ArrayList<Object[]>();
+        List<Object[]> deleteRoles = new ArrayList<Object[]>();
+        List<Object[]> roles = new ArrayList<Object[]>();
+        for (Feature feature : uniqueByUid(features)) {
+            if (uids.contains(feature.getUid())) {
+                updates.add(toUpdateArgs(feature));
+                deleteRoles.add(new Object[] {feature.getUid()});
             } else {
-                disable(fp.getUid());
+                creates.add(toCreateArgs(feature));
+            }
+            addRoleArgs(roles, feature);
+        }
+        batchUpdate(SQL_CREATE, creates);
+        batchUpdate(SQL_UPDATE, updates);
+        batchUpdate(SQL_DELETE_ROLES, deleteRoles);
+        batchUpdate(SQL_ADD_ROLE, roles);
+        touchFeatures(version, features);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getVersion() {
+        assertVersioned();
+        return getJdbcTemplate().queryForObject(SQLQUERY_VERSION, Long.class);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Feature> readChangedSince(long version) {
+        assertVersioned();
+        return readFeaturesWithRoles(SQLQUERY_CHANGED_SINCE_WITH_ROLES, version);
+    }
+
+    /**
+     * Read features with their roles, a single query per {@link #SQL_IN_MAX_SIZE} identifiers.
+     * 
+     * @param featureIds
+     *            identifiers of features to read
+     * @return features found indexed by identifier
+     */
+    @Override
+    public Map<String, Feature> readAll(Collection<String> featureIds) {
+        assertNotNull(featureIds);
+        for (String uid : featureIds) {
+            assertUid(uid);
+        }
+        List<String> uids = new ArrayList<String>(new LinkedHashSet<String>(featureIds));
+        Map<String, Feature> features = new LinkedHashMap<String, Feature>();
+        for (int from = 0; from < uids.size(); from += SQL_IN_MAX_SIZE) {
+            List<String> chunk = uids.subList(from, Math.min(from + SQL_IN_MAX_SIZE, uids.size()));
+            features.putAll(readFeaturesWithRoles(SQLQUERY_GET_FEATURES_BY_IDS_WITH_ROLES + inClause(chunk.size()),
+                    chunk.toArray()));
+        }
+        return features;
+    }
+
+    /**
+     * Read features joined with their roles (one row per role).
+     * 
+     * @param query
+     *            query selecting features joined with roles
+     * @param args
+     *            query parameters
+     * @return features by uid, in query order
+     */
+    private Map<String, Feature> readFeaturesWithRoles(String query, Object... args) {
+        final LinkedHashMap<String, Feature> mapFP = new LinkedHashMap<String, Feature>();
+        getJdbcTemplate().query(query, new RowCallbackHandler() {
+            public void processRow(ResultSet rs) throws SQLException {
+                String uid = rs.getString(COL_FEAT_UID);
+                Feature f = mapFP.get(uid);
+                if (f == null) {
+                    f = MAPPER.mapRow(rs, mapFP.size());
+                    mapFP.put(uid, f);
+                }
+                String role = rs.getString(COL_ROLE_ROLENAME);
+                if (role != null) {
+                    f.getPermissions().add(role);
+                }
+            }
+        }, args);
+        return mapFP;
+    }
+
+    /**
+     * Placeholders of a IN clause.
+     * 
+     * @param size
+     *            number of parameters
+     * @return list of placeholders within parenthesis, e.g. (?,?,?)
+     */
+    private String inClause(int size) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            sb.append((i == 0) ? "?" : ",?");
+        }
+        return sb.append(")").toString();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> readDeletedSince(long version) {
+        assertVersioned();
+        return new HashSet<String>(getJdbcTemplate().query(SQLQUERY_DELETED_SINCE, new SingleColumnRowMapper<String>(), version));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int purgeDeletedBefore(long version) {
+        assertVersioned();
+        return getJdbcTemplate().update(SQL_PURGE_TOMBSTONES, version);
+    }
+
+    /**
+     * Check that versions are maintained.
+     */
+    private void assertVersioned() {
+        if (!versioned) {
+            throw new IllegalStateException("Versioning is not enabled on this store, see setVersioned(true)");
+        }
+    }
+
+    /**
+     * Take version of a mutation before writing data (if versioned) : the counter row stays locked until the end of current
+     * transaction, writers are serialized on it and versions are committed in order.
+     * 
+     * @return version of current mutation, 0 if not versioned
+     */
+    private long beginMutation() {
+        if (!versioned) {
+            return 0;
+        }
+        getJdbcTemplate().update(SQL_INCREMENT_VERSION);
+        return getJdbcTemplate().queryForObject(SQLQUERY_VERSION, Long.class);
+    }
+
+    /**
+     * Set version of feature (if versioned), a tombstone of previous deletion is removed.
+     * 
+     * @param version
+     *            version of mutation
+     * @param uid
+     *            feature identifier
+     */
+    private void touchFeature(long version, String uid) {
+        if (versioned) {
+            getJdbcTemplate().update(SQL_TOUCH_FEATURE, version, uid);
+            getJdbcTemplate().update(SQL_DELETE_TOMBSTONE, uid);
+        }
+    }
+
+    /**
+     * Set the same version on features (if versioned) with batches.
+     * 
+     * @param version
+     *            version of mutation
+     * @param features
+     *            written features
+     */
+    private void touchFeatures(long version, Collection<Feature> features) {
+        if (versioned) {
+            List<Object[]> touches = new ArrayList<Object[]>();
+            List<Object[]> uids = new ArrayList<Object[]>();
+            for (Feature feature : features) {
+                touches.add(new Object[] {version, feature.getUid()});
+                uids.add(new Object[] {feature.getUid()});
+            }
+            batchUpdate(SQL_TOUCH_FEATURE, touches);
+            batchUpdate(SQL_DELETE_TOMBSTONE, uids);
+        }
+    }
+
+    /**
+     * Read which of the given identifiers exist, a single query per {@link #SQL_IN_MAX_SIZE} identifiers.
+     * 
+     * @param featureIds
+     *            identifiers to check
+     * @return set of existing identifiers
+     */
+    private Set<String> readExistingUids(Collection<String> featureIds) {
+        Set<String> uids = new HashSet<String>();
+        List<String> candidates = new ArrayList<String>(new LinkedHashSet<String>(featureIds));
+        for (int from = 0; from < candidates.size(); from += SQL_IN_MAX_SIZE) {
+            List<String> chunk = candidates.subList(from, Math.min(from + SQL_IN_MAX_SIZE, candidates.size()));
+            uids.addAll(getJdbcTemplate().query(SQLQUERY_UIDS_IN + inClause(chunk.size()), new SingleColumnRowMapper<String>(),
+                    chunk.toArray()));
+        }
+        return uids;
+    }
+
+    /**
+     * Identifiers of features.
+     * 
+     * @param features
+     *            features
+     * @return identifiers in the same order
+     */
+    private List<String> uidsOf(Collection<Feature> features) {
+        List<String> uids = new ArrayList<String>(features.size());
+        for (Feature feature : features) {
+            uids.add(feature.getUid());
+        }
+        return uids;
+    }
+
+    /**
+     * Keep last value for each identifier, a feature cannot be written twice in the same batch.
+     * 
+     * @param features
+     *            features to write
+     * @return features with distinct identifiers
+     */
+    private Collection<Feature> uniqueByUid(Collection<Feature> features) {
+        Map<String, Feature> unique = new LinkedHashMap<String, Feature>();
+        for (Feature feature : features) {
+            unique.put(feature.getUid(), feature);
+        }
+        return unique.values();
+    }
+
+    /**
+     * Parameters of {@link #SQL_CREATE}.
+     * 
+     * @param fp
+     *            feature to create
+     * @return statement parameters
+     */
+    private Object[] toCreateArgs(Feature fp) {
+        String strategyColumn = null;
+        String expressionColumn = null;
+        if (fp.getFlippingStrategy() != null) {
+            strategyColumn = fp.getFlippingStrategy().getClass().getCanonicalName();
+            expressionColumn = ParameterUtils.fromMap(fp.getFlippingStrategy().getInitParams());
+        }
+        return new Object[] {fp.getUid(), fp.isEnable() ? 1 : 0, fp.getDescription(), strategyColumn, expressionColumn,
+                fp.getGroup()};
+    }
+
+    /**
+     * Parameters of {@link #SQL_UPDATE}.
+     * 
+     * @param fp
+     *            new value of feature
+     * @return statement parameters
+     */
+    private Object[] toUpdateArgs(Feature fp) {
+        String fStrategy = null;
+        String fExpression = null;
+        if (fp.getFlippingStrategy() != null) {
+            fStrategy = fp.getFlippingStrategy().getClass().getCanonicalName();
+            fExpression = ParameterUtils.fromMap(fp.getFlippingStrategy().getInitParams());
+        }
+        return new Object[] {fp.isEnable() ? 1 : 0, fp.getDescription(), fStrategy, fExpression, fp.getGroup(), fp.getUid()};
+    }
+
+    /**
+     * Add parameters of {@link #SQL_ADD_ROLE} for each role of feature.
+     * 
+     * @param roles
+     *            batch parameters
+     * @param fp
+     *            current feature
+     */
+    private void addRoleArgs(List<Object[]> roles, Feature fp) {
+        if (fp.getPermissions() != null) {
+            for (String role : fp.getPermissions()) {
+                roles.add(new Object[] {fp.getUid(), role});
             }
         }
     }
 
+    /**
+     * Execute batch if not empty.
+     * 
+     * @param sql
+     *            update query
+     * @param batchArgs
+     *            parameters of each statement
+     */
+    private void batchUpdate(String sql, List<Object[]> batchArgs) {
+        if (!batchArgs.isEmpty()) {
+            getJdbcTemplate().batchUpdate(sql, batchArgs);
+        }
+    }
+
+    /**
+     * Getter accessor for attribute 'versioned'.
+     * 
+     * @return current value of 'versioned'
+     */
+    public boolean isVersioned() {
+        return versioned;
+    }
+
+    /**
+     * Setter accessor for attribute 'versioned', versions are kept in order when methods are transactional (Spring proxy).
+     * 
+     * @param versioned
+     *            new value for 'versioned '
+     */
+    public void setVersioned(boolean versioned) {
+        this.versioned = versioned;
+    }
+
     /**
      * @param dataSource
      *            the dataSource to set
@@ -0,0 +1,123 @@
+package org.ff4j.test.store;
+
+/*
+ * #%L ff4j-store-jdbc %% Copyright (C) 2013 Ff4J %% Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License. #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.ff4j.core.Feature;
+import org.ff4j.exception.FeatureAlreadyExistException;
+import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.store.FeatureStoreSpringJDBC;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Bulk operations of {@link FeatureStoreSpringJDBC}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class SpringJdbcBulkStoreTest {
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Tested store. */
+    private FeatureStoreSpringJDBC store;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql")
+                .addScript("classpath:ff-store.sql").build();
+        store = new FeatureStoreSpringJDBC();
+        store.setDataSource(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    /**
+     * Build features with roles.
+     */
+    private List<Feature> buildFeatures(int count) {
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < count; i++) {
+            Feature f = new Feature("bulk" + i, true, "description" + i, "GRP" + (i % 10));
+            f.getPermissions().add("ROLE" + (i % 3));
+            features.add(f);
+        }
+        return features;
+    }
+
+    @Test
+    public void testCreateAll() {
+        store.createAll(buildFeatures(1000));
+        Assert.assertEquals("GRP2", store.read("bulk42").getGroup());
+        Assert.assertTrue(store.read("bulk42").getPermissions().contains("ROLE0"));
+        Assert.assertEquals(1005, store.readAll().size());
+    }
+
+    @Test(expected = FeatureAlreadyExistException.class)
+    public void testCreateAllExisting() {
+        store.createAll(Arrays.asList(new Feature("new", true), new Feature("first", true)));
+    }
+
+    @Test
+    public void testUpsertAll() {
+        List<Feature> features = buildFeatures(10);
+        Feature first = new Feature("first", false, "upserted");
+        first.getPermissions().add("NEWROLE");
+        features.add(first);
+        store.upsertAll(features);
+        Assert.assertEquals("upserted", store.read("first").getDescription());
+        Assert.assertEquals(1, store.read("first").getPermissions().size());
+        Assert.assertTrue(store.exist("bulk9"));
+    }
+
+    @Test
+    public void testUpdateAndDeleteAll() {
+        store.updateAll(Arrays.asList(new Feature("third", true, "updated")));
+        Assert.assertTrue(store.read("third").getPermissions().isEmpty());
+        store.deleteAll(Arrays.asList("third", "forth"));
+        Assert.assertFalse(store.exist("forth"));
+    }
+
+    @Test
+    public void testReadAllByIds() {
+        List<String> uids = new ArrayList<String>();
+        for (Feature feature : buildFeatures(1200)) {
+            uids.add(feature.getUid());
+        }
+        store.createAll(buildFeatures(1200));
+        uids.add("third");
+        uids.add("missing");
+        Map<String, Feature> features = store.readAll(uids);
+        Assert.assertEquals(1201, features.size());
+        Assert.assertFalse(features.containsKey("missing"));
+        Assert.assertEquals(2, features.get("third").getPermissions().size());
+    }
+
+    @Test(expected = FeatureNotFoundException.class)
+    public void testDeleteAllNotFound() {
+        store.deleteAll(Arrays.asList("first", "invalid"));
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.ff4j.test.store;
+
+/*
+ * #%L ff4j-store-jdbc %% Copyright (C) 2013 Ff4J %% Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License. #L%
+ */
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.ff4j.core.Feature;
+import org.ff4j.store.FeatureStoreSpringJDBC;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Versions maintained by {@link FeatureStoreSpringJDBC}.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+public class SpringJdbcVersionedStoreTest {
+
+    /** DataBase. */
+    private EmbeddedDatabase db;
+
+    /** Tested store. */
+    private FeatureStoreSpringJDBC store;
+
+    @Before
+    public void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).addScript("classpath:schema-ddl.sql")
+                .addScript("classpath:ff-store.sql").build();
+        store = new FeatureStoreSpringJDBC();
+        store.setDataSource(db);
+        store.setVersioned(true);
+    }
+
+    @After
+    public void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void testReadChangedSince() {
+        long start = store.getVersion();
+        store.disable("first");
+        store.grantRoleOnFeature("forth", "ADMIN");
+        store.enableGroup("GRP0");
+        Map<String, Feature> changed = store.readChangedSince(start);
+        Assert.assertEquals(3, changed.size());
+        Assert.assertFalse(changed.get("first").isEnable());
+        Assert.assertEquals(3, changed.get("forth").getPermissions().size());
+        Assert.assertTrue(changed.get("second").isEnable());
+        Assert.assertTrue(store.readChangedSince(store.getVersion()).isEmpty());
+    }
+
+    @Test
+    public void testReadDeletedSince() {
+        long start = store.getVersion();
+        store.delete("first");
+        store.deleteAll(Arrays.asList("forth"));
+        Assert.assertEquals(2, store.readDeletedSince(start).size());
+        store.createAll(Arrays.asList(new Feature("first", true)));
+        Assert.assertEquals(1, store.readDeletedSince(start).size());
+        Assert.assertTrue(store.readChangedSince(start).containsKey("first"));
+    }
+
+    @Test
+    public void testPurgeDeletedBefore() {
+        store.delete("first");
+        long afterFirst = store.getVersion() + 1;
+        store.delete("forth");
+        Assert.assertEquals(1, store.purgeDeletedBefore(afterFirst));
+        Assert.assertTrue(store.readDeletedSince(0).contains("forth"));
+        Assert.assertEquals(1, store.purgeDeletedBefore(store.getVersion() + 1));
+        Assert.assertTrue(store.readDeletedSince(0).isEmpty());
+    }
+
+}
@@ -92,4 +92,7 @@ public interface FF4jWebConstants {
 
     /** security role. */
     String ROLE_WRITE = " WRITE";
+
+    /** media type of features encoded with binary codec. */
+    String MEDIA_TYPE_FEATURE_BINARY = "application/x-ff4j-feature";
 }
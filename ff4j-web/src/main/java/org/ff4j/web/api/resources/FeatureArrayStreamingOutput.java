@@ -0,0 +1,70 @@
+package org.ff4j.web.api.resources;
+
+/*
+ * #%L
+ * ff4j-web
+ * %%
+ * Copyright (C) 2013 - 2014 Ff4J
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.ff4j.core.Feature;
+import org.ff4j.utils.FeatureJsonWriter;
+
+/**
+ * Write features as a JSON array directly into the HTTP response, without building the whole document in memory.
+ * 
+ * @author <a href="mailto:cedrick.lunven@gmail.com">Cedrick LUNVEN</a>
+ */
+class FeatureArrayStreamingOutput implements StreamingOutput {
+
+    /** Encoding of response. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Features to write. */
+    private final Collection<Feature> features;
+
+    /**
+     * Constructor with features to write.
+     * 
+     * @param features
+     *            features to write
+     */
+    FeatureArrayStreamingOutput(Collection<Feature> features) {
+        this.features = features;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, UTF8));
+        FeatureJsonWriter jsonWriter = new FeatureJsonWriter(out);
+        jsonWriter.writeFeatureArray(features);
+        jsonWriter.flush();
+    }
+
+}
@@ -39,6 +39,7 @@ import javax.ws.rs.core.UriInfo;
 import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
 import org.ff4j.exception.FeatureNotFoundException;
+import org.ff4j.utils.FeatureBinaryCodec;
 import org.ff4j.utils.FeatureJsonMarshaller;
 import org.ff4j.web.api.FF4jWebConstants;
 
@@ -103,6 +104,22 @@ public class FeatureResource implements FF4jWebConstants {
         }
     }
 
+    /**
+     * Read feature encoded with binary codec, selected with header 'Accept: application/x-ff4j-feature'. Lower quality factor
+     * keeps JSON for clients sending no or a generic 'Accept' header.
+     * 
+     * @return binary representation of feature
+     */
+    @GET
+    @Produces(MEDIA_TYPE_FEATURE_BINARY + ";qs=0.5")
+    @RolesAllowed({ROLE_READ})
+    public Response readBinary() {
+        if (!getStore().exist(id)) {
+            return Response.status(Response.Status.NOT_FOUND).entity(new FeatureNotFoundException(id).getMessage()).build();
+        }
+        return Response.ok(FeatureBinaryCodec.toBytes(getStore().read(id))).build();
+    }
+
     /**
      * Create the feature if not exist or update it
      * 
@@ -31,9 +31,7 @@ import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
-import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
-import org.ff4j.utils.FeatureJsonMarshaller;
 import org.ff4j.web.api.FF4jWebConstants;
 
 /**
@@ -97,9 +95,7 @@ public class FeaturesResource implements FF4jWebConstants {
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response readAll() {
-        Feature[] storeContent = getStore().readAll().values().toArray(new Feature[0]);
-        String storeAsJson = FeatureJsonMarshaller.marshallFeatureArray(storeContent);
-        return Response.ok(storeAsJson).build();
+        return Response.ok(new FeatureArrayStreamingOutput(getStore().readAll().values())).build();
     }
 
     /**
@@ -31,9 +31,7 @@ import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
-import org.ff4j.core.Feature;
 import org.ff4j.core.FeatureStore;
-import org.ff4j.utils.FeatureJsonMarshaller;
 import org.ff4j.web.api.FF4jWebConstants;
 
 /**
@@ -86,9 +84,7 @@ public class GroupResource implements FF4jWebConstants {
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public Response read() {
-        Feature[] storeContent = getStore().readGroup(groupName).values().toArray(new Feature[0]);
-        String storeAsJson = FeatureJsonMarshaller.marshallFeatureArray(storeContent);
-        return Response.ok(storeAsJson).build();
+        return Response.ok(new FeatureArrayStreamingOutput(getStore().readGroup(groupName).values())).build();
     }
 
     /**
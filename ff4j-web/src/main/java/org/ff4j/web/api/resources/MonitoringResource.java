@@ -30,6 +30,7 @@ import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.ff4j.audit.AbstractEventRepository;
 import org.ff4j.audit.EventRepository;
 import org.ff4j.web.api.FF4jWebConstants;
 
@@ -76,7 +77,9 @@ public class MonitoringResource implements FF4jWebConstants {
     @Produces(MediaType.APPLICATION_JSON)
     public Response getStatus() {
         String jsonResponse = null;
-        if (evtRepository != null) {
+        if (evtRepository instanceof AbstractEventRepository) {
+            jsonResponse = ((AbstractEventRepository) evtRepository).toJson();
+        } else if (evtRepository != null) {
             jsonResponse = evtRepository.toString();
         }
         return Response.ok(jsonResponse).build();
@@ -19,7 +19,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import javax.servlet.ServletConfig;
@@ -500,13 +499,7 @@ public class ConsoleServlet extends HttpServlet implements ConsoleConstants {
      */
     private void opImportFile(InputStream in) throws IOException {
         Map<String, Feature> mapsOfFeat = new FeatureXmlParser().parseConfigurationFile(in);
-        for (Entry<String, Feature> feature : mapsOfFeat.entrySet()) {
-            if (getFf4j().getStore().exist(feature.getKey())) {
-                getFf4j().getStore().update(feature.getValue());
-            } else {
-                getFf4j().getStore().create(feature.getValue());
-            }
-        }
+        getFf4j().importFeatures(mapsOfFeat.values());
         LOGGER.info(mapsOfFeat.size() + " features have been imported.");
     }
 
@@ -519,25 +512,16 @@ public class ConsoleServlet extends HttpServlet implements ConsoleConstants {
      *             error when building response
      */
     private void opExportFile(HttpServletResponse res) throws IOException {
-        Map<String, Feature> features = getFf4j().getStore().readAll();
-        InputStream in = new FeatureXmlParser().exportFeatures(features);
         ServletOutputStream sos = null;
         try {
-            sos = res.getOutputStream();
             res.setContentType("text/xml");
+            res.setCharacterEncoding("UTF-8");
             res.setHeader("Content-Disposition", "attachment; filename=\"ff4j.xml\"");
-            // res.setContentLength()
-            byte[] bbuf = new byte[BUFFER_SIZE];
-            int length = 0;
-            while ((in != null) && (length != -1)) {
-                length = in.read(bbuf);
-                sos.write(bbuf, 0, length);
-            }
-            LOGGER.info(features.size() + " features have been exported.");
+            sos = res.getOutputStream();
+            // Features are written while iterating the store
+            getFf4j().exportFeatures(sos);
+            LOGGER.info("Features have been exported.");
         } finally {
-            if (in != null) {
-                in.close();
-            }
             if (sos != null) {
                 sos.flush();
                 sos.close();
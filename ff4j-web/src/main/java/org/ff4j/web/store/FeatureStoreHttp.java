@@ -22,11 +22,17 @@ package org.ff4j.web.store;
 
 import static org.ff4j.utils.FeatureJsonMarshaller.unMarshallFeature;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.Status;
 
@@ -36,7 +42,8 @@ import org.ff4j.exception.FeatureAccessException;
 import org.ff4j.exception.FeatureAlreadyExistException;
 import org.ff4j.exception.FeatureNotFoundException;
 import org.ff4j.exception.GroupNotFoundException;
-import org.ff4j.utils.FeatureJsonMarshaller;
+import org.ff4j.utils.FeatureBinaryCodec;
+import org.ff4j.utils.FeatureJsonReader;
 import org.ff4j.web.api.FF4jWebConstants;
 
 import com.sun.jersey.api.client.Client;
@@ -53,6 +60,9 @@ import com.sun.jersey.core.util.MultivaluedMapImpl;
  */
 public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
 
+    /** Encoding of JSON responses. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     /** Jersey Client. */
     protected Client client = null;
 
@@ -65,6 +75,9 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
     /** Target jersey resource. */
     private WebResource groupsWebRsc = null;
 
+    /** Read features with binary codec instead of JSON (server must provide {@link #MEDIA_TYPE_FEATURE_BINARY}). */
+    private boolean binary = false;
+
     /**
      * Default construtor
      */
@@ -125,7 +138,17 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier cannot be null nor empty");
         }
-        ClientResponse cRes = getStore().path(uid).get(ClientResponse.class);
+        if (binary) {
+            ClientResponse cRes = getStore().path(uid).accept(MEDIA_TYPE_FEATURE_BINARY).get(ClientResponse.class);
+            if (Status.NOT_FOUND.getStatusCode() == cRes.getStatus()) {
+                throw new FeatureNotFoundException(uid);
+            }
+            if (Status.OK.getStatusCode() != cRes.getStatus()) {
+                throw new FeatureAccessException("Cannot read feature, an HTTP error " + cRes.getStatus() + " occured.");
+            }
+            return FeatureBinaryCodec.fromBytes(cRes.getEntity(byte[].class));
+        }
+        ClientResponse cRes = getStore().path(uid).accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
         if (Status.NOT_FOUND.getStatusCode() == cRes.getStatus()) {
             throw new FeatureNotFoundException(uid);
         }
@@ -162,7 +185,7 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
         if (uid == null || uid.isEmpty()) {
             throw new IllegalArgumentException("Feature identifier cannot be null nor empty");
         }
-        ClientResponse cRes = getStore().path(uid).get(ClientResponse.class);
+        ClientResponse cRes = getStore().path(uid).accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
         if (Status.OK.getStatusCode() == cRes.getStatus()) {
             return true;
         }
@@ -192,17 +215,11 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
     /** {@inheritDoc} */
     @Override
     public Map<String, Feature> readAll() {
-        ClientResponse cRes = getStore().get(ClientResponse.class);
+        ClientResponse cRes = getStore().accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
         if (Status.OK.getStatusCode() != cRes.getStatus()) {
             throw new FeatureAccessException("Cannot read features, an HTTP error " + cRes.getStatus() + " occured.");
         }
-        String resEntity = cRes.getEntity(String.class);
-        Feature[] fArray = FeatureJsonMarshaller.unMarshallFeatureArray(resEntity);
-        Map<String, Feature> features = new HashMap<String, Feature>();
-        for (Feature feature : fArray) {
-            features.put(feature.getUid(), feature);
-        }
-        return features;
+        return readFeatureArray(cRes);
     }
 
     /** {@inheritDoc} */
@@ -367,20 +384,14 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        ClientResponse cRes = getGroups().path(groupName).get(ClientResponse.class);
+        ClientResponse cRes = getGroups().path(groupName).accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
         if (Status.NOT_FOUND.getStatusCode() == cRes.getStatus()) {
             throw new GroupNotFoundException(groupName);
         }
         if (Status.OK.getStatusCode() != cRes.getStatus()) {
             throw new FeatureAccessException("Cannot grant role on feature, an HTTP error " + cRes.getStatus() + " occured.");
         }
-        String resEntity = cRes.getEntity(String.class);
-        Feature[] fArray = FeatureJsonMarshaller.unMarshallFeatureArray(resEntity);
-        Map<String, Feature> features = new HashMap<String, Feature>();
-        for (Feature feature : fArray) {
-            features.put(feature.getUid(), feature);
-        }
-        return features;
+        return readFeatureArray(cRes);
     }
 
     /** {@inheritDoc} */
@@ -389,7 +400,7 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
         if (groupName == null || groupName.isEmpty()) {
             throw new IllegalArgumentException("Groupname cannot be null nor empty");
         }
-        ClientResponse cRes = getGroups().path(groupName).get(ClientResponse.class);
+        ClientResponse cRes = getGroups().path(groupName).accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
         if (Status.OK.getStatusCode() == cRes.getStatus()) {
             return true;
         }
@@ -402,13 +413,43 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
     /** {@inheritDoc} */
     @Override
     public Set<String> readAllGroups() {
-        ClientResponse cRes = getGroups().get(ClientResponse.class);
+        ClientResponse cRes = getGroups().accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
         if (Status.OK.getStatusCode() != cRes.getStatus()) {
             throw new FeatureAccessException("Cannot read groups, an HTTP error " + cRes.getStatus() + " occured.");
         }
         return readGroupList(cRes.getEntity(String.class));
     }
 
+    /**
+     * Parse features directly from response stream, without loading the whole body as a String.
+     * 
+     * @param cRes
+     *            response with a JSON array of features
+     * @return features as a map
+     */
+    private Map<String, Feature> readFeatureArray(ClientResponse cRes) {
+        Map<String, Feature> features = new HashMap<String, Feature>();
+        Reader in = new BufferedReader(new InputStreamReader(cRes.getEntityInputStream(), UTF8));
+        try {
+            FeatureJsonReader jsonReader = new FeatureJsonReader(in);
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                Feature feature = jsonReader.nextFeature();
+                features.put(feature.getUid(), feature);
+            }
+            jsonReader.endArray();
+        } catch (IOException e) {
+            throw new FeatureAccessException("Cannot read features from HTTP response", e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Stream is consumed, nothing to do
+            }
+        }
+        return features;
+    }
+
     /**
      * Convert JsonOutput to group set.
      * 
@@ -486,4 +527,23 @@ public class FeatureStoreHttp implements FeatureStore, FF4jWebConstants {
         return null;
     }
 
+    /**
+     * Getter accessor for attribute 'binary'.
+     * 
+     * @return current value of 'binary'
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Setter accessor for attribute 'binary'.
+     * 
+     * @param binary
+     *            new value for 'binary '
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
+
 }
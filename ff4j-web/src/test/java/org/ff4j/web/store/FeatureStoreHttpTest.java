@@ -106,4 +106,38 @@ public class FeatureStoreHttpTest extends AbstractStoreJUnitTest {
         jt.tearDown();
     }
 
+    /**
+     * TDD.
+     */
+    @Test
+    public void testReadBinary() {
+        // Given
+        FeatureStoreHttp binaryStore = new FeatureStoreHttp("http://localhost:9998/ff4j");
+        binaryStore.setBinary(true);
+        // When
+        Feature f1 = binaryStore.read(F1);
+        // Then
+        Feature expected = testedStore.read(F1);
+        org.junit.Assert.assertEquals(expected.getUid(), f1.getUid());
+        org.junit.Assert.assertEquals(expected.isEnable(), f1.isEnable());
+        org.junit.Assert.assertEquals(expected.getPermissions(), f1.getPermissions());
+    }
+
+    /**
+     * TDD.
+     */
+    @Test
+    public void testReadWithoutAcceptHeaderIsJson() {
+        // Given
+        com.sun.jersey.api.client.Client client = com.sun.jersey.api.client.Client.create();
+        // When
+        com.sun.jersey.api.client.ClientResponse cRes = client.resource("http://localhost:9998/ff4j/store/features/" + F1)
+                .get(com.sun.jersey.api.client.ClientResponse.class);
+        // Then
+        org.junit.Assert.assertEquals(200, cRes.getStatus());
+        org.junit.Assert.assertTrue(cRes.getType().isCompatible(javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE));
+        org.junit.Assert.assertEquals(F1, org.ff4j.utils.FeatureJsonMarshaller.unMarshallFeature(cRes.getEntity(String.class))
+                .getUid());
+    }
+
 }